@@ -0,0 +1,157 @@
+-- Comparación de la consulta de pendientes anterior (NVL sobre los filtros y unión con categorías)
+-- con la consulta por categoría que genera DBService, sobre una tabla de prueba grande.
+--
+-- Ejecutar con SQL*Plus o SQLcl en un esquema de pruebas:
+--   sqlplus usuario/clave@//host:1521/servicio @sql/benchmark_consulta_pendientes.sql
+--
+-- Crea bm_notificaciones (5 millones de filas, 2% pendientes) y bm_categorias (8 categorías de
+-- 3 clasificaciones) y las elimina al final.
+
+SET TIMING ON
+SET LINESIZE 200
+SET PAGESIZE 200
+SET SERVEROUTPUT ON
+
+CREATE TABLE bm_categorias (
+  id_categoria   NUMBER PRIMARY KEY,
+  clasificacion  VARCHAR2(50),
+  prioridad      NUMBER
+);
+
+INSERT INTO bm_categorias
+SELECT LEVEL, CASE MOD(LEVEL, 3) WHEN 0 THEN 'OTP' WHEN 1 THEN 'TRANSACCIONAL' ELSE 'PROMOCION' END,
+       CASE WHEN MOD(LEVEL, 4) = 0 THEN NULL ELSE LEVEL END
+  FROM dual CONNECT BY LEVEL <= 8;
+
+CREATE TABLE bm_notificaciones (
+  id_notificacion          NUMBER PRIMARY KEY,
+  token_notificacion       VARCHAR2(300),
+  titulo                   VARCHAR2(100),
+  contenido                VARCHAR2(500),
+  plataforma               VARCHAR2(1),
+  datos_extra              VARCHAR2(1000),
+  cantidad_intentos_envio  NUMBER,
+  id_categoria             NUMBER,
+  estado                   VARCHAR2(1),
+  fecha_insercion          TIMESTAMP
+);
+
+INSERT /*+ APPEND */ INTO bm_notificaciones
+SELECT n,
+       RPAD('token', 160, 'x'),
+       'Titulo ' || n,
+       RPAD('Contenido', 200, 'x'),
+       CASE MOD(n, 2) WHEN 0 THEN 'A' ELSE 'H' END,
+       NULL,
+       0,
+       MOD(n, 8) + 1,
+       CASE WHEN MOD(n, 50) = 0 THEN 'P' ELSE 'E' END,
+       SYSTIMESTAMP - NUMTODSINTERVAL(5000000 - n, 'SECOND')
+  FROM (SELECT (a.n - 1) * 5000 + b.n n
+          FROM (SELECT LEVEL n FROM dual CONNECT BY LEVEL <= 1000) a,
+               (SELECT LEVEL n FROM dual CONNECT BY LEVEL <= 5000) b);
+COMMIT;
+
+CREATE INDEX bm_ix_pendientes ON bm_notificaciones (estado, id_categoria, plataforma, id_notificacion);
+
+EXEC DBMS_STATS.GATHER_TABLE_STATS(USER, 'BM_NOTIFICACIONES', cascade => TRUE);
+EXEC DBMS_STATS.GATHER_TABLE_STATS(USER, 'BM_CATEGORIAS', cascade => TRUE);
+
+VARIABLE estado VARCHAR2(1)
+VARIABLE plataforma VARCHAR2(1)
+VARIABLE clasificacion VARCHAR2(50)
+VARIABLE limite NUMBER
+EXEC :estado := 'P'; :plataforma := 'A'; :clasificacion := 'OTP'; :limite := 100;
+
+PROMPT ==== Consulta anterior ====
+
+SELECT /*+ GATHER_PLAN_STATISTICS */ COUNT(*) FROM (
+SELECT id_notificacion, token_notificacion, titulo, contenido, plataforma, datos_extra,
+       NVL(b.cantidad_intentos_envio, 0) cantidad_intentos_envio, c.clasificacion,
+       b.fecha_insercion, CAST(SYSTIMESTAMP AS TIMESTAMP) fecha_actual
+  FROM bm_notificaciones b
+  JOIN bm_categorias c
+    ON b.id_categoria = c.id_categoria
+ WHERE b.estado = :estado
+   AND b.plataforma = nvl(:plataforma, b.plataforma)
+   AND c.clasificacion = nvl(:clasificacion, c.clasificacion)
+ ORDER BY NVL(c.prioridad, 997), b.id_notificacion
+ FETCH FIRST NVL(:limite, 100) ROWS ONLY);
+
+SELECT * FROM TABLE(DBMS_XPLAN.DISPLAY_CURSOR(NULL, NULL, 'ALLSTATS LAST'));
+
+PROMPT ==== Consulta por categoria (OTP: categorias 3 y 6) ====
+
+SELECT /*+ GATHER_PLAN_STATISTICS */ COUNT(*) FROM (
+SELECT p.*, CAST(SYSTIMESTAMP AS TIMESTAMP) fecha_actual
+  FROM (
+        SELECT * FROM (
+          SELECT b.id_notificacion, b.token_notificacion, b.titulo, b.contenido, b.plataforma, b.datos_extra,
+                 NVL(b.cantidad_intentos_envio, 0) cantidad_intentos_envio, 'OTP' clasificacion, 3 prioridad,
+                 b.fecha_insercion
+            FROM bm_notificaciones b
+           WHERE b.estado = :estado
+             AND b.plataforma = :plataforma
+             AND b.id_categoria = 3
+           ORDER BY b.id_notificacion
+           FETCH FIRST :limite ROWS ONLY)
+        UNION ALL
+        SELECT * FROM (
+          SELECT b.id_notificacion, b.token_notificacion, b.titulo, b.contenido, b.plataforma, b.datos_extra,
+                 NVL(b.cantidad_intentos_envio, 0) cantidad_intentos_envio, 'OTP' clasificacion, 6 prioridad,
+                 b.fecha_insercion
+            FROM bm_notificaciones b
+           WHERE b.estado = :estado
+             AND b.plataforma = :plataforma
+             AND b.id_categoria = 6
+           ORDER BY b.id_notificacion
+           FETCH FIRST :limite ROWS ONLY)
+       ) p
+ ORDER BY p.prioridad, p.id_notificacion
+ FETCH FIRST :limite ROWS ONLY);
+
+SELECT * FROM TABLE(DBMS_XPLAN.DISPLAY_CURSOR(NULL, NULL, 'ALLSTATS LAST'));
+
+PROMPT ==== Latencia promedio de 200 ejecuciones ====
+
+DECLARE
+  v_inicio  NUMBER;
+  v_filas   NUMBER;
+BEGIN
+  v_inicio := DBMS_UTILITY.GET_TIME;
+  FOR i IN 1 .. 200 LOOP
+    SELECT COUNT(*) INTO v_filas FROM (
+      SELECT b.id_notificacion
+        FROM bm_notificaciones b
+        JOIN bm_categorias c
+          ON b.id_categoria = c.id_categoria
+       WHERE b.estado = :estado
+         AND b.plataforma = nvl(:plataforma, b.plataforma)
+         AND c.clasificacion = nvl(:clasificacion, c.clasificacion)
+       ORDER BY NVL(c.prioridad, 997), b.id_notificacion
+       FETCH FIRST NVL(:limite, 100) ROWS ONLY);
+  END LOOP;
+  DBMS_OUTPUT.PUT_LINE('Anterior: ' || ((DBMS_UTILITY.GET_TIME - v_inicio) * 10 / 200) || ' ms por consulta');
+
+  v_inicio := DBMS_UTILITY.GET_TIME;
+  FOR i IN 1 .. 200 LOOP
+    SELECT COUNT(*) INTO v_filas FROM (
+      SELECT p.id_notificacion
+        FROM (
+              SELECT * FROM (SELECT b.id_notificacion, 3 prioridad FROM bm_notificaciones b
+                              WHERE b.estado = :estado AND b.plataforma = :plataforma AND b.id_categoria = 3
+                              ORDER BY b.id_notificacion FETCH FIRST :limite ROWS ONLY)
+              UNION ALL
+              SELECT * FROM (SELECT b.id_notificacion, 6 prioridad FROM bm_notificaciones b
+                              WHERE b.estado = :estado AND b.plataforma = :plataforma AND b.id_categoria = 6
+                              ORDER BY b.id_notificacion FETCH FIRST :limite ROWS ONLY)
+             ) p
+       ORDER BY p.prioridad, p.id_notificacion
+       FETCH FIRST :limite ROWS ONLY);
+  END LOOP;
+  DBMS_OUTPUT.PUT_LINE('Por categoria: ' || ((DBMS_UTILITY.GET_TIME - v_inicio) * 10 / 200) || ' ms por consulta');
+END;
+/
+
+DROP TABLE bm_notificaciones PURGE;
+DROP TABLE bm_categorias PURGE;
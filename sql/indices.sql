@@ -0,0 +1,38 @@
+-- Índices recomendados para risk-push sobre t_notificaciones.
+--
+-- Consulta de pendientes: una rama por categoría con igualdad en estado, categoría y plataforma,
+-- ordenada por id_notificacion. Con este índice cada rama es un INDEX RANGE SCAN con COUNT STOPKEY
+-- que lee solo las filas del lote, sin ordenar todos los pendientes.
+CREATE INDEX ix_notificaciones_pendientes
+    ON t_notificaciones (estado, id_categoria, plataforma, id_notificacion);
+
+-- Opcional: servicios sin filtro de plataforma. Sin este índice, cada rama ordena los pendientes
+-- de su categoría antes de aplicar el límite.
+-- CREATE INDEX ix_notificaciones_pend_categoria
+--     ON t_notificaciones (estado, id_categoria, id_notificacion);
+
+-- Concesiones (concesiones.habilitado: true). Solo contienen las notificaciones en envío (estado N),
+-- por lo que se mantienen pequeños aunque la tabla tenga millones de filas enviadas.
+CREATE INDEX ix_notificaciones_vencimiento
+    ON t_notificaciones (CASE WHEN estado = 'N' THEN vencimiento_envio END);
+CREATE INDEX ix_notificaciones_propietario
+    ON t_notificaciones (CASE WHEN estado = 'N' THEN propietario_envio END);
+
+-- Archivo (archivo.habilitado: true). Solo contiene las notificaciones finalizadas (E, R, A), por su
+-- antigüedad; la consulta del archivo repite la misma expresión. Plan esperado por tramo:
+--   COUNT STOPKEY / FOR UPDATE / TABLE ACCESS BY INDEX ROWID / INDEX RANGE SCAN ix_notificaciones_archivo
+-- que lee solo las filas del tramo, desde las más antiguas.
+CREATE INDEX ix_notificaciones_archivo
+    ON t_notificaciones (CASE WHEN estado IN ('E', 'R', 'A') THEN NVL(fecha_envio, fecha_insercion) END);
+
+-- Tabla de histórico con las columnas que copia el archivo, por nombre.
+-- CREATE TABLE t_notificaciones_historico AS
+-- SELECT id_notificacion, id_categoria, token_notificacion, titulo, contenido, plataforma, datos_extra,
+--        estado, cantidad_intentos_envio, codigo_respuesta_envio, respuesta_envio, id_externo_envio,
+--        fecha_insercion, fecha_envio
+--   FROM t_notificaciones
+--  WHERE 1 = 0;
+
+-- Registro de intentos (intentos.habilitado: true). Solo contiene los intentos sin conciliar.
+CREATE INDEX ix_intentos_pendientes
+    ON t_notificaciones_intentos (CASE WHEN fecha_conciliacion IS NULL THEN id_intento END);
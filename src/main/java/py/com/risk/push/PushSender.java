@@ -9,25 +9,43 @@ import com.google.firebase.messaging.Notification;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.ThreadContext;
 
 import py.com.risk.push.bd.DBService;
 import py.com.risk.push.config.PushConfig;
+import py.com.risk.push.dispatch.DispatchLane;
+import py.com.risk.push.dispatch.Dispatcher;
 import py.com.risk.push.firebase.FirebaseHttpClient;
 import py.com.risk.push.firebase.FirebasePayloadBuilder;
 import py.com.risk.push.huawei.HuaweiPushClient;
+import py.com.risk.push.jfr.EncodeEvent;
+import py.com.risk.push.jfr.ResultEvent;
+import py.com.risk.push.jfr.SendEvent;
+import py.com.risk.push.log.LogMarkers;
+import py.com.risk.push.log.MuestreoMensajesFilter;
+import py.com.risk.push.metrics.ClassificationMetrics;
+import py.com.risk.push.metrics.MetricsRegistry;
+import py.com.risk.push.metrics.ProviderMetrics;
+import py.com.risk.push.metrics.ServiceMetrics;
 import py.com.risk.push.model.ModoEnvioLote;
 import py.com.risk.push.model.Plataforma;
 import py.com.risk.push.model.PushClient;
 import py.com.risk.push.model.PushMessage;
 import py.com.risk.push.model.PushMessage.Status;
-import py.com.risk.push.util.ContextAwareThreadFactory;
+import py.com.risk.push.quota.ClusterQuota;
+import py.com.risk.push.quota.QuotaRegistry;
+import py.com.risk.push.util.ContextSnapshot;
+import py.com.risk.push.util.Deadline;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLTimeoutException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Encargado de enviar mensajes push a múltiples plataformas (Firebase, Huawei).
@@ -42,11 +60,11 @@ public class PushSender {
 
     private static final Logger logger = LogManager.getLogger(PushSender.class);
 
-    /** Executor para envíos paralelos sin retardo */
-    private final ExecutorService executor = Executors.newFixedThreadPool(20, new ContextAwareThreadFactory());
-
-    /** Executor programado para envíos espaciados */
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1, new ContextAwareThreadFactory());
+    /**
+     * Cola del servicio en el despachador compartido. Los hilos del despachador no tienen contexto propio:
+     * cada mensaje lleva el {@link ContextSnapshot} del lote que lo envió.
+     */
+    private final DispatchLane lane;
 
     /** Mapa de plataformas soportadas (FCM, HMS) a su respectivo cliente de envío */
     private final Map<Plataforma, PushClient> pushClients;
@@ -54,9 +72,42 @@ public class PushSender {
     /** Servicio de base de datos utilizado para consultar y actualizar mensajes */
     private final DBService dbService;
 
+    /**
+     * Aplicación de Firebase del servicio, con nombre propio para que cada servicio use sus credenciales y
+     * su {@code tiempoMaximoEnvioMs}; {@code null} si el servicio no tiene credenciales de Firebase
+     */
+    private final FirebaseApp firebaseApp;
+
     /** Retardo por defecto entre mensajes en modos espaciados (en milisegundos) */
     private static final long DEFAULT_DELAY_MS = 500;
 
+    /** Clave del ThreadContext con el identificador del mensaje en curso */
+    private static final String ID_MENSAJE = "idMensaje";
+
+    /** Código de respuesta registrado cuando el envío excede su plazo (fallo reintentable) */
+    private static final String CODIGO_TIMEOUT = "TIMEOUT";
+
+    /** Plazo máximo asignado a cada mensaje desde su despacho (en milisegundos) */
+    private final long tiempoMaximoEnvioMs;
+
+    /** Métricas del servicio (latencias, resultados por proveedor, cola y envíos en curso) */
+    private final ServiceMetrics metricas;
+
+    /** Objetivo de entrega desde la creación del registro (en milisegundos), 0 sin control */
+    private volatile long sloEntregaMs;
+
+    /** Mensajes recibidos por {@link #sendMessages} cuyo envío aún no finalizó (encolados o en curso) */
+    private final AtomicInteger pendientes = new AtomicInteger();
+
+    /** Hilo del bucle del servicio esperando capacidad para bloquear un nuevo lote, o null */
+    private volatile Thread esperandoCapacidad;
+
+    /** Cantidad de pendientes a la que se despierta al hilo que espera capacidad */
+    private volatile int umbralCapacidad;
+
+    /** Intervalo de verificación mientras se espera el drenado de los envíos pendientes */
+    private static final long ESPERA_DRENADO_MS = 100;
+
     /**
      * Constructor principal de PushSender.
      * 
@@ -68,28 +119,43 @@ public class PushSender {
      * @throws IOException si ocurre un error al leer las credenciales
      */
     public PushSender(DBService dbService, PushConfig config, FirebaseHttpClient firebaseHttpClient, HuaweiPushClient huaweiPushClient) throws FileNotFoundException, IOException {
+        // Se resuelve antes de crear la cola, para no registrarla si la cuota no existe
+        final ClusterQuota cuota = QuotaRegistry.get(config.getCuota());
         this.dbService = dbService;
         this.pushClients = new HashMap<>();
-
-        // Inicializa Firebase si no se hizo previamente
-        if(config.getFirebase() != null && config.getFirebase().getServiceAccountPath() != null) {
-            FirebaseOptions options = FirebaseOptions.builder()
-                    .setCredentials(GoogleCredentials.fromStream(new FileInputStream(config.getFirebase().getServiceAccountPath())))
-                    .build();
-
-            if (FirebaseApp.getApps().isEmpty()) {
-                FirebaseApp.initializeApp(options);
-            }
+        this.tiempoMaximoEnvioMs = config.getTiempoMaximoEnvioMs();
+        this.sloEntregaMs = config.getSloEntregaMs();
+        this.lane = Dispatcher.get().lane(config.getNombre(), this::dispatchMessage,
+                Math.max(config.getMaximoEnVuelo(), config.getCantidadMaximaPorLote()),
+                config.getPeso(), config.getHilosGarantizados(), config.getConcurrencia());
+        this.lane.setPlazosEntrega(config.getPlazosEntregaMs(), sloEntregaMs);
+        this.lane.setCuota(cuota);
+        this.metricas = MetricsRegistry.servicio(config.getNombre());
+        this.metricas.setColaEjecutor(lane::getEncoladas);
+        this.metricas.setEnVuelo(pendientes::get);
+        MuestreoMensajesFilter.setTasa(config.getNombre(), config.getMuestreoLogMensajes());
+
+        // Aplicación de Firebase propia del servicio, con sus credenciales y su plazo de envío
+        if (config.getFirebase() != null && config.getFirebase().getServiceAccountPath() != null) {
+            this.firebaseApp = initFirebaseApp(config.getNombre(), config.getFirebase().getServiceAccountPath(),
+                    (int) tiempoMaximoEnvioMs);
+        } else {
+            this.firebaseApp = null;
         }
 
         // Registro del cliente FCM
-        this.pushClients.put(Plataforma.FCM, msg -> {
+        this.pushClients.put(Plataforma.FCM, (msg, deadline) -> {
             if (msg.getDatosExtra() != null && !msg.getDatosExtra().isEmpty() && isComplexPayload(msg.getDatosExtra())) {
-                logger().debug("Usando Firebase HTTP por datos_extra complejo");
+                logger.debug("Usando Firebase HTTP por datos_extra complejo");
+                EncodeEvent encodeEvent = new EncodeEvent();
+                encodeEvent.begin();
                 String jsonBody = FirebasePayloadBuilder.buildHttpJsonPayload(msg);
-                return firebaseHttpClient.sendPush(jsonBody);
+                commitEncode(encodeEvent, msg, jsonBody);
+                return firebaseHttpClient.sendPush(jsonBody, deadline);
             } else {
-                logger().debug("Usando Firebase Admin SDK");
+                logger.debug("Usando Firebase Admin SDK");
+                EncodeEvent encodeEvent = new EncodeEvent();
+                encodeEvent.begin();
                 Message message = Message.builder()
                         .setToken(msg.getToken())
                         .setNotification(Notification.builder()
@@ -97,7 +163,8 @@ public class PushSender {
                                 .setBody(msg.getCuerpo())
                                 .build())
                         .build();
-                return FirebaseMessaging.getInstance().send(message);
+                commitEncode(encodeEvent, msg, msg.getTitulo(), msg.getCuerpo());
+                return sendWithDeadline(message, deadline);
             }
         });
 
@@ -106,70 +173,87 @@ public class PushSender {
     }
 
     /**
-     * Envía una lista de mensajes en el modo de envío especificado.
+     * Envía una lista de mensajes en el modo de envío especificado, con el retardo por defecto.
      * 
      * @param modoEnvio modo de ejecución (paralelo, secuencial, etc.)
      * @param messages lista de mensajes a enviar
      */
     public void sendMessages(ModoEnvioLote modoEnvio, List<PushMessage> messages) {
-        long delayMs = DEFAULT_DELAY_MS;
-
-        switch (modoEnvio) {
-            case paralelo:
-                String count = ThreadContext.get("contador");
-                messages.forEach(msg -> executor.submit(() -> sendSingleMessage(msg, count)));
-                break;
-            case paralelo_espaciado:
-                new ParallelWithDelaySender(messages, delayMs).start();
-                break;
-            case secuencial_espaciado:
-                try {
-                    sendMessagesSequentialWithDelayAsync(messages, delayMs).get();
-                } catch (Exception e) {
-                    Thread.currentThread().interrupt();
-                }
-                break;
-            case secuencial_espaciado_async:
-                sendMessagesSequentialWithDelayAsync(messages, delayMs);
-                break;
-            default:
-                sendMessagesSequentialWithDelayAsync(messages, delayMs);
-        }
+        sendMessages(modoEnvio, messages, DEFAULT_DELAY_MS);
     }
 
     /**
-     * Envía mensajes de forma secuencial con retardo asincrónico entre cada envío.
+     * Envía una lista de mensajes en el modo de envío especificado.
+     * Los mensajes se encolan en el despachador compartido, que aplica el ritmo del modo; solo
+     * {@link ModoEnvioLote#secuencial_espaciado} espera a que finalice el lote.
+     * 
+     * @param modoEnvio modo de ejecución (paralelo, secuencial, etc.)
+     * @param messages lista de mensajes a enviar
+     * @param delayMs retardo entre mensajes en los modos espaciados (en milisegundos)
      */
-    private CompletableFuture<Void> sendMessagesSequentialWithDelayAsync(List<PushMessage> messages, long delayMs) {
-        CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+    public void sendMessages(ModoEnvioLote modoEnvio, List<PushMessage> messages, long delayMs) {
+        // Contexto del lote (servicio, contador), capturado una sola vez y reutilizado por cada mensaje
+        ContextSnapshot contexto = ContextSnapshot.capture();
+        pendientes.addAndGet(messages.size());
         long delay = delayMs > 0 ? delayMs : DEFAULT_DELAY_MS;
 
-        String count = ThreadContext.get("contador");
-        for (PushMessage msg : messages) {
-            future = future.thenRunAsync(() -> sendSingleMessage(msg, count), executor)
-                           .thenCompose(v -> delayAsync(delay));
+        if (modoEnvio == ModoEnvioLote.secuencial_espaciado) {
+            CountDownLatch finalizados = new CountDownLatch(messages.size());
+            lane.submit(messages, contexto, finalizados, modoEnvio, delay);
+            try {
+                finalizados.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            lane.submit(messages, contexto, null, modoEnvio, delay);
         }
-        return future;
     }
 
     /**
-     * Devuelve un future que se completa luego de cierto retardo.
+     * Encola un mensaje individual ya bloqueado, sin esperar su envío. Se utiliza para las notificaciones
+     * recibidas por el endpoint de ingreso, que no pasan por la consulta del servicio.
+     *
+     * @param modoEnvio modo de envío vigente del servicio
+     * @param msg mensaje a enviar
+     * @param delayMs retardo entre mensajes en los modos espaciados (en milisegundos)
      */
-    private CompletableFuture<Void> delayAsync(long delayMs) {
-        CompletableFuture<Void> delayFuture = new CompletableFuture<>();
-        scheduler.schedule(() -> delayFuture.complete(null), delayMs, TimeUnit.MILLISECONDS);
-        return delayFuture;
+    public void enqueue(ModoEnvioLote modoEnvio, PushMessage msg, long delayMs) {
+        ContextSnapshot contexto = ContextSnapshot.capture();
+        pendientes.incrementAndGet();
+        try {
+            lane.submit(List.of(msg), contexto, null, modoEnvio, delayMs > 0 ? delayMs : DEFAULT_DELAY_MS);
+        } catch (RuntimeException e) {
+            pendientes.decrementAndGet();
+            throw e;
+        }
     }
 
     /**
-     * Envía un mensaje individual y actualiza el estado en la base de datos.
+     * Envía un mensaje tomado de la cola del despachador, con el contexto de su lote y su {@code idMensaje}.
      */
-    private void sendSingleMessage(PushMessage msg, String count) {
-        ThreadContext.put("contador", count);
-        ThreadContext.put("idMensaje", String.valueOf(msg.getIdMensaje()));
+    private void dispatchMessage(PushMessage msg, ContextSnapshot contexto) {
+        Map<String, String> anterior = contexto.attach(ID_MENSAJE, String.valueOf(msg.getIdMensaje()));
+        try {
+            sendSingleMessage(msg);
+        } finally {
+            ContextSnapshot.detach(anterior);
+        }
+    }
 
+    /**
+     * Envía un mensaje individual y actualiza el estado en la base de datos.
+     * Se ejecuta desde {@link #dispatchMessage}, que ya instaló el contexto del mensaje.
+     */
+    private void sendSingleMessage(PushMessage msg) {
+        final Deadline deadline = Deadline.after(tiempoMaximoEnvioMs);
+        final ProviderMetrics proveedor = metricas.proveedor(msg.getPlataforma());
+        final ClassificationMetrics entrega = MetricsRegistry.clasificacion(msg.getClasificacion());
+        msg.setDespachadoMs(System.currentTimeMillis());
+        entrega.recordDespacho(msg);
+        metricas.inicioEnvio();
         try {
-            logger().info("Enviando mensaje push a token [{}]: {}", msg.getToken(), msg.getCuerpo());
+            logger.info(LogMarkers.MENSAJE, "Enviando mensaje push a token [{}]: {}", msg.getToken(), msg.getCuerpo());
             //dbService.updateMessageStatus(msg.getIdMensaje(), Status.EN_PROCESO_ENVIO, null, null, null);
 
             Plataforma plataforma = msg.getPlataforma();
@@ -177,100 +261,334 @@ public class PushSender {
 
             if (client == null) {
                 String error = "Plataforma de push no soportado: " + plataforma;
-                logger().error(error);
-                dbService.updateMessageStatus(msg.getIdMensaje(), Status.PENDIENTE_ENVIO, "ERROR", error, null);
+                logger.error(error);
+                updateStatus(msg, Status.PENDIENTE_ENVIO, "ERROR", error, null);
                 return;
             }
 
-            String response = client.send(msg);
+            if (msg.getIntentosPrevios() > 0) {
+                proveedor.reintento();
+            }
+            String response;
+            long inicio = System.nanoTime();
+            SendEvent sendEvent = new SendEvent();
+            sendEvent.begin();
+            try {
+                response = client.send(msg, deadline);
+            } catch (Exception e) {
+                commitSend(sendEvent, msg, isTimeout(e) ? CODIGO_TIMEOUT : "ERROR");
+                throw e;
+            } finally {
+                proveedor.recordEnvio(System.nanoTime() - inicio);
+            }
+            commitSend(sendEvent, msg, "OK");
+            proveedor.exito();
+            msg.setAceptadoMs(System.currentTimeMillis());
+            entrega.recordAceptacion(msg, sloEntregaMs);
 
-            logger().info("Mensaje enviado correctamente. Response: {}", response);
-            dbService.updateMessageStatus(msg.getIdMensaje(), Status.ENVIADO, "OK", null, response);
+            logger.info(LogMarkers.MENSAJE, "Mensaje enviado correctamente. Response: {}", response);
+            updateStatus(msg, Status.ENVIADO, "OK", null, response);
 
         } catch (Exception e) {
-            logger().error("Error al enviar mensaje push: {}", e.getMessage(), e);
-            dbService.updateMessageStatus(msg.getIdMensaje(), Status.PENDIENTE_ENVIO, "ERROR", e.getMessage(), null);
+            if (isTimeout(e)) {
+                proveedor.timeout();
+                logger.warn("Plazo de envío de [{}] ms excedido, se reintentará. Timeouts [{}]: [{}]. Detalle: {}",
+                        tiempoMaximoEnvioMs, msg.getPlataforma(), getTimeoutCount(msg.getPlataforma()), e.getMessage());
+                updateStatus(msg, Status.PENDIENTE_ENVIO, CODIGO_TIMEOUT, e.getMessage(), null);
+            } else {
+                proveedor.error();
+                logger.error("Error al enviar mensaje push: {}", e.getMessage(), e);
+                updateStatus(msg, Status.PENDIENTE_ENVIO, "ERROR", e.getMessage(), null);
+            }
         } finally {
-            ThreadContext.remove("idMensaje");
-            ThreadContext.remove("contador");
+            metricas.finEnvio();
+            Thread esperando = esperandoCapacidad;
+            if (pendientes.decrementAndGet() <= umbralCapacidad && esperando != null) {
+                LockSupport.unpark(esperando);
+            }
         }
     }
 
     /**
-     * Clase auxiliar que envía mensajes en paralelo con un retardo entre cada envío.
+     * Registra el resultado de un envío en la base de datos, midiendo la latencia de la actualización.
+     * La actualización tiene su propio límite ({@code queryTimeout}) y no el plazo del envío: un envío
+     * aceptado cerca del vencimiento del plazo debe registrarse igual, para no volver a enviarse.
      */
-    private class ParallelWithDelaySender {
-        private final Iterator<PushMessage> iterator;
-        private final long delayMs;
-        private ScheduledFuture<?> future;
-
-        public ParallelWithDelaySender(List<PushMessage> messages, long delayMs) {
-            this.iterator = messages.iterator();
-            this.delayMs = delayMs;
+    private void updateStatus(PushMessage msg, Status estado, String codigo, String respuesta, String idExterno) {
+        long inicio = System.nanoTime();
+        ResultEvent resultEvent = new ResultEvent();
+        resultEvent.begin();
+        dbService.updateMessageStatus(msg.getIdMensaje(), estado, codigo, respuesta, idExterno);
+        resultEvent.end();
+        metricas.recordActualizacionBd(System.nanoTime() - inicio);
+        msg.setPersistidoMs(System.currentTimeMillis());
+        if (resultEvent.shouldCommit()) {
+            resultEvent.captureContext();
+            resultEvent.setIdMensaje(msg.getIdMensaje().longValue());
+            resultEvent.setProveedor(String.valueOf(msg.getPlataforma()));
+            resultEvent.setEstado(estado.getCode());
+            resultEvent.setCodigo(codigo);
+            resultEvent.commit();
         }
+    }
 
-        public void start() {
-            String count = ThreadContext.get("contador");
-            future = scheduler.scheduleWithFixedDelay(() -> {
-                if (iterator.hasNext()) {
-                    sendSingleMessage(iterator.next(), count);
-                } else {
-                    future.cancel(false);
-                }
-            }, 0, delayMs, TimeUnit.MILLISECONDS);
+    /**
+     * Registra el evento JFR de envío de un mensaje, si está habilitado.
+     */
+    private static void commitSend(SendEvent event, PushMessage msg, String resultado) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.captureContext();
+            event.setIdMensaje(msg.getIdMensaje().longValue());
+            event.setProveedor(String.valueOf(msg.getPlataforma()));
+            event.setResultado(resultado);
+            event.commit();
         }
     }
 
     /**
-     * Detiene los ejecutores de envío.
+     * Registra el evento JFR de construcción de payload, si está habilitado.
+     * El tamaño se calcula en bytes UTF-8 de las partes indicadas.
      */
-    public void shutdown() {
-        executor.shutdown();
-        scheduler.shutdown();
+    private static void commitEncode(EncodeEvent event, PushMessage msg, String... partes) {
+        event.end();
+        if (event.shouldCommit()) {
+            int tamano = 0;
+            for (String parte : partes) {
+                tamano += parte != null ? parte.getBytes(StandardCharsets.UTF_8).length : 0;
+            }
+            event.captureContext();
+            event.setIdMensaje(msg.getIdMensaje().longValue());
+            event.setProveedor(String.valueOf(msg.getPlataforma()));
+            event.setTamanoPayload(tamano);
+            event.commit();
+        }
     }
 
     /**
-     * Determina si el contenido de datos_extra representa una carga compleja
-     * que requiere el uso del cliente HTTP.
+     * Modifica la cantidad máxima de envíos simultáneos del servicio. Los envíos en curso no se interrumpen.
+     *
+     * @param concurrencia máximo de envíos simultáneos
      */
-    private boolean isComplexPayload(String datosExtra) {
-        if (datosExtra == null || datosExtra.trim().isEmpty()) return false;
-        return datosExtra.contains("apns") || datosExtra.contains("android") || datosExtra.contains("notification");
+    public void setConcurrencia(int concurrencia) {
+        lane.setConcurrencia(concurrencia);
     }
 
     /**
-     * Retorna el logger con la clase actual como contexto.
+     * Modifica el peso del servicio en el reparto de hilos del despachador.
+     *
+     * @param peso peso relativo respecto de los demás servicios
      */
-    private org.apache.logging.log4j.Logger logger() {
-        return org.apache.logging.log4j.LogManager.getLogger(PushSender.class);
+    public void setPeso(int peso) {
+        lane.setPeso(peso);
     }
 
     /**
-     * Inicializa manualmente Firebase desde una ruta, si es necesario.
+     * Modifica la cantidad de hilos del despachador reservados para el servicio.
+     *
+     * @param hilosGarantizados hilos reservados
      */
-    public static void initFirebase(String path) throws Exception {
-        PushSenderSingleton.getInstance().initFirebase(path);
+    public void setHilosGarantizados(int hilosGarantizados) {
+        lane.setHilosGarantizados(hilosGarantizados);
     }
 
     /**
-     * Singleton para inicialización única de Firebase.
+     * Modifica el objetivo de entrega aplicado a los mensajes despachados desde este momento.
+     *
+     * @param sloEntregaMs objetivo en milisegundos, 0 sin control
      */
-    private static class PushSenderSingleton {
-        private static final PushSenderSingleton INSTANCE = new PushSenderSingleton();
+    public void setSloEntregaMs(long sloEntregaMs) {
+        this.sloEntregaMs = sloEntregaMs;
+    }
+
+    /**
+     * Modifica los plazos de entrega por clasificación que ordenan los próximos mensajes encolados.
+     * Las clasificaciones sin plazo propio usan el objetivo de entrega del servicio.
+     *
+     * @param plazosEntregaMs plazo de entrega por clasificación (en milisegundos)
+     */
+    public void setPlazosEntrega(Map<String, Long> plazosEntregaMs) {
+        lane.setPlazosEntrega(plazosEntregaMs, sloEntregaMs);
+    }
+
+    /**
+     * Devuelve la cantidad de mensajes recibidos cuyo envío aún no finalizó.
+     *
+     * @return mensajes encolados o en curso
+     */
+    public int getPendientes() {
+        return pendientes.get();
+    }
 
-        public static PushSenderSingleton getInstance() {
-            return INSTANCE;
+    /**
+     * Espera a que la cantidad de mensajes pendientes baje hasta el umbral indicado (marca baja),
+     * despertando en cuanto finaliza el envío que la alcanza.
+     *
+     * @param umbral cantidad de pendientes con la que se considera que hay capacidad
+     * @param timeoutMs espera máxima en milisegundos
+     * @return {@code true} si los pendientes están en o por debajo del umbral
+     */
+    public boolean awaitCapacity(int umbral, long timeoutMs) {
+        if (pendientes.get() <= umbral) {
+            return true;
+        }
+        umbralCapacidad = umbral;
+        esperandoCapacidad = Thread.currentThread();
+        try {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            long restante;
+            while (pendientes.get() > umbral && (restante = limite - System.nanoTime()) > 0
+                    && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(this, restante);
+            }
+        } finally {
+            esperandoCapacidad = null;
         }
+        return pendientes.get() <= umbral;
+    }
 
-        public static void initFirebase(String path) throws Exception {
-            if (FirebaseApp.getApps().isEmpty()) {
-                FileInputStream serviceAccount = new FileInputStream(path);
-                FirebaseOptions options = FirebaseOptions.builder()
-                        .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                        .build();
-                FirebaseApp.initializeApp(options);
-                logger.info("Firebase inicializado correctamente.");
+    /**
+     * Espera a que finalicen los envíos de los lotes ya recibidos, incluidos los que siguen
+     * encolados en el despachador. No se aceptan nuevos lotes mientras tanto
+     * porque el bucle del servicio ya fue detenido.
+     *
+     * @param timeoutMs espera máxima en milisegundos
+     * @return {@code true} si no quedan envíos pendientes
+     * @throws InterruptedException si el hilo es interrumpido durante la espera
+     */
+    public boolean awaitDrain(long timeoutMs) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (pendientes.get() > 0) {
+            if (System.nanoTime() - limite >= 0) {
+                return false;
             }
+            Thread.sleep(ESPERA_DRENADO_MS);
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve a pendiente, en una sola sentencia, los mensajes bloqueados que aún no comenzaron su envío.
+     * Se utiliza al apagar, para que la próxima ejecución (u otra instancia) los envíe sin esperar.
+     *
+     * @return mensajes devueltos
+     */
+    public int returnQueued() {
+        List<PushMessage> retirados = lane.removeQueued();
+        if (retirados.isEmpty()) {
+            return 0;
+        }
+        pendientes.addAndGet(-retirados.size());
+        dbService.updateMessagesStatus(retirados, Status.PENDIENTE_ENVIO);
+        return retirados.size();
+    }
+
+    /**
+     * Drena el servicio al apagar: devuelve a pendiente los mensajes que no comenzaron su envío y espera
+     * a que finalicen los envíos en curso, cuyo resultado se registra en la base, hasta el plazo indicado.
+     *
+     * @param timeoutMs espera máxima en milisegundos
+     * @return {@code true} si no quedan envíos pendientes
+     * @throws InterruptedException si el hilo es interrumpido durante la espera
+     */
+    public boolean drain(long timeoutMs) throws InterruptedException {
+        int devueltos = returnQueued();
+        if (devueltos > 0) {
+            logger.info("[{}] mensajes sin enviar devueltos a pendiente", devueltos);
+        }
+        return awaitDrain(timeoutMs);
+    }
+
+    /**
+     * Cierra la cola del servicio en el despachador. Las tareas ya encoladas se siguen ejecutando.
+     * Registra los resultados de envío pendientes del diario y de los intentos encolados; los resultados
+     * posteriores actualizan la notificación directamente.
+     */
+    public void shutdown() {
+        lane.close();
+        dbService.flushResults();
+    }
+
+    /**
+     * Envía un mensaje mediante Firebase Admin SDK esperando la respuesta como máximo hasta el plazo indicado.
+     * Si el plazo vence, la solicitud en curso se cancela.
+     */
+    private String sendWithDeadline(Message message, Deadline deadline) throws Exception {
+        deadline.checkNotExpired("envío mediante Firebase Admin SDK");
+        if (firebaseApp == null) {
+            throw new IllegalStateException("El servicio no tiene credenciales de Firebase (firebase.serviceAccountPath)");
+        }
+        Future<String> future = FirebaseMessaging.getInstance(firebaseApp).sendAsync(message);
+        try {
+            return future.get(deadline.remainingMillisForTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            // Se propaga la causa original (por ejemplo, FirebaseMessagingException)
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Determina si un error de envío corresponde a un plazo excedido (HTTP, Admin SDK o base de datos).
+     */
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof SocketTimeoutException || t instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Devuelve la cantidad acumulada de envíos que excedieron su plazo para la plataforma indicada.
+     *
+     * @param plataforma plataforma de envío (FCM, HMS)
+     * @return cantidad de timeouts registrados desde el inicio del servicio
+     */
+    public long getTimeoutCount(Plataforma plataforma) {
+        return metricas.proveedor(plataforma).getTimeouts();
+    }
+
+    /**
+     * Determina si el contenido de datos_extra representa una carga compleja
+     * que requiere el uso del cliente HTTP.
+     */
+    private boolean isComplexPayload(String datosExtra) {
+        if (datosExtra == null || datosExtra.trim().isEmpty()) return false;
+        return datosExtra.contains("apns") || datosExtra.contains("android") || datosExtra.contains("notification");
+    }
+
+    /**
+     * Inicializa la aplicación de Firebase de un servicio, con el timeout de conexión y lectura indicado
+     * para las llamadas del Admin SDK. Si ya existe una aplicación con el nombre del servicio, es la de una
+     * ejecución anterior del servicio reiniciado por una recarga de la configuración: se elimina, para que
+     * se apliquen las credenciales y el plazo vigentes.
+     *
+     * @param nombre nombre del servicio, usado como nombre de la aplicación
+     * @param path ruta al archivo de credenciales de la cuenta de servicio
+     * @param timeoutMs timeout de conexión y lectura, en milisegundos
+     * @return aplicación de Firebase del servicio
+     * @throws IOException si ocurre un error al leer las credenciales
+     */
+    private static FirebaseApp initFirebaseApp(String nombre, String path, int timeoutMs) throws IOException {
+        for (FirebaseApp anterior : FirebaseApp.getApps()) {
+            if (anterior.getName().equals(nombre)) {
+                anterior.delete();
+                logger.info("Aplicación de Firebase anterior del servicio eliminada.");
+            }
+        }
+        try (FileInputStream serviceAccount = new FileInputStream(path)) {
+            FirebaseOptions options = FirebaseOptions.builder()
+                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                    .setConnectTimeout(timeoutMs)
+                    .setReadTimeout(timeoutMs)
+                    .build();
+            FirebaseApp app = FirebaseApp.initializeApp(options, nombre);
+            logger.info("Firebase inicializado correctamente, timeout [{}] ms.", timeoutMs);
+            return app;
         }
     }
 }
@@ -1,24 +1,58 @@
 package py.com.risk.push;
 
+import py.com.risk.push.admin.AdminEndpoint;
+import py.com.risk.push.admin.ServiceControl;
+import py.com.risk.push.admin.ServiceControlRegistry;
+import py.com.risk.push.archive.NotificationArchiver;
+import py.com.risk.push.attempt.AttemptReconciler;
 import py.com.risk.push.bd.DBService;
+import py.com.risk.push.cluster.LeaseReaper;
+import py.com.risk.push.cluster.PartitionAssignment;
+import py.com.risk.push.cluster.PartitionManager;
+import py.com.risk.push.dispatch.Dispatcher;
 import py.com.risk.push.config.*;
 import py.com.risk.push.model.ModoEnvioLote;
-import py.com.risk.push.model.Plataforma;
 import py.com.risk.push.model.PushMessage;
 import py.com.risk.push.model.PushMessage.Status;
+import py.com.risk.push.quota.QuotaRegistry;
+import py.com.risk.push.jfr.ClaimEvent;
+import py.com.risk.push.jfr.PollEvent;
+import py.com.risk.push.metrics.MetricsRegistry;
+import py.com.risk.push.metrics.PrometheusEndpoint;
+import py.com.risk.push.metrics.ServiceMetrics;
 import py.com.risk.push.util.ContextAwareThreadFactory;
 import py.com.risk.push.firebase.*;
 import py.com.risk.push.huawei.HuaweiHttpSender;
 import py.com.risk.push.huawei.HuaweiPushClient;
 import py.com.risk.push.huawei.HuaweiTokenManager;
+import py.com.risk.push.ingest.IngestEndpoint;
+import py.com.risk.push.ingest.IngestRegistry;
+import py.com.risk.push.ingest.IngestTarget;
+import py.com.risk.push.wakeup.DbmsAlertWakeUpSource;
+import py.com.risk.push.wakeup.UdpWakeUpSource;
+import py.com.risk.push.wakeup.WakeUpSignal;
+import py.com.risk.push.wakeup.WakeUpSource;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
@@ -48,6 +82,30 @@ public class RiskPushApp {
     /** Bandera global para mantener la aplicación corriendo. */
     private static volatile boolean running = true;
 
+    /** Espera máxima (en milisegundos) entre verificaciones mientras un servicio está pausado. */
+    private static final long ESPERA_PAUSA_MS = 1000;
+
+    /** Ejecutor de los bucles de los servicios, un hilo por servicio. */
+    private static ExecutorService executor;
+
+    /** Configuración del datasource vigente, utilizada por los servicios que se inician. */
+    private static volatile DataSourceConfig dataSourceConfig;
+
+    /** Identificador de esta instancia en la tabla de nodos y en las concesiones de las notificaciones. */
+    private static String idInstancia;
+
+    /** Configuración de las concesiones de las notificaciones en envío. */
+    private static LeaseConfig concesiones = new LeaseConfig();
+
+    /** Configuración del registro de intentos de envío. */
+    private static AttemptLogConfig intentos = new AttemptLogConfig();
+
+    /** Configuración del diario local de resultados de envío. */
+    private static JournalConfig diario = new JournalConfig();
+
+    /** Reparto de notificaciones entre instancias, o {@code null} si la instancia consulta todas. */
+    private static volatile PartitionManager partitionManager;
+
     /** Ruta por defecto al archivo de configuración YAML. */
     private static String propsFilePath = "config/risk-push.yml";
 
@@ -63,55 +121,273 @@ public class RiskPushApp {
         propsFilePath = args.length > 0 ? args[0] : propsFilePath;
 
         final RiskPushConfig config = loadConfig(propsFilePath);
-        final DataSourceConfig ds = config.getDatasource();
+        dataSourceConfig = config.getDatasource();
         List<PushConfig> pushConfigs = config.getPush();
 
-        ExecutorService executor = Executors.newFixedThreadPool(pushConfigs.size(), new ContextAwareThreadFactory());
+        final PrometheusEndpoint metricsEndpoint = startMetricsEndpoint(config.getMetricas());
+        final AdminEndpoint adminEndpoint = startAdminEndpoint(config.getAdmin());
+        final IngestEndpoint ingestEndpoint = startIngestEndpoint(config.getIngesta());
+        final List<WakeUpSource> wakeUpSources = startWakeUpSources(config.getDespertar(), dataSourceConfig);
+        final Dispatcher dispatcher = Dispatcher.start(config.getDespacho().getHilos());
+
+        // Las tareas de coordinación entre instancias comparten un pool de conexiones propio
+        concesiones = config.getConcesiones();
+        idInstancia = config.getCluster().getHabilitado() || concesiones.getHabilitado()
+                ? config.getCluster().getIdNodo() : null;
+        intentos = config.getIntentos();
+        diario = config.getDiario();
+        final DBService tareas = config.getCluster().getHabilitado() || !config.getCuotas().isEmpty() || concesiones.getHabilitado()
+                || config.getArchivo().getHabilitado() || intentos.getHabilitado() ? new DBService(dataSourceConfig) : null;
+        partitionManager = startPartitionManager(config.getCluster(), tareas);
+        startQuotas(config.getCuotas(), tareas, dispatcher);
+        // Los resultados de los diarios y los intentos pendientes se aplican antes de liberar las notificaciones
+        // en envío de la ejecución anterior: si no, una notificación ya enviada volvería a pendiente y se enviaría dos veces
+        replayJournals(diario, tareas);
+        final AttemptReconciler reconciler = startAttemptReconciler(intentos, tareas);
+        final LeaseReaper leaseReaper = startLeaseReaper(concesiones, tareas);
+        final NotificationArchiver archiver = startArchiver(config.getArchivo(), tareas);
+
+        // Un hilo por servicio; el pool crece si la recarga de configuración agrega servicios
+        executor = Executors.newCachedThreadPool(new ContextAwareThreadFactory());
+
+        final ConfigWatcher configWatcher = startConfigWatcher(config);
 
         // Manejo de apagado ordenado
+        final long plazoApagadoMs = config.getPlazoApagadoMs();
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             ThreadContext.put("servicio", "default");
             logger.info("Apagando RiskPushApp...");
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(plazoApagadoMs);
             running = false;
+            if (configWatcher != null) {
+                configWatcher.close();
+            }
+            if (ingestEndpoint != null) {
+                ingestEndpoint.stop();
+            }
+            wakeUpSources.forEach(WakeUpSource::close);
+            drain(limite);
             senderList.forEach(py.com.risk.push.PushSender::shutdown);
-            executor.shutdown();
+            dispatcher.shutdown();
+            QuotaRegistry.close();
+            if (reconciler != null) {
+                reconciler.close();
+            }
+            if (leaseReaper != null) {
+                leaseReaper.close();
+            }
+            if (archiver != null) {
+                archiver.close();
+            }
+            if (partitionManager != null) {
+                partitionManager.close();
+            }
+            if (tareas != null) {
+                tareas.close();
+            }
+            if (metricsEndpoint != null) {
+                metricsEndpoint.stop();
+            }
+            if (adminEndpoint != null) {
+                adminEndpoint.stop();
+            }
             logger.info("RiskPushApp finalizado.");
+            // El hook de Log4j está deshabilitado (log4j2.xml): se detiene aquí, tras el último registro
+            LogManager.shutdown();
         }));
 
         // Crear un hilo para cada servicio configurado
-        pushConfigs.forEach(pushConfig -> {
-            executor.submit(() -> {
-                ThreadContext.put("servicio", pushConfig.getNombre());
-                try {
-                    FirebaseHttpClient firebaseHttpClient = new FirebaseHttpClient(
-                        "banco-atlas-app-ios",
-                        pushConfig.getFirebase().getServiceAccountPath()
-                    );
+        pushConfigs.forEach(RiskPushApp::startService);
+    }
+
+    /**
+     * Drena los servicios al apagar, hasta el límite indicado. Primero deja de bloquear lotes: despierta a
+     * los servicios que esperan entre lotes y devuelve a pendiente los mensajes encolados, con lo que
+     * también terminan los lotes {@code secuencial_espaciado} en curso. Luego, con los bucles finalizados,
+     * devuelve los mensajes de los últimos lotes bloqueados y espera los envíos en curso, cuyo resultado
+     * se registra en la base. Los envíos que no finalizan en el plazo quedan en proceso (N) y, con las
+     * concesiones habilitadas, vuelven a pendiente al vencer la suya.
+     *
+     * @param limite momento ({@link System#nanoTime()}) en que vence el plazo del apagado.
+     */
+    private static void drain(long limite) {
+        ServiceControlRegistry.all().forEach(ServiceControl::despertar);
+        senderList.forEach(py.com.risk.push.PushSender::returnQueued);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(remainingMillis(limite), TimeUnit.MILLISECONDS)) {
+                logger.warn("Plazo de apagado excedido esperando que los servicios finalicen su lote");
+            }
+            for (py.com.risk.push.PushSender sender : senderList) {
+                if (!sender.drain(remainingMillis(limite))) {
+                    logger.warn("Plazo de apagado excedido, quedan [{}] envíos en curso", sender.getPendientes());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long remainingMillis(long limite) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime()));
+    }
 
-                    HuaweiPushClient huaweiPushClient = null;
+    /**
+     * Inicia un servicio de envío en su propio hilo: crea sus clientes de proveedor y ejecuta su bucle.
+     * El {@link ServiceControl} se registra antes de iniciar el hilo, de modo que una recarga posterior
+     * de la configuración ya lo encuentra.
+     *
+     * @param pushConfig configuración del servicio
+     */
+    private static synchronized void startService(PushConfig pushConfig) {
+        ServiceControl actual = ServiceControlRegistry.get(pushConfig.getNombre());
+        if (!running || (actual != null && !actual.isDetenido())) {
+            return;
+        }
+        final ServiceControl control = ServiceControlRegistry.register(new ServiceControl(pushConfig));
+        final DataSourceConfig ds = dataSourceConfig;
 
-                    if (pushConfig.getHuawei() != null) {
-                        HuaweiTokenManager tokenManager = new HuaweiTokenManager(
-                            pushConfig.getHuawei().getAppId(),
-                            pushConfig.getHuawei().getAppSecret(),
-                            pushConfig.getHuawei().getTokenUrl()
-                        );
+        executor.submit(() -> {
+            ThreadContext.put("servicio", pushConfig.getNombre());
+            try {
+                FirebaseHttpClient firebaseHttpClient = new FirebaseHttpClient(
+                    "banco-atlas-app-ios",
+                    pushConfig.getFirebase().getServiceAccountPath()
+                );
 
-                        HuaweiHttpSender httpSender = new HuaweiHttpSender(tokenManager, pushConfig.getHuawei().getApiUrl());
+                HuaweiPushClient huaweiPushClient = null;
 
-                        huaweiPushClient = new HuaweiPushClient(httpSender);
-                    }
+                if (pushConfig.getHuawei() != null) {
+                    HuaweiTokenManager tokenManager = new HuaweiTokenManager(
+                        pushConfig.getHuawei().getAppId(),
+                        pushConfig.getHuawei().getAppSecret(),
+                        pushConfig.getHuawei().getTokenUrl()
+                    );
+
+                    HuaweiHttpSender httpSender = new HuaweiHttpSender(tokenManager, pushConfig.getHuawei().getApiUrl());
 
-                    runExecution(ds, pushConfig, firebaseHttpClient, huaweiPushClient);
-                } catch (Exception e) {
-                    logger.error(String.format("Error inesperado al ejecutar el envío de: [%s]", pushConfig.getNombre()), e);
-                } finally {
-                    ThreadContext.clearAll();
+                    huaweiPushClient = new HuaweiPushClient(httpSender);
                 }
-            });
+
+                runExecution(ds, pushConfig, control, firebaseHttpClient, huaweiPushClient);
+            } catch (Exception e) {
+                logger.error(String.format("Error inesperado al ejecutar el envío de: [%s]", pushConfig.getNombre()), e);
+            } finally {
+                ServiceControlRegistry.remove(control);
+                control.finalizado();
+                ThreadContext.clearAll();
+            }
         });
     }
 
+    /**
+     * Inicia la vigilancia del archivo de configuración si la recarga automática está habilitada.
+     * Un error al registrar la vigilancia no detiene la aplicación.
+     *
+     * @param config configuración inicial.
+     * @return vigilante iniciado o {@code null} si está deshabilitado o no pudo iniciarse.
+     */
+    private static ConfigWatcher startConfigWatcher(RiskPushConfig config) {
+        if (!config.getRecargaAutomatica()) {
+            return null;
+        }
+        try {
+            return ConfigWatcher.start(Paths.get(propsFilePath), RiskPushApp::reloadConfig);
+        } catch (IOException e) {
+            logger.error("No se pudo vigilar el archivo de configuración [{}]: {}", propsFilePath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Vuelve a leer el archivo de configuración y lo compara, por nombre, con los servicios en ejecución:
+     * <ul>
+     *   <li>Servicios nuevos: se inician.</li>
+     *   <li>Servicios eliminados: finalizan su lote en curso, esperan que terminen sus envíos pendientes y liberan sus recursos.</li>
+     *   <li>Servicios con cambios de plataforma, clasificación, plazo de envío o credenciales del proveedor:
+     *       se detienen de la misma forma y se vuelven a iniciar con la nueva configuración.</li>
+     *   <li>Resto de los servicios: los parámetros modificados se aplican en el siguiente lote (ver
+     *       {@link ServiceControl#apply(PushConfig)}), sin volver a crear sus clientes de proveedor.</li>
+     * </ul>
+     * Los cambios del datasource se aplican solo a los servicios iniciados luego de la recarga, y los de
+     * las secciones de métricas y administración requieren reiniciar la aplicación. Si el archivo no
+     * puede leerse, se mantiene la configuración vigente.
+     */
+    private static synchronized void reloadConfig() {
+        final RiskPushConfig config;
+        try {
+            config = loadConfig(propsFilePath);
+        } catch (Exception e) {
+            logger.error("No se pudo leer la configuración modificada, se mantiene la vigente: {}", e.getMessage());
+            return;
+        }
+        if (config == null) {
+            logger.error("Archivo de configuración vacío, se mantiene la configuración vigente");
+            return;
+        }
+
+        Map<String, PushConfig> pushConfigs = new LinkedHashMap<>();
+        if (config.getPush() != null) {
+            for (PushConfig pushConfig : config.getPush()) {
+                if (pushConfig == null || pushConfig.getNombre() == null) {
+                    logger.warn("Se ignora un servicio sin nombre");
+                } else if (pushConfigs.put(pushConfig.getNombre(), pushConfig) != null) {
+                    logger.warn("Servicio [{}] duplicado, se utiliza la última definición", pushConfig.getNombre());
+                }
+            }
+        }
+        dataSourceConfig = config.getDatasource();
+
+        for (ServiceControl control : ServiceControlRegistry.all()) {
+            if (!control.isDetenido() && !pushConfigs.containsKey(control.getNombre())) {
+                logger.info("Servicio [{}] eliminado de la configuración, se detiene", control.getNombre());
+                control.detener();
+            }
+        }
+
+        for (PushConfig pushConfig : pushConfigs.values()) {
+            ServiceControl control = ServiceControlRegistry.get(pushConfig.getNombre());
+            if (control == null) {
+                logger.info("Servicio [{}] agregado a la configuración, se inicia", pushConfig.getNombre());
+                startService(pushConfig);
+            } else if (control.isDetenido()) {
+                control.terminado().thenRun(() -> startService(pushConfig));
+            } else if (requiresRestart(control.getConfig(), pushConfig)) {
+                logger.info("Servicio [{}] con cambios de plataforma, clasificación o proveedor, se reinicia", pushConfig.getNombre());
+                control.detener();
+                control.terminado().thenRun(() -> startService(pushConfig));
+            } else {
+                try {
+                    List<String> cambios = control.apply(pushConfig);
+                    if (!cambios.isEmpty()) {
+                        logger.info("Parámetros modificados del servicio [{}]: {}", pushConfig.getNombre(), cambios);
+                    }
+                } catch (IllegalArgumentException e) {
+                    logger.error("Configuración inválida del servicio [{}], se mantienen los parámetros vigentes: {}",
+                            pushConfig.getNombre(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Indica si el cambio de configuración de un servicio requiere volver a crear su {@link PushSender}
+     * y sus clientes de proveedor.
+     */
+    private static boolean requiresRestart(PushConfig anterior, PushConfig nueva) {
+        HuaweiConfig huaweiAnterior = anterior.getHuawei();
+        HuaweiConfig huaweiNueva = nueva.getHuawei();
+        return anterior.getPlataforma() != nueva.getPlataforma()
+                || !Objects.equals(anterior.getClasificacion(), nueva.getClasificacion())
+                || !Objects.equals(anterior.getTiempoMaximoEnvioMs(), nueva.getTiempoMaximoEnvioMs())
+                || !Objects.equals(anterior.getCuota(), nueva.getCuota())
+                || !Objects.equals(anterior.getFirebase().getServiceAccountPath(), nueva.getFirebase().getServiceAccountPath())
+                || !Objects.equals(huaweiAnterior.getAppId(), huaweiNueva.getAppId())
+                || !Objects.equals(huaweiAnterior.getAppSecret(), huaweiNueva.getAppSecret())
+                || !Objects.equals(huaweiAnterior.getTokenUrl(), huaweiNueva.getTokenUrl())
+                || !Objects.equals(huaweiAnterior.getApiUrl(), huaweiNueva.getApiUrl());
+    }
+
     /**
      * Carga la configuración YAML desde el archivo indicado.
      * 
@@ -126,11 +402,226 @@ public class RiskPushApp {
         }
     }
 
+    /**
+     * Inicia el endpoint HTTP de métricas si está habilitado.
+     * Un error al abrir el puerto no detiene la aplicación: las métricas siguen disponibles por JMX.
+     *
+     * @param metricsConfig configuración de métricas.
+     * @return endpoint iniciado o {@code null} si está deshabilitado o no pudo iniciarse.
+     */
+    private static PrometheusEndpoint startMetricsEndpoint(MetricsConfig metricsConfig) {
+        if (!metricsConfig.getHabilitado()) {
+            return null;
+        }
+        try {
+            return PrometheusEndpoint.start(metricsConfig.getHost(), metricsConfig.getPuerto());
+        } catch (IOException e) {
+            logger.error("No se pudo iniciar el endpoint de métricas en [{}:{}]: {}",
+                    metricsConfig.getHost(), metricsConfig.getPuerto(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Inicia el endpoint HTTP de administración si está habilitado.
+     * Un error al abrir el puerto no detiene la aplicación.
+     *
+     * @param adminConfig configuración de administración.
+     * @return endpoint iniciado o {@code null} si está deshabilitado o no pudo iniciarse.
+     */
+    private static AdminEndpoint startAdminEndpoint(AdminConfig adminConfig) {
+        if (!adminConfig.getHabilitado()) {
+            return null;
+        }
+        try {
+            return AdminEndpoint.start(adminConfig.getHost(), adminConfig.getPuerto());
+        } catch (IOException e) {
+            logger.error("No se pudo iniciar el endpoint de administración en [{}:{}]: {}",
+                    adminConfig.getHost(), adminConfig.getPuerto(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Inicia el endpoint HTTP de ingreso de notificaciones si está habilitado.
+     * Un error al abrir el puerto no detiene la aplicación: las notificaciones siguen llegando por la tabla.
+     *
+     * @param ingestConfig configuración de ingreso.
+     * @return endpoint iniciado o {@code null} si está deshabilitado o no pudo iniciarse.
+     */
+    private static IngestEndpoint startIngestEndpoint(IngestConfig ingestConfig) {
+        if (!ingestConfig.getHabilitado()) {
+            return null;
+        }
+        try {
+            return IngestEndpoint.start(ingestConfig.getHost(), ingestConfig.getPuerto(), ingestConfig.getHilos());
+        } catch (IOException e) {
+            logger.error("No se pudo iniciar el endpoint de ingreso en [{}:{}]: {}",
+                    ingestConfig.getHost(), ingestConfig.getPuerto(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Inicia los orígenes de avisos de mensajes nuevos habilitados: UDP local y alerta de la base.
+     * Un error al abrir el puerto no detiene la aplicación: los servicios siguen consultando por intervalo.
+     *
+     * @param wakeUpConfig configuración de avisos.
+     * @param ds configuración de la base de datos.
+     * @return orígenes iniciados.
+     */
+    private static List<WakeUpSource> startWakeUpSources(WakeUpConfig wakeUpConfig, DataSourceConfig ds) {
+        List<WakeUpSource> sources = new ArrayList<>();
+        if (wakeUpConfig.getHabilitado()) {
+            try {
+                sources.add(new UdpWakeUpSource(wakeUpConfig.getHost(), wakeUpConfig.getPuerto()));
+            } catch (SocketException e) {
+                logger.error("No se pudo abrir el puerto de avisos en [{}:{}]: {}",
+                        wakeUpConfig.getHost(), wakeUpConfig.getPuerto(), e.getMessage());
+            }
+        }
+        if (wakeUpConfig.getAlertaBd() != null) {
+            sources.add(new DbmsAlertWakeUpSource(ds, wakeUpConfig.getAlertaBd()));
+        }
+        sources.forEach(source -> source.start(WakeUpSignal::signal));
+        return sources;
+    }
+
+    /**
+     * Inicia el reparto de notificaciones entre instancias si está habilitado.
+     *
+     * @param clusterConfig configuración del reparto.
+     * @param tareas acceso a la base de las tareas de la aplicación.
+     * @return administrador iniciado o {@code null} si está deshabilitado.
+     */
+    private static PartitionManager startPartitionManager(ClusterConfig clusterConfig, DBService tareas) {
+        if (!clusterConfig.getHabilitado()) {
+            return null;
+        }
+        PartitionManager manager = new PartitionManager(clusterConfig, tareas);
+        manager.start();
+        return manager;
+    }
+
+    /**
+     * Inicia las cuotas de envío compartidas. La tasa de cada cuota se reparte entre las instancias vivas
+     * del reparto de notificaciones, o la toma entera esta instancia si el reparto no está habilitado.
+     *
+     * @param cuotas cuotas configuradas.
+     * @param tareas acceso a la base de las tareas de la aplicación.
+     * @param dispatcher despachador a despertar cuando llegan permisos.
+     */
+    private static void startQuotas(List<QuotaConfig> cuotas, DBService tareas, Dispatcher dispatcher) {
+        if (cuotas.isEmpty()) {
+            return;
+        }
+        QuotaRegistry.start(cuotas, tareas, () -> {
+            PartitionManager reparto = partitionManager;
+            PartitionAssignment asignacion = reparto != null ? reparto.getAsignacion() : null;
+            return asignacion != null ? asignacion.getNodos() : 1;
+        }, dispatcher::wakeUp);
+    }
+
+    /**
+     * Libera las notificaciones en envío de una ejecución anterior y las vencidas, y programa la
+     * renovación de las concesiones, si están habilitadas. Se invoca antes de iniciar los servicios.
+     *
+     * @param leaseConfig configuración de las concesiones.
+     * @param tareas acceso a la base de las tareas de la aplicación.
+     * @return tarea iniciada o {@code null} si está deshabilitada.
+     */
+    private static LeaseReaper startLeaseReaper(LeaseConfig leaseConfig, DBService tareas) {
+        if (!leaseConfig.getHabilitado()) {
+            return null;
+        }
+        LeaseReaper reaper = new LeaseReaper(leaseConfig, idInstancia, tareas);
+        reaper.start();
+        return reaper;
+    }
+
+    /**
+     * Programa el archivo de las notificaciones finalizadas, si está habilitado.
+     *
+     * @param archiveConfig configuración del archivo.
+     * @param tareas acceso a la base de las tareas de la aplicación.
+     * @return tarea iniciada o {@code null} si está deshabilitada.
+     */
+    private static NotificationArchiver startArchiver(ArchiveConfig archiveConfig, DBService tareas) {
+        if (!archiveConfig.getHabilitado()) {
+            return null;
+        }
+        NotificationArchiver archiver = new NotificationArchiver(archiveConfig, tareas);
+        archiver.start();
+        return archiver;
+    }
+
+    /**
+     * Aplica a la base los resultados que quedaron en los diarios de los servicios de una ejecución anterior,
+     * incluidos los de servicios que ya no están configurados. Se invoca antes de conciliar los intentos y de
+     * liberar las concesiones propias; sin tareas de coordinación no hay liberación al iniciar y cada servicio
+     * aplica su diario al abrirlo.
+     *
+     * @param journalConfig configuración del diario.
+     * @param tareas acceso a la base de las tareas de la aplicación, o {@code null}.
+     */
+    private static void replayJournals(JournalConfig journalConfig, DBService tareas) {
+        Path directorio = Paths.get(journalConfig.getDirectorio());
+        if (!journalConfig.getHabilitado() || tareas == null || !Files.isDirectory(directorio)) {
+            return;
+        }
+        List<Path> diarios;
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            diarios = archivos.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.error("No se pudieron listar los diarios de [{}]", directorio, e);
+            return;
+        }
+        for (Path diarioServicio : diarios) {
+            try {
+                long inicio = System.nanoTime();
+                int aplicados = tareas.replayJournal(journalConfig, diarioServicio);
+                if (aplicados > 0) {
+                    logger.info("[{}] resultados del diario [{}] de una ejecución anterior aplicados en [{}] ms",
+                            aplicados, diarioServicio, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                }
+            } catch (IOException e) {
+                logger.error("No se pudo aplicar el diario [{}]; se aplicará al iniciar su servicio", diarioServicio, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Concilia los intentos de envío pendientes y programa la conciliación periódica, si el registro de
+     * intentos está habilitado. Se invoca antes de {@link #startLeaseReaper(LeaseConfig, DBService)}.
+     *
+     * @param attemptLogConfig configuración del registro de intentos.
+     * @param tareas acceso a la base de las tareas de la aplicación.
+     * @return tarea iniciada o {@code null} si está deshabilitada.
+     */
+    private static AttemptReconciler startAttemptReconciler(AttemptLogConfig attemptLogConfig, DBService tareas) {
+        if (!attemptLogConfig.getHabilitado()) {
+            return null;
+        }
+        AttemptReconciler reconciler = new AttemptReconciler(attemptLogConfig, tareas);
+        reconciler.start();
+        return reconciler;
+    }
+
     /**
      * Ejecuta el envío de mensajes en modo bucle según la configuración del servicio.
+     * Los parámetros del lote se leen de su {@link ServiceControl} al inicio de cada iteración,
+     * de modo que los cambios del endpoint de administración o de la recarga de configuración se
+     * aplican en el siguiente lote. Cada lote se limita a la capacidad libre entre los mensajes en vuelo
+     * y {@code maximoEnVuelo}, de modo que los mensajes bloqueados en memoria quedan acotados. Si el
+     * servicio es detenido, espera a que finalicen sus envíos pendientes y libera su pool de conexiones
+     * y sus métricas.
      * 
      * @param dsConfig configuración de origen de datos.
      * @param pushConfig configuración del servicio de envío push.
+     * @param control parámetros de ejecución del servicio.
      * @param firebaseHttpClient cliente HTTP para Firebase.
      * @param huaweiPushClient cliente de envío para Huawei.
      * @throws Exception si ocurre un error durante la ejecución.
@@ -138,6 +629,7 @@ public class RiskPushApp {
     public static void runExecution(
         DataSourceConfig dsConfig,
         PushConfig pushConfig,
+        ServiceControl control,
         FirebaseHttpClient firebaseHttpClient,
         HuaweiPushClient huaweiPushClient
     ) throws Exception {
@@ -145,9 +637,19 @@ public class RiskPushApp {
 
         final DBService dbService = new DBService(dsConfig);
         dbService.setMaximoIntentos(pushConfig.getMaximoIntentos());
-
-        if (Plataforma.FCM.equals(pushConfig.getPlataforma())) {
-            PushSender.initFirebase(pushConfig.getFirebase().getServiceAccountPath());
+        if (concesiones.getHabilitado()) {
+            dbService.setConcesion(idInstancia, concesiones.getPlazoMs());
+        }
+        if (intentos.getHabilitado()) {
+            dbService.setRegistroIntentos(intentos, pushConfig.getNombre());
+        }
+        if (diario.getHabilitado()) {
+            try {
+                dbService.setDiario(diario, pushConfig.getNombre());
+            } catch (IOException | RuntimeException e) {
+                dbService.close();
+                throw e;
+            }
         }
 
         final py.com.risk.push.PushSender sender = new py.com.risk.push.PushSender(
@@ -156,35 +658,185 @@ public class RiskPushApp {
 
         senderList.add(sender);
 
+        final ServiceMetrics metricas = MetricsRegistry.servicio(pushConfig.getNombre());
+        metricas.setPool(dbService.getPoolMXBean());
+
+        final IngestTarget ingestTarget = new IngestTarget(pushConfig, control, dbService, sender);
+        IngestRegistry.register(ingestTarget);
+
+        try {
+            executeLoop(pushConfig, control, dbService, sender, metricas);
+        } finally {
+            IngestRegistry.remove(ingestTarget);
+            if (control.isDetenido()) {
+                releaseService(control, dbService, sender);
+            }
+        }
+    }
+
+    /**
+     * Bucle de consulta y envío de lotes, mientras la aplicación y el servicio sigan en ejecución.
+     */
+    private static void executeLoop(
+        PushConfig pushConfig,
+        ServiceControl control,
+        DBService dbService,
+        py.com.risk.push.PushSender sender,
+        ServiceMetrics metricas
+    ) throws InterruptedException {
         int count = 1;
-        final long intervalo = pushConfig.getIntervaloEntreLotesMs();
-        final ModoEnvioLote modo = pushConfig.getModoEnvioLote();
+        boolean saturado = false;
+
+        while (running && !control.isDetenido()) {
+            if (control.isPausado()) {
+                logger.debug("Servicio pausado");
+                control.esperar(Math.min(control.getIntervaloEntreLotesMs(), ESPERA_PAUSA_MS));
+                continue;
+            }
+
+            // Contrapresión: con la marca alta de mensajes en vuelo alcanzada no se bloquean nuevos
+            // lotes hasta que los envíos bajen a la marca baja. En modo continuo la reposición
+            // se hace siempre al bajar a la marca baja.
+            final ModoEnvioLote modo = control.getModoEnvioLote();
+            final boolean continuo = modo == ModoEnvioLote.continuo;
+            final int enVuelo = sender.getPendientes();
+            final int maximoEnVuelo = control.getMaximoEnVuelo();
+            if (enVuelo >= maximoEnVuelo || ((saturado || continuo) && enVuelo > control.getReanudarEnVuelo())) {
+                if (!saturado && !continuo) {
+                    logger.info("Mensajes en vuelo [{}] en la marca alta [{}], se espera a bajar a [{}]",
+                            enVuelo, maximoEnVuelo, control.getReanudarEnVuelo());
+                    saturado = true;
+                }
+                sender.awaitCapacity(control.getReanudarEnVuelo(), ESPERA_PAUSA_MS);
+                continue;
+            }
+            saturado = false;
+
+            // Parámetros del lote vigentes para esta iteración
+            final long intervalo = control.getIntervaloEntreLotesMs();
+            final PartitionManager reparto = partitionManager;
+            final PartitionAssignment asignacion = reparto != null ? reparto.getAsignacion() : PartitionAssignment.UNICA;
+            if (asignacion == null) {
+                logger.info("Sin particiones asignadas, se espera a renovar la concesión de la instancia");
+                control.esperar(intervalo);
+                continue;
+            }
+            final int cantidadMaximaPorLote = Math.min(control.getCantidadMaximaPorLote(), maximoEnVuelo - enVuelo);
+            sender.setConcurrencia(control.getConcurrencia());
+            sender.setPeso(control.getPeso());
+            sender.setHilosGarantizados(control.getHilosGarantizados());
+            sender.setSloEntregaMs(control.getSloEntregaMs());
+            sender.setPlazosEntrega(control.getPlazosEntregaMs());
+            dbService.setMaximoIntentos(control.getMaximoIntentos());
 
-        while (running) {
             ThreadContext.put("contador", String.valueOf(count));
             try {
+                long inicio = System.nanoTime();
+                PollEvent pollEvent = new PollEvent();
+                pollEvent.begin();
                 List<PushMessage> mensajes = dbService.loadPendingPushMessages(
                     pushConfig.getPlataforma().name(),
                     pushConfig.getClasificacion(),
-                    pushConfig.getCantidadMaximaPorLote()
+                    cantidadMaximaPorLote,
+                    asignacion
                 );
+                pollEvent.end();
+                metricas.recordConsulta(System.nanoTime() - inicio);
+                if (pollEvent.shouldCommit()) {
+                    pollEvent.captureContext();
+                    pollEvent.setPlataforma(pushConfig.getPlataforma().name());
+                    pollEvent.setClasificacion(pushConfig.getClasificacion());
+                    pollEvent.setMensajes(mensajes.size());
+                    pollEvent.commit();
+                }
+
+                recordBacklogAge(pushConfig.getClasificacion(), mensajes);
+                control.lote(count, mensajes.size());
+                // En modo continuo, una consulta completa indica que quedan pendientes: se repone sin esperar
+                final boolean reponer = continuo && mensajes.size() >= cantidadMaximaPorLote;
 
                 if (!mensajes.isEmpty()) {
-                    logger.info("Mensajes pendientes para enviar: [{}], Modo de envío: [{}]", mensajes.size(), modo);
+                    logger.log(continuo ? Level.DEBUG : Level.INFO,
+                            "Mensajes pendientes para enviar: [{}], Modo de envío: [{}]", mensajes.size(), modo);
+                    int solicitados = mensajes.size();
+                    inicio = System.nanoTime();
+                    ClaimEvent claimEvent = new ClaimEvent();
+                    claimEvent.begin();
                     dbService.updateMessagesStatus(mensajes, Status.EN_PROCESO_ENVIO);
-                    sender.sendMessages(modo, mensajes);
+                    claimEvent.end();
+                    metricas.recordClaim(System.nanoTime() - inicio);
+                    long reclamado = System.currentTimeMillis();
+                    mensajes.forEach(msg -> msg.setReclamadoMs(reclamado));
+                    if (claimEvent.shouldCommit()) {
+                        claimEvent.captureContext();
+                        claimEvent.setSolicitados(solicitados);
+                        claimEvent.setBloqueados(mensajes.size());
+                        claimEvent.commit();
+                    }
+                    metricas.recordLote(mensajes.size());
+                    sender.sendMessages(modo, mensajes, control.getEspaciadoMs());
                 } else {
                     logger.info("No se encontraron mensajes pendientes para enviar");
                 }
 
-                logger.info("Durmiendo [{}] ms...", intervalo);
-                Thread.sleep(intervalo);
-                logger.info("Reintentando lectura...");
+                if (!reponer) {
+                    logger.info("Durmiendo [{}] ms...", intervalo);
+                    control.esperar(intervalo);
+                    logger.info("Reintentando lectura...");
+                }
             } catch (Exception e) {
                 logger.error("Error al procesar lote de mensajes: [{}]", e.getMessage());
-                Thread.sleep(intervalo);
+                control.esperar(intervalo);
             }
             count = (count >= 100) ? 1 : count + 1;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Libera los recursos de un servicio detenido por la recarga de configuración. Primero espera a que
+     * finalicen los envíos de los lotes ya bloqueados, para no dejar mensajes en proceso sin resultado.
+     */
+    private static void releaseService(ServiceControl control, DBService dbService, py.com.risk.push.PushSender sender) {
+        long plazo = control.getCantidadMaximaPorLote() * control.getEspaciadoMs()
+                + 2 * control.getConfig().getTiempoMaximoEnvioMs();
+        logger.info("Deteniendo servicio, envíos pendientes: [{}]", sender.getPendientes());
+        try {
+            if (!sender.awaitDrain(plazo)) {
+                logger.warn("Plazo de [{}] ms excedido esperando los envíos pendientes, quedan [{}]", plazo, sender.getPendientes());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender.shutdown();
+        senderList.remove(sender);
+        dbService.close();
+        MetricsRegistry.remove(control.getNombre());
+        logger.info("Servicio detenido");
+    }
+
+    /**
+     * Registra, por clasificación, la antigüedad del mensaje más antiguo de la consulta.
+     * Si el servicio filtra por clasificación y no hay pendientes, la antigüedad vuelve a 0.
+     *
+     * @param clasificacionServicio clasificación configurada en el servicio (puede ser nula).
+     * @param mensajes mensajes pendientes consultados.
+     */
+    private static void recordBacklogAge(String clasificacionServicio, List<PushMessage> mensajes) {
+        if (mensajes.isEmpty()) {
+            if (clasificacionServicio != null) {
+                MetricsRegistry.clasificacion(clasificacionServicio).setAntiguedadPendientes(0L);
+            }
+            return;
+        }
+        Map<String, Long> masAntiguo = new HashMap<>();
+        for (PushMessage msg : mensajes) {
+            if (msg.getCreadoMs() > 0) {
+                String clasificacion = msg.getClasificacion() != null ? msg.getClasificacion() : MetricsRegistry.SIN_CLASIFICACION;
+                masAntiguo.merge(clasificacion, msg.getCreadoMs(), Math::min);
+            }
+        }
+        long ahora = System.currentTimeMillis();
+        masAntiguo.forEach((clasificacion, creado) ->
+                MetricsRegistry.clasificacion(clasificacion).setAntiguedadPendientes(ahora - creado));
+    }
+}
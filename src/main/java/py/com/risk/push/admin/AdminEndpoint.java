@@ -0,0 +1,322 @@
+package py.com.risk.push.admin;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.metrics.HistogramSnapshot;
+import py.com.risk.push.metrics.MetricsRegistry;
+import py.com.risk.push.metrics.ProviderMetrics;
+import py.com.risk.push.metrics.ServiceMetrics;
+import py.com.risk.push.model.ModoEnvioLote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint HTTP local de administración de los servicios de envío push.
+ * <p>
+ * Rutas disponibles (respuestas en JSON):
+ * <ul>
+ *   <li>{@code GET  /admin/servicios}: estadísticas y parámetros de todos los servicios.</li>
+ *   <li>{@code GET  /admin/servicios/{nombre}}: estadísticas y parámetros de un servicio.</li>
+ *   <li>{@code POST /admin/servicios/{nombre}/pausar}: deja de consultar mensajes luego del lote en curso.</li>
+ *   <li>{@code POST /admin/servicios/{nombre}/reanudar}: reanuda la consulta de mensajes.</li>
+ *   <li>{@code POST /admin/servicios/{nombre}/despertar}: avisa que hay mensajes nuevos; el servicio
+ *       consulta sin esperar el resto del intervalo entre lotes.</li>
+ *   <li>{@code POST /admin/servicios/{nombre}/parametros}: modifica {@code cantidadMaximaPorLote},
+ *       {@code modoEnvioLote}, {@code intervaloEntreLotesMs}, {@code espaciadoMs} y/o {@code concurrencia}
+ *       a partir de un objeto JSON con los valores a cambiar.</li>
+ * </ul>
+ * Los cambios se aplican al inicio del siguiente lote de cada servicio (ver {@link ServiceControl}).
+ *
+ * <pre>{@code
+ * curl -X POST localhost:9405/admin/servicios/FCM-OTP/parametros -d '{"cantidadMaximaPorLote": 500, "concurrencia": 40}'
+ * }</pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class AdminEndpoint {
+
+    private static final Logger logger = LogManager.getLogger(AdminEndpoint.class);
+
+    /** Ruta base de los servicios */
+    public static final String RUTA = "/admin/servicios";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+
+    private AdminEndpoint(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Inicia el endpoint en la dirección indicada.
+     *
+     * @param host dirección en la que escucha (por ejemplo, 127.0.0.1)
+     * @param puerto puerto TCP
+     * @return endpoint iniciado
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public static AdminEndpoint start(String host, int puerto) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(host, puerto), 0);
+        server.createContext(RUTA, AdminEndpoint::handle);
+        server.start();
+        logger.info("Administración disponible en http://{}:{}{}", host, puerto, RUTA);
+        return new AdminEndpoint(server);
+    }
+
+    /**
+     * Detiene el endpoint.
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String ruta = exchange.getRequestURI().getRawPath().substring(RUTA.length());
+            List<String> partes = new ArrayList<>();
+            for (String parte : ruta.split("/")) {
+                if (!parte.isEmpty()) {
+                    partes.add(URLDecoder.decode(parte, StandardCharsets.UTF_8));
+                }
+            }
+            String metodo = exchange.getRequestMethod();
+
+            if (partes.isEmpty()) {
+                if (!"GET".equals(metodo)) {
+                    respond(exchange, 405, error("Metodo no permitido"));
+                    return;
+                }
+                List<Map<String, Object>> servicios = new ArrayList<>();
+                ServiceControlRegistry.all().forEach(control -> servicios.add(describe(control)));
+                respond(exchange, 200, servicios);
+                return;
+            }
+
+            ServiceControl control = ServiceControlRegistry.get(partes.get(0));
+            if (control == null || partes.size() > 2) {
+                respond(exchange, 404, error("Servicio o ruta inexistente: " + ruta));
+                return;
+            }
+
+            String accion = partes.size() == 2 ? partes.get(1) : null;
+            if (accion == null) {
+                if (!"GET".equals(metodo)) {
+                    respond(exchange, 405, error("Metodo no permitido"));
+                    return;
+                }
+                respond(exchange, 200, describe(control));
+                return;
+            }
+            if (!"POST".equals(metodo)) {
+                respond(exchange, 405, error("Metodo no permitido"));
+                return;
+            }
+
+            switch (accion) {
+                case "pausar":
+                    control.setPausado(true);
+                    logger.info("Servicio [{}] pausado desde el endpoint de administración", control.getNombre());
+                    break;
+                case "reanudar":
+                    control.setPausado(false);
+                    logger.info("Servicio [{}] reanudado desde el endpoint de administración", control.getNombre());
+                    break;
+                case "despertar":
+                    control.despertar();
+                    logger.debug("Servicio [{}] despertado desde el endpoint de administración", control.getNombre());
+                    break;
+                case "parametros":
+                    try {
+                        applyParametros(control, readBody(exchange.getRequestBody()));
+                    } catch (IllegalArgumentException | JsonProcessingException e) {
+                        respond(exchange, 400, error(e.getMessage()));
+                        return;
+                    }
+                    break;
+                default:
+                    respond(exchange, 404, error("Accion inexistente: " + accion));
+                    return;
+            }
+            respond(exchange, 200, describe(control));
+        } catch (RuntimeException e) {
+            logger.error("Error en el endpoint de administración", e);
+            respond(exchange, 500, error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Valida todos los parámetros recibidos y luego los aplica, de modo que un valor inválido no deje
+     * el servicio con un cambio parcial.
+     */
+    private static void applyParametros(ServiceControl control, Map<String, Object> parametros) {
+        Integer cantidad = null;
+        ModoEnvioLote modo = null;
+        Long intervalo = null;
+        Long espaciado = null;
+        Integer concurrencia = null;
+        Integer peso = null;
+        Integer hilosGarantizados = null;
+        Integer maximoEnVuelo = null;
+        Integer reanudarEnVuelo = null;
+
+        for (Map.Entry<String, Object> entry : parametros.entrySet()) {
+            Object valor = entry.getValue();
+            switch (entry.getKey()) {
+                case "cantidadMaximaPorLote":
+                    cantidad = (int) positive(entry.getKey(), valor);
+                    break;
+                case "modoEnvioLote":
+                    try {
+                        modo = ModoEnvioLote.valueOf(String.valueOf(valor));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("modoEnvioLote invalido: " + valor);
+                    }
+                    break;
+                case "intervaloEntreLotesMs":
+                    intervalo = positive(entry.getKey(), valor);
+                    break;
+                case "espaciadoMs":
+                    espaciado = positive(entry.getKey(), valor);
+                    break;
+                case "concurrencia":
+                    concurrencia = (int) positive(entry.getKey(), valor);
+                    break;
+                case "peso":
+                    peso = (int) positive(entry.getKey(), valor);
+                    break;
+                case "hilosGarantizados":
+                    if (!(valor instanceof Number) || ((Number) valor).intValue() < 0) {
+                        throw new IllegalArgumentException("hilosGarantizados debe ser un entero mayor o igual a 0");
+                    }
+                    hilosGarantizados = ((Number) valor).intValue();
+                    break;
+                case "maximoEnVuelo":
+                    maximoEnVuelo = (int) positive(entry.getKey(), valor);
+                    break;
+                case "reanudarEnVuelo":
+                    if (!(valor instanceof Number) || ((Number) valor).intValue() < 0) {
+                        throw new IllegalArgumentException("reanudarEnVuelo debe ser un entero mayor o igual a 0");
+                    }
+                    reanudarEnVuelo = ((Number) valor).intValue();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Parametro no modificable: " + entry.getKey());
+            }
+        }
+
+        if (cantidad != null) control.setCantidadMaximaPorLote(cantidad);
+        if (modo != null) control.setModoEnvioLote(modo);
+        if (intervalo != null) control.setIntervaloEntreLotesMs(intervalo);
+        if (espaciado != null) control.setEspaciadoMs(espaciado);
+        if (concurrencia != null) control.setConcurrencia(concurrencia);
+        if (peso != null) control.setPeso(peso);
+        if (hilosGarantizados != null) control.setHilosGarantizados(hilosGarantizados);
+        if (maximoEnVuelo != null) control.setMaximoEnVuelo(maximoEnVuelo);
+        if (reanudarEnVuelo != null) control.setReanudarEnVuelo(reanudarEnVuelo);
+        logger.info("Parámetros del servicio [{}] modificados desde el endpoint de administración: {}", control.getNombre(), parametros);
+    }
+
+    private static long positive(String nombre, Object valor) {
+        if (!(valor instanceof Number) || ((Number) valor).longValue() <= 0 || ((Number) valor).longValue() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(nombre + " debe ser un entero mayor a 0");
+        }
+        return ((Number) valor).longValue();
+    }
+
+    private static Map<String, Object> describe(ServiceControl control) {
+        ServiceMetrics metricas = MetricsRegistry.servicio(control.getNombre());
+
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        parametros.put("cantidadMaximaPorLote", control.getCantidadMaximaPorLote());
+        parametros.put("modoEnvioLote", control.getModoEnvioLote());
+        parametros.put("intervaloEntreLotesMs", control.getIntervaloEntreLotesMs());
+        parametros.put("espaciadoMs", control.getEspaciadoMs());
+        parametros.put("tasaMaximaPorSegundo", 1000.0 / control.getEspaciadoMs());
+        parametros.put("concurrencia", control.getConcurrencia());
+        parametros.put("peso", control.getPeso());
+        parametros.put("hilosGarantizados", control.getHilosGarantizados());
+        parametros.put("maximoEnVuelo", control.getMaximoEnVuelo());
+        parametros.put("reanudarEnVuelo", control.getReanudarEnVuelo());
+        parametros.put("plazosEntregaMs", control.getPlazosEntregaMs());
+
+        Map<String, Object> lote = new LinkedHashMap<>();
+        lote.put("contador", control.getContadorLote());
+        lote.put("ultimoTamano", control.getUltimoLoteTamano());
+        lote.put("ultimoMs", control.getUltimoLoteMs());
+
+        Map<String, Object> proveedores = new LinkedHashMap<>();
+        for (ProviderMetrics proveedor : metricas.proveedores()) {
+            HistogramSnapshot latencia = proveedor.getLatenciaEnvio();
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("exitos", proveedor.getExitos());
+            datos.put("errores", proveedor.getErrores());
+            datos.put("timeouts", proveedor.getTimeouts());
+            datos.put("reintentos", proveedor.getReintentos());
+            datos.put("latenciaP50Ms", latencia.getP50());
+            datos.put("latenciaP99Ms", latencia.getP99());
+            proveedores.put(proveedor.getPlataforma().name(), datos);
+        }
+
+        Map<String, Object> envios = new LinkedHashMap<>();
+        envios.put("enCurso", metricas.getEnCurso());
+        envios.put("enVuelo", metricas.getEnVuelo());
+        envios.put("colaEjecutor", metricas.getColaEjecutor());
+        envios.put("proveedores", proveedores);
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("activas", metricas.getConexionesActivas());
+        pool.put("inactivas", metricas.getConexionesInactivas());
+        pool.put("totales", metricas.getConexionesTotales());
+        pool.put("esperando", metricas.getHilosEsperandoConexion());
+
+        Map<String, Object> servicio = new LinkedHashMap<>();
+        servicio.put("nombre", control.getNombre());
+        servicio.put("estado", control.isPausado() ? "PAUSADO" : "ACTIVO");
+        servicio.put("parametros", parametros);
+        servicio.put("lote", lote);
+        servicio.put("envios", envios);
+        servicio.put("pool", pool);
+        return servicio;
+    }
+
+    private static Map<String, Object> readBody(InputStream body) throws IOException {
+        Map<String, Object> parametros = objectMapper.readValue(body, new TypeReference<Map<String, Object>>() { });
+        if (parametros == null || parametros.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere un objeto JSON con los parametros a modificar");
+        }
+        return parametros;
+    }
+
+    private static Map<String, Object> error(String mensaje) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", mensaje);
+        return error;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package py.com.risk.push.admin;
+
+import py.com.risk.push.config.PushConfig;
+import py.com.risk.push.log.MuestreoMensajesFilter;
+import py.com.risk.push.model.ModoEnvioLote;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Parámetros de ejecución modificables en caliente de un servicio de envío push.
+ * <p>
+ * Se inicializa con los valores de {@link PushConfig} y el bucle del servicio
+ * ({@code RiskPushApp.runExecution}) los vuelve a leer al inicio de cada lote, por lo que un cambio
+ * se aplica en el siguiente lote sin afectar al que está en curso. También registra el estado del
+ * último lote para las estadísticas del endpoint de administración.
+ * <p>
+ * Al recargar el archivo de configuración, {@link #apply(PushConfig)} actualiza los parámetros
+ * modificados en el archivo y {@link #detener()} finaliza el bucle de un servicio eliminado.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class ServiceControl {
+
+    private final String nombre;
+
+    /** Configuración del archivo con la que se inició el servicio o que se aplicó en la última recarga */
+    private volatile PushConfig config;
+
+    private volatile boolean pausado;
+    private volatile int cantidadMaximaPorLote;
+    private volatile ModoEnvioLote modoEnvioLote;
+    private volatile long intervaloEntreLotesMs;
+    private volatile long espaciadoMs;
+    private volatile int concurrencia;
+    private volatile int peso;
+    private volatile int hilosGarantizados;
+    private volatile int maximoEnVuelo;
+    private volatile int reanudarEnVuelo;
+    private volatile int maximoIntentos;
+    private volatile long sloEntregaMs;
+    private volatile Map<String, Long> plazosEntregaMs;
+
+    /** Indica que el servicio debe finalizar su bucle luego del lote en curso */
+    private volatile boolean detenido;
+
+    /**
+     * Indica que llegó un aviso de mensajes nuevos desde la última espera. Varios avisos antes de la
+     * siguiente espera se combinan en una sola consulta. Se protege con el monitor del control
+     */
+    private boolean despertado;
+
+    /** Se completa cuando el servicio finalizó y liberó sus recursos */
+    private final CompletableFuture<Void> terminado = new CompletableFuture<>();
+
+    /** Contador del último lote procesado */
+    private volatile int contadorLote;
+
+    /** Cantidad de mensajes del último lote con mensajes */
+    private volatile int ultimoLoteTamano;
+
+    /** Momento (epoch ms) del último lote con mensajes */
+    private volatile long ultimoLoteMs;
+
+    /**
+     * Crea el control de un servicio con los valores de su configuración.
+     *
+     * @param config configuración del servicio
+     */
+    public ServiceControl(PushConfig config) {
+        this.nombre = config.getNombre();
+        this.config = config;
+        this.cantidadMaximaPorLote = config.getCantidadMaximaPorLote();
+        this.modoEnvioLote = config.getModoEnvioLote();
+        this.intervaloEntreLotesMs = config.getIntervaloEntreLotesMs();
+        this.espaciadoMs = config.getEspaciadoMs();
+        this.concurrencia = config.getConcurrencia();
+        this.peso = config.getPeso();
+        this.hilosGarantizados = config.getHilosGarantizados();
+        this.maximoEnVuelo = config.getMaximoEnVuelo();
+        this.reanudarEnVuelo = config.getReanudarEnVuelo();
+        this.maximoIntentos = config.getMaximoIntentos();
+        this.sloEntregaMs = config.getSloEntregaMs();
+        this.plazosEntregaMs = config.getPlazosEntregaMs();
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public boolean isPausado() {
+        return pausado;
+    }
+
+    public void setPausado(boolean pausado) {
+        this.pausado = pausado;
+    }
+
+    public int getCantidadMaximaPorLote() {
+        return cantidadMaximaPorLote;
+    }
+
+    public void setCantidadMaximaPorLote(int cantidadMaximaPorLote) {
+        requirePositive("cantidadMaximaPorLote", cantidadMaximaPorLote);
+        this.cantidadMaximaPorLote = cantidadMaximaPorLote;
+    }
+
+    public ModoEnvioLote getModoEnvioLote() {
+        return modoEnvioLote;
+    }
+
+    public void setModoEnvioLote(ModoEnvioLote modoEnvioLote) {
+        if (modoEnvioLote == null) {
+            throw new IllegalArgumentException("modoEnvioLote es requerido");
+        }
+        this.modoEnvioLote = modoEnvioLote;
+    }
+
+    public long getIntervaloEntreLotesMs() {
+        return intervaloEntreLotesMs;
+    }
+
+    public void setIntervaloEntreLotesMs(long intervaloEntreLotesMs) {
+        requirePositive("intervaloEntreLotesMs", intervaloEntreLotesMs);
+        this.intervaloEntreLotesMs = intervaloEntreLotesMs;
+    }
+
+    public long getEspaciadoMs() {
+        return espaciadoMs;
+    }
+
+    public void setEspaciadoMs(long espaciadoMs) {
+        requirePositive("espaciadoMs", espaciadoMs);
+        this.espaciadoMs = espaciadoMs;
+    }
+
+    public int getConcurrencia() {
+        return concurrencia;
+    }
+
+    public void setConcurrencia(int concurrencia) {
+        requirePositive("concurrencia", concurrencia);
+        this.concurrencia = concurrencia;
+    }
+
+    public int getPeso() {
+        return peso;
+    }
+
+    public void setPeso(int peso) {
+        requirePositive("peso", peso);
+        this.peso = peso;
+    }
+
+    public int getHilosGarantizados() {
+        return hilosGarantizados;
+    }
+
+    public void setHilosGarantizados(int hilosGarantizados) {
+        if (hilosGarantizados < 0) {
+            throw new IllegalArgumentException("hilosGarantizados no puede ser negativo");
+        }
+        this.hilosGarantizados = hilosGarantizados;
+    }
+
+    public int getMaximoEnVuelo() {
+        return maximoEnVuelo;
+    }
+
+    public void setMaximoEnVuelo(int maximoEnVuelo) {
+        requirePositive("maximoEnVuelo", maximoEnVuelo);
+        this.maximoEnVuelo = maximoEnVuelo;
+    }
+
+    /**
+     * Devuelve la marca baja de mensajes en vuelo, nunca mayor que la marca alta vigente.
+     *
+     * @return cantidad de mensajes en vuelo con la que se reanuda el bloqueo de lotes
+     */
+    public int getReanudarEnVuelo() {
+        return Math.min(reanudarEnVuelo, maximoEnVuelo);
+    }
+
+    public void setReanudarEnVuelo(int reanudarEnVuelo) {
+        if (reanudarEnVuelo < 0) {
+            throw new IllegalArgumentException("reanudarEnVuelo no puede ser negativo");
+        }
+        this.reanudarEnVuelo = reanudarEnVuelo;
+    }
+
+    public int getMaximoIntentos() {
+        return maximoIntentos;
+    }
+
+    public void setMaximoIntentos(int maximoIntentos) {
+        requirePositive("maximoIntentos", maximoIntentos);
+        this.maximoIntentos = maximoIntentos;
+    }
+
+    public long getSloEntregaMs() {
+        return sloEntregaMs;
+    }
+
+    public void setSloEntregaMs(long sloEntregaMs) {
+        if (sloEntregaMs < 0) {
+            throw new IllegalArgumentException("sloEntregaMs no puede ser negativo");
+        }
+        this.sloEntregaMs = sloEntregaMs;
+    }
+
+    public Map<String, Long> getPlazosEntregaMs() {
+        return plazosEntregaMs;
+    }
+
+    public PushConfig getConfig() {
+        return config;
+    }
+
+    public boolean isDetenido() {
+        return detenido;
+    }
+
+    /**
+     * Solicita la finalización del servicio. El lote en curso termina normalmente y la espera
+     * entre lotes se interrumpe.
+     */
+    public synchronized void detener() {
+        detenido = true;
+        notifyAll();
+    }
+
+    /**
+     * Avisa que hay mensajes nuevos: la espera entre lotes en curso, o la siguiente, termina de inmediato
+     * para consultar sin esperar el intervalo.
+     */
+    public synchronized void despertar() {
+        despertado = true;
+        notifyAll();
+    }
+
+    /**
+     * Espera entre lotes. Retorna antes del plazo si el servicio es detenido o si recibe un aviso de
+     * mensajes nuevos ({@link #despertar()}), incluso uno recibido antes de empezar a esperar.
+     *
+     * @param ms espera máxima en milisegundos
+     * @throws InterruptedException si el hilo es interrumpido durante la espera
+     */
+    public synchronized void esperar(long ms) throws InterruptedException {
+        if (!detenido && !despertado && ms > 0) {
+            wait(ms);
+        }
+        despertado = false;
+    }
+
+    /**
+     * Devuelve un future que se completa cuando el servicio finalizó.
+     *
+     * @return future de finalización
+     */
+    public CompletableFuture<Void> terminado() {
+        return terminado;
+    }
+
+    /**
+     * Marca el servicio como finalizado.
+     */
+    public void finalizado() {
+        terminado.complete(null);
+    }
+
+    /**
+     * Aplica los parámetros modificables de una nueva versión de la configuración del servicio.
+     * Solo se actualizan los que cambiaron respecto de la configuración anterior, por lo que
+     * un ajuste hecho desde el endpoint de administración se mantiene mientras el archivo no
+     * modifique ese mismo parámetro. Los valores se validan antes de aplicar cualquiera de ellos.
+     *
+     * @param nueva nueva configuración del servicio
+     * @return nombres de los parámetros modificados
+     * @throws IllegalArgumentException si algún valor modificado es inválido
+     */
+    public synchronized List<String> apply(PushConfig nueva) {
+        PushConfig anterior = config;
+        List<String> cambios = new ArrayList<>();
+        if (!Objects.equals(anterior.getCantidadMaximaPorLote(), nueva.getCantidadMaximaPorLote())) {
+            requirePositive("cantidadMaximaPorLote", nueva.getCantidadMaximaPorLote());
+            cambios.add("cantidadMaximaPorLote");
+        }
+        if (anterior.getModoEnvioLote() != nueva.getModoEnvioLote()) {
+            cambios.add("modoEnvioLote");
+        }
+        if (!Objects.equals(anterior.getIntervaloEntreLotesMs(), nueva.getIntervaloEntreLotesMs())) {
+            requirePositive("intervaloEntreLotesMs", nueva.getIntervaloEntreLotesMs());
+            cambios.add("intervaloEntreLotesMs");
+        }
+        if (!Objects.equals(anterior.getEspaciadoMs(), nueva.getEspaciadoMs())) {
+            requirePositive("espaciadoMs", nueva.getEspaciadoMs());
+            cambios.add("espaciadoMs");
+        }
+        if (!Objects.equals(anterior.getConcurrencia(), nueva.getConcurrencia())) {
+            requirePositive("concurrencia", nueva.getConcurrencia());
+            cambios.add("concurrencia");
+        }
+        if (!Objects.equals(anterior.getPeso(), nueva.getPeso())) {
+            requirePositive("peso", nueva.getPeso());
+            cambios.add("peso");
+        }
+        if (!Objects.equals(anterior.getHilosGarantizados(), nueva.getHilosGarantizados())) {
+            if (nueva.getHilosGarantizados() < 0) {
+                throw new IllegalArgumentException("hilosGarantizados no puede ser negativo");
+            }
+            cambios.add("hilosGarantizados");
+        }
+        if (!Objects.equals(anterior.getMaximoEnVuelo(), nueva.getMaximoEnVuelo())) {
+            requirePositive("maximoEnVuelo", nueva.getMaximoEnVuelo());
+            cambios.add("maximoEnVuelo");
+        }
+        if (!Objects.equals(anterior.getReanudarEnVuelo(), nueva.getReanudarEnVuelo())) {
+            if (nueva.getReanudarEnVuelo() < 0) {
+                throw new IllegalArgumentException("reanudarEnVuelo no puede ser negativo");
+            }
+            cambios.add("reanudarEnVuelo");
+        }
+        if (!Objects.equals(anterior.getMaximoIntentos(), nueva.getMaximoIntentos())) {
+            requirePositive("maximoIntentos", nueva.getMaximoIntentos());
+            cambios.add("maximoIntentos");
+        }
+        if (!Objects.equals(anterior.getSloEntregaMs(), nueva.getSloEntregaMs())) {
+            if (nueva.getSloEntregaMs() < 0) {
+                throw new IllegalArgumentException("sloEntregaMs no puede ser negativo");
+            }
+            cambios.add("sloEntregaMs");
+        }
+        if (!Objects.equals(anterior.getPlazosEntregaMs(), nueva.getPlazosEntregaMs())) {
+            for (Map.Entry<String, Long> plazo : nueva.getPlazosEntregaMs().entrySet()) {
+                if (plazo.getValue() == null || plazo.getValue() < 0) {
+                    throw new IllegalArgumentException("plazosEntregaMs." + plazo.getKey() + " no puede ser negativo");
+                }
+            }
+            cambios.add("plazosEntregaMs");
+        }
+        if (!Objects.equals(anterior.getMuestreoLogMensajes(), nueva.getMuestreoLogMensajes())) {
+            cambios.add("muestreoLogMensajes");
+        }
+
+        for (String cambio : cambios) {
+            switch (cambio) {
+                case "cantidadMaximaPorLote": cantidadMaximaPorLote = nueva.getCantidadMaximaPorLote(); break;
+                case "modoEnvioLote": modoEnvioLote = nueva.getModoEnvioLote(); break;
+                case "intervaloEntreLotesMs": intervaloEntreLotesMs = nueva.getIntervaloEntreLotesMs(); break;
+                case "espaciadoMs": espaciadoMs = nueva.getEspaciadoMs(); break;
+                case "concurrencia": concurrencia = nueva.getConcurrencia(); break;
+                case "peso": peso = nueva.getPeso(); break;
+                case "hilosGarantizados": hilosGarantizados = nueva.getHilosGarantizados(); break;
+                case "maximoEnVuelo": maximoEnVuelo = nueva.getMaximoEnVuelo(); break;
+                case "reanudarEnVuelo": reanudarEnVuelo = nueva.getReanudarEnVuelo(); break;
+                case "maximoIntentos": maximoIntentos = nueva.getMaximoIntentos(); break;
+                case "sloEntregaMs": sloEntregaMs = nueva.getSloEntregaMs(); break;
+                case "plazosEntregaMs": plazosEntregaMs = nueva.getPlazosEntregaMs(); break;
+                case "muestreoLogMensajes": MuestreoMensajesFilter.setTasa(nombre, nueva.getMuestreoLogMensajes()); break;
+                default: break;
+            }
+        }
+        config = nueva;
+        return cambios;
+    }
+
+    public int getContadorLote() {
+        return contadorLote;
+    }
+
+    public int getUltimoLoteTamano() {
+        return ultimoLoteTamano;
+    }
+
+    public long getUltimoLoteMs() {
+        return ultimoLoteMs;
+    }
+
+    /**
+     * Registra el inicio de un lote.
+     *
+     * @param contador contador del lote
+     * @param tamano cantidad de mensajes del lote (0 si no hubo pendientes)
+     */
+    public void lote(int contador, int tamano) {
+        this.contadorLote = contador;
+        if (tamano > 0) {
+            this.ultimoLoteTamano = tamano;
+            this.ultimoLoteMs = System.currentTimeMillis();
+        }
+    }
+
+    private static void requirePositive(String nombre, long valor) {
+        if (valor <= 0) {
+            throw new IllegalArgumentException(nombre + " debe ser mayor a 0");
+        }
+    }
+}
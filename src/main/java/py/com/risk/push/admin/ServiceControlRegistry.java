@@ -0,0 +1,69 @@
+package py.com.risk.push.admin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registro de los {@link ServiceControl} de los servicios en ejecución, ordenados por nombre.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class ServiceControlRegistry {
+
+    private static final Map<String, ServiceControl> SERVICIOS = new ConcurrentSkipListMap<>();
+
+    private ServiceControlRegistry() {
+    }
+
+    /**
+     * Registra el control de un servicio, reemplazando uno anterior con el mismo nombre.
+     *
+     * @param control control del servicio
+     * @return el control registrado
+     */
+    public static ServiceControl register(ServiceControl control) {
+        SERVICIOS.put(control.getNombre(), control);
+        return control;
+    }
+
+    /**
+     * Devuelve el control de un servicio.
+     *
+     * @param nombre nombre del servicio
+     * @return control o {@code null} si no existe
+     */
+    public static ServiceControl get(String nombre) {
+        return SERVICIOS.get(nombre);
+    }
+
+    /**
+     * Devuelve los controles de todos los servicios.
+     *
+     * @return controles ordenados por nombre
+     */
+    public static Collection<ServiceControl> all() {
+        return Collections.unmodifiableCollection(SERVICIOS.values());
+    }
+
+    /**
+     * Elimina el control de un servicio.
+     *
+     * @param nombre nombre del servicio
+     */
+    public static void remove(String nombre) {
+        SERVICIOS.remove(nombre);
+    }
+
+    /**
+     * Elimina el control de un servicio solo si sigue siendo el registrado con su nombre
+     * (un servicio reiniciado ya puede haber registrado su nuevo control).
+     *
+     * @param control control del servicio
+     */
+    public static void remove(ServiceControl control) {
+        SERVICIOS.remove(control.getNombre(), control);
+    }
+}
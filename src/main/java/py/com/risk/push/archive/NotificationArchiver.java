@@ -0,0 +1,106 @@
+package py.com.risk.push.archive;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.bd.DBService;
+import py.com.risk.push.config.ArchiveConfig;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mueve periódicamente las notificaciones finalizadas y antiguas de {@code t_notificaciones} a
+ * {@code t_notificaciones_historico}, para que la tabla que consultan los servicios contenga solo el
+ * trabajo reciente.
+ * <p>
+ * Cada ejecución mueve tramos de {@code tramo} filas, confirmados por separado, hasta que uno vuelve
+ * incompleto. Entre tramos hace una pausa de al menos {@code pausaMs} y no menor a la duración del tramo,
+ * de modo que el archivo ocupa como máximo la mitad del tiempo de una conexión aunque la base esté
+ * lenta. Usa un único hilo de baja prioridad y una conexión del pool de tareas, sin competir con los
+ * servicios por sus pools ni por los hilos del despachador. Las filas bloqueadas por otra sesión se
+ * omiten y se archivan en una ejecución posterior.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class NotificationArchiver implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(NotificationArchiver.class);
+
+    private final ArchiveConfig config;
+    private final DBService dbService;
+    private final ScheduledExecutorService tarea;
+
+    /**
+     * @param config configuración del archivo
+     * @param dbService acceso a la base de las tareas de la aplicación
+     */
+    public NotificationArchiver(ArchiveConfig config, DBService dbService) {
+        this.config = config;
+        this.dbService = dbService;
+        this.tarea = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archivo");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Programa el archivo. La primera ejecución se hace luego de un intervalo, para no sumar carga al
+     * inicio de la aplicación.
+     */
+    public void start() {
+        if (config.getTramo() <= 0 || config.getIntervaloMs() <= 0 || config.getAntiguedadDias() < 0) {
+            throw new IllegalArgumentException("archivo requiere tramo e intervaloMs mayores a 0 y antiguedadDias no negativo");
+        }
+        tarea.scheduleWithFixedDelay(this::run, config.getIntervaloMs(), config.getIntervaloMs(), TimeUnit.MILLISECONDS);
+        logger.info("Archivo de notificaciones finalizadas con más de [{}] días cada [{}] ms",
+                config.getAntiguedadDias(), config.getIntervaloMs());
+    }
+
+    private void run() {
+        long inicio = System.nanoTime();
+        long ocupado = 0;
+        int total = 0;
+        int tramos = 0;
+        try {
+            int movidas;
+            do {
+                long inicioTramo = System.nanoTime();
+                movidas = dbService.archiveFinished(config.getAntiguedadDias(), config.getTramo());
+                long duracion = System.nanoTime() - inicioTramo;
+                ocupado += duracion;
+                total += movidas;
+                tramos++;
+                if (movidas >= config.getTramo()) {
+                    Thread.sleep(Math.max(config.getPausaMs(), TimeUnit.NANOSECONDS.toMillis(duracion)));
+                }
+            } while (movidas >= config.getTramo() && !tarea.isShutdown());
+        } catch (SQLException e) {
+            logger.warn("Error al archivar notificaciones, se reintenta en [{}] ms: {}", config.getIntervaloMs(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Error en la tarea de archivo", e);
+        }
+        if (total > 0) {
+            logger.info("[{}] notificaciones archivadas en [{}] tramos: [{}] ms en total, [{}] ms en la base",
+                    total, tramos, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), TimeUnit.NANOSECONDS.toMillis(ocupado));
+        } else {
+            logger.debug("Sin notificaciones para archivar");
+        }
+    }
+
+    /**
+     * Detiene el archivo. Un tramo en curso termina y se confirma; el resto queda para la próxima ejecución.
+     */
+    @Override
+    public void close() {
+        tarea.shutdownNow();
+    }
+}
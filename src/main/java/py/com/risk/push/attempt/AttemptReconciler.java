@@ -0,0 +1,106 @@
+package py.com.risk.push.attempt;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.bd.DBService;
+import py.com.risk.push.config.AttemptLogConfig;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traslada periódicamente el resultado de los intentos de envío registrados en
+ * {@code t_notificaciones_intentos} a sus notificaciones.
+ * <p>
+ * En cada intervalo concilia tramos, confirmados por separado, hasta que uno vuelve incompleto. Cada
+ * tramo actualiza todas sus notificaciones en una sola sentencia, en lugar de una actualización por
+ * intento. Con varias instancias, cada una concilia de forma independiente sin tomar dos veces el mismo
+ * intento, y concilia también los intentos de instancias detenidas.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class AttemptReconciler implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(AttemptReconciler.class);
+
+    private final AttemptLogConfig config;
+    private final DBService dbService;
+    private final ScheduledExecutorService tarea;
+
+    /**
+     * @param config configuración del registro de intentos
+     * @param dbService acceso a la base de las tareas de la aplicación
+     */
+    public AttemptReconciler(AttemptLogConfig config, DBService dbService) {
+        this.config = config;
+        this.dbService = dbService;
+        this.tarea = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "conciliacion");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Concilia los intentos que quedaron de una ejecución anterior y programa la conciliación periódica.
+     * La primera conciliación es sincrónica: debe terminar antes de que las concesiones devuelvan a
+     * pendiente las notificaciones en envío de esta instancia, porque sus resultados pueden estar solo en
+     * los intentos.
+     */
+    public void start() {
+        if (config.getTramo() <= 0 || config.getMaximoEnMemoria() <= 0 || config.getConciliacionMs() <= 0
+                || config.getTramoConciliacion() <= 0) {
+            throw new IllegalArgumentException("intentos requiere tramo, maximoEnMemoria, conciliacionMs y tramoConciliacion mayores a 0");
+        }
+        long inicio = System.nanoTime();
+        int conciliados = run();
+        logger.info("[{}] intentos de envío pendientes conciliados al iniciar en [{}] ms",
+                conciliados, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        tarea.scheduleWithFixedDelay(this::run, config.getConciliacionMs(), config.getConciliacionMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Concilia tramos hasta que uno vuelve incompleto.
+     *
+     * @return intentos conciliados
+     */
+    private int run() {
+        long inicio = System.nanoTime();
+        int total = 0;
+        try {
+            int conciliados;
+            do {
+                conciliados = dbService.reconcileAttempts(config.getTramoConciliacion());
+                total += conciliados;
+            } while (conciliados >= config.getTramoConciliacion() && !tarea.isShutdown());
+        } catch (SQLException e) {
+            logger.warn("Error al conciliar intentos de envío, se reintenta en [{}] ms: {}", config.getConciliacionMs(), e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error en la tarea de conciliación", e);
+        }
+        if (total > 0) {
+            logger.debug("[{}] intentos de envío conciliados en [{}] ms", total, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        }
+        return total;
+    }
+
+    /**
+     * Detiene la tarea y concilia un último tramo. Se invoca al apagar, luego de registrar los intentos
+     * de los servicios; los que queden se concilian al iniciar la próxima ejecución o en otra instancia.
+     */
+    @Override
+    public void close() {
+        tarea.shutdown();
+        try {
+            tarea.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        run();
+    }
+}
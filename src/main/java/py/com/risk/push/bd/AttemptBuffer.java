@@ -0,0 +1,181 @@
+package py.com.risk.push.bd;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola de intentos de envío a la espera de su inserción en {@code t_notificaciones_intentos}.
+ * <p>
+ * Un hilo por servicio toma los intentos acumulados, hasta {@code tramo}, y los inserta en una sola
+ * llamada; mientras una inserción está en curso los siguientes intentos se acumulan para la próxima, de
+ * modo que el tamaño de los lotes crece con la carga sin demorar los intentos cuando hay pocos. Si la
+ * inserción falla, el lote se conserva y se reintenta luego de una pausa.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+final class AttemptBuffer {
+
+    private static final Logger logger = LogManager.getLogger(AttemptBuffer.class);
+
+    /** Espera máxima de cada consulta a la cola, para verificar periódicamente si se cerró */
+    private static final long ESPERA_MS = 100;
+
+    /** Resultado de un intento de envío */
+    static final class Intento {
+        final BigDecimal idMensaje;
+        final String estado;
+        final String codigo;
+        final String respuesta;
+        final String idExterno;
+        final int maximoIntentos;
+        final Timestamp fecha;
+
+        Intento(BigDecimal idMensaje, String estado, String codigo, String respuesta, String idExterno, int maximoIntentos) {
+            this(idMensaje, estado, codigo, respuesta, idExterno, maximoIntentos, new Timestamp(System.currentTimeMillis()));
+        }
+
+        Intento(BigDecimal idMensaje, String estado, String codigo, String respuesta, String idExterno, int maximoIntentos,
+                Timestamp fecha) {
+            this.idMensaje = idMensaje;
+            this.estado = estado;
+            this.codigo = codigo;
+            this.respuesta = respuesta;
+            this.idExterno = idExterno;
+            this.maximoIntentos = maximoIntentos;
+            this.fecha = fecha;
+        }
+    }
+
+    /** Inserción de un lote de intentos */
+    @FunctionalInterface
+    interface Writer {
+        void write(List<Intento> lote) throws SQLException;
+    }
+
+    private final Writer writer;
+    private final int tramo;
+    private final long reintentoMs;
+    private final BlockingQueue<Intento> cola;
+    private final List<Intento> lote = new ArrayList<>();
+    private final Thread hilo;
+    private volatile boolean cerrado;
+
+    /**
+     * @param writer inserción de los lotes
+     * @param tramo máximo de intentos por inserción
+     * @param maximoEnMemoria capacidad de la cola
+     * @param reintentoMs pausa antes de reintentar una inserción fallida
+     * @param servicio nombre del servicio, para el hilo y el log
+     */
+    AttemptBuffer(Writer writer, int tramo, int maximoEnMemoria, long reintentoMs, String servicio) {
+        this.writer = writer;
+        this.tramo = tramo;
+        this.reintentoMs = reintentoMs;
+        this.cola = new LinkedBlockingQueue<>(maximoEnMemoria);
+        this.hilo = new Thread(() -> {
+            ThreadContext.put("servicio", servicio);
+            run();
+        }, "intentos-" + servicio);
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Encola un intento.
+     *
+     * @param intento resultado del intento
+     * @return {@code false} si la cola está llena o cerrada
+     */
+    boolean add(Intento intento) {
+        return !cerrado && cola.offer(intento);
+    }
+
+    /**
+     * @return intentos a la espera de su inserción
+     */
+    int size() {
+        return cola.size() + lote.size();
+    }
+
+    private void run() {
+        while (!cerrado) {
+            try {
+                if (lote.isEmpty()) {
+                    Intento primero = cola.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+                    if (primero == null) {
+                        continue;
+                    }
+                    lote.add(primero);
+                    cola.drainTo(lote, tramo - 1);
+                }
+                if (!write()) {
+                    Thread.sleep(reintentoMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Error al registrar intentos de envío, se reintenta en [{}] ms", reintentoMs, e);
+                try {
+                    Thread.sleep(reintentoMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserta el lote actual.
+     *
+     * @return {@code true} si se insertó y el lote quedó vacío
+     */
+    private boolean write() {
+        try {
+            writer.write(lote);
+            lote.clear();
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Error al registrar [{}] intentos de envío, se reintenta en [{}] ms: {}", lote.size(), reintentoMs, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deja de aceptar intentos e inserta los pendientes en el hilo que llama, hasta vaciar la cola o
+     * hasta la primera inserción fallida.
+     *
+     * @param esperaMs espera máxima para que el hilo de inserción termine su lote en curso
+     * @return intentos que no se pudieron insertar
+     */
+    int close(long esperaMs) {
+        cerrado = true;
+        try {
+            hilo.join(esperaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (hilo.isAlive()) {
+            return size();
+        }
+        do {
+            if (lote.isEmpty()) {
+                cola.drainTo(lote, tramo);
+            }
+        } while (!lote.isEmpty() && write());
+        return size();
+    }
+}
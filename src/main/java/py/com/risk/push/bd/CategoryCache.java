@@ -0,0 +1,127 @@
+package py.com.risk.push.bd;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.model.Categoria;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copia en memoria de {@code t_mensajeria_categorias}, que se recarga completa al vencer el intervalo
+ * de refresco. Evita consultar la tabla de categorías en cada consulta de pendientes y en cada
+ * notificación del endpoint de ingreso.
+ * <p>Si la recarga falla se mantiene la copia anterior y se reintenta en el siguiente acceso. Una
+ * categoría desconocida fuerza una recarga, como máximo una vez por segundo, para reconocer las
+ * categorías creadas luego de la última carga.</p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+final class CategoryCache {
+
+    private static final Logger logger = LogManager.getLogger(CategoryCache.class);
+
+    /** Intervalo mínimo entre recargas forzadas por una categoría desconocida */
+    private static final long RECARGA_MINIMA_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Carga de todas las categorías desde la base */
+    @FunctionalInterface
+    interface Loader {
+        List<Categoria> load() throws SQLException;
+    }
+
+    private final Loader loader;
+    private final long refrescoNanos;
+
+    /** Categorías por ID normalizado */
+    private volatile Map<BigDecimal, Categoria> porId;
+
+    /** Momento ({@link System#nanoTime()}) de la última carga exitosa */
+    private volatile long cargado;
+
+    /**
+     * @param loader carga de las categorías
+     * @param refrescoMs intervalo de recarga (en milisegundos)
+     */
+    CategoryCache(Loader loader, long refrescoMs) {
+        this.loader = loader;
+        this.refrescoNanos = TimeUnit.MILLISECONDS.toNanos(refrescoMs);
+    }
+
+    /**
+     * Devuelve una categoría por su ID.
+     *
+     * @param idCategoria ID de la categoría
+     * @return categoría o {@code null} si no existe
+     * @throws SQLException si la categoría no está en memoria y no se pudo cargar la tabla
+     */
+    Categoria get(BigDecimal idCategoria) throws SQLException {
+        BigDecimal clave = idCategoria.stripTrailingZeros();
+        Categoria categoria = current().get(clave);
+        if (categoria == null && System.nanoTime() - cargado >= RECARGA_MINIMA_NANOS) {
+            categoria = reload().get(clave);
+        }
+        return categoria;
+    }
+
+    /**
+     * Devuelve las categorías de una clasificación, ordenadas por prioridad e ID.
+     *
+     * @param clasificacion clasificación, o {@code null} para todas las categorías con clasificación
+     * @return categorías de la clasificación
+     * @throws SQLException si no hay copia en memoria y no se pudo cargar la tabla
+     */
+    List<Categoria> find(String clasificacion) throws SQLException {
+        List<Categoria> categorias = new ArrayList<>();
+        for (Categoria categoria : current().values()) {
+            if (categoria.getClasificacion() != null
+                    && (clasificacion == null || clasificacion.equals(categoria.getClasificacion()))) {
+                categorias.add(categoria);
+            }
+        }
+        categorias.sort(Comparator.comparingInt(Categoria::getPrioridad).thenComparing(Categoria::getIdCategoria));
+        return categorias;
+    }
+
+    private Map<BigDecimal, Categoria> current() throws SQLException {
+        Map<BigDecimal, Categoria> actual = porId;
+        if (actual == null || System.nanoTime() - cargado >= refrescoNanos) {
+            return reload();
+        }
+        return actual;
+    }
+
+    private synchronized Map<BigDecimal, Categoria> reload() throws SQLException {
+        long inicio = System.nanoTime();
+        // Otro hilo pudo recargar mientras se esperaba el monitor
+        if (porId != null && inicio - cargado < RECARGA_MINIMA_NANOS) {
+            return porId;
+        }
+        try {
+            Map<BigDecimal, Categoria> nuevas = new HashMap<>();
+            for (Categoria categoria : loader.load()) {
+                nuevas.put(categoria.getIdCategoria().stripTrailingZeros(), categoria);
+            }
+            porId = Collections.unmodifiableMap(nuevas);
+            cargado = System.nanoTime();
+            logger.debug("Categorías cargadas: [{}]", nuevas.size());
+        } catch (SQLException e) {
+            if (porId == null) {
+                throw e;
+            }
+            // Se conserva la copia anterior; se vuelve a intentar en el próximo intervalo mínimo
+            cargado = System.nanoTime() - refrescoNanos + RECARGA_MINIMA_NANOS;
+            logger.warn("No se pudieron recargar las categorías, se mantiene la copia anterior: {}", e.getMessage());
+        }
+        return porId;
+    }
+}
@@ -6,8 +6,16 @@ import oracle.sql.ArrayDescriptor;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
+import py.com.risk.push.cluster.PartitionAssignment;
+import py.com.risk.push.config.AttemptLogConfig;
 import py.com.risk.push.config.DataSourceConfig;
+import py.com.risk.push.config.JournalConfig;
+import py.com.risk.push.jfr.StatementEvent;
+import py.com.risk.push.journal.JournalRecord;
+import py.com.risk.push.journal.ResultJournal;
+import py.com.risk.push.model.Categoria;
 import py.com.risk.push.model.Plataforma;
 import py.com.risk.push.model.PushMessage;
 import py.com.risk.push.model.PushMessage.Status;
@@ -16,13 +24,19 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio de acceso a la base de datos para el manejo de notificaciones push.
@@ -43,29 +57,171 @@ public class DBService {
     /** Número máximo de intentos de envío antes de marcar el mensaje como rechazado */
     private Integer maximoIntentos = 5;
 
+    /** Tiempo máximo en segundos para la ejecución de cada sentencia SQL */
+    private final int queryTimeout;
+
+    /** Categorías en memoria, usadas para armar la consulta de pendientes y por el endpoint de ingreso */
+    private final CategoryCache categorias;
+
+    /** Instancia propietaria de las notificaciones bloqueadas, o {@code null} si no se registran concesiones */
+    private volatile String propietario;
+
+    /** Duración de la concesión de las notificaciones bloqueadas (en milisegundos) */
+    private volatile long plazoConcesionMs;
+
+    /** Intentos a la espera de su inserción, o {@code null} si los resultados actualizan la notificación */
+    private volatile AttemptBuffer intentos;
+
+    /** Diario local de los resultados de envío, o {@code null} si se registran directamente en la base */
+    private volatile ResultJournal diario;
+
+    /**
+     * Máximo de categorías con una rama propia en la consulta de pendientes. Con más categorías se usa
+     * una única sentencia unida a la tabla de categorías, para acotar el texto y el plan de la consulta.
+     */
+    private static final int MAXIMO_RAMAS_PENDIENTES = 16;
+
+    /**
+     * Consultas de notificaciones pendientes ya armadas, por forma (cantidad de categorías y filtros).
+     * La forma de la sentencia única es negativa.
+     */
+    private final Map<Integer, String> consultasPendientes = new ConcurrentHashMap<>();
+
+    /**
+     * Consulta SQL para obtener todas las categorías, que se mantienen en memoria ({@link CategoryCache}).
+     */
+    private static final String QUERY_OBTENER_CATEGORIAS =
+        "SELECT c.id_categoria, c.clasificacion, NVL(c.prioridad, 997) prioridad\r\n" +
+        "  FROM t_mensajeria_categorias c";
+
     /**
-     * Consulta SQL para obtener notificaciones pendientes de envío.
-     * Se filtra por estado, plataforma, clasificación y se limita por cantidad.
+     * Sentencia SQL para renovar la concesión de una instancia en la tabla de nodos, registrándola si no existe.
      */
-    private static final String QUERY_OBTENER_NOTIFICACIONES_PENDIENTES = 
-        "SELECT id_notificacion, token_notificacion, titulo, contenido, plataforma, datos_extra\r\n" +
-        "  FROM t_notificaciones b\r\n" +
-        "  JOIN t_mensajeria_categorias c\r\n" +
-        "    ON b.id_categoria = c.id_categoria\r\n" +
-        " WHERE b.estado = ?\r\n" +
-        "   AND b.plataforma = nvl(?, b.plataforma)\r\n" +
-        "   AND c.clasificacion = nvl(?, c.clasificacion)\r\n" +
-        " ORDER BY NVL(c.prioridad, 997), b.id_notificacion\r\n" +
-        " FETCH FIRST NVL(?, 100) ROWS ONLY";
+    private static final String QUERY_RENOVAR_NODO =
+        "MERGE INTO t_risk_push_nodos n\r\n" +
+        "USING (SELECT ? id_nodo FROM dual) s\r\n" +
+        "   ON (n.id_nodo = s.id_nodo)\r\n" +
+        " WHEN MATCHED THEN UPDATE SET n.ultimo_latido = SYSTIMESTAMP\r\n" +
+        " WHEN NOT MATCHED THEN INSERT (id_nodo, ultimo_latido) VALUES (s.id_nodo, SYSTIMESTAMP)";
+
+    /**
+     * Consulta SQL para obtener las instancias con la concesión vigente, ordenadas por identificador.
+     */
+    private static final String QUERY_OBTENER_NODOS_VIVOS =
+        "SELECT id_nodo\r\n" +
+        "  FROM t_risk_push_nodos\r\n" +
+        " WHERE ultimo_latido > SYSTIMESTAMP - NUMTODSINTERVAL(? / 1000, 'SECOND')\r\n" +
+        " ORDER BY id_nodo";
+
+    /**
+     * Consulta SQL para saber si una instancia tiene la concesión vigente.
+     */
+    private static final String QUERY_NODO_VIVO =
+        "SELECT COUNT(*)\r\n" +
+        "  FROM t_risk_push_nodos\r\n" +
+        " WHERE id_nodo = ?\r\n" +
+        "   AND ultimo_latido > SYSTIMESTAMP - NUMTODSINTERVAL(? / 1000, 'SECOND')";
+
+    /**
+     * Sentencia SQL para eliminar una instancia, o las que dejaron de renovar su concesión hace tiempo.
+     */
+    private static final String QUERY_ELIMINAR_NODOS =
+        "DELETE FROM t_risk_push_nodos\r\n" +
+        " WHERE id_nodo = ?\r\n" +
+        "    OR ultimo_latido < SYSTIMESTAMP - NUMTODSINTERVAL(? / 1000, 'SECOND')";
+
+    /**
+     * Bloque PL/SQL para tomar permisos de una cuota compartida. Recarga el balde según el tiempo
+     * transcurrido desde la última toma (hasta la ráfaga), entrega hasta lo pedido y descuenta lo entregado.
+     * Crea la fila de la cuota, con la ráfaga completa, la primera vez que se usa.
+     */
+    private static final String QUERY_TOMAR_CUOTA =
+        "DECLARE\n" +
+        "  v_nombre VARCHAR2(100) := ?;\n" +
+        "  v_tasa NUMBER := ?;\n" +
+        "  v_rafaga NUMBER := ?;\n" +
+        "  v_pedido NUMBER := ?;\n" +
+        "  v_ahora TIMESTAMP := CAST(SYSTIMESTAMP AS TIMESTAMP);\n" +
+        "  v_tokens NUMBER;\n" +
+        "  v_ultima TIMESTAMP;\n" +
+        "  v_segundos NUMBER;\n" +
+        "  v_otorgados NUMBER;\n" +
+        "BEGIN\n" +
+        "  BEGIN\n" +
+        "    SELECT tokens, ultima_recarga INTO v_tokens, v_ultima\n" +
+        "      FROM t_risk_push_cuotas WHERE nombre = v_nombre FOR UPDATE;\n" +
+        "  EXCEPTION\n" +
+        "    WHEN NO_DATA_FOUND THEN\n" +
+        "      BEGIN\n" +
+        "        INSERT INTO t_risk_push_cuotas (nombre, tokens, ultima_recarga) VALUES (v_nombre, v_rafaga, v_ahora);\n" +
+        "      EXCEPTION\n" +
+        "        WHEN DUP_VAL_ON_INDEX THEN NULL; -- la creó otra instancia\n" +
+        "      END;\n" +
+        "      SELECT tokens, ultima_recarga INTO v_tokens, v_ultima\n" +
+        "        FROM t_risk_push_cuotas WHERE nombre = v_nombre FOR UPDATE;\n" +
+        "  END;\n" +
+        "\n" +
+        "  v_segundos := EXTRACT(DAY FROM (v_ahora - v_ultima)) * 86400 + EXTRACT(HOUR FROM (v_ahora - v_ultima)) * 3600\n" +
+        "             + EXTRACT(MINUTE FROM (v_ahora - v_ultima)) * 60 + EXTRACT(SECOND FROM (v_ahora - v_ultima));\n" +
+        "  v_tokens := LEAST(v_rafaga, v_tokens + GREATEST(v_segundos, 0) * v_tasa);\n" +
+        "  v_otorgados := GREATEST(LEAST(FLOOR(v_tokens), v_pedido), 0);\n" +
+        "\n" +
+        "  UPDATE t_risk_push_cuotas\n" +
+        "     SET tokens = v_tokens - v_otorgados, ultima_recarga = GREATEST(v_ahora, v_ultima)\n" +
+        "   WHERE nombre = v_nombre;\n" +
+        "\n" +
+        "  ? := v_otorgados;\n" +
+        "END;";
+
+    /**
+     * Sentencia SQL para registrar una notificación recibida por el endpoint de ingreso.
+     * El {@code id_notificacion} lo asigna la tabla (columna identidad o trigger) y se lee como clave generada.
+     */
+    private static final String QUERY_INSERTAR_NOTIFICACION =
+        "INSERT INTO t_notificaciones\r\n" +
+        "  (id_categoria, token_notificacion, titulo, contenido, plataforma, datos_extra,\r\n" +
+        "   estado, cantidad_intentos_envio, fecha_insercion)\r\n" +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, 0, SYSTIMESTAMP)";
+
+    /**
+     * Igual que {@link #QUERY_INSERTAR_NOTIFICACION}, registrando la concesión si se inserta en envío (estado N).
+     */
+    private static final String QUERY_INSERTAR_NOTIFICACION_CONCESION =
+        "INSERT INTO t_notificaciones\r\n" +
+        "  (id_categoria, token_notificacion, titulo, contenido, plataforma, datos_extra,\r\n" +
+        "   estado, cantidad_intentos_envio, fecha_insercion, propietario_envio, vencimiento_envio)\r\n" +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, 0, SYSTIMESTAMP,\r\n" +
+        "        CASE WHEN ? = 'N' THEN ? END,\r\n" +
+        "        CASE WHEN ? = 'N' THEN SYSTIMESTAMP + NUMTODSINTERVAL(? / 1000, 'SECOND') END)";
 
     /**
      * Consulta SQL para actualizar el estado de envío de notificaciones masivamente.
      * Maneja lógica para verificar si puede actualizar los registros o están siendo usados por otro proceso.
+     * Al bloquear para envío (estado N) solo se toman las notificaciones que siguen pendientes, para que dos
+     * instancias que leyeron la misma notificación no la envíen ambas.
      */
-    private static final String QUERY_ACTUALIZAR_ESTADO_NOTIFICACIONES =
+    private static final String QUERY_ACTUALIZAR_ESTADO_NOTIFICACIONES = blockUpdateStatus(
+        "     SET estado = v_estado\n");
+
+    /**
+     * Igual que {@link #QUERY_ACTUALIZAR_ESTADO_NOTIFICACIONES}, registrando además la concesión de las
+     * notificaciones bloqueadas para envío: instancia propietaria y vencimiento.
+     */
+    private static final String QUERY_ACTUALIZAR_ESTADO_NOTIFICACIONES_CONCESION = blockUpdateStatus(
+        "     SET estado = v_estado,\n" +
+        "         propietario_envio = CASE WHEN v_estado = 'N' THEN v_propietario END,\n" +
+        "         vencimiento_envio = CASE WHEN v_estado = 'N' THEN SYSTIMESTAMP + NUMTODSINTERVAL(v_plazo / 1000, 'SECOND') END\n");
+
+    /**
+     * Arma el bloque PL/SQL de actualización masiva de estado con las asignaciones indicadas.
+     */
+    private static String blockUpdateStatus(String asignaciones) {
+        return
         "DECLARE\n" + 
         "  v_ids SYS.ODCINUMBERLIST := ?;\n" +
         "  v_estado VARCHAR2(1) := ?;\n" +
+        "  v_propietario VARCHAR2(100) := ?;\n" +
+        "  v_plazo NUMBER := ?;\n" +
         "  v_no_bloqueados SYS.ODCINUMBERLIST := SYS.ODCINUMBERLIST();\n" +
         "  v_bloqueados SYS.ODCINUMBERLIST := SYS.ODCINUMBERLIST();\n" +
         "  v_bloqueado number;\n" +
@@ -77,11 +233,15 @@ public class DBService {
         "        INTO v_bloqueado\n" +
         "        FROM t_notificaciones\n" +
         "       WHERE id_notificacion = v_ids(i)\n" +
+        "         AND (v_estado <> 'N' OR estado = 'P')\n" +
         "         FOR UPDATE NOWAIT;\n" +
         "\n" +
         "      v_bloqueados.EXTEND;\n" +
         "      v_bloqueados(v_bloqueados.COUNT) := v_bloqueado;\n" +
         "    EXCEPTION\n" +
+        "      WHEN NO_DATA_FOUND THEN -- ya la tomó otra instancia\n" +
+        "        v_no_bloqueados.EXTEND;\n" +
+        "        v_no_bloqueados(v_no_bloqueados.COUNT) := v_ids(i);\n" +
         "      WHEN OTHERS THEN\n" +
         "        IF SQLCODE = -54 THEN -- ORA-00054: recurso ocupado\n" +
         "          v_no_bloqueados.EXTEND;\n" +
@@ -94,12 +254,148 @@ public class DBService {
         "\n" +
         "  -- Actualizar estado si el bloqueo fue exitoso\n" +
         "  UPDATE t_notificaciones\n" +
-        "     SET estado = v_estado\n" +
+        asignaciones +
         "   WHERE id_notificacion IN (SELECT * FROM TABLE(v_bloqueados));\n" +
         "\n" +
         "  -- Devolver los no bloqueados\n" +
         "  ? := v_no_bloqueados;\n" +
         "END;";
+    }
+
+    /**
+     * Sentencia SQL para extender la concesión de las notificaciones en envío de una instancia.
+     * El predicado coincide con el índice {@code ix_notificaciones_propietario}, que solo contiene las
+     * notificaciones en estado N.
+     */
+    private static final String QUERY_RENOVAR_CONCESIONES =
+        "UPDATE t_notificaciones\r\n" +
+        "   SET vencimiento_envio = SYSTIMESTAMP + NUMTODSINTERVAL(? / 1000, 'SECOND')\r\n" +
+        " WHERE CASE WHEN estado = 'N' THEN propietario_envio END = ?";
+
+    /**
+     * Sentencia SQL para devolver a pendiente un tramo de notificaciones en envío con la concesión vencida.
+     * El predicado coincide con el índice {@code ix_notificaciones_vencimiento}, que solo contiene las
+     * notificaciones en estado N, por lo que no recorre la tabla.
+     */
+    private static final String QUERY_LIBERAR_VENCIDAS =
+        "UPDATE t_notificaciones\r\n" +
+        "   SET estado = 'P', propietario_envio = NULL, vencimiento_envio = NULL\r\n" +
+        " WHERE CASE WHEN estado = 'N' THEN vencimiento_envio END < SYSTIMESTAMP\r\n" +
+        "   AND ROWNUM <= ?";
+
+    /**
+     * Sentencia SQL para devolver a pendiente un tramo de notificaciones en envío de una instancia, sin
+     * importar su vencimiento. Se usa al iniciar, para las notificaciones de una ejecución anterior con el
+     * mismo identificador.
+     */
+    private static final String QUERY_LIBERAR_PROPIAS =
+        "UPDATE t_notificaciones\r\n" +
+        "   SET estado = 'P', propietario_envio = NULL, vencimiento_envio = NULL\r\n" +
+        " WHERE CASE WHEN estado = 'N' THEN propietario_envio END = ?\r\n" +
+        "   AND ROWNUM <= ?";
+
+    /**
+     * Bloque PL/SQL para mover un tramo de notificaciones finalizadas (E, R, A) con la antigüedad indicada
+     * a {@code t_notificaciones_historico}. La antigüedad se mide desde el envío, o desde la inserción si la
+     * notificación no llegó a enviarse, para no archivar un reintento reciente de una notificación antigua.
+     * Las columnas se listan para que el histórico no dependa del orden de columnas de {@code t_notificaciones}
+     * ni de las columnas de las concesiones. Las filas bloqueadas por otra sesión se omiten. La inserción y
+     * el borrado se confirman juntos al finalizar la llamada.
+     * <p>
+     * El filtro repite la expresión del índice {@code ix_notificaciones_archivo} (ver sql/indices.sql) y se
+     * compara con un {@code TIMESTAMP} sin zona, para que cada tramo sea un INDEX RANGE SCAN con COUNT
+     * STOPKEY sobre las finalizadas más antiguas en lugar de un recorrido completo de la tabla.
+     * </p>
+     */
+    private static final String QUERY_ARCHIVAR_FINALIZADAS =
+        "DECLARE\n" +
+        "  v_ids SYS.ODCINUMBERLIST;\n" +
+        "BEGIN\n" +
+        "  SELECT id_notificacion\n" +
+        "    BULK COLLECT INTO v_ids\n" +
+        "    FROM t_notificaciones\n" +
+        "   WHERE CASE WHEN estado IN ('E', 'R', 'A') THEN NVL(fecha_envio, fecha_insercion) END\n" +
+        "           < CAST(SYSTIMESTAMP AS TIMESTAMP) - NUMTODSINTERVAL(?, 'DAY')\n" +
+        "     AND ROWNUM <= ?\n" +
+        "     FOR UPDATE SKIP LOCKED;\n" +
+        "\n" +
+        "  INSERT INTO t_notificaciones_historico\n" +
+        "    (id_notificacion, id_categoria, token_notificacion, titulo, contenido, plataforma, datos_extra,\n" +
+        "     estado, cantidad_intentos_envio, codigo_respuesta_envio, respuesta_envio, id_externo_envio,\n" +
+        "     fecha_insercion, fecha_envio)\n" +
+        "  SELECT id_notificacion, id_categoria, token_notificacion, titulo, contenido, plataforma, datos_extra,\n" +
+        "         estado, cantidad_intentos_envio, codigo_respuesta_envio, respuesta_envio, id_externo_envio,\n" +
+        "         fecha_insercion, fecha_envio\n" +
+        "    FROM t_notificaciones\n" +
+        "   WHERE id_notificacion IN (SELECT * FROM TABLE(v_ids));\n" +
+        "\n" +
+        "  DELETE FROM t_notificaciones\n" +
+        "   WHERE id_notificacion IN (SELECT * FROM TABLE(v_ids));\n" +
+        "\n" +
+        "  ? := v_ids.COUNT;\n" +
+        "END;";
+
+    /**
+     * Sentencia SQL para agregar un intento de envío. Se ejecuta por lotes, sin bloquear filas de
+     * {@code t_notificaciones}.
+     */
+    private static final String QUERY_INSERTAR_INTENTO =
+        "INSERT INTO t_notificaciones_intentos\r\n" +
+        "  (id_notificacion, estado, codigo_respuesta_envio, respuesta_envio, id_externo_envio,\r\n" +
+        "   maximo_intentos, fecha_intento)\r\n" +
+        "VALUES\r\n" +
+        "  (?, ?, SUBSTR(?, 1, 10), SUBSTR(?, 1, 1000), SUBSTR(?, 1, 100), ?, ?)";
+
+    /**
+     * Bloque PL/SQL para conciliar un tramo de intentos con sus notificaciones. Toma los intentos sin
+     * conciliar por el índice {@code ix_intentos_pendientes}, que solo los contiene a ellos, y aplica en una
+     * sola sentencia, por notificación, el estado del último intento, los últimos datos de respuesta
+     * informados, la cantidad de intentos y la fecha de envío. Un intento pendiente (P) que alcanza el
+     * máximo de intentos deja la notificación rechazada (R), como la actualización individual. Solo se
+     * actualizan las notificaciones que siguen en envío (N): los intentos de una notificación que ya volvió
+     * a pendiente o finalizó se marcan conciliados sin aplicarse, para no pisar un envío posterior. Los
+     * intentos de otra sesión en conciliación se omiten.
+     */
+    private static final String QUERY_CONCILIAR_INTENTOS =
+        "DECLARE\n" +
+        "  v_ids SYS.ODCINUMBERLIST;\n" +
+        "BEGIN\n" +
+        "  SELECT id_intento\n" +
+        "    BULK COLLECT INTO v_ids\n" +
+        "    FROM t_notificaciones_intentos\n" +
+        "   WHERE CASE WHEN fecha_conciliacion IS NULL THEN id_intento END IS NOT NULL\n" +
+        "     AND ROWNUM <= ?\n" +
+        "     FOR UPDATE SKIP LOCKED;\n" +
+        "\n" +
+        "  MERGE INTO t_notificaciones n\n" +
+        "  USING (SELECT id_notificacion,\n" +
+        "                MAX(estado) KEEP (DENSE_RANK LAST ORDER BY id_intento) estado,\n" +
+        "                MAX(codigo_respuesta_envio) KEEP (DENSE_RANK LAST ORDER BY NVL2(codigo_respuesta_envio, 1, 0), id_intento) codigo,\n" +
+        "                MAX(respuesta_envio) KEEP (DENSE_RANK LAST ORDER BY NVL2(respuesta_envio, 1, 0), id_intento) respuesta,\n" +
+        "                MAX(id_externo_envio) KEEP (DENSE_RANK LAST ORDER BY NVL2(id_externo_envio, 1, 0), id_intento) id_externo,\n" +
+        "                MAX(maximo_intentos) KEEP (DENSE_RANK LAST ORDER BY id_intento) maximo_intentos,\n" +
+        "                SUM(CASE WHEN estado = 'N' THEN 0 ELSE 1 END) intentos,\n" +
+        "                MAX(CASE WHEN estado = 'E' THEN fecha_intento END) fecha_envio\n" +
+        "           FROM t_notificaciones_intentos\n" +
+        "          WHERE id_intento IN (SELECT * FROM TABLE(v_ids))\n" +
+        "          GROUP BY id_notificacion) i\n" +
+        "     ON (n.id_notificacion = i.id_notificacion)\n" +
+        "   WHEN MATCHED THEN UPDATE SET\n" +
+        "        n.estado = CASE WHEN i.estado = 'P' AND NVL(n.cantidad_intentos_envio, 0) + i.intentos >= i.maximo_intentos\n" +
+        "                        THEN 'R' ELSE i.estado END,\n" +
+        "        n.codigo_respuesta_envio = NVL(i.codigo, n.codigo_respuesta_envio),\n" +
+        "        n.respuesta_envio = NVL(i.respuesta, n.respuesta_envio),\n" +
+        "        n.id_externo_envio = NVL(i.id_externo, n.id_externo_envio),\n" +
+        "        n.cantidad_intentos_envio = NVL(n.cantidad_intentos_envio, 0) + i.intentos,\n" +
+        "        n.fecha_envio = NVL(i.fecha_envio, n.fecha_envio)\n" +
+        "  WHERE n.estado = 'N';\n" +
+        "\n" +
+        "  UPDATE t_notificaciones_intentos\n" +
+        "     SET fecha_conciliacion = SYSTIMESTAMP\n" +
+        "   WHERE id_intento IN (SELECT * FROM TABLE(v_ids));\n" +
+        "\n" +
+        "  ? := v_ids.COUNT;\n" +
+        "END;";
 
     /**
      * Consulta SQL para actualizar el estado de envío de una notificación.
@@ -118,6 +414,28 @@ public class DBService {
         "fecha_envio = CASE WHEN ? = 'E' THEN CURRENT_TIMESTAMP ELSE fecha_envio END " +
         "WHERE id_notificacion = ?";
 
+    /**
+     * Consulta SQL para aplicar un resultado del diario local. Equivale a
+     * {@link #QUERY_ACTUALIZAR_NOTIFICACION_ENVIADA}, con el máximo de intentos y la fecha de envío
+     * registrados junto con el resultado. Solo se actualiza la notificación si sigue en envío (N) a nombre
+     * de la instancia que registró el resultado (sin concesiones, sin propietario): un resultado que ya se
+     * registró directamente o cuya notificación volvió a pendiente y la tomó otra instancia no se aplica.
+     */
+    private static final String QUERY_APLICAR_RESULTADO =
+        "UPDATE t_notificaciones SET " +
+        "estado = CASE " +
+        "  WHEN ? = 'P' AND cantidad_intentos_envio >= ? THEN 'R' " +
+        "  ELSE NVL(?, estado) END, " +
+        "codigo_respuesta_envio = NVL(SUBSTR(?, 1, 10), codigo_respuesta_envio), " +
+        "respuesta_envio = NVL(SUBSTR(?, 1, 1000), respuesta_envio), " +
+        "id_externo_envio = NVL(SUBSTR(?, 1, 100), id_externo_envio), " +
+        "cantidad_intentos_envio = CASE WHEN ? = 'N' THEN NVL(cantidad_intentos_envio,0) " +
+        "  ELSE NVL(cantidad_intentos_envio,0) + 1 END, " +
+        "fecha_envio = CASE WHEN ? = 'E' THEN ? ELSE fecha_envio END " +
+        "WHERE id_notificacion = ? " +
+        "AND estado = 'N' " +
+        "AND (? IS NULL OR propietario_envio = ?)";
+
     /**
      * Constructor que inicializa el pool de conexiones Hikari con la configuración recibida.
      *
@@ -133,6 +451,28 @@ public class DBService {
         config.setIdleTimeout(ds.getIdleTimeout());
         config.setConnectionTimeout(ds.getConnectionTimeout());
         this.dataSource = new HikariDataSource(config);
+        this.queryTimeout = ds.getQueryTimeout();
+        this.categorias = new CategoryCache(this::loadCategorias, ds.getRefrescoCategoriasMs());
+    }
+
+    /**
+     * Devuelve el MXBean del pool de conexiones, utilizado para publicar su uso en las métricas.
+     *
+     * @return MXBean del pool HikariCP o {@code null} si no está disponible
+     */
+    public HikariPoolMXBean getPoolMXBean() {
+        return dataSource instanceof HikariDataSource ? ((HikariDataSource) dataSource).getHikariPoolMXBean() : null;
+    }
+
+    /**
+     * Cierra el pool de conexiones. Se utiliza al detener un servicio eliminado de la configuración.
+     * Antes registra los resultados de envío pendientes.
+     */
+    public void close() {
+        flushResults();
+        if (dataSource instanceof HikariDataSource) {
+            ((HikariDataSource) dataSource).close();
+        }
     }
 
     /**
@@ -154,6 +494,97 @@ public class DBService {
         this.maximoIntentos = max;
     }
 
+    /**
+     * Registra la concesión de las notificaciones que se bloquean para envío: la instancia propietaria y
+     * el vencimiento, luego del cual {@link #releaseExpired(int)} las devuelve a pendiente.
+     *
+     * @param propietario identificador de la instancia, o {@code null} para no registrar concesiones
+     * @param plazoMs duración de la concesión (en milisegundos)
+     */
+    public void setConcesion(String propietario, long plazoMs) {
+        this.propietario = propietario;
+        this.plazoConcesionMs = plazoMs;
+    }
+
+    /**
+     * Registra los resultados de los envíos como intentos en {@code t_notificaciones_intentos}, insertados
+     * por lotes desde un hilo propio, en lugar de actualizar cada notificación. La notificación queda en
+     * proceso (N) hasta que {@link #reconcileAttempts(int)} aplica el resultado.
+     *
+     * @param config configuración del registro de intentos
+     * @param servicio nombre del servicio, para el hilo de inserción
+     */
+    public void setRegistroIntentos(AttemptLogConfig config, String servicio) {
+        this.intentos = new AttemptBuffer(this::insertAttempts, config.getTramo(), config.getMaximoEnMemoria(),
+                config.getReintentoMs(), servicio);
+    }
+
+    /**
+     * Escribe los resultados de los envíos en un diario local antes de registrarlos en la base. El
+     * resultado se confirma al sincronizarse el diario con el disco y se aplica a la base en orden desde
+     * un hilo propio, de modo que la latencia o la caída de la base no demoran los envíos. Los resultados
+     * que quedan sin aplicar se aplican al volver a abrir el diario.
+     *
+     * @param config configuración del diario
+     * @param servicio nombre del servicio; su diario es el subdirectorio con ese nombre
+     * @throws IOException si no se puede abrir el diario
+     */
+    public void setDiario(JournalConfig config, String servicio) throws IOException {
+        ResultJournal journal = openJournal(config, Paths.get(config.getDirectorio(), servicio));
+        journal.start(this::applyResults);
+        this.diario = journal;
+    }
+
+    /**
+     * Aplica a la base, en el hilo que llama, los resultados que quedaron sin aplicar en un diario de una
+     * ejecución anterior, reintentando mientras la base no responde. Se invoca al iniciar, antes de
+     * conciliar los intentos y de liberar las concesiones propias, para que una notificación ya enviada no
+     * vuelva a pendiente. Los resultados se aplican directamente sobre las notificaciones.
+     *
+     * @param config configuración del diario
+     * @param directorio directorio del diario de un servicio
+     * @return cantidad de resultados aplicados
+     * @throws IOException si no se puede abrir o leer el diario
+     * @throws InterruptedException si el hilo es interrumpido durante un reintento
+     */
+    public int replayJournal(JournalConfig config, Path directorio) throws IOException, InterruptedException {
+        ResultJournal journal = openJournal(config, directorio);
+        try {
+            return journal.replay(this::applyResults);
+        } finally {
+            journal.close(0);
+        }
+    }
+
+    private static ResultJournal openJournal(JournalConfig config, Path directorio) throws IOException {
+        if (config.getTamanoSegmentoMb() <= 0 || config.getTamanoSegmentoMb() > 1024 || config.getMaximoMb() < config.getTamanoSegmentoMb()) {
+            throw new IllegalArgumentException("diario requiere tamanoSegmentoMb entre 1 y 1024 y maximoMb no menor a tamanoSegmentoMb");
+        }
+        return new ResultJournal(directorio, config.getTamanoSegmentoMb() << 20, (long) config.getMaximoMb() << 20,
+                config.getSincronizacionMs(), config.getReintentoMs());
+    }
+
+    /**
+     * Registra los resultados pendientes, en el hilo que llama: aplica el diario a la base e inserta los
+     * intentos encolados, cada uno con una espera acotada. Se invoca al detener el servicio, luego de
+     * finalizar sus envíos; los resultados posteriores se registran directamente.
+     */
+    public void flushResults() {
+        long esperaMs = TimeUnit.SECONDS.toMillis(queryTimeout + 1L);
+        ResultJournal journal = diario;
+        if (journal != null && !journal.close(esperaMs)) {
+            logger.warn("Quedan resultados del diario sin aplicar; se aplicarán al iniciar el servicio");
+        }
+        AttemptBuffer buffer = intentos;
+        if (buffer == null) {
+            return;
+        }
+        int restantes = buffer.close(esperaMs);
+        if (restantes > 0) {
+            logger.error("[{}] intentos de envío no se pudieron registrar; sus notificaciones quedan en proceso (N)", restantes);
+        }
+    }
+
     /**
      * Recupera las notificaciones pendientes de envío desde la base de datos.
      *
@@ -164,36 +595,523 @@ public class DBService {
      * @throws SQLException en caso de error de conexión o consulta
      */
     public List<PushMessage> loadPendingPushMessages(String plataforma, String clasificacion, Integer maxSize) throws SQLException {
-        logger.debug("Recuperando mensajes push pendientes: plataforma={}, clasificacion={}, max={}", plataforma, clasificacion, maxSize);
+        return loadPendingPushMessages(plataforma, clasificacion, maxSize, PartitionAssignment.UNICA);
+    }
+
+    /**
+     * Recupera las notificaciones pendientes de envío de las particiones asignadas a la instancia.
+     *
+     * @param plataforma código de la plataforma (FCM, HMS, etc.)
+     * @param clasificacion clasificación opcional para filtrar categorías
+     * @param maxSize número máximo de registros a recuperar
+     * @param asignacion particiones asignadas a la instancia
+     * @return lista de mensajes pendientes representados como PushMessage
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public List<PushMessage> loadPendingPushMessages(String plataforma, String clasificacion, Integer maxSize,
+                                                     PartitionAssignment asignacion) throws SQLException {
+        logger.debug("Recuperando mensajes push pendientes: plataforma={}, clasificacion={}, max={}, particiones=[{}]",
+                plataforma, clasificacion, maxSize, asignacion);
         List<PushMessage> lista = new ArrayList<>();
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int codigoError = 0;
+
+        try {
+            List<Categoria> categoriasServicio = categorias.find(clasificacion);
+            if (categoriasServicio.isEmpty()) {
+                logger.debug("Sin categorías para la clasificación [{}]", clasificacion);
+                return lista;
+            }
+            final boolean particionado = !asignacion.isCompleta();
+            final int limite = maxSize != null ? maxSize : 100;
+            final boolean porRamas = categoriasServicio.size() <= MAXIMO_RAMAS_PENDIENTES;
+            String sql = porRamas ? pendingQuery(categoriasServicio.size(), plataforma != null, particionado)
+                    : pendingQuery(plataforma != null, clasificacion != null, particionado);
+
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                stmt.setQueryTimeout(queryTimeout);
+                int indice = 1;
+                if (porRamas) {
+                    for (Categoria categoria : categoriasServicio) {
+                        stmt.setString(indice++, categoria.getClasificacion());
+                        stmt.setInt(indice++, categoria.getPrioridad());
+                        stmt.setString(indice++, Status.PENDIENTE_ENVIO.getCode());
+                        if (plataforma != null) {
+                            stmt.setString(indice++, plataforma);
+                        }
+                        stmt.setBigDecimal(indice++, categoria.getIdCategoria());
+                        if (particionado) {
+                            stmt.setString(indice++, asignacion.getMascara());
+                            stmt.setInt(indice++, asignacion.getParticiones());
+                        }
+                        stmt.setInt(indice++, limite);
+                    }
+                } else {
+                    stmt.setString(indice++, Status.PENDIENTE_ENVIO.getCode());
+                    if (plataforma != null) {
+                        stmt.setString(indice++, plataforma);
+                    }
+                    if (clasificacion != null) {
+                        stmt.setString(indice++, clasificacion);
+                    }
+                    if (particionado) {
+                        stmt.setString(indice++, asignacion.getMascara());
+                        stmt.setInt(indice++, asignacion.getParticiones());
+                    }
+                }
+                stmt.setInt(indice, limite);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    long ahora = System.currentTimeMillis();
+                    while (rs.next()) {
+                        PushMessage msg = new PushMessage(
+                                rs.getBigDecimal("id_notificacion"),
+                                rs.getString("token_notificacion"),
+                                rs.getString("titulo"),
+                                rs.getString("contenido"),
+                                Plataforma.fromCode(rs.getString("plataforma")),
+                                rs.getString("datos_extra"),
+                                rs.getString("clasificacion"),
+                                rs.getInt("cantidad_intentos_envio")
+                        );
+                        msg.setPrioridad(rs.getInt("prioridad"));
+                        Timestamp fechaInsercion = rs.getTimestamp("fecha_insercion");
+                        Timestamp fechaActual = rs.getTimestamp("fecha_actual");
+                        if (fechaInsercion != null && fechaActual != null) {
+                            msg.setCreadoMs(ahora - Math.max(0L, fechaActual.getTime() - fechaInsercion.getTime()));
+                        }
+                        lista.add(msg);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            logger.error("Error al recuperar mensajes pendientes", e);
+        } finally {
+            commitStatement(event, "consultar_pendientes", lista.size(), null, codigoError);
+        }
+        return lista;
+    }
+
+    /**
+     * Devuelve la consulta de pendientes para la cantidad de categorías y los filtros indicados.
+     * <p>
+     * La consulta tiene una rama por categoría (hasta {@value #MAXIMO_RAMAS_PENDIENTES}), con igualdad en estado, plataforma y categoría y orden
+     * por {@code id_notificacion}: cada rama es un recorrido por rango del índice
+     * {@code ix_notificaciones_pendientes} (ver {@code sql/indices.sql}) que se detiene al leer el límite, sin ordenar los pendientes.
+     * La clasificación y prioridad de cada categoría vienen de {@link CategoryCache}, por lo que no se une
+     * la tabla de categorías; solo se ordenan por prioridad las filas leídas por las ramas. El filtro de
+     * particiones compara la partición de cada fila con la máscara de particiones propias
+     * ({@link PartitionAssignment#getMascara()}) y se omite si la instancia atiende todas.
+     * </p>
+     * Junto con la fecha de inserción se lee la hora actual de la base, para calcular la antigüedad
+     * de cada mensaje sin depender de la diferencia de reloj o zona horaria con la aplicación.
+     */
+    private String pendingQuery(int cantidadCategorias, boolean filtraPlataforma, boolean particionado) {
+        int forma = cantidadCategorias * 4 + (filtraPlataforma ? 2 : 0) + (particionado ? 1 : 0);
+        return consultasPendientes.computeIfAbsent(forma, f -> {
+            StringBuilder sql = new StringBuilder(
+                "SELECT p.*, CAST(SYSTIMESTAMP AS TIMESTAMP) fecha_actual\r\n" +
+                "  FROM (\r\n");
+            for (int i = 0; i < cantidadCategorias; i++) {
+                if (i > 0) {
+                    sql.append("        UNION ALL\r\n");
+                }
+                sql.append(
+                    "        SELECT * FROM (\r\n" +
+                    "          SELECT b.id_notificacion, b.token_notificacion, b.titulo, b.contenido, b.plataforma, b.datos_extra,\r\n" +
+                    "                 NVL(b.cantidad_intentos_envio, 0) cantidad_intentos_envio, ? clasificacion, ? prioridad,\r\n" +
+                    "                 b.fecha_insercion\r\n" +
+                    "            FROM t_notificaciones b\r\n" +
+                    "           WHERE b.estado = ?\r\n");
+                if (filtraPlataforma) {
+                    sql.append("             AND b.plataforma = ?\r\n");
+                }
+                sql.append("             AND b.id_categoria = ?\r\n");
+                if (particionado) {
+                    sql.append("             AND SUBSTR(?, MOD(b.id_notificacion, ?) + 1, 1) = '1'\r\n");
+                }
+                sql.append(
+                    "           ORDER BY b.id_notificacion\r\n" +
+                    "           FETCH FIRST ? ROWS ONLY)\r\n");
+            }
+            sql.append(
+                "       ) p\r\n" +
+                " ORDER BY p.prioridad, p.id_notificacion\r\n" +
+                " FETCH FIRST ? ROWS ONLY");
+            return sql.toString();
+        });
+    }
+
+    /**
+     * Devuelve la consulta de pendientes en una única sentencia, para los servicios con más de
+     * {@value #MAXIMO_RAMAS_PENDIENTES} categorías. Se une la tabla de categorías y se ordenan por prioridad
+     * todos los pendientes de esas categorías, por lo que el costo crece con la cantidad de pendientes; a
+     * cambio, el texto de la sentencia no depende de la cantidad de categorías.
+     */
+    private String pendingQuery(boolean filtraPlataforma, boolean filtraClasificacion, boolean particionado) {
+        int forma = -1 - ((filtraPlataforma ? 4 : 0) + (filtraClasificacion ? 2 : 0) + (particionado ? 1 : 0));
+        return consultasPendientes.computeIfAbsent(forma, f -> {
+            StringBuilder sql = new StringBuilder(
+                "SELECT b.id_notificacion, b.token_notificacion, b.titulo, b.contenido, b.plataforma, b.datos_extra,\r\n" +
+                "       NVL(b.cantidad_intentos_envio, 0) cantidad_intentos_envio, c.clasificacion,\r\n" +
+                "       NVL(c.prioridad, 997) prioridad,\r\n" +
+                "       b.fecha_insercion, CAST(SYSTIMESTAMP AS TIMESTAMP) fecha_actual\r\n" +
+                "  FROM t_notificaciones b\r\n" +
+                "  JOIN t_mensajeria_categorias c\r\n" +
+                "    ON b.id_categoria = c.id_categoria\r\n" +
+                " WHERE b.estado = ?\r\n");
+            if (filtraPlataforma) {
+                sql.append("   AND b.plataforma = ?\r\n");
+            }
+            if (filtraClasificacion) {
+                sql.append("   AND c.clasificacion = ?\r\n");
+            }
+            if (particionado) {
+                sql.append("   AND SUBSTR(?, MOD(b.id_notificacion, ?) + 1, 1) = '1'\r\n");
+            }
+            sql.append(
+                " ORDER BY NVL(c.prioridad, 997), b.id_notificacion\r\n" +
+                " FETCH FIRST ? ROWS ONLY");
+            return sql.toString();
+        });
+    }
+
+    /**
+     * Renueva la concesión de una instancia y devuelve las instancias vivas.
+     *
+     * @param idNodo identificador de la instancia
+     * @param expiracionMs tiempo sin renovar tras el cual una instancia se considera caída
+     * @return identificadores de las instancias vivas, ordenados
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public List<String> renewNode(String idNodo, long expiracionMs) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int codigoError = 0;
+        List<String> nodos = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(QUERY_RENOVAR_NODO)) {
+                stmt.setQueryTimeout(queryTimeout);
+                stmt.setString(1, idNodo);
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(QUERY_OBTENER_NODOS_VIVOS)) {
+                stmt.setQueryTimeout(queryTimeout);
+                stmt.setLong(1, expiracionMs);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        nodos.add(rs.getString("id_nodo"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "renovar_nodo", nodos.size(), null, codigoError);
+        }
+        return nodos;
+    }
+
+    /**
+     * Indica si una instancia renovó su concesión dentro de la expiración.
+     *
+     * @param idNodo identificador de la instancia
+     * @param expiracionMs tiempo sin renovar tras el cual una instancia se considera caída
+     * @return {@code true} si la instancia figura viva
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public boolean isNodeAlive(String idNodo, long expiracionMs) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int codigoError = 0;
+        int filas = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(QUERY_NODO_VIVO)) {
+            stmt.setQueryTimeout(queryTimeout);
+            stmt.setString(1, idNodo);
+            stmt.setLong(2, expiracionMs);
+            try (ResultSet rs = stmt.executeQuery()) {
+                filas = rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "consultar_nodo", filas, null, codigoError);
+        }
+        return filas > 0;
+    }
+
+    /**
+     * Elimina una instancia de la tabla de nodos, junto con las que no renuevan su concesión hace más
+     * de {@code antiguedadMs}.
+     *
+     * @param idNodo identificador de la instancia
+     * @param antiguedadMs antigüedad a partir de la cual se eliminan las instancias caídas
+     */
+    public void removeNode(String idNodo, long antiguedadMs) {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int filas = 0;
+        int codigoError = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(QUERY_ELIMINAR_NODOS)) {
+            stmt.setQueryTimeout(queryTimeout);
+            stmt.setString(1, idNodo);
+            stmt.setLong(2, antiguedadMs);
+            filas = stmt.executeUpdate();
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            logger.error("Error al eliminar la instancia [{}] de la tabla de nodos", idNodo, e);
+        }
+        commitStatement(event, "eliminar_nodo", filas, null, codigoError);
+    }
+
+    /**
+     * Toma permisos de una cuota de envíos compartida por todas las instancias.
+     *
+     * @param nombre nombre de la cuota
+     * @param tasaPorSegundo recarga del balde, en permisos por segundo
+     * @param rafaga máximo de permisos acumulados
+     * @param pedido permisos solicitados
+     * @return permisos otorgados, entre 0 y {@code pedido}
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public int drawQuota(String nombre, double tasaPorSegundo, int rafaga, int pedido) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int otorgados = 0;
+        int codigoError = 0;
+        try (Connection conn = dataSource.getConnection();
+             CallableStatement stmt = conn.prepareCall(QUERY_TOMAR_CUOTA)) {
+            stmt.setQueryTimeout(queryTimeout);
+            stmt.setString(1, nombre);
+            stmt.setDouble(2, tasaPorSegundo);
+            stmt.setInt(3, rafaga);
+            stmt.setInt(4, pedido);
+            stmt.registerOutParameter(5, Types.INTEGER);
+            stmt.execute();
+            otorgados = stmt.getInt(5);
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "tomar_cuota", otorgados, null, codigoError);
+        }
+        return otorgados;
+    }
+
+    /**
+     * Extiende la concesión de las notificaciones en envío de una instancia, para que no se liberen
+     * mientras la instancia sigue viva.
+     *
+     * @param idPropietario identificador de la instancia
+     * @param plazoMs nueva duración de la concesión, desde ahora (en milisegundos)
+     * @return notificaciones renovadas
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public int renewLeases(String idPropietario, long plazoMs) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int filas = 0;
+        int codigoError = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(QUERY_RENOVAR_CONCESIONES)) {
+            stmt.setQueryTimeout(queryTimeout);
+            stmt.setLong(1, plazoMs);
+            stmt.setString(2, idPropietario);
+            filas = stmt.executeUpdate();
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "renovar_concesiones", filas, null, codigoError);
+        }
+        return filas;
+    }
+
+    /**
+     * Devuelve a pendiente un tramo de notificaciones en envío con la concesión vencida.
+     * Cada tramo se confirma por separado, para no mantener bloqueadas muchas filas.
+     *
+     * @param tramo máximo de notificaciones a liberar
+     * @return notificaciones liberadas; menos que {@code tramo} indica que no quedan vencidas
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public int releaseExpired(int tramo) throws SQLException {
+        return release(QUERY_LIBERAR_VENCIDAS, "liberar_vencidas", null, tramo);
+    }
+
+    /**
+     * Devuelve a pendiente un tramo de notificaciones en envío de una instancia, sin importar su vencimiento.
+     *
+     * @param idPropietario identificador de la instancia
+     * @param tramo máximo de notificaciones a liberar
+     * @return notificaciones liberadas; menos que {@code tramo} indica que no quedan
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public int releaseOwned(String idPropietario, int tramo) throws SQLException {
+        return release(QUERY_LIBERAR_PROPIAS, "liberar_propias", idPropietario, tramo);
+    }
+
+    /**
+     * Mueve un tramo de notificaciones finalizadas (enviadas, rechazadas o anuladas) a la tabla de
+     * histórico. Cada tramo se confirma por separado.
+     *
+     * @param antiguedadDias antigüedad mínima, desde el envío o la inserción, de las notificaciones a mover
+     * @param tramo máximo de notificaciones a mover
+     * @return notificaciones movidas; menos que {@code tramo} indica que no quedan por archivar
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public int archiveFinished(int antiguedadDias, int tramo) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int movidas = 0;
+        int codigoError = 0;
+        try (Connection conn = dataSource.getConnection();
+             CallableStatement stmt = conn.prepareCall(QUERY_ARCHIVAR_FINALIZADAS)) {
+            stmt.setQueryTimeout(queryTimeout);
+            stmt.setInt(1, antiguedadDias);
+            stmt.setInt(2, tramo);
+            stmt.registerOutParameter(3, Types.INTEGER);
+            stmt.execute();
+            movidas = stmt.getInt(3);
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "archivar_finalizadas", movidas, null, codigoError);
+        }
+        return movidas;
+    }
 
+    private int release(String sql, String nombre, String idPropietario, int tramo) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int filas = 0;
+        int codigoError = 0;
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(QUERY_OBTENER_NOTIFICACIONES_PENDIENTES)) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setQueryTimeout(queryTimeout);
+            int indice = 1;
+            if (idPropietario != null) {
+                stmt.setString(indice++, idPropietario);
+            }
+            stmt.setInt(indice, tramo);
+            filas = stmt.executeUpdate();
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, nombre, filas, null, codigoError);
+        }
+        return filas;
+    }
+
+    /**
+     * Recupera la clasificación y prioridad de una categoría.
+     *
+     * @param idCategoria ID de la categoría
+     * @return categoría o {@code null} si no existe
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public Categoria loadCategoria(BigDecimal idCategoria) throws SQLException {
+        return categorias.get(idCategoria);
+    }
 
-            stmt.setString(1, Status.PENDIENTE_ENVIO.getCode());
-            stmt.setString(2, plataforma);
-            stmt.setString(3, clasificacion);
-            stmt.setObject(4, maxSize, Types.INTEGER);
+    /**
+     * Carga todas las categorías, para la copia en memoria.
+     */
+    private List<Categoria> loadCategorias() throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int codigoError = 0;
+        List<Categoria> lista = new ArrayList<>();
 
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(QUERY_OBTENER_CATEGORIAS)) {
+
+            stmt.setQueryTimeout(queryTimeout);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    lista.add(new PushMessage(
-                            rs.getBigDecimal("id_notificacion"),
-                            rs.getString("token_notificacion"),
-                            rs.getString("titulo"),
-                            rs.getString("contenido"),
-                            Plataforma.fromCode(rs.getString("plataforma")),
-                            rs.getString("datos_extra")
-                    ));
+                    lista.add(new Categoria(rs.getBigDecimal("id_categoria"), rs.getString("clasificacion"), rs.getInt("prioridad")));
                 }
             }
         } catch (SQLException e) {
-            logger.error("Error al recuperar mensajes pendientes", e);
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "consultar_categorias", lista.size(), null, codigoError);
         }
-
         return lista;
     }
 
+    /**
+     * Registra una notificación con el estado indicado. Se utiliza para las notificaciones recibidas por el
+     * endpoint de ingreso: en estado en proceso si se envían de inmediato, o pendiente para la próxima consulta.
+     *
+     * @param idCategoria ID de la categoría
+     * @param token token del dispositivo destinatario
+     * @param titulo título de la notificación
+     * @param contenido cuerpo de la notificación
+     * @param plataforma plataforma de destino
+     * @param datosExtra JSON con datos adicionales, o {@code null}
+     * @param estado estado inicial del registro
+     * @return ID asignado a la notificación
+     * @throws SQLException en caso de error de conexión o inserción
+     */
+    public BigDecimal insertPushMessage(BigDecimal idCategoria, String token, String titulo, String contenido,
+                                        Plataforma plataforma, String datosExtra, Status estado) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int codigoError = 0;
+        BigDecimal idMensaje = null;
+
+        final String duenio = propietario;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     duenio != null ? QUERY_INSERTAR_NOTIFICACION_CONCESION : QUERY_INSERTAR_NOTIFICACION,
+                     new String[] { "id_notificacion" })) {
+
+            stmt.setQueryTimeout(queryTimeout);
+            stmt.setBigDecimal(1, idCategoria);
+            stmt.setString(2, token);
+            stmt.setString(3, titulo);
+            stmt.setString(4, contenido);
+            stmt.setString(5, plataforma.name());
+            stmt.setString(6, datosExtra);
+            stmt.setString(7, estado.getCode());
+            if (duenio != null) {
+                stmt.setString(8, estado.getCode());
+                stmt.setString(9, duenio);
+                stmt.setString(10, estado.getCode());
+                stmt.setLong(11, plazoConcesionMs);
+            }
+            stmt.executeUpdate();
+
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    idMensaje = rs.getBigDecimal(1);
+                }
+            }
+            if (idMensaje == null) {
+                throw new SQLException("La inserción no devolvió el id_notificacion asignado");
+            }
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "insertar_notificacion", idMensaje != null ? 1 : 0, idMensaje, codigoError);
+        }
+        return idMensaje;
+    }
+
     /**
      * Actualiza el estado de las notificaciones de forma masiva.
      *
@@ -204,6 +1122,9 @@ public class DBService {
         if (mensajes == null || mensajes.isEmpty())
             return;
         logger.debug("Marcando [{}] mensajes como [{}]", mensajes.size(), estado);
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int codigoError = 0;
 
         try (Connection conn = dataSource.getConnection()) {
             // Convertir a arreglo de BigDecimal
@@ -219,13 +1140,18 @@ public class DBService {
             ARRAY array = new ARRAY(descriptor, oraConn, ids);
 
             // Ejecutar el bloque anónimo PL/SQL
-            try (CallableStatement stmt = conn.prepareCall(QUERY_ACTUALIZAR_ESTADO_NOTIFICACIONES)) {
+            final String duenio = propietario;
+            try (CallableStatement stmt = conn.prepareCall(
+                    duenio != null ? QUERY_ACTUALIZAR_ESTADO_NOTIFICACIONES_CONCESION : QUERY_ACTUALIZAR_ESTADO_NOTIFICACIONES)) {
+                stmt.setQueryTimeout(queryTimeout);
                 stmt.setArray(1, array); // v_ids
                 stmt.setString(2, estado.getCode()); // v_estado
-                stmt.registerOutParameter(3, OracleTypes.ARRAY, "SYS.ODCINUMBERLIST");
+                stmt.setString(3, duenio); // v_propietario
+                stmt.setLong(4, plazoConcesionMs); // v_plazo
+                stmt.registerOutParameter(5, OracleTypes.ARRAY, "SYS.ODCINUMBERLIST");
                 stmt.execute();
 
-                ARRAY resultArray = (ARRAY) stmt.getArray(3);
+                ARRAY resultArray = (ARRAY) stmt.getArray(5);
                 if (resultArray != null) {
                     BigDecimal[] notUpdatedIds = (BigDecimal[]) resultArray.getArray();
                     Set<BigDecimal> noBloqueadosSet = new HashSet<>(Arrays.asList(notUpdatedIds));
@@ -237,14 +1163,17 @@ public class DBService {
             }
 
         } catch (SQLException e) {
+            codigoError = e.getErrorCode();
             if (e.getErrorCode() == 54) { // ORA-00054: recurso ocupado
                 logger.warn("No se pudo bloquear los registros para actualizar estado de mensajes: están siendo usados por otro proceso.");
             } else {
                 logger.error("Error al actualizar estado de mensajes", e);
             }
         } catch (Exception e) {
+            codigoError = -1;
             logger.error("Fallo inesperado en actualización de estado de mensajes", e);
         }
+        commitStatement(event, "bloquear_lote", codigoError == 0 ? mensajes.size() : 0, null, codigoError);
     }
 
     /**
@@ -257,10 +1186,32 @@ public class DBService {
      * @param idExterno ID asignado por el proveedor (Firebase/Huawei)
      */
     public void updateMessageStatus(BigDecimal idMensaje, Status estado, String codigo, String respuesta, String idExterno) {
+        ResultJournal journal = diario;
+        if (journal != null) {
+            if (journal.append(new JournalRecord(idMensaje, estado.getCode(), codigo, respuesta, idExterno, maximoIntentos,
+                    System.currentTimeMillis(), propietario))) {
+                logger.debug("Resultado del mensaje id=[{}] [{}] registrado en el diario", idMensaje, estado);
+                return;
+            }
+            logger.warn("Diario no disponible o lleno, se registra el resultado del mensaje id=[{}] directamente", idMensaje);
+        }
+        AttemptBuffer buffer = intentos;
+        if (buffer != null) {
+            if (buffer.add(new AttemptBuffer.Intento(idMensaje, estado.getCode(), codigo, respuesta, idExterno, maximoIntentos))) {
+                logger.debug("Intento del mensaje id=[{}] con resultado [{}] encolado", idMensaje, estado);
+                return;
+            }
+            logger.warn("Cola de intentos llena, se actualiza el mensaje id=[{}] directamente", idMensaje);
+        }
         logger.debug("Actualizando estado del mensaje id=[{}] a [{}]", idMensaje, estado);
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int filas = 0;
+        int codigoError = 0;
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(QUERY_ACTUALIZAR_NOTIFICACION_ENVIADA)) {
 
+            stmt.setQueryTimeout(queryTimeout);
             stmt.setString(1, estado.getCode());
             stmt.setInt(2, maximoIntentos - 1);
             stmt.setString(3, estado.getCode());
@@ -271,9 +1222,137 @@ public class DBService {
             stmt.setString(8, estado.getCode());
             stmt.setBigDecimal(9, idMensaje);
 
-            stmt.executeUpdate();
+            filas = stmt.executeUpdate();
+        } catch (SQLTimeoutException e) {
+            codigoError = e.getErrorCode();
+            logger.error("Timeout al actualizar estado del mensaje id=[{}] a [{}]", idMensaje, estado, e);
         } catch (SQLException e) {
+            codigoError = e.getErrorCode();
             logger.error("Error al actualizar estado del mensaje id=[{}]", idMensaje, e);
         }
+        commitStatement(event, "actualizar_resultado", filas, idMensaje, codigoError);
+    }
+
+    /**
+     * Aplica en orden un lote de resultados del diario local: como intentos si el registro de intentos
+     * está habilitado, o actualizando cada notificación en una sola llamada por lotes.
+     */
+    private void applyResults(List<JournalRecord> registros) throws SQLException {
+        if (intentos != null) {
+            List<AttemptBuffer.Intento> lote = new ArrayList<>(registros.size());
+            for (JournalRecord registro : registros) {
+                lote.add(new AttemptBuffer.Intento(registro.getIdMensaje(), registro.getEstado(), registro.getCodigo(),
+                        registro.getRespuesta(), registro.getIdExterno(), registro.getMaximoIntentos(),
+                        new Timestamp(registro.getFechaMs())));
+            }
+            insertAttempts(lote);
+            return;
+        }
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int codigoError = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(QUERY_APLICAR_RESULTADO)) {
+            stmt.setQueryTimeout(queryTimeout);
+            for (JournalRecord registro : registros) {
+                stmt.setString(1, registro.getEstado());
+                stmt.setInt(2, registro.getMaximoIntentos() - 1);
+                stmt.setString(3, registro.getEstado());
+                stmt.setString(4, registro.getCodigo());
+                stmt.setString(5, registro.getRespuesta());
+                stmt.setString(6, registro.getIdExterno());
+                stmt.setString(7, registro.getEstado());
+                stmt.setString(8, registro.getEstado());
+                stmt.setTimestamp(9, new Timestamp(registro.getFechaMs()));
+                stmt.setBigDecimal(10, registro.getIdMensaje());
+                stmt.setString(11, registro.getPropietario());
+                stmt.setString(12, registro.getPropietario());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "aplicar_diario", codigoError == 0 ? registros.size() : 0, null, codigoError);
+        }
+    }
+
+    /**
+     * Inserta un lote de intentos de envío con una sola llamada (inserción por arreglos).
+     */
+    private void insertAttempts(List<AttemptBuffer.Intento> lote) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int codigoError = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(QUERY_INSERTAR_INTENTO)) {
+            stmt.setQueryTimeout(queryTimeout);
+            for (AttemptBuffer.Intento intento : lote) {
+                stmt.setBigDecimal(1, intento.idMensaje);
+                stmt.setString(2, intento.estado);
+                stmt.setString(3, intento.codigo);
+                stmt.setString(4, intento.respuesta);
+                stmt.setString(5, intento.idExterno);
+                stmt.setInt(6, intento.maximoIntentos);
+                stmt.setTimestamp(7, intento.fecha);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "insertar_intentos", codigoError == 0 ? lote.size() : 0, null, codigoError);
+        }
+    }
+
+    /**
+     * Concilia un tramo de intentos de envío con sus notificaciones. Cada tramo se confirma por separado.
+     *
+     * @param tramo máximo de intentos a conciliar
+     * @return intentos conciliados; menos que {@code tramo} indica que no quedan sin conciliar
+     * @throws SQLException en caso de error de conexión o consulta
+     */
+    public int reconcileAttempts(int tramo) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        int conciliados = 0;
+        int codigoError = 0;
+        try (Connection conn = dataSource.getConnection();
+             CallableStatement stmt = conn.prepareCall(QUERY_CONCILIAR_INTENTOS)) {
+            stmt.setQueryTimeout(queryTimeout);
+            stmt.setInt(1, tramo);
+            stmt.registerOutParameter(2, Types.INTEGER);
+            stmt.execute();
+            conciliados = stmt.getInt(2);
+        } catch (SQLException e) {
+            codigoError = e.getErrorCode();
+            throw e;
+        } finally {
+            commitStatement(event, "conciliar_intentos", conciliados, null, codigoError);
+        }
+        return conciliados;
+    }
+
+    /**
+     * Registra el evento JFR de una sentencia, si está habilitado.
+     *
+     * @param event evento iniciado antes de obtener la conexión
+     * @param sentencia nombre de la sentencia
+     * @param filas filas leídas o afectadas
+     * @param idMensaje mensaje afectado, si la sentencia es individual
+     * @param codigoError código de error de Oracle, o 0 si fue exitosa
+     */
+    private static void commitStatement(StatementEvent event, String sentencia, int filas, BigDecimal idMensaje, int codigoError) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.captureContext();
+            event.setSentencia(sentencia);
+            event.setFilas(filas);
+            event.setIdMensaje(idMensaje != null ? idMensaje.longValue() : 0L);
+            event.setCodigoError(codigoError);
+            event.commit();
+        }
     }
 }
@@ -0,0 +1,112 @@
+package py.com.risk.push.cluster;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.bd.DBService;
+import py.com.risk.push.config.LeaseConfig;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renueva las concesiones de las notificaciones en envío de esta instancia y devuelve a pendiente las
+ * de instancias caídas.
+ * <p>
+ * Al iniciar, antes de que los servicios bloqueen notificaciones, libera las que quedaron a nombre de
+ * esta instancia de una ejecución anterior y las vencidas, de modo que un reinicio retoma todo el
+ * trabajo en segundos. Luego, en cada intervalo, extiende el vencimiento de las propias y libera las
+ * vencidas. La liberación se hace por tramos confirmados por separado, sobre índices que solo contienen
+ * las notificaciones en envío.
+ * </p>
+ * <p>El plazo debe superar el tiempo que una notificación puede esperar en la cola de envío más
+ * {@code tiempoMaximoEnvioMs}, más un intervalo sin renovar; en caso contrario una notificación lenta de una
+ * instancia viva puede liberarse y enviarse dos veces.</p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class LeaseReaper implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(LeaseReaper.class);
+
+    private final LeaseConfig config;
+    private final String idPropietario;
+    private final DBService dbService;
+    private final ScheduledExecutorService tarea;
+
+    /**
+     * @param config configuración de las concesiones
+     * @param idPropietario identificador de esta instancia
+     * @param dbService acceso a la base de las tareas de la aplicación
+     */
+    public LeaseReaper(LeaseConfig config, String idPropietario, DBService dbService) {
+        this.config = config;
+        this.idPropietario = idPropietario;
+        this.dbService = dbService;
+        this.tarea = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "concesiones");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Libera las notificaciones de una ejecución anterior y las vencidas, y programa la renovación.
+     * Se invoca antes de iniciar los servicios.
+     */
+    public void start() {
+        if (config.getTramo() <= 0 || config.getIntervaloMs() <= 0 || config.getPlazoMs() <= 2 * config.getIntervaloMs()) {
+            throw new IllegalArgumentException("concesiones requiere tramo e intervaloMs mayores a 0 y plazoMs mayor a 2 x intervaloMs");
+        }
+        try {
+            long inicio = System.nanoTime();
+            int propias = releaseAll(true);
+            int vencidas = releaseAll(false);
+            logger.info("Concesiones de [{}]: [{}] notificaciones de una ejecución anterior y [{}] vencidas devueltas a pendiente en [{}] ms",
+                    idPropietario, propias, vencidas, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        } catch (SQLException e) {
+            logger.warn("No se pudieron liberar las notificaciones en envío al iniciar, se reintenta en [{}] ms: {}",
+                    config.getIntervaloMs(), e.getMessage());
+        }
+        tarea.scheduleWithFixedDelay(this::run, config.getIntervaloMs(), config.getIntervaloMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        try {
+            int renovadas = dbService.renewLeases(idPropietario, config.getPlazoMs());
+            int vencidas = releaseAll(false);
+            if (vencidas > 0) {
+                logger.info("[{}] notificaciones con la concesión vencida devueltas a pendiente", vencidas);
+            }
+            logger.debug("Concesiones renovadas: [{}]", renovadas);
+        } catch (SQLException e) {
+            logger.warn("Error al renovar las concesiones de [{}]: {}", idPropietario, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error en la tarea de concesiones", e);
+        }
+    }
+
+    /**
+     * Libera tramos hasta que uno vuelve incompleto.
+     */
+    private int releaseAll(boolean propias) throws SQLException {
+        int total = 0;
+        int liberadas;
+        do {
+            liberadas = propias ? dbService.releaseOwned(idPropietario, config.getTramo()) : dbService.releaseExpired(config.getTramo());
+            total += liberadas;
+        } while (liberadas >= config.getTramo() && !tarea.isShutdown());
+        return total;
+    }
+
+    /**
+     * Detiene la renovación. Las notificaciones que queden en envío se liberan al vencer su concesión.
+     */
+    @Override
+    public void close() {
+        tarea.shutdownNow();
+    }
+}
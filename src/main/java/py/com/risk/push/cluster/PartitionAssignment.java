@@ -0,0 +1,151 @@
+package py.com.risk.push.cluster;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Particiones de {@code t_notificaciones} asignadas a esta instancia.
+ * <p>
+ * Cada notificación pertenece a la partición {@code MOD(id_notificacion, particiones)} y cada partición
+ * corresponde a la instancia viva de mayor puntaje para ella (rendezvous hashing), donde el puntaje
+ * depende solo del identificador de la instancia y del número de partición. Así cada instancia recibe
+ * en promedio {@code particiones / nodos} particiones, y cuando una instancia se suma o se retira solo
+ * cambian de dueño las particiones que esa instancia gana o pierde: las demás conservan las suyas.
+ * </p>
+ * <p>
+ * Las particiones propias se envían a la base como una máscara de {@code '0'} y {@code '1'} indexada
+ * por partición, de modo que el texto de la consulta no depende de cuántas particiones se atienden.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class PartitionAssignment {
+
+    /** Asignación de una instancia sola: todas las notificaciones */
+    public static final PartitionAssignment UNICA = new PartitionAssignment(1, Collections.singletonList(""), "");
+
+    private final int particiones;
+    private final int nodos;
+    private final BitSet propias;
+    private final String mascara;
+
+    /**
+     * @param particiones cantidad fija de particiones
+     * @param vivas identificadores de las instancias vivas
+     * @param idNodo identificador de esta instancia, que debe figurar entre las vivas
+     */
+    public PartitionAssignment(int particiones, List<String> vivas, String idNodo) {
+        if (particiones <= 0 || vivas.isEmpty() || !vivas.contains(idNodo)) {
+            throw new IllegalArgumentException("Asignacion de particiones invalida: " + idNodo + " en " + vivas
+                    + " de " + particiones);
+        }
+        this.particiones = particiones;
+        this.nodos = vivas.size();
+        this.propias = new BitSet(particiones);
+        StringBuilder sb = new StringBuilder(particiones);
+        for (int p = 0; p < particiones; p++) {
+            boolean propia = idNodo.equals(owner(p, vivas));
+            propias.set(p, propia);
+            sb.append(propia ? '1' : '0');
+        }
+        this.mascara = sb.toString();
+    }
+
+    /**
+     * Devuelve la instancia a la que corresponde una partición entre las indicadas.
+     *
+     * @param particion partición, desde 0
+     * @param vivas identificadores de las instancias vivas
+     * @return identificador de la instancia de mayor puntaje para la partición
+     */
+    public static String owner(int particion, List<String> vivas) {
+        String elegida = null;
+        long maximo = 0;
+        for (String nodo : vivas) {
+            long puntaje = score(nodo, particion);
+            if (elegida == null || puntaje > maximo || (puntaje == maximo && nodo.compareTo(elegida) < 0)) {
+                elegida = nodo;
+                maximo = puntaje;
+            }
+        }
+        return elegida;
+    }
+
+    /**
+     * Puntaje de una instancia para una partición. Usa {@link String#hashCode()}, cuyo valor está
+     * definido por la especificación, para que todas las instancias calculen el mismo puntaje.
+     */
+    private static long score(String nodo, int particion) {
+        long z = ((long) nodo.hashCode() << 32) ^ (particion & 0xFFFFFFFFL);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int getParticiones() {
+        return particiones;
+    }
+
+    public int getNodos() {
+        return nodos;
+    }
+
+    /**
+     * Devuelve la cantidad de particiones que atiende esta instancia.
+     *
+     * @return particiones propias
+     */
+    public int getPropias() {
+        return propias.cardinality();
+    }
+
+    /**
+     * Indica si la instancia atiende todas las particiones y la consulta puede omitir el filtro.
+     *
+     * @return {@code true} si no hay particiones de otras instancias
+     */
+    public boolean isCompleta() {
+        return propias.cardinality() == particiones;
+    }
+
+    /**
+     * Devuelve la máscara de particiones propias: el carácter {@code p} es {@code '1'} si la partición
+     * {@code p} corresponde a esta instancia.
+     *
+     * @return máscara de longitud {@link #getParticiones()}
+     */
+    public String getMascara() {
+        return mascara;
+    }
+
+    /**
+     * Indica si una partición corresponde a esta instancia.
+     *
+     * @param particion partición, desde 0
+     * @return {@code true} si la instancia la atiende
+     */
+    public boolean owns(int particion) {
+        return propias.get(particion);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PartitionAssignment)) {
+            return false;
+        }
+        PartitionAssignment otra = (PartitionAssignment) o;
+        return particiones == otra.particiones && nodos == otra.nodos && mascara.equals(otra.mascara);
+    }
+
+    @Override
+    public int hashCode() {
+        return (particiones * 31 + nodos) * 31 + mascara.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getPropias() + " de " + particiones + " particiones, " + nodos + " instancias";
+    }
+}
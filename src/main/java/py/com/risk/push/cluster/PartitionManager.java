@@ -0,0 +1,165 @@
+package py.com.risk.push.cluster;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.bd.DBService;
+import py.com.risk.push.config.ClusterConfig;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantiene la concesión de esta instancia en {@code t_risk_push_nodos} y calcula las particiones que le
+ * corresponden.
+ * <p>
+ * En cada latido renueva la concesión y lee las instancias vivas; cada partición corresponde a la
+ * instancia viva de mayor puntaje para ella (ver {@link PartitionAssignment}). Todas las instancias
+ * aplican la misma regla sobre la misma lista, por lo que las particiones quedan repartidas sin
+ * coordinación adicional, y un cambio de instancias solo mueve las particiones de la instancia que se
+ * suma o se retira. Durante una redistribución dos instancias pueden consultar brevemente la misma partición;
+ * el bloqueo {@code FOR UPDATE NOWAIT} al tomar las notificaciones evita que una se envíe dos veces.
+ * </p>
+ * <p>Si la renovación falla se conserva la última asignación, ya que las consultas de notificaciones
+ * fallarían igualmente sin base.</p>
+ * <p>Al iniciar, si otra instancia con el mismo identificador figura viva, espera a que su concesión
+ * expire: una ejecución anterior que terminó sin retirarse deja de renovarla, mientras que otra instancia
+ * viva con el mismo identificador la sigue renovando y el inicio se rechaza. Así dos procesos con el mismo
+ * identificador nunca calculan las mismas particiones ni liberan las notificaciones en envío del otro.</p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class PartitionManager implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(PartitionManager.class);
+
+    /** Múltiplo de la expiración a partir del cual se eliminan de la tabla las instancias caídas */
+    private static final long FACTOR_LIMPIEZA = 20;
+
+    /** Máximo de particiones: la máscara de particiones propias se envía como un VARCHAR2 de SQL */
+    private static final int MAXIMO_PARTICIONES = 4000;
+
+    private final ClusterConfig config;
+    private final String idNodo;
+    private final DBService dbService;
+    private final ScheduledExecutorService latido;
+    private volatile PartitionAssignment asignacion;
+
+    /**
+     * @param config configuración del reparto
+     * @param dbService acceso a la base de las tareas de la aplicación
+     */
+    public PartitionManager(ClusterConfig config, DBService dbService) {
+        this.config = config;
+        this.idNodo = config.getIdNodo();
+        this.dbService = dbService;
+        // Hasta el primer latido no se consulta ninguna partición: evita que la instancia tome todas al iniciar
+        this.asignacion = null;
+        this.latido = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-latido");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Realiza el primer latido y programa los siguientes.
+     */
+    public void start() {
+        if (config.getParticiones() <= 0 || config.getParticiones() > MAXIMO_PARTICIONES) {
+            throw new IllegalArgumentException("cluster.particiones debe estar entre 1 y " + MAXIMO_PARTICIONES);
+        }
+        if (config.getExpiracionMs() <= config.getLatidoMs()) {
+            throw new IllegalArgumentException("cluster.expiracionMs debe ser mayor a cluster.latidoMs");
+        }
+        awaitSameIdExpired();
+        dbService.removeNode(idNodo, config.getExpiracionMs() * FACTOR_LIMPIEZA);
+        beat();
+        latido.scheduleWithFixedDelay(this::beat, config.getLatidoMs(), config.getLatidoMs(), TimeUnit.MILLISECONDS);
+        logger.info("Instancia [{}] en el reparto de notificaciones: latido [{}] ms, expiración [{}] ms",
+                idNodo, config.getLatidoMs(), config.getExpiracionMs());
+    }
+
+    /**
+     * Espera a que expire la concesión de otra instancia con el mismo identificador. Una concesión que se
+     * sigue renovando pasada la expiración desde que se detectó es de una instancia viva.
+     *
+     * @throws IllegalStateException si otra instancia viva usa el mismo identificador
+     */
+    private void awaitSameIdExpired() {
+        long vivaDesde = 0;
+        boolean detectada = false;
+        while (true) {
+            try {
+                if (!dbService.isNodeAlive(idNodo, config.getExpiracionMs())) {
+                    return;
+                }
+                if (!detectada) {
+                    detectada = true;
+                    vivaDesde = System.nanoTime();
+                    logger.warn("La instancia [{}] figura viva en la tabla de nodos, se espera hasta [{}] ms a que "
+                            + "expire su concesión", idNodo, config.getExpiracionMs() + config.getLatidoMs());
+                } else if (System.nanoTime() - vivaDesde
+                        > TimeUnit.MILLISECONDS.toNanos(config.getExpiracionMs() + config.getLatidoMs())) {
+                    throw new IllegalStateException("Otra instancia viva usa el identificador [" + idNodo
+                            + "]: cluster.idNodo debe ser distinto en cada instancia");
+                }
+            } catch (SQLException e) {
+                logger.warn("Error al consultar la instancia [{}] en la tabla de nodos, se reintenta en [{}] ms: {}",
+                        idNodo, config.getLatidoMs(), e.getMessage());
+            }
+            try {
+                Thread.sleep(config.getLatidoMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Inicio interrumpido esperando la concesión de [" + idNodo + "]", e);
+            }
+        }
+    }
+
+    /**
+     * Devuelve las particiones asignadas a esta instancia.
+     *
+     * @return asignación actual, o {@code null} si todavía no se pudo renovar la concesión
+     */
+    public PartitionAssignment getAsignacion() {
+        return asignacion;
+    }
+
+    private void beat() {
+        try {
+            List<String> nodos = dbService.renewNode(idNodo, config.getExpiracionMs());
+            if (!nodos.contains(idNodo)) {
+                // La renovación se confirmó pero la instancia no figura viva: reloj de la base atrasado respecto al latido
+                logger.warn("La instancia [{}] no figura entre las vivas luego de renovar su concesión", idNodo);
+                return;
+            }
+            PartitionAssignment nueva = new PartitionAssignment(config.getParticiones(), nodos, idNodo);
+            if (!nueva.equals(asignacion)) {
+                logger.info("Particiones redistribuidas: [{}] -> [{}], instancias vivas {}", asignacion, nueva, nodos);
+                asignacion = nueva;
+            }
+        } catch (SQLException e) {
+            logger.warn("Error al renovar la concesión de la instancia [{}], se conservan las particiones [{}]: {}",
+                    idNodo, asignacion, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error en el latido de la instancia [{}]", idNodo, e);
+        }
+    }
+
+    /**
+     * Detiene el latido y elimina la concesión, para que las demás instancias tomen sus particiones
+     * en su próximo latido sin esperar la expiración.
+     */
+    @Override
+    public void close() {
+        latido.shutdownNow();
+        asignacion = null;
+        dbService.removeNode(idNodo, config.getExpiracionMs() * FACTOR_LIMPIEZA);
+        logger.info("Instancia [{}] retirada del reparto de notificaciones", idNodo);
+    }
+}
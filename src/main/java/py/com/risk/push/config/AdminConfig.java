@@ -0,0 +1,70 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración del endpoint HTTP local de administración.
+ * <p>
+ * Permite consultar estadísticas por servicio, pausar y reanudar servicios y modificar
+ * en caliente el tamaño de lote, el modo de envío, el intervalo entre lotes, la tasa y la concurrencia.
+ * No tiene autenticación: por defecto escucha solo en la interfaz local.
+ * </p>
+ *
+ * <pre>
+ * admin:
+ *   habilitado: true
+ *   host: 127.0.0.1
+ *   puerto: 9405
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class AdminConfig {
+
+    /** Indica si se inicia el endpoint de administración */
+    private Boolean habilitado;
+
+    /** Dirección en la que escucha el endpoint */
+    private String host;
+
+    /** Puerto TCP del endpoint */
+    private Integer puerto;
+
+    /**
+     * Indica si se inicia el endpoint de administración.
+     *
+     * @return valor configurado o true si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.TRUE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve la dirección en la que escucha el endpoint.
+     *
+     * @return valor configurado o 127.0.0.1 (solo acceso local) si es nulo
+     */
+    public String getHost() {
+        return host != null ? host : "127.0.0.1";
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Devuelve el puerto TCP del endpoint.
+     *
+     * @return valor configurado o 9405 si es nulo
+     */
+    public Integer getPuerto() {
+        return puerto != null ? puerto : 9405;
+    }
+
+    public void setPuerto(Integer puerto) {
+        this.puerto = puerto;
+    }
+}
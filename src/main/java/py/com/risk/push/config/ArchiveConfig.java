@@ -0,0 +1,105 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración del archivo de notificaciones finalizadas.
+ * <p>
+ * Las notificaciones enviadas (E), rechazadas (R) o anuladas (A) con más de {@code antiguedadDias} desde
+ * su envío (o desde su inserción, si no llegaron a enviarse) se mueven de {@code t_notificaciones} a {@code t_notificaciones_historico} cada
+ * {@code intervaloMs}, por tramos de {@code tramo} filas confirmados por separado y con una pausa de al
+ * menos {@code pausaMs} entre tramos.
+ * </p>
+ *
+ * <pre>
+ * archivo:
+ *   habilitado: true
+ *   antiguedadDias: 30
+ *   intervaloMs: 3600000
+ *   tramo: 1000
+ *   pausaMs: 500
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class ArchiveConfig {
+
+    /** Indica si se archivan las notificaciones finalizadas */
+    private Boolean habilitado;
+
+    /** Antigüedad mínima, desde el envío o la inserción, de las notificaciones que se archivan */
+    private Integer antiguedadDias;
+
+    /** Intervalo entre ejecuciones del archivo, en milisegundos */
+    private Long intervaloMs;
+
+    /** Máximo de notificaciones movidas por tramo */
+    private Integer tramo;
+
+    /** Pausa mínima entre tramos, en milisegundos */
+    private Long pausaMs;
+
+    /**
+     * Indica si se archivan las notificaciones finalizadas.
+     *
+     * @return valor configurado o false si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.FALSE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve la antigüedad mínima de las notificaciones que se archivan.
+     *
+     * @return valor configurado o 30 días si es nulo
+     */
+    public Integer getAntiguedadDias() {
+        return antiguedadDias != null ? antiguedadDias : 30;
+    }
+
+    public void setAntiguedadDias(Integer antiguedadDias) {
+        this.antiguedadDias = antiguedadDias;
+    }
+
+    /**
+     * Devuelve el intervalo entre ejecuciones del archivo.
+     *
+     * @return valor configurado o 3600000 (una hora) si es nulo
+     */
+    public Long getIntervaloMs() {
+        return intervaloMs != null ? intervaloMs : 3600000L;
+    }
+
+    public void setIntervaloMs(Long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    /**
+     * Devuelve el máximo de notificaciones movidas por tramo.
+     *
+     * @return valor configurado o 1000 si es nulo
+     */
+    public Integer getTramo() {
+        return tramo != null ? tramo : 1000;
+    }
+
+    public void setTramo(Integer tramo) {
+        this.tramo = tramo;
+    }
+
+    /**
+     * Devuelve la pausa mínima entre tramos.
+     *
+     * @return valor configurado o 500 si es nulo
+     */
+    public Long getPausaMs() {
+        return pausaMs != null ? pausaMs : 500L;
+    }
+
+    public void setPausaMs(Long pausaMs) {
+        this.pausaMs = pausaMs;
+    }
+}
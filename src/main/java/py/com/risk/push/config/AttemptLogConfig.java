@@ -0,0 +1,123 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración del registro de intentos de envío.
+ * <p>
+ * Con el registro habilitado, el resultado de cada intento no actualiza la fila de
+ * {@code t_notificaciones}: se agrega a {@code t_notificaciones_intentos} en inserciones por lotes, sin
+ * bloqueos sobre la tabla de notificaciones. Una tarea periódica concilia los intentos y traslada el
+ * estado final a {@code t_notificaciones} con una sentencia por tramo.
+ * </p>
+ *
+ * <pre>
+ * intentos:
+ *   habilitado: true
+ *   tramo: 500
+ *   maximoEnMemoria: 100000
+ *   reintentoMs: 1000
+ *   conciliacionMs: 1000
+ *   tramoConciliacion: 5000
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class AttemptLogConfig {
+
+    /** Indica si los resultados se registran como intentos en lugar de actualizar la notificación */
+    private Boolean habilitado;
+
+    /** Máximo de intentos por inserción */
+    private Integer tramo;
+
+    /** Máximo de intentos en memoria a la espera de su inserción, por servicio */
+    private Integer maximoEnMemoria;
+
+    /** Pausa antes de reintentar una inserción fallida, en milisegundos */
+    private Long reintentoMs;
+
+    /** Intervalo de conciliación de los intentos con las notificaciones, en milisegundos */
+    private Long conciliacionMs;
+
+    /** Máximo de intentos conciliados por sentencia */
+    private Integer tramoConciliacion;
+
+    /**
+     * Indica si los resultados se registran como intentos.
+     *
+     * @return valor configurado o false si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.FALSE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve el máximo de intentos por inserción.
+     *
+     * @return valor configurado o 500 si es nulo
+     */
+    public Integer getTramo() {
+        return tramo != null ? tramo : 500;
+    }
+
+    public void setTramo(Integer tramo) {
+        this.tramo = tramo;
+    }
+
+    /**
+     * Devuelve el máximo de intentos en memoria por servicio. Con la cola llena, el resultado se
+     * registra actualizando la notificación.
+     *
+     * @return valor configurado o 100000 si es nulo
+     */
+    public Integer getMaximoEnMemoria() {
+        return maximoEnMemoria != null ? maximoEnMemoria : 100000;
+    }
+
+    public void setMaximoEnMemoria(Integer maximoEnMemoria) {
+        this.maximoEnMemoria = maximoEnMemoria;
+    }
+
+    /**
+     * Devuelve la pausa antes de reintentar una inserción fallida.
+     *
+     * @return valor configurado o 1000 si es nulo
+     */
+    public Long getReintentoMs() {
+        return reintentoMs != null ? reintentoMs : 1000L;
+    }
+
+    public void setReintentoMs(Long reintentoMs) {
+        this.reintentoMs = reintentoMs;
+    }
+
+    /**
+     * Devuelve el intervalo de conciliación.
+     *
+     * @return valor configurado o 1000 si es nulo
+     */
+    public Long getConciliacionMs() {
+        return conciliacionMs != null ? conciliacionMs : 1000L;
+    }
+
+    public void setConciliacionMs(Long conciliacionMs) {
+        this.conciliacionMs = conciliacionMs;
+    }
+
+    /**
+     * Devuelve el máximo de intentos conciliados por sentencia.
+     *
+     * @return valor configurado o 5000 si es nulo
+     */
+    public Integer getTramoConciliacion() {
+        return tramoConciliacion != null ? tramoConciliacion : 5000;
+    }
+
+    public void setTramoConciliacion(Integer tramoConciliacion) {
+        this.tramoConciliacion = tramoConciliacion;
+    }
+}
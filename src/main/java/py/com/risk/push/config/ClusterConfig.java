@@ -0,0 +1,118 @@
+package py.com.risk.push.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Configuración del reparto de notificaciones entre varias instancias de risk-push.
+ * <p>
+ * Cada instancia renueva periódicamente su concesión en la tabla {@code t_risk_push_nodos}; las
+ * notificaciones se reparten en una cantidad fija de particiones y cada instancia viva consulta solo
+ * las suyas. Cuando una instancia se suma o deja de renovar su concesión, las demás redistribuyen las
+ * particiones en el latido siguiente.
+ * </p>
+ *
+ * <pre>
+ * cluster:
+ *   habilitado: true
+ *   particiones: 64
+ *   latidoMs: 5000
+ *   expiracionMs: 15000
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class ClusterConfig {
+
+    /** Indica si las notificaciones se reparten entre instancias */
+    private Boolean habilitado;
+
+    /** Identificador de la instancia en la tabla de nodos */
+    private String idNodo;
+
+    /** Cantidad fija de particiones, igual en todas las instancias */
+    private Integer particiones;
+
+    /** Intervalo de renovación de la concesión, en milisegundos */
+    private Long latidoMs;
+
+    /** Tiempo sin renovar tras el cual una instancia se considera caída, en milisegundos */
+    private Long expiracionMs;
+
+    /**
+     * Indica si las notificaciones se reparten entre instancias.
+     *
+     * @return valor configurado o false si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.FALSE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve el identificador de la instancia en la tabla de nodos y como propietaria de las
+     * concesiones. Debe ser estable entre reinicios, para que al iniciar la instancia reconozca y libere
+     * las notificaciones que quedaron a su nombre, y distinto en cada instancia: varias instancias en
+     * el mismo host deben configurarlo.
+     *
+     * @return valor configurado o el nombre del host si es nulo
+     * @throws IllegalStateException si no está configurado y no se puede obtener el nombre del host
+     */
+    public String getIdNodo() {
+        if (idNodo != null) {
+            return idNodo;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("No se pudo obtener el nombre del host: cluster.idNodo es obligatorio", e);
+        }
+    }
+
+    public void setIdNodo(String idNodo) {
+        this.idNodo = idNodo;
+    }
+
+    /**
+     * Devuelve la cantidad de particiones.
+     *
+     * @return valor configurado o 64 si es nulo
+     */
+    public Integer getParticiones() {
+        return particiones != null ? particiones : 64;
+    }
+
+    public void setParticiones(Integer particiones) {
+        this.particiones = particiones;
+    }
+
+    /**
+     * Devuelve el intervalo de renovación de la concesión.
+     *
+     * @return valor configurado o 5000 si es nulo
+     */
+    public Long getLatidoMs() {
+        return latidoMs != null ? latidoMs : 5000L;
+    }
+
+    public void setLatidoMs(Long latidoMs) {
+        this.latidoMs = latidoMs;
+    }
+
+    /**
+     * Devuelve el tiempo sin renovar tras el cual una instancia se considera caída.
+     *
+     * @return valor configurado o 15000 si es nulo
+     */
+    public Long getExpiracionMs() {
+        return expiracionMs != null ? expiracionMs : 15000L;
+    }
+
+    public void setExpiracionMs(Long expiracionMs) {
+        this.expiracionMs = expiracionMs;
+    }
+}
@@ -0,0 +1,123 @@
+package py.com.risk.push.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vigila el archivo de configuración {@code risk-push.yml} y ejecuta una acción cuando cambia.
+ * <p>
+ * Se registra un {@link WatchService} sobre el directorio del archivo (los editores suelen reemplazarlo
+ * en lugar de modificarlo, lo que genera un evento de creación). Los eventos se agrupan: la acción se
+ * ejecuta una sola vez cuando el archivo deja de cambiar durante {@value #ESPERA_ESTABILIZACION_MS} ms,
+ * evitando leer un archivo escrito a medias.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class ConfigWatcher implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ConfigWatcher.class);
+
+    /** Tiempo sin nuevos eventos antes de considerar que el archivo terminó de escribirse */
+    private static final long ESPERA_ESTABILIZACION_MS = 500;
+
+    private final Path archivo;
+    private final Runnable accion;
+    private final WatchService watchService;
+    private final Thread hilo;
+
+    private ConfigWatcher(Path archivo, Runnable accion) throws IOException {
+        this.archivo = archivo.toAbsolutePath().normalize();
+        this.accion = accion;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.archivo.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.hilo = new Thread(this::run, "config-watcher");
+        this.hilo.setDaemon(true);
+    }
+
+    /**
+     * Inicia la vigilancia del archivo en un hilo propio.
+     *
+     * @param archivo ruta del archivo de configuración
+     * @param accion acción a ejecutar cuando el archivo cambia
+     * @return vigilante iniciado
+     * @throws IOException si no se puede registrar el directorio del archivo
+     */
+    public static ConfigWatcher start(Path archivo, Runnable accion) throws IOException {
+        ConfigWatcher watcher = new ConfigWatcher(archivo, accion);
+        watcher.hilo.start();
+        logger.info("Vigilando cambios del archivo de configuración [{}]", watcher.archivo);
+        return watcher;
+    }
+
+    private void run() {
+        ThreadContext.put("servicio", "default");
+        try {
+            while (true) {
+                if (!affectsFile(watchService.take())) {
+                    continue;
+                }
+                // Agrupa los eventos de una misma escritura
+                WatchKey siguiente;
+                while ((siguiente = watchService.poll(ESPERA_ESTABILIZACION_MS, TimeUnit.MILLISECONDS)) != null) {
+                    affectsFile(siguiente);
+                }
+                logger.info("Archivo de configuración modificado: [{}]", archivo);
+                try {
+                    accion.run();
+                } catch (Exception e) {
+                    logger.error("Error al aplicar la configuración modificada: {}", e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Vigilancia detenida
+        } finally {
+            ThreadContext.clearAll();
+        }
+    }
+
+    /**
+     * Consume los eventos de la clave y la rearma.
+     *
+     * @return {@code true} si algún evento corresponde al archivo vigilado
+     */
+    private boolean affectsFile(WatchKey key) {
+        boolean afecta = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || archivo.getFileName().equals(event.context())) {
+                afecta = true;
+            }
+        }
+        key.reset();
+        return afecta;
+    }
+
+    /**
+     * Detiene la vigilancia del archivo.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Error al detener la vigilancia de la configuración: {}", e.getMessage());
+        }
+    }
+}
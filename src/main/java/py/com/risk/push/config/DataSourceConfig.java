@@ -42,6 +42,12 @@ public class DataSourceConfig {
     /** Tiempo máximo en milisegundos que se espera para obtener una conexión del pool */
     private Long connectionTimeout;
 
+    /** Tiempo máximo en segundos que puede demorar una sentencia SQL antes de ser cancelada */
+    private Integer queryTimeout;
+
+    /** Intervalo de recarga de las categorías en memoria, en milisegundos */
+    private Long refrescoCategoriasMs;
+
     /**
      * Construye la URL JDBC para conexión a Oracle usando los parámetros configurados.
      *
@@ -150,4 +156,33 @@ public class DataSourceConfig {
     public void setConnectionTimeout(Long connectionTimeout) {
         this.connectionTimeout = connectionTimeout;
     }
+
+    /**
+     * Devuelve el tiempo máximo de ejecución de una sentencia SQL en segundos.
+     * Para las actualizaciones de resultado de envío se aplica el menor entre este valor
+     * y el plazo restante del mensaje.
+     *
+     * @return valor configurado o 30s si es nulo
+     */
+    public Integer getQueryTimeout() {
+        return queryTimeout != null ? queryTimeout : 30;
+    }
+
+    public void setQueryTimeout(Integer queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    /**
+     * Devuelve el intervalo de recarga de las categorías en memoria. Una categoría desconocida fuerza
+     * la recarga antes de cumplirse el intervalo.
+     *
+     * @return valor configurado o 60000 ms si es nulo
+     */
+    public Long getRefrescoCategoriasMs() {
+        return refrescoCategoriasMs != null ? refrescoCategoriasMs : 60000L;
+    }
+
+    public void setRefrescoCategoriasMs(Long refrescoCategoriasMs) {
+        this.refrescoCategoriasMs = refrescoCategoriasMs;
+    }
 }
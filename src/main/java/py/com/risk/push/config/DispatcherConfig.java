@@ -0,0 +1,35 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración del despachador de envíos compartido por todos los servicios.
+ * <p>
+ * Los hilos se reparten entre los servicios con mensajes pendientes según su {@code peso},
+ * respetando sus {@code hilosGarantizados} y su {@code concurrencia} (ver {@link PushConfig}).
+ * </p>
+ *
+ * <pre>
+ * despacho:
+ *   hilos: 50
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class DispatcherConfig {
+
+    /** Cantidad total de hilos de envío */
+    private Integer hilos;
+
+    /**
+     * Devuelve la cantidad total de hilos de envío.
+     *
+     * @return valor configurado o 50 si es nulo
+     */
+    public Integer getHilos() {
+        return hilos != null ? hilos : 50;
+    }
+
+    public void setHilos(Integer hilos) {
+        this.hilos = hilos;
+    }
+}
@@ -0,0 +1,87 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración del endpoint HTTP local de ingreso de notificaciones.
+ * <p>
+ * Permite registrar una notificación y enviarla de inmediato, sin esperar la siguiente consulta del
+ * servicio que la atiende. No tiene autenticación: por defecto está deshabilitado y escucha solo en
+ * la interfaz local.
+ * </p>
+ *
+ * <pre>
+ * ingesta:
+ *   habilitado: true
+ *   host: 127.0.0.1
+ *   puerto: 9406
+ *   hilos: 4
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class IngestConfig {
+
+    /** Indica si se inicia el endpoint de ingreso */
+    private Boolean habilitado;
+
+    /** Dirección en la que escucha el endpoint */
+    private String host;
+
+    /** Puerto TCP del endpoint */
+    private Integer puerto;
+
+    /** Cantidad de hilos que atienden las solicitudes */
+    private Integer hilos;
+
+    /**
+     * Indica si se inicia el endpoint de ingreso.
+     *
+     * @return valor configurado o false si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.FALSE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve la dirección en la que escucha el endpoint.
+     *
+     * @return valor configurado o 127.0.0.1 (solo acceso local) si es nulo
+     */
+    public String getHost() {
+        return host != null ? host : "127.0.0.1";
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Devuelve el puerto TCP del endpoint.
+     *
+     * @return valor configurado o 9406 si es nulo
+     */
+    public Integer getPuerto() {
+        return puerto != null ? puerto : 9406;
+    }
+
+    public void setPuerto(Integer puerto) {
+        this.puerto = puerto;
+    }
+
+    /**
+     * Devuelve la cantidad de hilos que atienden las solicitudes.
+     *
+     * @return valor configurado o 4 si es nulo
+     */
+    public Integer getHilos() {
+        return hilos != null ? hilos : 4;
+    }
+
+    public void setHilos(Integer hilos) {
+        this.hilos = hilos;
+    }
+}
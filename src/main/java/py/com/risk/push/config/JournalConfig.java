@@ -0,0 +1,123 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración del diario local de resultados de envío.
+ * <p>
+ * Con el diario habilitado, el resultado de cada envío se escribe primero en un archivo local mapeado en
+ * memoria, que se sincroniza con el disco por grupos cada {@code sincronizacionMs}, y se aplica a la base
+ * de forma asíncrona y en orden. Una base lenta o caída deja de demorar los envíos y los resultados se
+ * conservan hasta que la base responde, incluso si la aplicación se reinicia.
+ * </p>
+ *
+ * <pre>
+ * diario:
+ *   habilitado: true
+ *   directorio: diario
+ *   tamanoSegmentoMb: 64
+ *   maximoMb: 1024
+ *   sincronizacionMs: 2
+ *   reintentoMs: 1000
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class JournalConfig {
+
+    /** Indica si los resultados se escriben en el diario antes de aplicarse a la base */
+    private Boolean habilitado;
+
+    /** Directorio del diario; cada servicio usa un subdirectorio con su nombre */
+    private String directorio;
+
+    /** Tamaño de cada archivo del diario, en megabytes */
+    private Integer tamanoSegmentoMb;
+
+    /** Tamaño máximo del diario de un servicio, en megabytes */
+    private Integer maximoMb;
+
+    /** Ventana de agrupación de las sincronizaciones con el disco, en milisegundos */
+    private Long sincronizacionMs;
+
+    /** Pausa antes de reintentar la aplicación fallida de un lote, en milisegundos */
+    private Long reintentoMs;
+
+    /**
+     * Indica si los resultados se escriben en el diario.
+     *
+     * @return valor configurado o false si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.FALSE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve el directorio del diario.
+     *
+     * @return valor configurado o "diario" (relativo al directorio de trabajo) si es nulo
+     */
+    public String getDirectorio() {
+        return directorio != null ? directorio : "diario";
+    }
+
+    public void setDirectorio(String directorio) {
+        this.directorio = directorio;
+    }
+
+    /**
+     * Devuelve el tamaño de cada archivo del diario.
+     *
+     * @return valor configurado o 64 si es nulo
+     */
+    public Integer getTamanoSegmentoMb() {
+        return tamanoSegmentoMb != null ? tamanoSegmentoMb : 64;
+    }
+
+    public void setTamanoSegmentoMb(Integer tamanoSegmentoMb) {
+        this.tamanoSegmentoMb = tamanoSegmentoMb;
+    }
+
+    /**
+     * Devuelve el tamaño máximo del diario de un servicio. Con el diario lleno, el resultado se
+     * registra directamente en la base.
+     *
+     * @return valor configurado o 1024 si es nulo
+     */
+    public Integer getMaximoMb() {
+        return maximoMb != null ? maximoMb : 1024;
+    }
+
+    public void setMaximoMb(Integer maximoMb) {
+        this.maximoMb = maximoMb;
+    }
+
+    /**
+     * Devuelve la ventana de agrupación de las sincronizaciones con el disco.
+     *
+     * @return valor configurado o 2 si es nulo
+     */
+    public Long getSincronizacionMs() {
+        return sincronizacionMs != null ? sincronizacionMs : 2L;
+    }
+
+    public void setSincronizacionMs(Long sincronizacionMs) {
+        this.sincronizacionMs = sincronizacionMs;
+    }
+
+    /**
+     * Devuelve la pausa antes de reintentar la aplicación de un lote.
+     *
+     * @return valor configurado o 1000 si es nulo
+     */
+    public Long getReintentoMs() {
+        return reintentoMs != null ? reintentoMs : 1000L;
+    }
+
+    public void setReintentoMs(Long reintentoMs) {
+        this.reintentoMs = reintentoMs;
+    }
+}
@@ -0,0 +1,88 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración de las concesiones de las notificaciones en envío.
+ * <p>
+ * Cada notificación bloqueada para envío (estado N) registra la instancia propietaria y un vencimiento.
+ * La instancia renueva periódicamente el vencimiento de las suyas; si se detiene sin finalizarlas, sus
+ * notificaciones vencen y cualquier instancia las devuelve a pendiente por tramos. Al iniciar, la
+ * instancia libera además las que quedaron a su nombre de una ejecución anterior.
+ * </p>
+ *
+ * <pre>
+ * concesiones:
+ *   habilitado: true
+ *   plazoMs: 300000
+ *   intervaloMs: 30000
+ *   tramo: 1000
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class LeaseConfig {
+
+    /** Indica si se registran concesiones y se liberan las vencidas */
+    private Boolean habilitado;
+
+    /** Duración de la concesión, en milisegundos */
+    private Long plazoMs;
+
+    /** Intervalo de renovación de las concesiones propias y de liberación de las vencidas, en milisegundos */
+    private Long intervaloMs;
+
+    /** Máximo de notificaciones liberadas por sentencia */
+    private Integer tramo;
+
+    /**
+     * Indica si se registran concesiones y se liberan las vencidas.
+     *
+     * @return valor configurado o false si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.FALSE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve la duración de la concesión.
+     *
+     * @return valor configurado o 300000 si es nulo
+     */
+    public Long getPlazoMs() {
+        return plazoMs != null ? plazoMs : 300000L;
+    }
+
+    public void setPlazoMs(Long plazoMs) {
+        this.plazoMs = plazoMs;
+    }
+
+    /**
+     * Devuelve el intervalo de renovación y liberación.
+     *
+     * @return valor configurado o 30000 si es nulo
+     */
+    public Long getIntervaloMs() {
+        return intervaloMs != null ? intervaloMs : 30000L;
+    }
+
+    public void setIntervaloMs(Long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    /**
+     * Devuelve el máximo de notificaciones liberadas por sentencia.
+     *
+     * @return valor configurado o 1000 si es nulo
+     */
+    public Integer getTramo() {
+        return tramo != null ? tramo : 1000;
+    }
+
+    public void setTramo(Integer tramo) {
+        this.tramo = tramo;
+    }
+}
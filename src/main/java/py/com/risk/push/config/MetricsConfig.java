@@ -0,0 +1,69 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración de la publicación de métricas del sistema.
+ * <p>
+ * Las métricas se publican siempre por JMX; esta sección controla además el endpoint HTTP
+ * local con formato de texto de Prometheus.
+ * </p>
+ *
+ * <pre>
+ * metricas:
+ *   habilitado: true
+ *   host: 127.0.0.1
+ *   puerto: 9404
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class MetricsConfig {
+
+    /** Indica si se inicia el endpoint HTTP de métricas */
+    private Boolean habilitado;
+
+    /** Dirección en la que escucha el endpoint */
+    private String host;
+
+    /** Puerto TCP del endpoint */
+    private Integer puerto;
+
+    /**
+     * Indica si se inicia el endpoint HTTP de métricas.
+     *
+     * @return valor configurado o true si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.TRUE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve la dirección en la que escucha el endpoint.
+     *
+     * @return valor configurado o 127.0.0.1 (solo acceso local) si es nulo
+     */
+    public String getHost() {
+        return host != null ? host : "127.0.0.1";
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Devuelve el puerto TCP del endpoint.
+     *
+     * @return valor configurado o 9404 si es nulo
+     */
+    public Integer getPuerto() {
+        return puerto != null ? puerto : 9404;
+    }
+
+    public void setPuerto(Integer puerto) {
+        this.puerto = puerto;
+    }
+}
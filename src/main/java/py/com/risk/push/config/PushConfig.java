@@ -3,6 +3,9 @@ package py.com.risk.push.config;
 import py.com.risk.push.model.ModoEnvioLote;
 import py.com.risk.push.model.Plataforma;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Configuración individual de cada servicio de envío de notificaciones push.
  * 
@@ -50,11 +53,80 @@ public class PushConfig {
      */
     private Long intervaloEntreLotesMs;
 
+    /**
+     * Retardo (en milisegundos) entre mensajes en los modos espaciados. Define la tasa de envío
+     * del servicio (1000 / espaciadoMs mensajes por segundo). Valor por defecto: 500 ms.
+     */
+    private Long espaciadoMs;
+
+    /**
+     * Cantidad máxima de envíos simultáneos del servicio dentro del despachador compartido. Por defecto: 20.
+     */
+    private Integer concurrencia;
+
+    /**
+     * Peso del servicio en el reparto de los hilos del despachador compartido entre servicios con
+     * mensajes pendientes (por ejemplo, 10 para OTP y 1 para promociones). Por defecto: 1.
+     */
+    private Integer peso;
+
+    /**
+     * Hilos del despachador reservados para el servicio aunque otros servicios tengan pendientes. Por defecto: 1.
+     */
+    private Integer hilosGarantizados;
+
+    /**
+     * Marca alta de mensajes en vuelo: cantidad máxima de mensajes bloqueados (estado en proceso) cuyo
+     * envío aún no finalizó. Al alcanzarla, el servicio deja de bloquear lotes nuevos. Por defecto: el
+     * doble de {@code cantidadMaximaPorLote}.
+     */
+    private Integer maximoEnVuelo;
+
+    /**
+     * Marca baja de mensajes en vuelo: luego de alcanzar la marca alta, el servicio vuelve a bloquear
+     * lotes cuando los mensajes en vuelo bajan hasta este valor. Por defecto: la mitad de {@code maximoEnVuelo}.
+     */
+    private Integer reanudarEnVuelo;
+
     /**
      * Número máximo de intentos de reenvío por mensaje antes de marcarlo como rechazado. Por defecto: 5.
      */
     private Integer maximoIntentos;
 
+    /**
+     * Plazo máximo (en milisegundos) asignado a cada mensaje desde que es despachado.
+     * Se aplica como timeout a la llamada HTTP del proveedor. El registro del resultado en la base usa su propio
+     * límite ({@code queryTimeout}), para que un envío aceptado cerca del vencimiento se registre igual.
+     * Por defecto: 30.000 ms.
+     */
+    private Long tiempoMaximoEnvioMs;
+
+    /**
+     * Muestreo de las líneas INFO que se registran por cada mensaje: se registra 1 de cada N mensajes.
+     * Advertencias y errores se registran siempre. Por defecto: 1 (se registran todos).
+     */
+    private Integer muestreoLogMensajes;
+
+    /**
+     * Objetivo de entrega (en milisegundos) desde la creación del registro hasta la aceptación del proveedor.
+     * Los mensajes que lo superan se cuentan en las métricas de su clasificación. Por defecto: 0 (sin control).
+     */
+    private Long sloEntregaMs;
+
+    /**
+     * Plazo de entrega (en milisegundos) por clasificación, por ejemplo {@code OTP: 5000}. Dentro del
+     * servicio se envía primero el mensaje de vencimiento más próximo (creación más el plazo de su
+     * clasificación). Las clasificaciones sin plazo usan {@code sloEntregaMs}; si también es 0, sus
+     * mensajes se envían después de los que tienen plazo, por prioridad. Por defecto: sin plazos.
+     */
+    private Map<String, Long> plazosEntregaMs;
+
+    /**
+     * Nombre de la cuota de envíos (sección {@code cuotas}) que limita a este servicio junto con los demás
+     * servicios e instancias que la indican. Por defecto: sin cuota.
+     */
+    private String cuota;
+
     /**
      * Configuración específica para Firebase Cloud Messaging.
      */
@@ -115,6 +187,54 @@ public class PushConfig {
         this.intervaloEntreLotesMs = intervaloEntreLotesMs;
     }
 
+    public Long getEspaciadoMs() {
+        return espaciadoMs != null ? espaciadoMs : 500L;
+    }
+
+    public void setEspaciadoMs(Long espaciadoMs) {
+        this.espaciadoMs = espaciadoMs;
+    }
+
+    public Integer getConcurrencia() {
+        return concurrencia != null ? concurrencia : 20;
+    }
+
+    public void setConcurrencia(Integer concurrencia) {
+        this.concurrencia = concurrencia;
+    }
+
+    public Integer getPeso() {
+        return peso != null ? peso : 1;
+    }
+
+    public void setPeso(Integer peso) {
+        this.peso = peso;
+    }
+
+    public Integer getHilosGarantizados() {
+        return hilosGarantizados != null ? hilosGarantizados : 1;
+    }
+
+    public void setHilosGarantizados(Integer hilosGarantizados) {
+        this.hilosGarantizados = hilosGarantizados;
+    }
+
+    public Integer getMaximoEnVuelo() {
+        return maximoEnVuelo != null ? maximoEnVuelo : 2 * getCantidadMaximaPorLote();
+    }
+
+    public void setMaximoEnVuelo(Integer maximoEnVuelo) {
+        this.maximoEnVuelo = maximoEnVuelo;
+    }
+
+    public Integer getReanudarEnVuelo() {
+        return reanudarEnVuelo != null ? reanudarEnVuelo : getMaximoEnVuelo() / 2;
+    }
+
+    public void setReanudarEnVuelo(Integer reanudarEnVuelo) {
+        this.reanudarEnVuelo = reanudarEnVuelo;
+    }
+
     public Integer getMaximoIntentos() {
         return maximoIntentos != null ? maximoIntentos : 5;
     }
@@ -123,6 +243,46 @@ public class PushConfig {
         this.maximoIntentos = maximoIntentos;
     }
 
+    public Long getTiempoMaximoEnvioMs() {
+        return tiempoMaximoEnvioMs != null ? tiempoMaximoEnvioMs : 30000L;
+    }
+
+    public void setTiempoMaximoEnvioMs(Long tiempoMaximoEnvioMs) {
+        this.tiempoMaximoEnvioMs = tiempoMaximoEnvioMs;
+    }
+
+    public Integer getMuestreoLogMensajes() {
+        return muestreoLogMensajes != null ? muestreoLogMensajes : 1;
+    }
+
+    public void setMuestreoLogMensajes(Integer muestreoLogMensajes) {
+        this.muestreoLogMensajes = muestreoLogMensajes;
+    }
+
+    public Long getSloEntregaMs() {
+        return sloEntregaMs != null ? sloEntregaMs : 0L;
+    }
+
+    public void setSloEntregaMs(Long sloEntregaMs) {
+        this.sloEntregaMs = sloEntregaMs;
+    }
+
+    public Map<String, Long> getPlazosEntregaMs() {
+        return plazosEntregaMs != null ? plazosEntregaMs : Collections.emptyMap();
+    }
+
+    public void setPlazosEntregaMs(Map<String, Long> plazosEntregaMs) {
+        this.plazosEntregaMs = plazosEntregaMs;
+    }
+
+    public String getCuota() {
+        return cuota;
+    }
+
+    public void setCuota(String cuota) {
+        this.cuota = cuota;
+    }
+
     public FirebaseConfig getFirebase() {
         return firebase != null ? firebase : new FirebaseConfig();
     }
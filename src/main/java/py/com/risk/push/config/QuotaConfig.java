@@ -0,0 +1,82 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración de una cuota de envíos compartida por todas las instancias de risk-push, por ejemplo el
+ * límite de solicitudes por segundo de un proyecto de Firebase o de una aplicación de Huawei.
+ * <p>
+ * La cuota es un balde de permisos en la tabla {@code t_risk_push_cuotas} que se recarga a
+ * {@code tasaPorSegundo} hasta {@code rafaga}. Cada instancia toma permisos por tramos y los consume en
+ * memoria, por lo que la base se consulta una vez por tramo y no por mensaje. Los servicios que indican
+ * la misma {@code cuota} comparten sus permisos.
+ * </p>
+ *
+ * <pre>
+ * cuotas:
+ *   - nombre: fcm-proyecto
+ *     tasaPorSegundo: 500
+ *     rafaga: 1000
+ *     tramoMs: 100
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class QuotaConfig {
+
+    /** Nombre de la cuota, referenciado por los servicios en {@code cuota} */
+    private String nombre;
+
+    /** Envíos por segundo permitidos entre todas las instancias */
+    private Double tasaPorSegundo;
+
+    /** Máximo de permisos acumulados en la base mientras no se envía */
+    private Integer rafaga;
+
+    /** Duración aproximada (en milisegundos) de los permisos tomados en cada consulta a la base */
+    private Long tramoMs;
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public Double getTasaPorSegundo() {
+        return tasaPorSegundo;
+    }
+
+    public void setTasaPorSegundo(Double tasaPorSegundo) {
+        this.tasaPorSegundo = tasaPorSegundo;
+    }
+
+    /**
+     * Devuelve el máximo de permisos acumulados en la base.
+     *
+     * @return valor configurado o un segundo de la tasa si es nulo
+     */
+    public Integer getRafaga() {
+        if (rafaga != null) {
+            return rafaga;
+        }
+        return tasaPorSegundo != null ? (int) Math.max(1, Math.ceil(tasaPorSegundo)) : 1;
+    }
+
+    public void setRafaga(Integer rafaga) {
+        this.rafaga = rafaga;
+    }
+
+    /**
+     * Devuelve la duración aproximada de los permisos tomados en cada consulta a la base.
+     *
+     * @return valor configurado o 100 si es nulo
+     */
+    public Long getTramoMs() {
+        return tramoMs != null ? tramoMs : 100L;
+    }
+
+    public void setTramoMs(Long tramoMs) {
+        this.tramoMs = tramoMs;
+    }
+}
@@ -1,5 +1,6 @@
 package py.com.risk.push.config;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -27,6 +28,43 @@ import java.util.List;
  *     plataforma: HMS
  *     huawei:
  *       appId: ...
+ *
+ * metricas:
+ *   puerto: 9404
+ *
+ * admin:
+ *   puerto: 9405
+ *
+ * ingesta:
+ *   habilitado: true
+ *
+ * despertar:
+ *   habilitado: true
+ *
+ * cluster:
+ *   habilitado: true
+ *
+ * concesiones:
+ *   habilitado: true
+ *
+ * archivo:
+ *   habilitado: true
+ *
+ * intentos:
+ *   habilitado: true
+ *
+ * diario:
+ *   habilitado: true
+ *
+ * cuotas:
+ *   - nombre: fcm-proyecto
+ *     tasaPorSegundo: 500
+ *
+ * despacho:
+ *   hilos: 50
+ *
+ * recargaAutomatica: true
+ * plazoApagadoMs: 30000
  * </pre>
  * 
  * @author Damián Meza
@@ -45,6 +83,71 @@ public class RiskPushConfig {
      */
     private List<PushConfig> push;
 
+    /**
+     * Configuración de la publicación de métricas.
+     */
+    private MetricsConfig metricas;
+
+    /**
+     * Configuración del endpoint de administración.
+     */
+    private AdminConfig admin;
+
+    /**
+     * Configuración del endpoint de ingreso de notificaciones.
+     */
+    private IngestConfig ingesta;
+
+    /**
+     * Configuración de los avisos de mensajes nuevos.
+     */
+    private WakeUpConfig despertar;
+
+    /**
+     * Configuración del reparto de notificaciones entre instancias.
+     */
+    private ClusterConfig cluster;
+
+    /**
+     * Configuración de las concesiones de las notificaciones en envío.
+     */
+    private LeaseConfig concesiones;
+
+    /**
+     * Configuración del archivo de notificaciones finalizadas.
+     */
+    private ArchiveConfig archivo;
+
+    /**
+     * Configuración del registro de intentos de envío.
+     */
+    private AttemptLogConfig intentos;
+
+    /**
+     * Configuración del diario local de resultados de envío.
+     */
+    private JournalConfig diario;
+
+    /**
+     * Cuotas de envío compartidas por todas las instancias.
+     */
+    private List<QuotaConfig> cuotas;
+
+    /**
+     * Configuración del despachador de envíos compartido por los servicios.
+     */
+    private DispatcherConfig despacho;
+
+    /**
+     * Indica si se vigila el archivo para aplicar sus cambios sin reiniciar la aplicación.
+     */
+    private Boolean recargaAutomatica;
+
+    /**
+     * Espera máxima (en milisegundos) del apagado para finalizar los envíos en curso.
+     */
+    private Long plazoApagadoMs;
+
     /**
      * Devuelve la configuración del datasource.
      * Si es nula, retorna una instancia por defecto.
@@ -81,5 +184,248 @@ public class RiskPushConfig {
     public void setPush(List<PushConfig> push) {
         this.push = push;
     }
-}
 
+    /**
+     * Devuelve la configuración de métricas.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración de métricas
+     */
+    public MetricsConfig getMetricas() {
+        return metricas != null ? metricas : new MetricsConfig();
+    }
+
+    /**
+     * Establece la configuración de métricas.
+     *
+     * @param metricas configuración de métricas
+     */
+    public void setMetricas(MetricsConfig metricas) {
+        this.metricas = metricas;
+    }
+
+    /**
+     * Devuelve la configuración del endpoint de administración.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración de administración
+     */
+    public AdminConfig getAdmin() {
+        return admin != null ? admin : new AdminConfig();
+    }
+
+    /**
+     * Establece la configuración del endpoint de administración.
+     *
+     * @param admin configuración de administración
+     */
+    public void setAdmin(AdminConfig admin) {
+        this.admin = admin;
+    }
+
+    /**
+     * Devuelve la configuración del endpoint de ingreso de notificaciones.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración de ingreso
+     */
+    public IngestConfig getIngesta() {
+        return ingesta != null ? ingesta : new IngestConfig();
+    }
+
+    /**
+     * Establece la configuración del endpoint de ingreso de notificaciones.
+     *
+     * @param ingesta configuración de ingreso
+     */
+    public void setIngesta(IngestConfig ingesta) {
+        this.ingesta = ingesta;
+    }
+
+    /**
+     * Devuelve la configuración de los avisos de mensajes nuevos.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración de avisos
+     */
+    public WakeUpConfig getDespertar() {
+        return despertar != null ? despertar : new WakeUpConfig();
+    }
+
+    /**
+     * Establece la configuración de los avisos de mensajes nuevos.
+     *
+     * @param despertar configuración de avisos
+     */
+    public void setDespertar(WakeUpConfig despertar) {
+        this.despertar = despertar;
+    }
+
+    /**
+     * Devuelve la configuración del reparto de notificaciones entre instancias.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración del reparto
+     */
+    public ClusterConfig getCluster() {
+        return cluster != null ? cluster : new ClusterConfig();
+    }
+
+    /**
+     * Establece la configuración del reparto de notificaciones entre instancias.
+     *
+     * @param cluster configuración del reparto
+     */
+    public void setCluster(ClusterConfig cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * Devuelve la configuración de las concesiones de las notificaciones en envío.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración de las concesiones
+     */
+    public LeaseConfig getConcesiones() {
+        return concesiones != null ? concesiones : new LeaseConfig();
+    }
+
+    /**
+     * Establece la configuración de las concesiones de las notificaciones en envío.
+     *
+     * @param concesiones configuración de las concesiones
+     */
+    public void setConcesiones(LeaseConfig concesiones) {
+        this.concesiones = concesiones;
+    }
+
+    /**
+     * Devuelve la configuración del archivo de notificaciones finalizadas.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración del archivo
+     */
+    public ArchiveConfig getArchivo() {
+        return archivo != null ? archivo : new ArchiveConfig();
+    }
+
+    /**
+     * Establece la configuración del archivo de notificaciones finalizadas.
+     *
+     * @param archivo configuración del archivo
+     */
+    public void setArchivo(ArchiveConfig archivo) {
+        this.archivo = archivo;
+    }
+
+    /**
+     * Devuelve la configuración del registro de intentos de envío.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración del registro de intentos
+     */
+    public AttemptLogConfig getIntentos() {
+        return intentos != null ? intentos : new AttemptLogConfig();
+    }
+
+    /**
+     * Establece la configuración del registro de intentos de envío.
+     *
+     * @param intentos configuración del registro de intentos
+     */
+    public void setIntentos(AttemptLogConfig intentos) {
+        this.intentos = intentos;
+    }
+
+    /**
+     * Devuelve la configuración del diario local de resultados de envío.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración del diario
+     */
+    public JournalConfig getDiario() {
+        return diario != null ? diario : new JournalConfig();
+    }
+
+    /**
+     * Establece la configuración del diario local de resultados de envío.
+     *
+     * @param diario configuración del diario
+     */
+    public void setDiario(JournalConfig diario) {
+        this.diario = diario;
+    }
+
+    /**
+     * Devuelve las cuotas de envío compartidas por todas las instancias.
+     *
+     * @return cuotas configuradas o lista vacía si es nula
+     */
+    public List<QuotaConfig> getCuotas() {
+        return cuotas != null ? cuotas : Collections.emptyList();
+    }
+
+    /**
+     * Establece las cuotas de envío compartidas por todas las instancias.
+     *
+     * @param cuotas cuotas de envío
+     */
+    public void setCuotas(List<QuotaConfig> cuotas) {
+        this.cuotas = cuotas;
+    }
+
+    /**
+     * Devuelve la configuración del despachador de envíos.
+     * Si es nula, retorna una instancia por defecto.
+     *
+     * @return configuración del despachador
+     */
+    public DispatcherConfig getDespacho() {
+        return despacho != null ? despacho : new DispatcherConfig();
+    }
+
+    /**
+     * Establece la configuración del despachador de envíos.
+     *
+     * @param despacho configuración del despachador
+     */
+    public void setDespacho(DispatcherConfig despacho) {
+        this.despacho = despacho;
+    }
+
+    /**
+     * Indica si se vigila el archivo para aplicar sus cambios sin reiniciar la aplicación.
+     *
+     * @return valor configurado o true si es nulo
+     */
+    public Boolean getRecargaAutomatica() {
+        return recargaAutomatica != null ? recargaAutomatica : Boolean.TRUE;
+    }
+
+    /**
+     * Establece si se vigila el archivo de configuración.
+     *
+     * @param recargaAutomatica true para aplicar los cambios del archivo en caliente
+     */
+    public void setRecargaAutomatica(Boolean recargaAutomatica) {
+        this.recargaAutomatica = recargaAutomatica;
+    }
+
+    /**
+     * Devuelve la espera máxima del apagado para finalizar los envíos en curso.
+     *
+     * @return valor configurado o 30000 si es nulo
+     */
+    public Long getPlazoApagadoMs() {
+        return plazoApagadoMs != null ? plazoApagadoMs : 30000L;
+    }
+
+    /**
+     * Establece la espera máxima del apagado para finalizar los envíos en curso.
+     *
+     * @param plazoApagadoMs espera máxima en milisegundos
+     */
+    public void setPlazoApagadoMs(Long plazoApagadoMs) {
+        this.plazoApagadoMs = plazoApagadoMs;
+    }
+}
@@ -0,0 +1,89 @@
+package py.com.risk.push.config;
+
+/**
+ * Configuración de los avisos de mensajes nuevos.
+ * <p>
+ * Un aviso termina la espera entre lotes de los servicios de su destino (nombre de servicio o
+ * clasificación), que consultan de inmediato. Permite un {@code intervaloEntreLotesMs} largo sin demorar
+ * los mensajes nuevos. Los avisos se reciben por UDP local, por el endpoint de administración
+ * ({@code POST /admin/servicios/{nombre}/despertar}) y, opcionalmente, por una alerta {@code DBMS_ALERT}
+ * que señalan los productores al insertar.
+ * </p>
+ *
+ * <pre>
+ * despertar:
+ *   habilitado: true
+ *   host: 127.0.0.1
+ *   puerto: 9407
+ *   alertaBd: RISK_PUSH
+ * </pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class WakeUpConfig {
+
+    /** Indica si se reciben avisos por UDP */
+    private Boolean habilitado;
+
+    /** Dirección en la que se reciben los avisos UDP */
+    private String host;
+
+    /** Puerto UDP de los avisos */
+    private Integer puerto;
+
+    /** Nombre de la alerta DBMS_ALERT que señalan los productores, o nulo para no esperarla */
+    private String alertaBd;
+
+    /**
+     * Indica si se reciben avisos por UDP.
+     *
+     * @return valor configurado o false si es nulo
+     */
+    public Boolean getHabilitado() {
+        return habilitado != null ? habilitado : Boolean.FALSE;
+    }
+
+    public void setHabilitado(Boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Devuelve la dirección en la que se reciben los avisos UDP.
+     *
+     * @return valor configurado o 127.0.0.1 (solo acceso local) si es nulo
+     */
+    public String getHost() {
+        return host != null ? host : "127.0.0.1";
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Devuelve el puerto UDP de los avisos.
+     *
+     * @return valor configurado o 9407 si es nulo
+     */
+    public Integer getPuerto() {
+        return puerto != null ? puerto : 9407;
+    }
+
+    public void setPuerto(Integer puerto) {
+        this.puerto = puerto;
+    }
+
+    /**
+     * Devuelve el nombre de la alerta DBMS_ALERT que señalan los productores.
+     *
+     * @return nombre configurado o {@code null} si no se espera la alerta
+     */
+    public String getAlertaBd() {
+        return alertaBd;
+    }
+
+    public void setAlertaBd(String alertaBd) {
+        this.alertaBd = alertaBd;
+    }
+}
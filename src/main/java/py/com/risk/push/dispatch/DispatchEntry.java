@@ -0,0 +1,50 @@
+package py.com.risk.push.dispatch;
+
+import py.com.risk.push.model.PushMessage;
+import py.com.risk.push.util.ContextSnapshot;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Entrada preasignada del buffer de una {@link DispatchLane}: el mensaje a enviar, el contexto de log
+ * de su lote y, si el lote espera su finalización, el contador del lote.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+final class DispatchEntry {
+
+    PushMessage mensaje;
+    ContextSnapshot contexto;
+    CountDownLatch lote;
+
+    /** Franja de la que se tomó la entrada en modo ordenado, o -1 */
+    int franja = -1;
+
+    /** Vencimiento de entrega (epoch ms) o {@link Long#MAX_VALUE} si el mensaje no tiene plazo */
+    long vencimiento = Long.MAX_VALUE;
+
+    /** Orden de llegada a las colas de prioridad, para desempatar mensajes con igual vencimiento */
+    long llegada;
+
+    void set(PushMessage mensaje, ContextSnapshot contexto, CountDownLatch lote) {
+        this.mensaje = mensaje;
+        this.contexto = contexto;
+        this.lote = lote;
+    }
+
+    /**
+     * Copia el contenido de otra entrada y la vacía, liberando sus referencias.
+     */
+    void moveFrom(DispatchEntry otra) {
+        set(otra.mensaje, otra.contexto, otra.lote);
+        vencimiento = otra.vencimiento;
+        otra.clear();
+    }
+
+    void clear() {
+        set(null, null, null);
+        franja = -1;
+        vencimiento = Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,22 @@
+package py.com.risk.push.dispatch;
+
+import py.com.risk.push.model.PushMessage;
+import py.com.risk.push.util.ContextSnapshot;
+
+/**
+ * Envío de un mensaje tomado de una {@link DispatchLane} por un hilo del {@link Dispatcher}.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface DispatchHandler {
+
+    /**
+     * Envía el mensaje con el contexto de log de su lote.
+     *
+     * @param mensaje mensaje a enviar
+     * @param contexto contexto de log del lote
+     */
+    void dispatch(PushMessage mensaje, ContextSnapshot contexto);
+}
@@ -0,0 +1,500 @@
+package py.com.risk.push.dispatch;
+
+import py.com.risk.push.model.ModoEnvioLote;
+import py.com.risk.push.model.PushMessage;
+import py.com.risk.push.quota.ClusterQuota;
+import py.com.risk.push.util.ContextSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Cola de mensajes de un servicio dentro del {@link Dispatcher} compartido.
+ * <p>
+ * Los mensajes se publican en un {@link MpscRingBuffer} preasignado sin tomar el lock del despachador:
+ * el productor (el bucle del servicio) solo reserva una posición, completa la entrada y la publica.
+ * Los hilos del despachador consumen serializados por su lock; cuando la cola tiene pendientes de sobra
+ * para sus envíos simultáneos, cada toma entrega varios mensajes al mismo hilo (ver {@link #take}).
+ * </p>
+ * <p>
+ * Lleva los parámetros de reparto del servicio (peso, hilos garantizados y concurrencia máxima) y el
+ * ritmo del último lote recibido según su {@link ModoEnvioLote}:
+ * </p>
+ * <ul>
+ *   <li>{@code paralelo} y {@code continuo}: sin espaciado, hasta {@code concurrencia} envíos simultáneos.</li>
+ *   <li>{@code paralelo_ordenado}: como {@code paralelo}, pero cada mensaje se publica en la franja que
+ *       corresponde al hash de su token. Cada franja tiene a lo sumo un envío en curso y se consume en
+ *       orden, por lo que los mensajes de un dispositivo no se adelantan entre sí.</li>
+ *   <li>{@code paralelo_espaciado}: un inicio cada {@code espaciadoMs}, sin esperar la respuesta anterior.</li>
+ *   <li>{@code secuencial_espaciado} y {@code secuencial_espaciado_async}: un envío a la vez y
+ *       {@code espaciadoMs} de espera desde que finaliza el anterior.</li>
+ * </ul>
+ * <p>
+ * Salvo en {@code paralelo_ordenado}, los mensajes no se envían en el orden del buffer: en cada toma,
+ * la cola pasa hasta {@value #CLASIFICACION_MAXIMA} publicados a colas de prioridad por clasificación y
+ * prioridad ({@link PriorityLane}) y envía los de vencimiento más próximo (earliest deadline first). Las
+ * entradas de las colas de prioridad se preasignan con la capacidad del buffer, por lo que la
+ * clasificación no crea objetos y se detiene si están todas en uso. El vencimiento de un mensaje es su
+ * creación más el plazo de entrega de su clasificación; los mensajes sin plazo van después, por
+ * prioridad. Así un mensaje prioritario bloqueado a mitad de un lote grande se adelanta a los de
+ * menor prioridad que aún esperan.
+ * </p>
+ * <p>
+ * El estado de reparto se protege con el lock del despachador.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class DispatchLane {
+
+    /** Espera del productor cuando el buffer está lleno */
+    private static final long ESPERA_LLENO_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /** Máximo de mensajes publicados que se pasan a las colas de prioridad en cada toma */
+    static final int CLASIFICACION_MAXIMA = 64;
+
+    private final Dispatcher dispatcher;
+    final String nombre;
+    final DispatchHandler handler;
+
+    private final MpscRingBuffer<DispatchEntry> buffer;
+
+    /** Buffers del modo ordenado, uno por franja de tokens */
+    private final MpscRingBuffer<DispatchEntry>[] franjas;
+
+    /** Franjas con un envío en curso */
+    private final boolean[] franjaOcupada;
+
+    /** Próxima franja a revisar, para no favorecer siempre a las primeras */
+    private int cursorFranja;
+
+    /** Colas de prioridad de los mensajes ya tomados del buffer */
+    private final List<PriorityLane> prioridades = new ArrayList<>();
+
+    /** Entradas libres para las colas de prioridad, preasignadas y reutilizadas entre mensajes */
+    private final ArrayDeque<DispatchEntry> libres = new ArrayDeque<>();
+
+    private final Consumer<DispatchEntry> clasificar = this::classify;
+
+    /** Entrada del hilo a la que se copia el próximo mensaje de una franja. Se usa con el lock del despachador tomado */
+    private DispatchEntry destino;
+
+    private final Consumer<DispatchEntry> copiar = publicada -> destino.moveFrom(publicada);
+
+    /** Mensajes en las colas de prioridad. Se modifica con el lock del despachador tomado */
+    private volatile int priorizadas;
+
+    /** Contador de llegada a las colas de prioridad */
+    private long llegadas;
+
+    /** Plazo de entrega por clasificación (en milisegundos) */
+    private volatile Map<String, Long> plazosEntregaMs = Collections.emptyMap();
+
+    /** Plazo de entrega de las clasificaciones sin plazo propio (en milisegundos), 0 sin plazo */
+    private volatile long plazoPorDefectoMs;
+
+    int peso;
+    int hilosGarantizados;
+    int concurrencia;
+
+    /** Envíos de esta cola en ejecución */
+    int enCurso;
+
+    /** Tiempo virtual del reparto ponderado */
+    long tiempoVirtual;
+
+    /** Indica si la cola compite en el reparto (tiene mensajes o envíos en curso) */
+    boolean activa;
+
+    /** Momento ({@link System#nanoTime()}) a partir del cual puede iniciarse el siguiente envío */
+    long proximoInicio;
+
+    private volatile boolean secuencial;
+    private volatile boolean espaciadoDesdeInicio;
+    private volatile long espaciadoNanos;
+    private volatile boolean cerrada;
+
+    /** Cuota de envíos compartida, o {@code null} si la cola no tiene límite de tasa */
+    private volatile ClusterQuota cuota;
+
+    DispatchLane(Dispatcher dispatcher, String nombre, DispatchHandler handler, int capacidad,
+                 int peso, int hilosGarantizados, int concurrencia) {
+        this.dispatcher = dispatcher;
+        this.nombre = nombre;
+        this.handler = handler;
+        this.buffer = new MpscRingBuffer<>(capacidad, DispatchEntry::new);
+        for (int i = 0; i < buffer.capacity(); i++) {
+            libres.push(new DispatchEntry());
+        }
+        // Las franjas se fijan con la concurrencia inicial: el mismo token siempre cae en la misma franja
+        int cantidadFranjas = requirePositive("concurrencia", concurrencia);
+        int capacidadFranja = Math.max(16, 2 * capacidad / cantidadFranjas);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        MpscRingBuffer<DispatchEntry>[] buffers = new MpscRingBuffer[cantidadFranjas];
+        for (int i = 0; i < cantidadFranjas; i++) {
+            buffers[i] = new MpscRingBuffer<>(capacidadFranja, DispatchEntry::new);
+        }
+        this.franjas = buffers;
+        this.franjaOcupada = new boolean[cantidadFranjas];
+        this.peso = requirePositive("peso", peso);
+        this.hilosGarantizados = Math.max(0, hilosGarantizados);
+        this.concurrencia = requirePositive("concurrencia", concurrencia);
+    }
+
+    /**
+     * Publica los mensajes de un lote con el ritmo de su modo de envío. Si el buffer se llena,
+     * espera a que los hilos del despachador liberen posiciones.
+     *
+     * @param mensajes mensajes del lote, en orden
+     * @param contexto contexto de log del lote
+     * @param lote contador que se decrementa al finalizar cada envío, o {@code null}
+     * @param modo modo de envío del lote
+     * @param espaciadoMs espaciado entre mensajes de los modos espaciados (en milisegundos)
+     */
+    public void submit(List<PushMessage> mensajes, ContextSnapshot contexto, CountDownLatch lote,
+                       ModoEnvioLote modo, long espaciadoMs) {
+        if (cerrada) {
+            throw new IllegalStateException("Cola de envío cerrada: " + nombre);
+        }
+        boolean ordenado = modo == ModoEnvioLote.paralelo_ordenado;
+        boolean libre = ordenado || modo == ModoEnvioLote.paralelo || modo == ModoEnvioLote.continuo;
+        secuencial = !libre && modo != ModoEnvioLote.paralelo_espaciado;
+        espaciadoDesdeInicio = modo == ModoEnvioLote.paralelo_espaciado;
+        espaciadoNanos = libre ? 0 : TimeUnit.MILLISECONDS.toNanos(espaciadoMs);
+
+        long ahora = System.currentTimeMillis();
+        for (int i = 0, n = mensajes.size(); i < n; i++) {
+            PushMessage mensaje = mensajes.get(i);
+            MpscRingBuffer<DispatchEntry> destino = ordenado ? franjas[franja(mensaje.getToken())] : buffer;
+            long secuencia;
+            while ((secuencia = destino.tryClaim()) < 0) {
+                dispatcher.signalIfWaiting();
+                LockSupport.parkNanos(ESPERA_LLENO_NANOS);
+            }
+            DispatchEntry entrada = destino.get(secuencia);
+            entrada.set(mensaje, contexto, lote);
+            entrada.vencimiento = deadline(mensaje, ahora);
+            destino.publish(secuencia);
+            dispatcher.signalIfWaiting();
+        }
+    }
+
+    /**
+     * Franja fija de un token.
+     */
+    private int franja(String token) {
+        int h = token != null ? token.hashCode() : 0;
+        return Math.floorMod(h ^ (h >>> 16), franjas.length);
+    }
+
+    /**
+     * Vencimiento de entrega de un mensaje según el plazo de su clasificación.
+     */
+    private long deadline(PushMessage mensaje, long ahora) {
+        Long plazo = mensaje.getClasificacion() != null ? plazosEntregaMs.get(mensaje.getClasificacion()) : null;
+        long plazoMs = plazo != null ? plazo : plazoPorDefectoMs;
+        if (plazoMs <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (mensaje.getCreadoMs() > 0 ? mensaje.getCreadoMs() : ahora) + plazoMs;
+    }
+
+    /**
+     * Define los plazos de entrega que fijan el vencimiento de los próximos mensajes publicados.
+     *
+     * @param plazosEntregaMs plazo de entrega por clasificación (en milisegundos)
+     * @param plazoPorDefectoMs plazo de las clasificaciones sin plazo propio, 0 sin plazo
+     */
+    public void setPlazosEntrega(Map<String, Long> plazosEntregaMs, long plazoPorDefectoMs) {
+        this.plazosEntregaMs = plazosEntregaMs != null ? plazosEntregaMs : Collections.emptyMap();
+        this.plazoPorDefectoMs = plazoPorDefectoMs;
+    }
+
+    /**
+     * Define la cuota de envíos que limita a esta cola: cada envío consume un permiso y la cola no es
+     * elegible mientras la cuota no tenga permisos.
+     *
+     * @param cuota cuota compartida, o {@code null} para no limitar la tasa
+     */
+    public void setCuota(ClusterQuota cuota) {
+        update(() -> this.cuota = cuota);
+    }
+
+    public void setPeso(int peso) {
+        update(() -> this.peso = requirePositive("peso", peso));
+    }
+
+    public void setHilosGarantizados(int hilosGarantizados) {
+        update(() -> this.hilosGarantizados = Math.max(0, hilosGarantizados));
+    }
+
+    public void setConcurrencia(int concurrencia) {
+        update(() -> this.concurrencia = requirePositive("concurrencia", concurrencia));
+    }
+
+    /**
+     * Devuelve la cantidad de mensajes publicados que aún no comenzaron su envío.
+     *
+     * @return mensajes en espera
+     */
+    public int getEncoladas() {
+        int encoladas = buffer.size() + priorizadas;
+        for (MpscRingBuffer<DispatchEntry> franja : franjas) {
+            encoladas += franja.size();
+        }
+        return encoladas;
+    }
+
+    /**
+     * Retira los mensajes publicados que aún no comenzaron su envío, para devolverlos a la base al apagar.
+     * Los lotes que esperan su finalización ({@code secuencial_espaciado}) cuentan esos mensajes como
+     * finalizados. Los envíos en curso no se ven afectados, ni los mensajes que un hilo ya tomó para enviar
+     * a continuación (a lo sumo {@value Dispatcher#LOTE_HILO} por hilo).
+     *
+     * @return mensajes retirados
+     */
+    public List<PushMessage> removeQueued() {
+        List<PushMessage> retirados = new ArrayList<>();
+        Consumer<DispatchEntry> retirar = entrada -> {
+            retirados.add(entrada.mensaje);
+            if (entrada.lote != null) {
+                entrada.lote.countDown();
+            }
+            entrada.clear();
+        };
+        dispatcher.lock().lock();
+        try {
+            buffer.drain(retirar, Integer.MAX_VALUE);
+            for (MpscRingBuffer<DispatchEntry> franja : franjas) {
+                franja.drain(retirar, Integer.MAX_VALUE);
+            }
+            for (PriorityLane cola : prioridades) {
+                DispatchEntry entrada;
+                while ((entrada = cola.poll()) != null) {
+                    retirar.accept(entrada);
+                    libres.push(entrada);
+                }
+            }
+            priorizadas = 0;
+            dispatcher.signal();
+        } finally {
+            dispatcher.lock().unlock();
+        }
+        return retirados;
+    }
+
+    /**
+     * Cierra la cola: no admite nuevos lotes y se elimina del despachador cuando se vacía.
+     */
+    public void close() {
+        update(() -> cerrada = true);
+    }
+
+    private void update(Runnable cambio) {
+        dispatcher.lock().lock();
+        try {
+            cambio.run();
+            dispatcher.signal();
+        } finally {
+            dispatcher.lock().unlock();
+        }
+    }
+
+    /** Máximo de envíos simultáneos vigente según el modo del último lote. */
+    int limite() {
+        return secuencial ? 1 : concurrencia;
+    }
+
+    boolean hasPending() {
+        if (priorizadas > 0 || buffer.hasPublished()) {
+            return true;
+        }
+        for (MpscRingBuffer<DispatchEntry> franja : franjas) {
+            if (franja.hasPublished()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isEligible(long ahora) {
+        ClusterQuota limite = cuota;
+        return enCurso < limite() && ahora - proximoInicio >= 0 && (limite == null || limite.hasPermits())
+                && (priorizadas > 0 || buffer.hasPublished() || nextFranja() >= 0);
+    }
+
+    boolean isRemovable() {
+        return cerrada && enCurso == 0 && getEncoladas() == 0;
+    }
+
+    /**
+     * Devuelve la próxima franja libre con mensajes publicados, o -1 si no hay.
+     * Debe invocarse con el lock del despachador tomado.
+     */
+    private int nextFranja() {
+        for (int i = 0; i < franjas.length; i++) {
+            int franja = (cursorFranja + i) % franjas.length;
+            if (!franjaOcupada[franja] && franjas[franja].hasPublished()) {
+                return franja;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Toma los siguientes mensajes, copiándolos a las entradas del hilo que los enviará uno tras otro.
+     * Con pendientes de sobra para los envíos simultáneos de la cola, toma hasta {@code tomadas.length};
+     * en los modos espaciados, de a uno. En modo ordenado todos salen de la misma franja, en su orden.
+     * Cada mensaje consume un permiso de la cuota y avanza el tiempo virtual de la cola; el hilo cuenta
+     * como un solo envío en curso hasta que finaliza todos. Debe invocarse con el lock del despachador tomado.
+     *
+     * @return cantidad de mensajes tomados, 0 si la cola no tiene ninguno disponible
+     */
+    int take(long ahora, DispatchEntry[] tomadas) {
+        ClusterQuota limite = cuota;
+        if (limite != null && !limite.tryAcquire()) {
+            return 0;
+        }
+        int cantidad = pollByDeadline(tomadas, limite);
+        if (cantidad == 0) {
+            int franja = nextFranja();
+            if (franja >= 0) {
+                cantidad = pollFranja(franja, tomadas, limite);
+            }
+            if (cantidad == 0) {
+                if (limite != null) {
+                    limite.release();
+                }
+                return 0;
+            }
+        }
+        enCurso++;
+        tiempoVirtual += Dispatcher.STRIDE / peso * cantidad;
+        if (espaciadoDesdeInicio) {
+            proximoInicio = ahora + espaciadoNanos;
+        }
+        return cantidad;
+    }
+
+    /**
+     * Mensajes a tomar de una vez entre {@code disponibles}: uno en los modos espaciados y, en los demás,
+     * la parte que corresponde a cada envío simultáneo, para no dejar hilos sin trabajo con pocos pendientes.
+     */
+    private int claimLimit(int disponibles, int maximo, int simultaneos) {
+        if (espaciadoNanos > 0) {
+            return 1;
+        }
+        return Math.max(1, Math.min(maximo, disponibles / simultaneos));
+    }
+
+    /**
+     * Pasa un tramo acotado de los mensajes publicados a las colas de prioridad y toma los de vencimiento
+     * más próximo. El primer permiso de la cuota ya fue tomado. Debe invocarse con el lock del despachador tomado.
+     */
+    private int pollByDeadline(DispatchEntry[] tomadas, ClusterQuota limite) {
+        buffer.drain(clasificar, Math.min(CLASIFICACION_MAXIMA, libres.size()));
+        if (priorizadas == 0) {
+            return 0;
+        }
+        int maximo = claimLimit(priorizadas, tomadas.length, limite());
+        int cantidad = 0;
+        while (cantidad < maximo && (cantidad == 0 || limite == null || limite.tryAcquire())) {
+            DispatchEntry tomada = earliest().poll();
+            tomadas[cantidad++].moveFrom(tomada);
+            libres.push(tomada);
+            priorizadas--;
+        }
+        return cantidad;
+    }
+
+    /**
+     * Devuelve la cola de prioridad cuyo primer mensaje debe enviarse antes. Debe haber mensajes priorizados.
+     */
+    private PriorityLane earliest() {
+        PriorityLane siguiente = null;
+        for (int i = 0, n = prioridades.size(); i < n; i++) {
+            PriorityLane cola = prioridades.get(i);
+            if (!cola.isEmpty() && (siguiente == null || cola.precedes(siguiente))) {
+                siguiente = cola;
+            }
+        }
+        return siguiente;
+    }
+
+    /**
+     * Toma mensajes de una franja libre, en su orden. Una franja tiene a lo sumo un envío en curso, por lo
+     * que el hilo puede tomar varios sin restar paralelismo. El primer permiso de la cuota ya fue tomado.
+     * Debe invocarse con el lock del despachador tomado.
+     */
+    private int pollFranja(int franja, DispatchEntry[] tomadas, ClusterQuota limite) {
+        MpscRingBuffer<DispatchEntry> origen = franjas[franja];
+        int maximo = claimLimit(tomadas.length, tomadas.length, 1);
+        int cantidad = 0;
+        while (cantidad < maximo && (cantidad == 0 || limite == null || limite.tryAcquire())) {
+            destino = tomadas[cantidad];
+            if (!origen.poll(copiar)) {
+                if (cantidad > 0 && limite != null) {
+                    limite.release();
+                }
+                break;
+            }
+            cantidad++;
+        }
+        destino = null;
+        if (cantidad > 0) {
+            franjaOcupada[franja] = true;
+            cursorFranja = (franja + 1) % franjas.length;
+            tomadas[0].franja = franja;
+        }
+        return cantidad;
+    }
+
+    /**
+     * Mueve una entrada del buffer a la cola de su clasificación y prioridad. Solo se invoca con entradas
+     * libres disponibles.
+     */
+    private void classify(DispatchEntry publicada) {
+        DispatchEntry entrada = libres.pop();
+        entrada.moveFrom(publicada);
+        entrada.llegada = ++llegadas;
+        String clasificacion = entrada.mensaje.getClasificacion();
+        int prioridad = entrada.mensaje.getPrioridad();
+        PriorityLane cola = null;
+        for (int i = 0, n = prioridades.size(); i < n && cola == null; i++) {
+            if (prioridades.get(i).matches(clasificacion, prioridad)) {
+                cola = prioridades.get(i);
+            }
+        }
+        if (cola == null) {
+            cola = new PriorityLane(clasificacion, prioridad);
+            prioridades.add(cola);
+        }
+        cola.add(entrada);
+        priorizadas++;
+    }
+
+    void finished(long ahora, int franja) {
+        if (franja >= 0) {
+            franjaOcupada[franja] = false;
+        }
+        enCurso--;
+        if (secuencial && espaciadoNanos > 0) {
+            proximoInicio = ahora + espaciadoNanos;
+        }
+    }
+
+    private static int requirePositive(String nombre, int valor) {
+        if (valor <= 0) {
+            throw new IllegalArgumentException(nombre + " debe ser mayor a 0");
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,367 @@
+package py.com.risk.push.dispatch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Despachador de envíos compartido por todos los servicios.
+ * <p>
+ * Un único grupo de hilos atiende las colas ({@link DispatchLane}) de todos los servicios. Cada hilo,
+ * al quedar libre, toma la siguiente tarea de cualquier cola con pendientes, por lo que la capacidad
+ * ociosa de un servicio sin trabajo la aprovecha el que tiene pendientes. La elección entre colas
+ * sigue un reparto justo ponderado (stride scheduling): cada cola avanza un tiempo virtual
+ * inversamente proporcional a su {@code peso} por cada tarea despachada y se elige la de menor
+ * tiempo virtual. Con pesos 10 y 1, y ambas colas con pendientes, la primera recibe diez tareas por
+ * cada una de la segunda.
+ * </p>
+ * <p>
+ * Cada cola tiene además una cantidad de hilos garantizados: esos hilos quedan reservados aunque la
+ * cola esté vacía, de modo que un servicio prioritario no espera a que terminen los envíos de otro.
+ * El resto de los hilos se reparte según los pesos, con el límite de {@code concurrencia} de cada cola.
+ * </p>
+ * <p>
+ * El espaciado entre mensajes de los modos espaciados se resuelve aquí: una cola espaciada no es
+ * elegible hasta que vence su próximo inicio, y los hilos esperan ese vencimiento sin ocupar un
+ * ejecutor programado por servicio. Del mismo modo, una cola con cuota de envíos no es elegible mientras
+ * su cuota no tenga permisos, y la llegada de permisos despierta a los hilos ({@link #wakeUp()}).
+ * </p>
+ * <p>
+ * Los productores publican en el buffer de cada cola sin tomar el lock; solo lo toman para despertar
+ * a los hilos si hay alguno esperando trabajo. Cada hilo copia los mensajes tomados a entradas propias
+ * reutilizables, por lo que el traspaso no crea objetos por mensaje. Con pendientes de sobra, un hilo
+ * toma hasta {@value #LOTE_HILO} mensajes de la misma cola por cada toma del lock y los envía uno tras
+ * otro; registra su finalización en la misma toma del lock que busca el tramo siguiente, y al finalizar
+ * despierta a un solo hilo, que puede usar la capacidad liberada.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class Dispatcher {
+
+    private static final Logger logger = LogManager.getLogger(Dispatcher.class);
+
+    /** Cantidad de hilos por defecto cuando no se inicia explícitamente */
+    public static final int HILOS_POR_DEFECTO = 50;
+
+    /** Tiempo virtual total repartido entre los pesos: cada tarea avanza la cola {@code STRIDE / peso} */
+    static final long STRIDE = 1L << 20;
+
+    /** Máximo de mensajes que un hilo toma de una cola por cada toma del lock */
+    static final int LOTE_HILO = 16;
+
+    private static Dispatcher instancia;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition disponible = lock.newCondition();
+    private final List<DispatchLane> lanes = new ArrayList<>();
+    private final List<Thread> hilos = new ArrayList<>();
+    private final int cantidadHilos;
+
+    /** Hilos ejecutando una tarea */
+    private int ocupados;
+
+    /**
+     * Hilos buscando o esperando trabajo. Se incrementa antes de revisar las colas, de modo que un
+     * productor que publica y lo lee en 0 tiene la garantía de que la revisión verá su mensaje.
+     */
+    private final AtomicInteger esperando = new AtomicInteger();
+
+    /** Tiempo virtual de la última tarea despachada, punto de partida de una cola que vuelve a tener pendientes */
+    private long tiempoVirtual;
+
+    private boolean detenido;
+
+    private Dispatcher(int cantidadHilos) {
+        this.cantidadHilos = cantidadHilos;
+        AtomicInteger numero = new AtomicInteger();
+        for (int i = 0; i < cantidadHilos; i++) {
+            Thread hilo = new Thread(this::work, "despacho-" + numero.incrementAndGet());
+            hilos.add(hilo);
+        }
+        hilos.forEach(Thread::start);
+    }
+
+    /**
+     * Inicia el despachador global con la cantidad de hilos indicada.
+     * Si ya fue iniciado, se devuelve la instancia existente.
+     *
+     * @param cantidadHilos cantidad de hilos de envío compartidos
+     * @return despachador global
+     */
+    public static synchronized Dispatcher start(int cantidadHilos) {
+        if (instancia == null) {
+            if (cantidadHilos <= 0) {
+                throw new IllegalArgumentException("hilos debe ser mayor a 0");
+            }
+            instancia = new Dispatcher(cantidadHilos);
+            logger.info("Despachador de envíos iniciado con [{}] hilos", cantidadHilos);
+        }
+        return instancia;
+    }
+
+    /**
+     * Devuelve el despachador global, iniciándolo con {@value #HILOS_POR_DEFECTO} hilos si aún no existe.
+     *
+     * @return despachador global
+     */
+    public static Dispatcher get() {
+        return start(HILOS_POR_DEFECTO);
+    }
+
+    /**
+     * Crea la cola de un servicio.
+     *
+     * @param nombre nombre del servicio
+     * @param handler envío de cada mensaje tomado de la cola
+     * @param capacidad capacidad mínima del buffer de la cola
+     * @param peso peso en el reparto de hilos
+     * @param hilosGarantizados hilos reservados para el servicio
+     * @param concurrencia máximo de envíos simultáneos del servicio
+     * @return cola registrada
+     */
+    public DispatchLane lane(String nombre, DispatchHandler handler, int capacidad, int peso, int hilosGarantizados, int concurrencia) {
+        DispatchLane lane = new DispatchLane(this, nombre, handler, capacidad, peso, hilosGarantizados, concurrencia);
+        lock.lock();
+        try {
+            lanes.add(lane);
+            int reservados = lanes.stream().mapToInt(l -> Math.min(l.hilosGarantizados, l.concurrencia)).sum();
+            if (reservados >= cantidadHilos) {
+                logger.warn("Los hilos garantizados de los servicios ([{}]) alcanzan el total del despachador ([{}])",
+                        reservados, cantidadHilos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return lane;
+    }
+
+    /**
+     * Detiene el despachador. Los hilos finalizan luego de ejecutar las tareas ya encoladas.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            detenido = true;
+            disponible.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCantidadHilos() {
+        return cantidadHilos;
+    }
+
+    public int getOcupados() {
+        lock.lock();
+        try {
+            return ocupados;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    /**
+     * Avisa a los hilos que hay trabajo nuevo o que cambió la elegibilidad de alguna cola.
+     * Debe invocarse con el lock tomado.
+     */
+    void signal() {
+        disponible.signalAll();
+    }
+
+    /**
+     * Avisa a los hilos que cambió la elegibilidad de las colas por un motivo externo, como la llegada
+     * de permisos de una cuota. Se invoca sin el lock tomado.
+     */
+    public void wakeUp() {
+        lock.lock();
+        try {
+            disponible.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Despierta a un hilo si alguno está buscando o esperando trabajo. Se invoca sin el lock tomado
+     * luego de publicar un mensaje.
+     */
+    void signalIfWaiting() {
+        if (esperando.get() > 0) {
+            lock.lock();
+            try {
+                disponible.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void work() {
+        final DispatchEntry[] tomadas = new DispatchEntry[LOTE_HILO];
+        for (int i = 0; i < tomadas.length; i++) {
+            tomadas[i] = new DispatchEntry();
+        }
+        DispatchLane anterior = null;
+        int franjaAnterior = -1;
+        while (true) {
+            DispatchLane lane;
+            int cantidad;
+            lock.lock();
+            esperando.incrementAndGet();
+            try {
+                if (anterior != null) {
+                    // La finalización del tramo anterior comparte la toma del lock con la búsqueda del siguiente
+                    ocupados--;
+                    anterior.finished(System.nanoTime(), franjaAnterior);
+                    anterior = null;
+                    // La capacidad liberada es de un solo envío: basta un hilo, salvo al detener, cuando
+                    // todos deben revisar si terminaron
+                    if (detenido) {
+                        disponible.signalAll();
+                    } else {
+                        disponible.signal();
+                    }
+                }
+                while (true) {
+                    long ahora = System.nanoTime();
+                    lane = select(ahora);
+                    if (lane != null && (cantidad = lane.take(ahora, tomadas)) > 0) {
+                        ocupados++;
+                        tiempoVirtual = lane.tiempoVirtual;
+                        break;
+                    }
+                    if (detenido && isEmpty()) {
+                        return;
+                    }
+                    long espera = nextWakeUp(ahora);
+                    if (espera > 0) {
+                        disponible.awaitNanos(espera);
+                    } else {
+                        disponible.await();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                esperando.decrementAndGet();
+                lock.unlock();
+            }
+
+            franjaAnterior = tomadas[0].franja;
+            for (int i = 0; i < cantidad; i++) {
+                DispatchEntry entrada = tomadas[i];
+                try {
+                    lane.handler.dispatch(entrada.mensaje, entrada.contexto);
+                } catch (Throwable t) {
+                    logger.error("Error no controlado en un envío de [{}]", lane.nombre, t);
+                } finally {
+                    if (entrada.lote != null) {
+                        entrada.lote.countDown();
+                    }
+                    entrada.clear();
+                }
+            }
+            anterior = lane;
+        }
+    }
+
+    /**
+     * Elige la cola de la próxima tarea. Primero las colas por debajo de sus hilos garantizados y luego,
+     * si quedan hilos no reservados, las que no alcanzaron su concurrencia; en ambos casos la de menor
+     * tiempo virtual. Debe invocarse con el lock tomado.
+     */
+    private DispatchLane select(long ahora) {
+        int reservados = 0;
+        DispatchLane garantizada = null;
+        DispatchLane compartida = null;
+        Iterator<DispatchLane> iterator = lanes.iterator();
+        while (iterator.hasNext()) {
+            DispatchLane lane = iterator.next();
+            if (lane.isRemovable()) {
+                iterator.remove();
+                continue;
+            }
+            int garantizados = Math.min(lane.hilosGarantizados, lane.limite());
+            reservados += Math.max(0, garantizados - lane.enCurso);
+            if (!lane.isEligible(ahora)) {
+                if (lane.enCurso == 0 && !lane.hasPending()) {
+                    lane.activa = false;
+                }
+                continue;
+            }
+            if (!lane.activa) {
+                // Una cola que vuelve a tener pendientes compite desde el tiempo virtual actual,
+                // para que el tiempo que estuvo vacía no se convierta en crédito acumulado
+                lane.tiempoVirtual = Math.max(lane.tiempoVirtual, tiempoVirtual);
+                lane.activa = true;
+            }
+            if (lane.enCurso < garantizados) {
+                if (garantizada == null || lane.tiempoVirtual < garantizada.tiempoVirtual) {
+                    garantizada = lane;
+                }
+            } else if (compartida == null || lane.tiempoVirtual < compartida.tiempoVirtual) {
+                compartida = lane;
+            }
+        }
+        if (garantizada != null) {
+            return garantizada;
+        }
+        return ocupados + reservados < cantidadHilos ? compartida : null;
+    }
+
+    /**
+     * Espera hasta el próximo inicio de una cola espaciada con pendientes, o 0 si no hay ninguna.
+     */
+    private long nextWakeUp(long ahora) {
+        long espera = 0;
+        for (DispatchLane lane : lanes) {
+            if (lane.hasPending() && lane.enCurso < lane.limite() && lane.proximoInicio - ahora > 0) {
+                long restante = lane.proximoInicio - ahora;
+                espera = espera == 0 ? restante : Math.min(espera, restante);
+            }
+        }
+        return espera;
+    }
+
+    private boolean isEmpty() {
+        for (DispatchLane lane : lanes) {
+            if (lane.hasPending()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Espera a que finalicen los hilos del despachador.
+     *
+     * @param timeout espera máxima
+     * @param unit unidad de la espera
+     * @throws InterruptedException si el hilo es interrumpido durante la espera
+     */
+    public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long limite = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread hilo : hilos) {
+            long restante = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+            if (restante <= 0) {
+                return;
+            }
+            hilo.join(restante);
+        }
+    }
+}
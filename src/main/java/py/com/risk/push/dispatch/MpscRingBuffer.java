@@ -0,0 +1,163 @@
+package py.com.risk.push.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Buffer circular acotado sin bloqueos, de múltiples productores y un consumidor, con entradas
+ * preasignadas al estilo del LMAX Disruptor.
+ * <p>
+ * Las entradas se crean una sola vez al construir el buffer y se reutilizan: el productor reserva una
+ * secuencia ({@link #tryClaim()}), completa la entrada ({@link #get(long)}) y la publica
+ * ({@link #publish(long)}); el consumidor la procesa en el lugar ({@link #poll(Consumer)} o
+ * {@link #drain(Consumer, int)}) y la libera. El traspaso no crea objetos por elemento.
+ * </p>
+ * <p>
+ * Cada posición lleva su propia secuencia (algoritmo de D. Vyukov): vale {@code s} cuando está libre
+ * para el productor de la secuencia {@code s}, y {@code s + 1} cuando contiene el elemento publicado
+ * de esa secuencia. Los productores compiten solo con un CAS sobre la cola; el consumidor no usa CAS.
+ * </p>
+ * <p>
+ * Solo puede haber un consumidor a la vez: si varios hilos consumen, quien invoca debe serializarlos
+ * (en el {@link Dispatcher} lo hace su lock).
+ * </p>
+ *
+ * @param <E> tipo de las entradas preasignadas
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class MpscRingBuffer<E> {
+
+    private final Object[] entradas;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+
+    /** Próxima secuencia a reservar por un productor */
+    private final AtomicLong cola = new AtomicLong();
+
+    /** Próxima secuencia a consumir */
+    private volatile long cabeza;
+
+    /**
+     * Crea el buffer con sus entradas preasignadas.
+     *
+     * @param capacidad capacidad mínima; se redondea a la siguiente potencia de 2
+     * @param fabrica creador de las entradas
+     */
+    public MpscRingBuffer(int capacidad, Supplier<E> fabrica) {
+        if (capacidad <= 0 || capacidad > (1 << 30)) {
+            throw new IllegalArgumentException("capacidad fuera de rango: " + capacidad);
+        }
+        int tamano = Integer.highestOneBit(capacidad);
+        if (tamano < capacidad) {
+            tamano <<= 1;
+        }
+        this.entradas = new Object[tamano];
+        this.secuencias = new AtomicLongArray(tamano);
+        this.mascara = tamano - 1;
+        for (int i = 0; i < tamano; i++) {
+            entradas[i] = fabrica.get();
+            secuencias.set(i, i);
+        }
+    }
+
+    /**
+     * Reserva la siguiente posición para un productor.
+     *
+     * @return secuencia reservada o -1 si el buffer está lleno
+     */
+    public long tryClaim() {
+        while (true) {
+            long secuencia = cola.get();
+            long diferencia = secuencias.get((int) secuencia & mascara) - secuencia;
+            if (diferencia == 0) {
+                if (cola.compareAndSet(secuencia, secuencia + 1)) {
+                    return secuencia;
+                }
+            } else if (diferencia < 0) {
+                return -1;
+            }
+            // Otro productor reservó esta secuencia: se reintenta con la cola actual
+        }
+    }
+
+    /**
+     * Devuelve la entrada de una secuencia reservada, para completarla antes de publicarla.
+     *
+     * @param secuencia secuencia reservada
+     * @return entrada preasignada
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long secuencia) {
+        return (E) entradas[(int) secuencia & mascara];
+    }
+
+    /**
+     * Publica una entrada completada, haciéndola visible al consumidor.
+     *
+     * @param secuencia secuencia reservada
+     */
+    public void publish(long secuencia) {
+        secuencias.lazySet((int) secuencia & mascara, secuencia + 1);
+    }
+
+    /**
+     * Procesa la siguiente entrada publicada, si existe, y libera su posición.
+     * La entrada no debe conservarse luego de que el procesador retorna.
+     *
+     * @param procesador procesador de la entrada
+     * @return {@code true} si se procesó una entrada
+     */
+    @SuppressWarnings("unchecked")
+    public boolean poll(Consumer<? super E> procesador) {
+        long secuencia = cabeza;
+        int indice = (int) secuencia & mascara;
+        if (secuencias.get(indice) != secuencia + 1) {
+            return false;
+        }
+        procesador.accept((E) entradas[indice]);
+        secuencias.lazySet(indice, secuencia + entradas.length);
+        cabeza = secuencia + 1;
+        return true;
+    }
+
+    /**
+     * Procesa en lote hasta {@code maximo} entradas publicadas consecutivas.
+     *
+     * @param procesador procesador de cada entrada
+     * @param maximo cantidad máxima de entradas a procesar
+     * @return cantidad de entradas procesadas
+     */
+    public int drain(Consumer<? super E> procesador, int maximo) {
+        int procesadas = 0;
+        while (procesadas < maximo && poll(procesador)) {
+            procesadas++;
+        }
+        return procesadas;
+    }
+
+    /**
+     * Indica si hay una entrada publicada lista para consumir.
+     *
+     * @return {@code true} si la próxima entrada está publicada
+     */
+    public boolean hasPublished() {
+        long secuencia = cabeza;
+        return secuencias.get((int) secuencia & mascara) == secuencia + 1;
+    }
+
+    /**
+     * Devuelve la cantidad aproximada de entradas reservadas y aún no consumidas.
+     *
+     * @return entradas en el buffer
+     */
+    public int size() {
+        return (int) Math.max(0, cola.get() - cabeza);
+    }
+
+    public int capacity() {
+        return entradas.length;
+    }
+}
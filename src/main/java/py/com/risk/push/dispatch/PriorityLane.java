@@ -0,0 +1,60 @@
+package py.com.risk.push.dispatch;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * Cola de prioridad dentro de una {@link DispatchLane}: agrupa, en orden de llegada, los mensajes de
+ * una misma clasificación y prioridad. La {@link DispatchLane} atiende primero la cola cuyo primer
+ * mensaje vence antes.
+ * <p>
+ * Se accede solo con el lock del despachador tomado.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+final class PriorityLane {
+
+    final String clasificacion;
+    final int prioridad;
+    private final ArrayDeque<DispatchEntry> entradas = new ArrayDeque<>();
+
+    PriorityLane(String clasificacion, int prioridad) {
+        this.clasificacion = clasificacion;
+        this.prioridad = prioridad;
+    }
+
+    boolean matches(String clasificacion, int prioridad) {
+        return this.prioridad == prioridad && Objects.equals(this.clasificacion, clasificacion);
+    }
+
+    void add(DispatchEntry entrada) {
+        entradas.addLast(entrada);
+    }
+
+    DispatchEntry poll() {
+        return entradas.pollFirst();
+    }
+
+    boolean isEmpty() {
+        return entradas.isEmpty();
+    }
+
+    /**
+     * Indica si el primer mensaje de esta cola debe enviarse antes que el de otra: primero el de
+     * vencimiento más próximo, luego el de mayor prioridad y por último el que llegó antes.
+     * Ambas colas deben tener mensajes.
+     */
+    boolean precedes(PriorityLane otra) {
+        DispatchEntry propia = entradas.peekFirst();
+        DispatchEntry ajena = otra.entradas.peekFirst();
+        if (propia.vencimiento != ajena.vencimiento) {
+            return propia.vencimiento < ajena.vencimiento;
+        }
+        if (prioridad != otra.prioridad) {
+            return prioridad < otra.prioridad;
+        }
+        return propia.llegada < ajena.llegada;
+    }
+}
@@ -15,6 +15,8 @@ import java.util.Scanner;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import py.com.risk.push.util.Deadline;
+
 /**
  * Cliente HTTP personalizado para enviar notificaciones push a Firebase Cloud Messaging (FCM),
  * usando directamente el endpoint HTTP v1 de la API REST de Firebase.
@@ -54,12 +56,16 @@ public class FirebaseHttpClient {
     /**
      * Envía un mensaje push a Firebase utilizando HTTP.
      *
+     * <p>El tiempo restante del plazo se aplica como timeout de conexión y de lectura.</p>
+     *
      * @param jsonBody Cuerpo del mensaje en formato JSON (completo y válido según la API de FCM)
+     * @param deadline Plazo máximo disponible para completar el envío
      * @return El ID del mensaje enviado si fue exitoso (por ejemplo, "projects/XYZ/messages/123")
-     * @throws Exception si ocurre un error durante el envío o autenticación
+     * @throws Exception si ocurre un error durante el envío, autenticación o si vence el plazo
      */
-    public String sendPush(String jsonBody) throws Exception {
+    public String sendPush(String jsonBody, Deadline deadline) throws Exception {
         refreshAccessTokenIfNeeded();
+        deadline.checkNotExpired("envío HTTP a Firebase");
 
         String endpoint = String.format(FCM_ENDPOINT, projectId);
         URL url = new URL(endpoint);
@@ -69,6 +75,8 @@ public class FirebaseHttpClient {
         conn.setRequestMethod("POST");
         conn.setRequestProperty("Authorization", "Bearer " + accessToken);
         conn.setRequestProperty("Content-Type", "application/json; UTF-8");
+        conn.setConnectTimeout(deadline.remainingMillisForTimeout());
+        conn.setReadTimeout(deadline.remainingMillisForTimeout());
 
         logger.debug("Sending JSON: " + jsonBody);
         try (OutputStream os = conn.getOutputStream()) {
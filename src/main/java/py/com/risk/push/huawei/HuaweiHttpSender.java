@@ -3,6 +3,9 @@ package py.com.risk.push.huawei;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import py.com.risk.push.log.LogMarkers;
+import py.com.risk.push.util.Deadline;
+
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -39,12 +42,16 @@ public class HuaweiHttpSender {
     /**
      * Realiza el envío de un mensaje push a Huawei usando HTTP POST.
      *
+     * <p>El tiempo restante del plazo se aplica como timeout de conexión y de lectura.</p>
+     *
      * @param jsonBody Cuerpo JSON completo del mensaje a enviar
+     * @param deadline Plazo máximo disponible para completar el envío
      * @return Cadena con la respuesta del servidor Huawei (normalmente un JSON)
-     * @throws Exception si ocurre un error de red, autenticación o conexión
+     * @throws Exception si ocurre un error de red, autenticación, conexión o si vence el plazo
      */
-    public String sendToHuawei(String jsonBody) throws Exception {
-        String accessToken = tokenManager.getAccessToken();
+    public String sendToHuawei(String jsonBody, Deadline deadline) throws Exception {
+        String accessToken = tokenManager.getAccessToken(deadline);
+        deadline.checkNotExpired("envío HTTP a Huawei");
         String url = apiUrl + "?access_token=" + accessToken;
 
         logger.debug("Enviando push a Huawei: {}", jsonBody);
@@ -53,6 +60,8 @@ public class HuaweiHttpSender {
         conn.setRequestMethod("POST");
         conn.setDoOutput(true);
         conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+        conn.setConnectTimeout(deadline.remainingMillisForTimeout());
+        conn.setReadTimeout(deadline.remainingMillisForTimeout());
 
         try (OutputStream os = conn.getOutputStream()) {
             os.write(jsonBody.getBytes(StandardCharsets.UTF_8));
@@ -66,7 +75,7 @@ public class HuaweiHttpSender {
         String response = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))
                 .lines().collect(Collectors.joining("\n"));
 
-        logger.info("Respuesta Huawei: {}", response);
+        logger.info(LogMarkers.MENSAJE, "Respuesta Huawei: {}", response);
         conn.disconnect();
 
         return response;
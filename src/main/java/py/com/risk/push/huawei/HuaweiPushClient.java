@@ -3,8 +3,13 @@ package py.com.risk.push.huawei;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.charset.StandardCharsets;
+
+import py.com.risk.push.jfr.EncodeEvent;
+import py.com.risk.push.log.LogMarkers;
 import py.com.risk.push.model.PushClient;
 import py.com.risk.push.model.PushMessage;
+import py.com.risk.push.util.Deadline;
 
 /**
  * Implementación del cliente de envío de mensajes push para la plataforma Huawei.
@@ -35,22 +40,33 @@ public class HuaweiPushClient implements PushClient {
      * Envía un mensaje push utilizando la API de Huawei.
      *
      * @param msg Objeto {@link PushMessage} que contiene los datos del mensaje a enviar
+     * @param deadline Plazo máximo disponible para completar el envío
      * @return La respuesta en formato String recibida por parte de Huawei Push Kit
      * @throws Exception si ocurre un error en la construcción o el envío del mensaje
      */
     @Override
-    public String send(PushMessage msg) throws Exception {
+    public String send(PushMessage msg, Deadline deadline) throws Exception {
         logger.debug("Construyendo payload Huawei para el mensaje: {}", msg.getIdMensaje());
 
         // Construir el JSON requerido por Huawei
+        EncodeEvent encodeEvent = new EncodeEvent();
+        encodeEvent.begin();
         String payload = HuaweiPayloadBuilder.buildJsonPayload(msg);
+        encodeEvent.end();
+        if (encodeEvent.shouldCommit()) {
+            encodeEvent.captureContext();
+            encodeEvent.setIdMensaje(msg.getIdMensaje().longValue());
+            encodeEvent.setProveedor(String.valueOf(msg.getPlataforma()));
+            encodeEvent.setTamanoPayload(payload.getBytes(StandardCharsets.UTF_8).length);
+            encodeEvent.commit();
+        }
 
         logger.debug("Payload generado: {}", payload);
 
         // Enviar el mensaje a través del cliente HTTP
-        String response = httpSender.sendToHuawei(payload);
+        String response = httpSender.sendToHuawei(payload, deadline);
 
-        logger.info("Respuesta Huawei para mensaje {}: {}", msg.getIdMensaje(), response);
+        logger.info(LogMarkers.MENSAJE, "Respuesta Huawei para mensaje {}: {}", msg.getIdMensaje(), response);
 
         return response;
     }
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import py.com.risk.push.util.Deadline;
+
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -30,10 +32,13 @@ public class HuaweiTokenManager {
     private final String tokenUrl;
 
     /** Token de acceso actual */
-    private String accessToken;
+    private volatile String accessToken;
 
     /** Fecha y hora de expiración del token */
-    private Instant expirationTime;
+    private volatile Instant expirationTime;
+
+    /** Timeout máximo (ms) de conexión y lectura para la renovación del token */
+    private static final int TOKEN_TIMEOUT_MS = 10000;
 
     /** Lock para garantizar que solo un hilo renueve el token a la vez */
     private final ReentrantLock lock = new ReentrantLock();
@@ -57,8 +62,19 @@ public class HuaweiTokenManager {
      * @return Token de acceso válido
      */
     public String getAccessToken() {
+        return getAccessToken(Deadline.after(TOKEN_TIMEOUT_MS));
+    }
+
+    /**
+     * Devuelve el token de acceso actual. Si ha expirado o no existe, lo renueva automáticamente
+     * respetando el plazo del envío que lo solicita.
+     *
+     * @param deadline Plazo máximo disponible; la renovación nunca espera más de {@value #TOKEN_TIMEOUT_MS} ms
+     * @return Token de acceso válido
+     */
+    public String getAccessToken(Deadline deadline) {
         if (accessToken == null || Instant.now().isAfter(expirationTime)) {
-            refreshToken();
+            refreshToken(deadline);
         }
         return accessToken;
     }
@@ -66,10 +82,16 @@ public class HuaweiTokenManager {
     /**
      * Solicita un nuevo token de acceso al endpoint de autenticación de Huawei
      * y actualiza los valores de `accessToken` y `expirationTime`.
+     *
+     * @param deadline Plazo máximo disponible para la renovación
      */
-    private void refreshToken() {
+    private void refreshToken(Deadline deadline) {
         lock.lock();
         try {
+            // Otro hilo pudo haber renovado el token mientras se esperaba el lock
+            if (accessToken != null && Instant.now().isBefore(expirationTime)) {
+                return;
+            }
             logger.debug("Renovando token Huawei...");
 
             String params = "grant_type=client_credentials"
@@ -81,6 +103,9 @@ public class HuaweiTokenManager {
             conn.setRequestMethod("POST");
             conn.setDoOutput(true);
             conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            int timeout = Math.min(TOKEN_TIMEOUT_MS, deadline.remainingMillisForTimeout());
+            conn.setConnectTimeout(timeout);
+            conn.setReadTimeout(timeout);
 
             try (OutputStream os = conn.getOutputStream()) {
                 os.write(params.getBytes(StandardCharsets.UTF_8));
@@ -97,11 +122,12 @@ public class HuaweiTokenManager {
             ObjectMapper mapper = new ObjectMapper();
             JsonNode root = mapper.readTree(response);
 
-            this.accessToken = root.get("access_token").asText();
+            String nuevoToken = root.get("access_token").asText();
             int expiresIn = root.get("expires_in").asInt();
 
             // Se resta 60 segundos como margen de seguridad
             this.expirationTime = Instant.now().plusSeconds(expiresIn - 60);
+            this.accessToken = nuevoToken;
 
             logger.info("Token Huawei renovado correctamente.");
 
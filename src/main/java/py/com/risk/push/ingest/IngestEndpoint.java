@@ -0,0 +1,260 @@
+package py.com.risk.push.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import py.com.risk.push.bd.DBService;
+import py.com.risk.push.model.Categoria;
+import py.com.risk.push.model.Plataforma;
+import py.com.risk.push.model.PushMessage;
+import py.com.risk.push.model.PushMessage.Status;
+import py.com.risk.push.util.ContextAwareThreadFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Endpoint HTTP local de ingreso de notificaciones para envíos de baja latencia (por ejemplo, OTP).
+ * <p>
+ * {@code POST /ingest/notificaciones} recibe una notificación en JSON, la registra en
+ * {@code t_notificaciones} y la entrega directamente a la cola de envío del servicio que la atiende
+ * (misma plataforma y clasificación que su consulta de pendientes), sin esperar la siguiente consulta.
+ * La tabla sigue siendo el registro de la notificación:
+ * </p>
+ * <ul>
+ *   <li>Si el servicio puede enviar de inmediato, el registro se inserta en estado en proceso
+ *       ({@code N}) y el resultado del envío se registra como en cualquier otro mensaje.</li>
+ *   <li>Si no hay un servicio que la atienda, está pausado o alcanzó {@code maximoEnVuelo}, el registro
+ *       se inserta pendiente ({@code P}) y lo envía la siguiente consulta.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * curl -X POST localhost:9406/ingest/notificaciones -d '{"idCategoria": 1, "token": "...", "plataforma": "FCM",
+ *      "titulo": "Codigo de verificacion", "contenido": "Tu codigo es 123456"}'
+ * }</pre>
+ *
+ * <p>Responde {@code 202} con el {@code idNotificacion} asignado, el servicio y el tipo de despacho
+ * ({@code inmediato} o {@code consulta}).</p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class IngestEndpoint {
+
+    private static final Logger logger = LogManager.getLogger(IngestEndpoint.class);
+
+    /** Ruta de ingreso de notificaciones */
+    public static final String RUTA = "/ingest/notificaciones";
+
+    /** Campos admitidos en la solicitud */
+    private static final List<String> CAMPOS = List.of("idCategoria", "token", "titulo", "contenido", "plataforma", "datosExtra");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private IngestEndpoint(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Inicia el endpoint en la dirección indicada.
+     *
+     * @param host dirección en la que escucha (por ejemplo, 127.0.0.1)
+     * @param puerto puerto TCP
+     * @param hilos cantidad de hilos que atienden las solicitudes
+     * @return endpoint iniciado
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public static IngestEndpoint start(String host, int puerto, int hilos) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(host, puerto), 0);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos, new ContextAwareThreadFactory());
+        server.createContext(RUTA, IngestEndpoint::handle);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Ingreso de notificaciones disponible en http://{}:{}{}", host, puerto, RUTA);
+        return new IngestEndpoint(server, executor);
+    }
+
+    /**
+     * Detiene el endpoint.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestURI().getRawPath().equals(RUTA)) {
+                respond(exchange, 404, error("Ruta inexistente"));
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Metodo no permitido"));
+                return;
+            }
+            Map<String, Object> solicitud;
+            try {
+                solicitud = objectMapper.readValue(exchange.getRequestBody(), new TypeReference<Map<String, Object>>() { });
+            } catch (JsonProcessingException e) {
+                respond(exchange, 400, error(e.getOriginalMessage()));
+                return;
+            }
+            if (solicitud == null) {
+                respond(exchange, 400, error("Se requiere un objeto JSON con la notificacion"));
+                return;
+            }
+            try {
+                respond(exchange, 202, ingest(solicitud));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+            } catch (IllegalStateException e) {
+                respond(exchange, 503, error(e.getMessage()));
+            } catch (SQLException e) {
+                logger.error("Error al registrar la notificación recibida", e);
+                respond(exchange, 503, error("No se pudo registrar la notificacion: " + e.getMessage()));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error en el endpoint de ingreso", e);
+            respond(exchange, 500, error(e.getMessage()));
+        } finally {
+            ThreadContext.put("servicio", "default");
+        }
+    }
+
+    /**
+     * Registra la notificación y, si su servicio tiene capacidad, la encola para envío inmediato.
+     */
+    private static Map<String, Object> ingest(Map<String, Object> solicitud) throws SQLException {
+        BigDecimal idCategoria = decimal(solicitud, "idCategoria");
+        String token = text(solicitud, "token", true);
+        String titulo = text(solicitud, "titulo", false);
+        String contenido = text(solicitud, "contenido", false);
+        Plataforma plataforma = Plataforma.fromCode(text(solicitud, "plataforma", true));
+        if (plataforma == null) {
+            throw new IllegalArgumentException("plataforma invalida: " + solicitud.get("plataforma"));
+        }
+        String datosExtra = datosExtra(solicitud.get("datosExtra"));
+        for (String campo : solicitud.keySet()) {
+            if (!CAMPOS.contains(campo)) {
+                throw new IllegalArgumentException("Campo desconocido: " + campo);
+            }
+        }
+
+        Iterator<IngestTarget> servicios = IngestRegistry.all().iterator();
+        if (!servicios.hasNext()) {
+            throw new IllegalStateException("No hay servicios en ejecucion");
+        }
+        DBService dbService = servicios.next().getDbService();
+        Categoria categoria = dbService.loadCategoria(idCategoria);
+        if (categoria == null) {
+            throw new IllegalArgumentException("Categoria inexistente: " + idCategoria);
+        }
+
+        IngestTarget target = IngestRegistry.find(plataforma, categoria.getClasificacion());
+        boolean inmediato = target != null && target.hasCapacity();
+        if (target != null) {
+            dbService = target.getDbService();
+            ThreadContext.put("servicio", target.getNombre());
+        }
+        BigDecimal idMensaje = dbService.insertPushMessage(idCategoria, token, titulo, contenido, plataforma, datosExtra,
+                inmediato ? Status.EN_PROCESO_ENVIO : Status.PENDIENTE_ENVIO);
+
+        if (inmediato) {
+            long ahora = System.currentTimeMillis();
+            PushMessage msg = new PushMessage(idMensaje, token, titulo, contenido, plataforma, datosExtra,
+                    categoria.getClasificacion(), 0);
+            msg.setPrioridad(categoria.getPrioridad());
+            msg.setCreadoMs(ahora);
+            msg.setReclamadoMs(ahora);
+            try {
+                target.dispatch(msg);
+            } catch (IllegalStateException e) {
+                // El servicio se está deteniendo: la notificación queda para la consulta del servicio que lo reemplace
+                logger.warn("No se pudo encolar la notificación [{}]: {}", idMensaje, e.getMessage());
+                List<PushMessage> devolver = new ArrayList<>(List.of(msg));
+                dbService.updateMessagesStatus(devolver, Status.PENDIENTE_ENVIO);
+                inmediato = false;
+            }
+        }
+        logger.info("Notificación [{}] registrada desde el endpoint de ingreso, despacho [{}]",
+                idMensaje, inmediato ? "inmediato" : "consulta");
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("idNotificacion", idMensaje);
+        respuesta.put("servicio", target != null ? target.getNombre() : null);
+        respuesta.put("despacho", inmediato ? "inmediato" : "consulta");
+        return respuesta;
+    }
+
+    private static BigDecimal decimal(Map<String, Object> solicitud, String campo) {
+        Object valor = solicitud.get(campo);
+        if (!(valor instanceof Number)) {
+            throw new IllegalArgumentException(campo + " es requerido y debe ser numerico");
+        }
+        return new BigDecimal(valor.toString());
+    }
+
+    private static String text(Map<String, Object> solicitud, String campo, boolean requerido) {
+        Object valor = solicitud.get(campo);
+        if (valor == null || valor.toString().isBlank()) {
+            if (requerido) {
+                throw new IllegalArgumentException(campo + " es requerido");
+            }
+            return null;
+        }
+        if (!(valor instanceof String)) {
+            throw new IllegalArgumentException(campo + " debe ser un texto");
+        }
+        return (String) valor;
+    }
+
+    /**
+     * Admite {@code datosExtra} como texto JSON o como objeto, que se guarda serializado.
+     */
+    private static String datosExtra(Object valor) {
+        if (valor == null || valor instanceof String) {
+            return (String) valor;
+        }
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("datosExtra invalido: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, Object> error(String mensaje) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", mensaje);
+        return error;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
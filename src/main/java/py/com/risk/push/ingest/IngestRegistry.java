@@ -0,0 +1,73 @@
+package py.com.risk.push.ingest;
+
+import py.com.risk.push.model.Plataforma;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registro de los servicios en ejecución que pueden recibir notificaciones del endpoint de ingreso,
+ * ordenados por nombre.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class IngestRegistry {
+
+    private static final Map<String, IngestTarget> SERVICIOS = new ConcurrentSkipListMap<>();
+
+    private IngestRegistry() {
+    }
+
+    /**
+     * Registra un servicio, reemplazando uno anterior con el mismo nombre.
+     *
+     * @param target servicio en ejecución
+     */
+    public static void register(IngestTarget target) {
+        SERVICIOS.put(target.getNombre(), target);
+    }
+
+    /**
+     * Elimina un servicio solo si sigue siendo el registrado con su nombre.
+     *
+     * @param target servicio en ejecución
+     */
+    public static void remove(IngestTarget target) {
+        SERVICIOS.remove(target.getNombre(), target);
+    }
+
+    /**
+     * Devuelve el servicio que envía las notificaciones de la plataforma y clasificación indicadas,
+     * prefiriendo uno dedicado a la clasificación sobre uno que atiende todas.
+     *
+     * @param plataforma plataforma de la notificación
+     * @param clasificacion clasificación de la categoría de la notificación
+     * @return servicio o {@code null} si ninguno la envía
+     */
+    public static IngestTarget find(Plataforma plataforma, String clasificacion) {
+        IngestTarget general = null;
+        for (IngestTarget target : SERVICIOS.values()) {
+            if (target.matches(plataforma, clasificacion)) {
+                if (target.isDedicated(clasificacion)) {
+                    return target;
+                }
+                if (general == null) {
+                    general = target;
+                }
+            }
+        }
+        return general;
+    }
+
+    /**
+     * Devuelve todos los servicios registrados.
+     *
+     * @return servicios ordenados por nombre
+     */
+    public static Collection<IngestTarget> all() {
+        return Collections.unmodifiableCollection(SERVICIOS.values());
+    }
+}
@@ -0,0 +1,82 @@
+package py.com.risk.push.ingest;
+
+import py.com.risk.push.PushSender;
+import py.com.risk.push.admin.ServiceControl;
+import py.com.risk.push.bd.DBService;
+import py.com.risk.push.config.PushConfig;
+import py.com.risk.push.model.Plataforma;
+import py.com.risk.push.model.PushMessage;
+
+import java.util.Objects;
+
+/**
+ * Servicio en ejecución que puede recibir notificaciones del endpoint de ingreso: su configuración,
+ * sus parámetros vigentes, su acceso a datos y su cola de envío.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class IngestTarget {
+
+    private final PushConfig config;
+    private final ServiceControl control;
+    private final DBService dbService;
+    private final PushSender sender;
+
+    public IngestTarget(PushConfig config, ServiceControl control, DBService dbService, PushSender sender) {
+        this.config = config;
+        this.control = control;
+        this.dbService = dbService;
+        this.sender = sender;
+    }
+
+    public String getNombre() {
+        return config.getNombre();
+    }
+
+    public DBService getDbService() {
+        return dbService;
+    }
+
+    /**
+     * Indica si el servicio envía las notificaciones de la plataforma y clasificación indicadas, con las
+     * mismas condiciones que su consulta de pendientes.
+     *
+     * @param plataforma plataforma de la notificación
+     * @param clasificacion clasificación de la categoría de la notificación
+     * @return {@code true} si la consulta del servicio la incluiría
+     */
+    public boolean matches(Plataforma plataforma, String clasificacion) {
+        return config.getPlataforma() == plataforma
+                && (config.getClasificacion() == null || Objects.equals(config.getClasificacion(), clasificacion));
+    }
+
+    /**
+     * Indica si el servicio filtra exactamente la clasificación indicada.
+     *
+     * @param clasificacion clasificación de la categoría de la notificación
+     * @return {@code true} si el servicio está dedicado a la clasificación
+     */
+    public boolean isDedicated(String clasificacion) {
+        return config.getClasificacion() != null && config.getClasificacion().equals(clasificacion);
+    }
+
+    /**
+     * Indica si el servicio puede enviar de inmediato: no está pausado ni detenido y sus mensajes en vuelo
+     * no alcanzan {@code maximoEnVuelo}.
+     *
+     * @return {@code true} si acepta un envío inmediato
+     */
+    public boolean hasCapacity() {
+        return !control.isPausado() && !control.isDetenido() && sender.getPendientes() < control.getMaximoEnVuelo();
+    }
+
+    /**
+     * Encola un mensaje ya registrado en estado en proceso, con el modo de envío vigente del servicio.
+     *
+     * @param msg mensaje a enviar
+     */
+    public void dispatch(PushMessage msg) {
+        sender.enqueue(control.getModoEnvioLote(), msg, control.getEspaciadoMs());
+    }
+}
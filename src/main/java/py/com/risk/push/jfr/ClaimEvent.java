@@ -0,0 +1,43 @@
+package py.com.risk.push.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Bloqueo de los mensajes de un lote y cambio de estado a en proceso ({@code RiskPushApp.runExecution}).
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Name("py.com.risk.push.Claim")
+@Label("Bloqueo de lote")
+@Description("Bloqueo de los mensajes consultados y marcado como en proceso de envio")
+public class ClaimEvent extends RiskPushEvent {
+
+    @Label("Servicio")
+    private String servicio;
+
+    @Label("Lote")
+    private String contador;
+
+    @Label("Solicitados")
+    private int solicitados;
+
+    @Label("Bloqueados")
+    private int bloqueados;
+
+    public void setSolicitados(int solicitados) {
+        this.solicitados = solicitados;
+    }
+
+    public void setBloqueados(int bloqueados) {
+        this.bloqueados = bloqueados;
+    }
+
+    @Override
+    protected void setContext(String servicio, String contador) {
+        this.servicio = servicio;
+        this.contador = contador;
+    }
+}
@@ -0,0 +1,52 @@
+package py.com.risk.push.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Construcción del payload de un mensaje para su proveedor.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Name("py.com.risk.push.Encode")
+@Label("Construccion de payload")
+@Description("Construccion del payload de un mensaje push. Con el Admin SDK de Firebase el tamano corresponde al titulo y cuerpo")
+public class EncodeEvent extends RiskPushEvent {
+
+    @Label("Servicio")
+    private String servicio;
+
+    @Label("Lote")
+    private String contador;
+
+    @Label("Id mensaje")
+    private long idMensaje;
+
+    @Label("Proveedor")
+    private String proveedor;
+
+    @Label("Tamano del payload")
+    @DataAmount
+    private int tamanoPayload;
+
+    public void setIdMensaje(long idMensaje) {
+        this.idMensaje = idMensaje;
+    }
+
+    public void setProveedor(String proveedor) {
+        this.proveedor = proveedor;
+    }
+
+    public void setTamanoPayload(int tamanoPayload) {
+        this.tamanoPayload = tamanoPayload;
+    }
+
+    @Override
+    protected void setContext(String servicio, String contador) {
+        this.servicio = servicio;
+        this.contador = contador;
+    }
+}
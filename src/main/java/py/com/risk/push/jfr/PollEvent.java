@@ -0,0 +1,50 @@
+package py.com.risk.push.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Consulta de mensajes pendientes de un servicio ({@code RiskPushApp.runExecution}).
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Name("py.com.risk.push.Poll")
+@Label("Consulta de pendientes")
+@Description("Consulta de mensajes pendientes de envio de un servicio")
+public class PollEvent extends RiskPushEvent {
+
+    @Label("Servicio")
+    private String servicio;
+
+    @Label("Lote")
+    private String contador;
+
+    @Label("Plataforma")
+    private String plataforma;
+
+    @Label("Clasificacion")
+    private String clasificacion;
+
+    @Label("Mensajes")
+    private int mensajes;
+
+    public void setPlataforma(String plataforma) {
+        this.plataforma = plataforma;
+    }
+
+    public void setClasificacion(String clasificacion) {
+        this.clasificacion = clasificacion;
+    }
+
+    public void setMensajes(int mensajes) {
+        this.mensajes = mensajes;
+    }
+
+    @Override
+    protected void setContext(String servicio, String contador) {
+        this.servicio = servicio;
+        this.contador = contador;
+    }
+}
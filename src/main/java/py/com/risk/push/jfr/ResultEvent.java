@@ -0,0 +1,57 @@
+package py.com.risk.push.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Registro del resultado de un envío en la base de datos ({@code PushSender.sendSingleMessage}).
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Name("py.com.risk.push.Result")
+@Label("Registro de resultado")
+@Description("Actualizacion del estado de un mensaje luego de su envio")
+public class ResultEvent extends RiskPushEvent {
+
+    @Label("Servicio")
+    private String servicio;
+
+    @Label("Lote")
+    private String contador;
+
+    @Label("Id mensaje")
+    private long idMensaje;
+
+    @Label("Proveedor")
+    private String proveedor;
+
+    @Label("Estado")
+    private String estado;
+
+    @Label("Codigo")
+    private String codigo;
+
+    public void setIdMensaje(long idMensaje) {
+        this.idMensaje = idMensaje;
+    }
+
+    public void setProveedor(String proveedor) {
+        this.proveedor = proveedor;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    @Override
+    protected void setContext(String servicio, String contador) {
+        this.servicio = servicio;
+        this.contador = contador;
+    }
+}
@@ -0,0 +1,53 @@
+package py.com.risk.push.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.StackTrace;
+
+import org.apache.logging.log4j.ThreadContext;
+
+/**
+ * Evento base de JDK Flight Recorder para el ciclo consulta - bloqueo - envío - actualización.
+ * <p>
+ * Todos los eventos están deshabilitados por defecto: mientras no haya una grabación que los habilite
+ * (por ejemplo, con el perfil {@code risk-push.jfc}), {@code shouldCommit()} devuelve {@code false}
+ * y no se completa ningún campo. El servicio y el lote se toman del {@link ThreadContext}.
+ * <p>
+ * JFR solo registra los campos declarados en la clase concreta del evento, por lo que cada evento
+ * declara sus propios campos {@code servicio} y {@code contador}.
+ *
+ * <pre>{@code
+ * SendEvent event = new SendEvent();
+ * event.begin();
+ * ...
+ * if (event.shouldCommit()) {
+ *     event.captureContext();
+ *     event.setIdMensaje(id);
+ *     event.commit();
+ * }
+ * }</pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Category("Risk Push")
+@Enabled(false)
+@StackTrace(false)
+public abstract class RiskPushEvent extends Event {
+
+    /**
+     * Completa el servicio y el contador de lote desde el {@link ThreadContext} del hilo actual.
+     */
+    public void captureContext() {
+        setContext(ThreadContext.get("servicio"), ThreadContext.get("contador"));
+    }
+
+    /**
+     * Asigna los campos de contexto del evento.
+     *
+     * @param servicio nombre del servicio
+     * @param contador contador de lote
+     */
+    protected abstract void setContext(String servicio, String contador);
+}
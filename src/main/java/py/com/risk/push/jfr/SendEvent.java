@@ -0,0 +1,52 @@
+package py.com.risk.push.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Envío de un mensaje a su proveedor, desde la construcción del payload hasta la respuesta
+ * ({@code PushSender.sendSingleMessage}).
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Name("py.com.risk.push.Send")
+@Label("Envio")
+@Description("Llamada al proveedor push de un mensaje, incluida la construccion del payload")
+public class SendEvent extends RiskPushEvent {
+
+    @Label("Servicio")
+    private String servicio;
+
+    @Label("Lote")
+    private String contador;
+
+    @Label("Id mensaje")
+    private long idMensaje;
+
+    @Label("Proveedor")
+    private String proveedor;
+
+    @Label("Resultado")
+    @Description("OK, TIMEOUT o ERROR")
+    private String resultado;
+
+    public void setIdMensaje(long idMensaje) {
+        this.idMensaje = idMensaje;
+    }
+
+    public void setProveedor(String proveedor) {
+        this.proveedor = proveedor;
+    }
+
+    public void setResultado(String resultado) {
+        this.resultado = resultado;
+    }
+
+    @Override
+    protected void setContext(String servicio, String contador) {
+        this.servicio = servicio;
+        this.contador = contador;
+    }
+}
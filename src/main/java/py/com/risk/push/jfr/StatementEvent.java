@@ -0,0 +1,58 @@
+package py.com.risk.push.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Ejecución de una sentencia SQL de {@code DBService}, incluida la obtención de la conexión del pool.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Name("py.com.risk.push.Statement")
+@Label("Sentencia SQL")
+@Description("Ejecucion de una sentencia de DBService, incluida la espera por una conexion del pool")
+public class StatementEvent extends RiskPushEvent {
+
+    @Label("Servicio")
+    private String servicio;
+
+    @Label("Lote")
+    private String contador;
+
+    @Label("Sentencia")
+    private String sentencia;
+
+    @Label("Filas")
+    private int filas;
+
+    @Label("Id mensaje")
+    private long idMensaje;
+
+    @Label("Codigo de error")
+    @Description("Codigo de error de Oracle, 0 si la sentencia fue exitosa")
+    private int codigoError;
+
+    public void setSentencia(String sentencia) {
+        this.sentencia = sentencia;
+    }
+
+    public void setFilas(int filas) {
+        this.filas = filas;
+    }
+
+    public void setIdMensaje(long idMensaje) {
+        this.idMensaje = idMensaje;
+    }
+
+    public void setCodigoError(int codigoError) {
+        this.codigoError = codigoError;
+    }
+
+    @Override
+    protected void setContext(String servicio, String contador) {
+        this.servicio = servicio;
+        this.contador = contador;
+    }
+}
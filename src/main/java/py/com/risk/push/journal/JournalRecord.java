@@ -0,0 +1,122 @@
+package py.com.risk.push.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+/**
+ * Resultado de un envío registrado en el diario. Los textos se recortan a la longitud de sus columnas en
+ * {@code t_notificaciones}.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class JournalRecord {
+
+    private final BigDecimal idMensaje;
+    private final String estado;
+    private final String codigo;
+    private final String respuesta;
+    private final String idExterno;
+    private final int maximoIntentos;
+    private final long fechaMs;
+    private final String propietario;
+
+    /**
+     * @param idMensaje ID del mensaje
+     * @param estado código del nuevo estado
+     * @param codigo código de respuesta del proveedor
+     * @param respuesta cuerpo de respuesta o mensaje de error
+     * @param idExterno ID asignado por el proveedor
+     * @param maximoIntentos máximo de intentos del servicio al momento del envío
+     * @param fechaMs momento del resultado (epoch en milisegundos)
+     * @param propietario instancia propietaria de la concesión de la notificación, o {@code null} sin concesiones
+     */
+    public JournalRecord(BigDecimal idMensaje, String estado, String codigo, String respuesta, String idExterno,
+                         int maximoIntentos, long fechaMs, String propietario) {
+        this.idMensaje = idMensaje;
+        this.estado = estado;
+        this.codigo = truncate(codigo, 10);
+        this.respuesta = truncate(respuesta, 1000);
+        this.idExterno = truncate(idExterno, 100);
+        this.maximoIntentos = maximoIntentos;
+        this.fechaMs = fechaMs;
+        this.propietario = propietario;
+    }
+
+    public BigDecimal getIdMensaje() {
+        return idMensaje;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getRespuesta() {
+        return respuesta;
+    }
+
+    public String getIdExterno() {
+        return idExterno;
+    }
+
+    public int getMaximoIntentos() {
+        return maximoIntentos;
+    }
+
+    public long getFechaMs() {
+        return fechaMs;
+    }
+
+    public String getPropietario() {
+        return propietario;
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (respuesta != null ? respuesta.length() * 3 : 0));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(idMensaje.toPlainString());
+            out.writeUTF(estado);
+            writeNullable(out, codigo);
+            writeNullable(out, respuesta);
+            writeNullable(out, idExterno);
+            out.writeInt(maximoIntentos);
+            out.writeLong(fechaMs);
+            writeNullable(out, propietario);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalRecord decode(byte[] datos) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(datos))) {
+            // Los registros escritos antes de incluir el propietario terminan en la fecha
+            return new JournalRecord(new BigDecimal(in.readUTF()), in.readUTF(), readNullable(in), readNullable(in),
+                    readNullable(in), in.readInt(), in.readLong(), in.available() > 0 ? readNullable(in) : null);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String valor) throws IOException {
+        out.writeBoolean(valor != null);
+        if (valor != null) {
+            out.writeUTF(valor);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String truncate(String valor, int longitud) {
+        return valor != null && valor.length() > longitud ? valor.substring(0, longitud) : valor;
+    }
+}
@@ -0,0 +1,522 @@
+package py.com.risk.push.journal;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Diario local de resultados de envío: un registro de solo escritura al final, en archivos mapeados en
+ * memoria, que se aplica a la base en orden desde un hilo propio.
+ * <p>
+ * El diario se compone de segmentos de tamaño fijo ({@code 00000000000000000000.diario}, ...). Cada
+ * registro tiene su longitud, un CRC32 y el resultado codificado; un segmento termina en la primera
+ * longitud cero. Quien agrega un registro lo copia al segmento mapeado y espera a que el hilo de
+ * sincronización lo lleve al disco: la sincronización ({@code force}) se hace por grupos, con una ventana
+ * de {@code sincronizacionMs}, de modo que muchos resultados comparten una misma escritura al disco. El
+ * hilo de aplicación lee los registros ya sincronizados, los aplica a la base por lotes y registra la
+ * posición aplicada en el archivo {@code aplicado}; los segmentos anteriores a esa posición se eliminan.
+ * </p>
+ * <p>Al abrir, la escritura continúa luego del último registro válido del último segmento (un registro
+ * incompleto por una caída no supera el CRC) y la aplicación retoma desde la posición registrada, de
+ * modo que los resultados de una ejecución anterior se aplican antes que los nuevos. Un registro puede
+ * aplicarse dos veces si la caída ocurre entre la aplicación de su lote y el registro de la posición.
+ * Un archivo de bloqueo impide que dos procesos usen el mismo directorio.</p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class ResultJournal {
+
+    private static final Logger logger = LogManager.getLogger(ResultJournal.class);
+
+    private static final String EXTENSION = ".diario";
+    private static final String APLICADO = "aplicado";
+    private static final String BLOQUEO = "bloqueo";
+
+    /** Longitud y CRC32 de cada registro */
+    private static final int ENCABEZADO = 8;
+
+    /** Máximo de registros aplicados a la base por lote */
+    private static final int LOTE = 500;
+
+    /** Espera máxima de los hilos sin trabajo, para verificar periódicamente si se cerró */
+    private static final long ESPERA_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** Aplicación de un lote de resultados a la base */
+    @FunctionalInterface
+    public interface Applier {
+        void apply(List<JournalRecord> registros) throws SQLException;
+    }
+
+    private final Path directorio;
+    private final int tamanoSegmento;
+    private final long maximoSegmentos;
+    private final long sincronizacionNanos;
+    private final long reintentoMs;
+    private final FileChannel canalBloqueo;
+    private final FileLock bloqueo;
+    private final FileChannel canalAplicado;
+
+    /** Segmento en escritura y posición luego del último registro; guardados por {@code this} */
+    private MappedByteBuffer escritura;
+    private long escrito;
+
+    /** Posición sincronizada con el disco; los cambios se notifican en {@code sincronizacion} */
+    private final Object sincronizacion = new Object();
+    private volatile long sincronizado;
+
+    /** Posición aplicada a la base y segmento mapeado para lectura, usados por el hilo de aplicación */
+    private volatile long aplicado;
+    private MappedByteBuffer lectura;
+    private long segmentoLectura = -1;
+
+    private volatile boolean aceptando = true;
+    private volatile boolean cerrado;
+
+    /** Indica si falló la sincronización con el disco; los registros no sincronizados se descartaron */
+    private volatile boolean fallido;
+    private Thread hiloSincronizacion;
+    private Thread hiloAplicacion;
+
+    /**
+     * Abre el diario del directorio indicado, creándolo si no existe, y recupera su posición de escritura
+     * y de aplicación.
+     *
+     * @param directorio directorio del diario
+     * @param tamanoSegmento tamaño de cada segmento, en bytes
+     * @param maximo tamaño máximo del diario, en bytes
+     * @param sincronizacionMs ventana de agrupación de las sincronizaciones
+     * @param reintentoMs pausa antes de reintentar la aplicación de un lote
+     * @throws IOException si no se puede abrir o el directorio está en uso por otro proceso
+     */
+    public ResultJournal(Path directorio, int tamanoSegmento, long maximo, long sincronizacionMs, long reintentoMs) throws IOException {
+        this.directorio = directorio;
+        this.tamanoSegmento = tamanoSegmento;
+        this.maximoSegmentos = Math.max(2, maximo / tamanoSegmento);
+        this.sincronizacionNanos = TimeUnit.MILLISECONDS.toNanos(sincronizacionMs);
+        this.reintentoMs = reintentoMs;
+        Files.createDirectories(directorio);
+        this.canalBloqueo = FileChannel.open(directorio.resolve(BLOQUEO), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.bloqueo = canalBloqueo.tryLock();
+        if (bloqueo == null) {
+            canalBloqueo.close();
+            throw new IOException("El diario [" + directorio + "] está en uso por otro proceso");
+        }
+        this.canalAplicado = FileChannel.open(directorio.resolve(APLICADO), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        TreeSet<Long> segmentos = segments();
+        long ultimo = segmentos.isEmpty() ? 0 : segmentos.last();
+        escritura = map(ultimo, FileChannel.MapMode.READ_WRITE);
+        int fin = 0;
+        while (readAt(escritura, fin) != null) {
+            fin += ENCABEZADO + escritura.getInt(fin);
+        }
+        escrito = position(ultimo, fin);
+        sincronizado = escrito;
+
+        long primero = segmentos.isEmpty() ? 0 : segmentos.first();
+        long registrado = readApplied();
+        aplicado = registrado >= 0 && segment(registrado) >= primero ? registrado : position(primero, 0);
+        for (long segmento : segmentos.headSet(segment(aplicado))) {
+            Files.deleteIfExists(file(segmento));
+        }
+        if (aplicado < escrito) {
+            logger.info("Diario [{}] con resultados sin aplicar desde el segmento [{}]", directorio, segment(aplicado));
+        }
+    }
+
+    /**
+     * Inicia la sincronización con el disco y la aplicación de los resultados a la base.
+     *
+     * @param applier aplicación de los lotes
+     */
+    public void start(Applier applier) {
+        String servicio = ThreadContext.get("servicio");
+        String nombre = directorio.getFileName().toString();
+        hiloSincronizacion = new Thread(this::synchronize, "diario-sinc-" + nombre);
+        hiloAplicacion = new Thread(() -> {
+            ThreadContext.put("servicio", servicio);
+            apply(applier);
+        }, "diario-" + nombre);
+        hiloSincronizacion.setDaemon(true);
+        hiloAplicacion.setDaemon(true);
+        hiloSincronizacion.start();
+        hiloAplicacion.start();
+    }
+
+    /**
+     * Agrega un resultado al diario y espera a que se sincronice con el disco.
+     *
+     * @param registro resultado del envío
+     * @return {@code false} si el diario está cerrado, lleno, falló la escritura o la sincronización, o si el
+     *         hilo fue interrumpido durante la espera; el resultado debe registrarse por otra vía
+     */
+    public boolean append(JournalRecord registro) {
+        byte[] datos = registro.encode();
+        long fin;
+        synchronized (this) {
+            if (!aceptando) {
+                return false;
+            }
+            try {
+                int desde = offset(escrito);
+                if (desde + ENCABEZADO + datos.length > escritura.capacity()) {
+                    long siguiente = segment(escrito) + 1;
+                    if (siguiente - segment(aplicado) >= maximoSegmentos) {
+                        return false;
+                    }
+                    try {
+                        escritura.force();
+                    } catch (RuntimeException e) {
+                        fail(e);
+                        return false;
+                    }
+                    escritura = map(siguiente, FileChannel.MapMode.READ_WRITE);
+                    escrito = position(siguiente, 0);
+                    desde = 0;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(datos);
+                escritura.put(desde + ENCABEZADO, datos);
+                escritura.putInt(desde + 4, (int) crc.getValue());
+                escritura.putInt(desde, datos.length);
+                escrito = position(segment(escrito), desde + ENCABEZADO + datos.length);
+                fin = escrito;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error al escribir en el diario [{}]", directorio, e);
+                return false;
+            }
+        }
+        LockSupport.unpark(hiloSincronizacion);
+        synchronized (sincronizacion) {
+            while (sincronizado < fin) {
+                if (fallido) {
+                    return false;
+                }
+                try {
+                    sincronizacion.wait();
+                } catch (InterruptedException e) {
+                    // Sin confirmación de que llegó al disco: quien llama lo registra directamente en la base
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lleva al disco los registros agregados, agrupando los que llegan dentro de la ventana de sincronización.
+     */
+    private void synchronize() {
+        while (!cerrado) {
+            if (!force()) {
+                LockSupport.parkNanos(ESPERA_NANOS);
+            } else if (sincronizacionNanos > 0) {
+                LockSupport.parkNanos(sincronizacionNanos);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} si había registros para sincronizar
+     */
+    private boolean force() {
+        long objetivo;
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            objetivo = escrito;
+            buffer = escritura;
+        }
+        if (objetivo <= sincronizado) {
+            return false;
+        }
+        try {
+            buffer.force();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                fail(e);
+            }
+            return false;
+        }
+        synchronized (sincronizacion) {
+            sincronizado = objetivo;
+            sincronizacion.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Deja el diario fuera de servicio luego de un error de sincronización: no acepta más resultados,
+     * descarta los registros no sincronizados y despierta a quienes los esperan para que los registren
+     * directamente en la base. Los registros ya sincronizados se siguen aplicando. Debe invocarse con el
+     * lock del diario tomado.
+     */
+    private void fail(RuntimeException e) {
+        logger.error("Error al sincronizar el diario [{}], los resultados se registran directamente en la base", directorio, e);
+        aceptando = false;
+        fallido = true;
+        if (segment(escrito) == segment(sincronizado)) {
+            try {
+                // Corta el segmento en el último registro sincronizado, para que no se aplique al reabrir
+                escritura.putInt(offset(sincronizado), 0);
+            } catch (RuntimeException ignorada) {
+                // El registro descartado se ignora al aplicarse si la notificación ya no está en envío
+            }
+        }
+        escrito = sincronizado;
+        synchronized (sincronizacion) {
+            sincronizacion.notifyAll();
+        }
+    }
+
+    /**
+     * Aplica a la base los registros sincronizados, por lotes y en orden. Un lote fallido se reintenta
+     * hasta que se aplica o se cierra el diario.
+     */
+    private void apply(Applier applier) {
+        List<JournalRecord> lote = new ArrayList<>(LOTE);
+        while (!cerrado) {
+            try {
+                long hasta = read(lote);
+                if (lote.isEmpty()) {
+                    synchronized (sincronizacion) {
+                        if (aplicado >= sincronizado && !cerrado) {
+                            sincronizacion.wait(TimeUnit.NANOSECONDS.toMillis(ESPERA_NANOS));
+                        }
+                    }
+                    continue;
+                }
+                if (!applyBatch(applier, lote)) {
+                    return;
+                }
+                lote.clear();
+                saveApplied(hasta);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error en la aplicación del diario [{}]", directorio, e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(reintentoMs));
+            }
+        }
+    }
+
+    /**
+     * Aplica un lote, reintentando cada {@code reintentoMs} mientras la base no responde.
+     *
+     * @return {@code false} si se cerró el diario antes de aplicarlo
+     */
+    private boolean applyBatch(Applier applier, List<JournalRecord> lote) throws InterruptedException {
+        while (!cerrado) {
+            try {
+                applier.apply(lote);
+                return true;
+            } catch (SQLException e) {
+                logger.warn("Error al aplicar [{}] resultados del diario, se reintenta en [{}] ms: {}",
+                        lote.size(), reintentoMs, e.getMessage());
+                Thread.sleep(reintentoMs);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aplica a la base, en el hilo que llama, todos los registros que quedaron sin aplicar, por lotes y en
+     * orden, reintentando mientras la base no responde. Se usa al iniciar la aplicación, sin {@link #start(Applier)},
+     * para que los resultados de una ejecución anterior queden en la base antes de liberar sus concesiones.
+     *
+     * @param applier aplicación de los lotes
+     * @return cantidad de registros aplicados
+     * @throws IOException si no se puede leer el diario
+     * @throws InterruptedException si el hilo es interrumpido durante un reintento
+     */
+    public int replay(Applier applier) throws IOException, InterruptedException {
+        List<JournalRecord> lote = new ArrayList<>(LOTE);
+        int total = 0;
+        while (true) {
+            lote.clear();
+            long hasta = read(lote);
+            if (!lote.isEmpty() && !applyBatch(applier, lote)) {
+                return total;
+            }
+            if (hasta > aplicado) {
+                saveApplied(hasta);
+            }
+            if (lote.isEmpty()) {
+                return total;
+            }
+            total += lote.size();
+        }
+    }
+
+    /**
+     * Lee hasta {@link #LOTE} registros sincronizados desde la posición aplicada.
+     *
+     * @return posición luego del último registro leído
+     */
+    private long read(List<JournalRecord> lote) throws IOException {
+        long posicion = aplicado;
+        long limite = sincronizado;
+        while (lote.size() < LOTE && posicion < limite) {
+            long segmento = segment(posicion);
+            int desde = offset(posicion);
+            if (segmento != segmentoLectura) {
+                lectura = map(segmento, FileChannel.MapMode.READ_ONLY);
+                segmentoLectura = segmento;
+            }
+            byte[] datos = readAt(lectura, desde);
+            if (datos == null) {
+                // Fin del segmento: los registros siguientes están en el próximo
+                posicion = position(segmento + 1, 0);
+                continue;
+            }
+            lote.add(JournalRecord.decode(datos));
+            posicion = position(segmento, desde + ENCABEZADO + datos.length);
+        }
+        return posicion;
+    }
+
+    /**
+     * Lee el registro de la posición indicada.
+     *
+     * @return datos del registro, o {@code null} al final del segmento o si el registro está incompleto
+     */
+    private static byte[] readAt(MappedByteBuffer buffer, int desde) {
+        if (desde + ENCABEZADO > buffer.capacity()) {
+            return null;
+        }
+        int longitud = buffer.getInt(desde);
+        if (longitud <= 0 || desde + ENCABEZADO + longitud > buffer.capacity()) {
+            return null;
+        }
+        byte[] datos = new byte[longitud];
+        buffer.get(desde + ENCABEZADO, datos);
+        CRC32 crc = new CRC32();
+        crc.update(datos);
+        return (int) crc.getValue() == buffer.getInt(desde + 4) ? datos : null;
+    }
+
+    private void saveApplied(long posicion) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, posicion);
+        canalAplicado.write(buffer, 0);
+        canalAplicado.force(false);
+        long anterior = segment(aplicado);
+        aplicado = posicion;
+        for (long segmento = anterior; segmento < segment(posicion); segmento++) {
+            Files.deleteIfExists(file(segmento));
+        }
+    }
+
+    private long readApplied() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        return canalAplicado.read(buffer, 0) == Long.BYTES ? buffer.getLong(0) : -1;
+    }
+
+    private TreeSet<Long> segments() throws IOException {
+        TreeSet<Long> segmentos = new TreeSet<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.map(a -> a.getFileName().toString())
+                    .filter(n -> n.endsWith(EXTENSION))
+                    .forEach(n -> segmentos.add(Long.parseLong(n.substring(0, n.length() - EXTENSION.length()))));
+        }
+        return segmentos;
+    }
+
+    private MappedByteBuffer map(long segmento, FileChannel.MapMode modo) throws IOException {
+        Path archivo = file(segmento);
+        if (modo == FileChannel.MapMode.READ_ONLY) {
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                return canal.map(modo, 0, canal.size());
+            }
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long tamano = Math.max(canal.size(), tamanoSegmento);
+            return canal.map(modo, 0, tamano);
+        }
+    }
+
+    private Path file(long segmento) {
+        return directorio.resolve(String.format("%020d%s", segmento, EXTENSION));
+    }
+
+    private static long position(long segmento, int desde) {
+        return segmento << 32 | desde;
+    }
+
+    private static long segment(long posicion) {
+        return posicion >>> 32;
+    }
+
+    private static int offset(long posicion) {
+        return (int) posicion;
+    }
+
+    /**
+     * @return {@code true} si todos los registros sincronizados se aplicaron a la base
+     */
+    public boolean isApplied() {
+        return aplicado >= sincronizado;
+    }
+
+    /**
+     * Deja de aceptar resultados, sincroniza los agregados y espera a que se apliquen a la base como máximo
+     * el tiempo indicado. Los que no se aplican en ese plazo quedan en el diario para la próxima ejecución.
+     *
+     * @param esperaMs espera máxima de la aplicación
+     * @return {@code true} si se aplicaron todos los resultados
+     */
+    public boolean close(long esperaMs) {
+        synchronized (this) {
+            aceptando = false;
+        }
+        force();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        while (!isApplied() && hiloAplicacion != null && hiloAplicacion.isAlive() && System.nanoTime() < limite) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        cerrado = true;
+        synchronized (sincronizacion) {
+            sincronizacion.notifyAll();
+        }
+        LockSupport.unpark(hiloSincronizacion);
+        try {
+            // Un lote en aplicación termina y registra su posición antes de liberar el diario
+            if (hiloAplicacion != null) {
+                hiloAplicacion.join(esperaMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean completo = isApplied();
+        try {
+            bloqueo.release();
+            canalBloqueo.close();
+            canalAplicado.close();
+        } catch (IOException e) {
+            logger.warn("Error al cerrar el diario [{}]: {}", directorio, e.getMessage());
+        }
+        return completo;
+    }
+}
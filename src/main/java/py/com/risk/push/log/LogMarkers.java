@@ -0,0 +1,22 @@
+package py.com.risk.push.log;
+
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+/**
+ * Marcadores de Log4j2 utilizados por el sistema.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class LogMarkers {
+
+    /**
+     * Líneas INFO que se registran una vez por cada mensaje push (envío, respuesta del proveedor).
+     * Están sujetas al muestreo por servicio de {@link MuestreoMensajesFilter}.
+     */
+    public static final Marker MENSAJE = MarkerManager.getMarker("MENSAJE");
+
+    private LogMarkers() {
+    }
+}
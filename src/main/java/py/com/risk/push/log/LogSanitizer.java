@@ -1,16 +1,27 @@
 package py.com.risk.push.log;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Clase utilitaria para sanitizar y ofuscar información sensible en mensajes de log.
  * <p>
  * Ofusca datos como números de tarjetas, correos electrónicos, montos, documentos,
  * y códigos temporales (OTP, PIN, códigos de verificación, etc.) en base a reglas predefinidas.
  * <p>
+ * La detección se realiza en un único recorrido del texto mediante un autómata escrito a mano,
+ * sin expresiones regulares. Si el mensaje no contiene datos sensibles se devuelve la misma
+ * instancia recibida, sin reservar memoria; el estado del recorrido se reutiliza por hilo.
+ * <p>
  * Esta clase es segura para uso concurrente y puede utilizarse en entornos de alta concurrencia.
  *
+ * <p>Las reglas son equivalentes a las siguientes expresiones, aplicadas en este orden sobre
+ * el resultado de la anterior:</p>
+ * <ol>
+ *   <li>Tarjetas: {@code \b(?:\d{4}[-\s]?){3}\d{4}\b}</li>
+ *   <li>Emails: {@code [a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\.[a-zA-Z0-9-.]+}</li>
+ *   <li>Montos: {@code \b\d{1,3}(?:[.,]\d{3})+(?:[.,]\d{2})?\b}</li>
+ *   <li>Documentos: {@code \b\d{1,3}(?:[.,]\d{3})+\b} (cubiertos por la regla de montos)</li>
+ *   <li>OTP con contexto: {@code (?i)\b(?:codigo|otp|code|clave|password|pin)\b[^\d]{0,100}?(\d{4,8})}</li>
+ * </ol>
+ *
  * <p>Ejemplo de uso:
  * <pre>{@code
  *   String logOriginal = "Tu codigo es 654321 y el monto es 1.000.000, tarjeta 4111-1111-1111-1111";
@@ -22,37 +33,26 @@ import java.util.regex.Pattern;
  */
 public class LogSanitizer {
 
-    /**
-     * Patrón para detectar códigos temporales (OTP) con contexto semántico cercano.
-     * Busca palabras clave como "codigo", "otp", "code", "clave", "password", "pin"
-     * seguidas (hasta 100 caracteres) de un número de 4 a 8 dígitos.
-     */
-    private static final Pattern CONTEXTUAL_OTP_PATTERN = Pattern.compile(
-        "(?i)\\b(?:codigo|otp|code|clave|password|pin)\\b[^\\d]{0,100}?(\\d{4,8})"
-    );
+    /** Reemplazo para números de tarjeta */
+    private static final String CARD_MASK = "**** **** **** ****";
 
-    /**
-     * Patrón para detectar números de tarjeta (16 dígitos) con o sin separadores
-     * "-" o espacio. Ejemplo: 4111-1111-1111-1111 o 4111111111111111.
-     */
-    private static final Pattern CARD_PATTERN = Pattern.compile("\\b(?:\\d{4}[-\\s]?){3}\\d{4}\\b");
+    /** Reemplazo para direcciones de correo electrónico */
+    private static final String EMAIL_MASK = "****@****";
 
-    /**
-     * Patrón para detectar montos con separadores de miles y opcionalmente decimales.
-     * Soporta puntos o comas como separadores. Ejemplos: 1.000,00 o 1,000.00.
-     */
-    private static final Pattern MONTO_PATTERN = Pattern.compile("\\b\\d{1,3}(?:[.,]\\d{3})+(?:[.,]\\d{2})?\\b");
+    /** Reemplazo para montos, documentos y códigos OTP */
+    private static final String MASK = "****";
 
-    /**
-     * Patrón para detectar números de documentos con separadores de miles.
-     * Ejemplo: 1.234.567 o 1,234,567.
-     */
-    private static final Pattern DOCUMENTO_PATTERN = Pattern.compile("\\b\\d{1,3}(?:[.,]\\d{3})+\\b");
+    /** Palabras clave que dan contexto a un código temporal (OTP) */
+    private static final String[] OTP_KEYWORDS = {"codigo", "otp", "code", "clave", "password", "pin"};
 
-    /**
-     * Patrón para detectar direcciones de correo electrónico estándar.
-     */
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+");
+    /** Cantidad máxima de caracteres no numéricos entre la palabra clave y el código OTP */
+    private static final int OTP_MAX_GAP = 100;
+
+    /** Tamaño máximo del buffer reutilizable por hilo; por encima se descarta para no retener memoria */
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+
+    /** Estado del recorrido reutilizable por hilo */
+    private static final ThreadLocal<Scanner> SCANNERS = ThreadLocal.withInitial(Scanner::new);
 
     /**
      * Sanitiza un mensaje reemplazando información sensible por valores genéricos.
@@ -66,35 +66,363 @@ public class LogSanitizer {
      * </ul>
      *
      * @param message Mensaje original
-     * @return Mensaje con los datos sensibles ofuscados
+     * @return Mensaje con los datos sensibles ofuscados, o la misma instancia si no contiene ninguno
      */
     public static String sanitize(String message) {
         if (message == null) return null;
 
-        String sanitized = message;
+        Scanner scanner = SCANNERS.get();
+        try {
+            return scanner.scan(message, 0, message.length()) ? scanner.out.toString() : message;
+        } finally {
+            scanner.release();
+        }
+    }
 
-        // Reemplazo directo
-        sanitized = CARD_PATTERN.matcher(sanitized).replaceAll("**** **** **** ****");
-        sanitized = EMAIL_PATTERN.matcher(sanitized).replaceAll("****@****");
-        sanitized = MONTO_PATTERN.matcher(sanitized).replaceAll("****");
-        sanitized = DOCUMENTO_PATTERN.matcher(sanitized).replaceAll("****");
+    /**
+     * Sanitiza en el lugar la porción de un {@link StringBuilder} a partir de la posición indicada.
+     * <p>
+     * Pensado para layouts y convertidores de Log4j2 que reutilizan su buffer: si no hay datos
+     * sensibles el buffer no se modifica y no se reserva memoria.
+     *
+     * @param buffer buffer a sanitizar
+     * @param from posición desde la cual se sanitiza (el texto anterior no se modifica)
+     * @return {@code true} si se ofuscó algún dato
+     */
+    public static boolean sanitize(StringBuilder buffer, int from) {
+        if (buffer == null || from >= buffer.length()) return false;
 
-        // Reemplazo contextual para OTP con Java 9 o superior
-        /*sanitized = CONTEXTUAL_OTP_PATTERN.matcher(sanitized).replaceAll(m -> {
-            String match = m.group();
-            return match.replaceAll("\\d{4,8}", "****");
-        });*/
+        Scanner scanner = SCANNERS.get();
+        try {
+            if (!scanner.scan(buffer, from, buffer.length())) {
+                return false;
+            }
+            buffer.setLength(from);
+            buffer.append(scanner.out);
+            return true;
+        } finally {
+            scanner.release();
+        }
+    }
 
-        // Reemplazo contextual para OTP con Java 8
-        Matcher matcher = CONTEXTUAL_OTP_PATTERN.matcher(sanitized);
-        StringBuffer buffer = new StringBuffer();
-        while (matcher.find()) {
-            String match = matcher.group();
-            matcher.appendReplacement(buffer, match.replaceAll("\\d{4,8}", "****"));
+    /**
+     * Autómata de un solo recorrido. Las posiciones se expresan sobre el texto original;
+     * el texto de salida solo se construye a partir del primer reemplazo.
+     */
+    private static final class Scanner {
+
+        private final StringBuilder out = new StringBuilder(256);
+
+        private CharSequence s;
+        private int from;
+        private int to;
+
+        /** Posición del texto original hasta la cual ya se copió a {@link #out} */
+        private int copied;
+        private boolean changed;
+
+        /** Fin del último reemplazo de tarjeta o email (el carácter anterior es '*') */
+        private int barrierEnd;
+
+        /** Fin del último reemplazo de tarjeta, email o monto */
+        private int maskEnd;
+
+        /** Inicio de la palabra en curso, o -1 si no hay palabra en curso */
+        private int wordStart;
+
+        /** Hay una palabra clave OTP a la espera de un código */
+        private boolean otpPending;
+
+        /** Caracteres no numéricos (en el texto ya ofuscado) desde la palabra clave */
+        private int otpGap;
+
+        boolean scan(CharSequence text, int start, int end) {
+            s = text;
+            from = start;
+            to = end;
+            copied = start;
+            changed = false;
+            barrierEnd = start;
+            maskEnd = start;
+            wordStart = -1;
+            otpPending = false;
+            out.setLength(0);
+
+            int i = start;
+            while (i < end) {
+                char c = s.charAt(i);
+
+                if (isDigit(c)) {
+                    // 1. Tarjetas: se evalúan siempre sobre el texto original
+                    if (!isWordBefore(i, start)) {
+                        int e = matchCard(i);
+                        if (e > 0) {
+                            i = replaceBarrier(i, e, CARD_MASK);
+                            continue;
+                        }
+                    }
+                }
+
+                // 2. Emails: solo pueden comenzar al inicio de una secuencia de caracteres válidos
+                if (isLocal(c) && (i == start || i == barrierEnd || !isLocal(s.charAt(i - 1)))) {
+                    int e = matchEmail(i);
+                    if (e > 0) {
+                        i = replaceBarrier(i, e, EMAIL_MASK);
+                        continue;
+                    }
+                }
+
+                if (isDigit(c)) {
+                    // 3/4. Montos y documentos
+                    if (!isWordBefore(i, barrierEnd)) {
+                        int e = matchAmount(i);
+                        if (e > 0) {
+                            endWord(i);
+                            replace(i, e, MASK);
+                            otpGap += MASK.length();
+                            maskEnd = e;
+                            i = e;
+                            continue;
+                        }
+                    }
+
+                    // 5. OTP: dígitos a continuación de una palabra clave
+                    if (wordStart < 0) wordStart = i;
+                    if (otpPending) {
+                        otpPending = false;
+                        int run = digitRun(i);
+                        if (otpGap <= OTP_MAX_GAP && run >= 4) {
+                            int e = i + Math.min(run, 8);
+                            replace(i, e, MASK);
+                            i = e;
+                            continue;
+                        }
+                    }
+                    i++;
+                    continue;
+                }
+
+                int cp = Character.codePointAt(s, i);
+                int len = Character.charCount(cp);
+                if (isWord(cp) || (Character.getType(cp) == Character.NON_SPACING_MARK && hasBaseCharacter(i, maskEnd))) {
+                    if (wordStart < 0) wordStart = i;
+                } else {
+                    endWord(i);
+                }
+                otpGap++;
+                i += len;
+            }
+            endWord(end);
+
+            if (changed && copied < end) {
+                out.append(s, copied, end);
+            }
+            return changed;
         }
-        matcher.appendTail(buffer);
-        sanitized = buffer.toString();
 
-        return sanitized;
+        void release() {
+            s = null;
+            if (out.capacity() > MAX_RETAINED_BUFFER) {
+                SCANNERS.remove();
+            }
+        }
+
+        /**
+         * Reemplaza una tarjeta o email; el texto siguiente se evalúa como inicio de secuencia.
+         */
+        private int replaceBarrier(int start, int end, String mask) {
+            endWord(start);
+            replace(start, end, mask);
+            otpGap += mask.length();
+            barrierEnd = end;
+            maskEnd = end;
+            return end;
+        }
+
+        private void replace(int start, int end, String mask) {
+            changed = true;
+            out.append(s, copied, start).append(mask);
+            copied = end;
+        }
+
+        /**
+         * Cierra la palabra en curso; si coincide con una palabra clave, queda a la espera de un código.
+         */
+        private void endWord(int end) {
+            if (wordStart < 0) return;
+            if (isOtpKeyword(wordStart, end)) {
+                otpPending = true;
+                otpGap = 0;
+            }
+            wordStart = -1;
+        }
+
+        private boolean isOtpKeyword(int start, int end) {
+            int len = end - start;
+            for (String keyword : OTP_KEYWORDS) {
+                if (keyword.length() == len && regionMatchesAsciiIgnoreCase(start, keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean regionMatchesAsciiIgnoreCase(int start, String keyword) {
+            for (int k = 0; k < keyword.length(); k++) {
+                char c = s.charAt(start + k);
+                if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+                if (c != keyword.charAt(k)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Tarjeta: cuatro grupos de cuatro dígitos con separador opcional ('-' o espacio) y límite de palabra al final.
+         *
+         * @return posición final de la coincidencia, o -1
+         */
+        private int matchCard(int start) {
+            int p = start;
+            for (int group = 0; group < 4; group++) {
+                if (group > 0 && p < to && isCardSeparator(s.charAt(p))) p++;
+                for (int d = 0; d < 4; d++, p++) {
+                    if (p >= to || !isDigit(s.charAt(p))) return -1;
+                }
+            }
+            return isWordAt(p) ? -1 : p;
+        }
+
+        private boolean isCardStartAt(int p) {
+            return isDigit(s.charAt(p)) && !isWordBefore(p, from) && matchCard(p) > 0;
+        }
+
+        /**
+         * Email: secuencia local seguida de '@', dominio, '.' y extensión. Una tarjeta corta la secuencia,
+         * ya que se ofusca antes.
+         *
+         * @return posición final de la coincidencia, o -1
+         */
+        private int matchEmail(int start) {
+            int p = start;
+            while (p < to && isLocal(s.charAt(p))) {
+                if (p > start && isCardStartAt(p)) return -1;
+                p++;
+            }
+            if (p >= to || s.charAt(p) != '@') return -1;
+
+            int domain = ++p;
+            while (p < to && isDomain(s.charAt(p))) {
+                if (isCardStartAt(p)) return -1;
+                p++;
+            }
+            if (p == domain || p >= to || s.charAt(p) != '.') return -1;
+
+            int extension = ++p;
+            while (p < to && (isDomain(s.charAt(p)) || s.charAt(p) == '.') && !isCardStartAt(p)) p++;
+            return p > extension ? p : -1;
+        }
+
+        /**
+         * Monto o documento: 1 a 3 dígitos, uno o más grupos de miles y decimales opcionales,
+         * con límite de palabra al final (replicando el retroceso de la expresión original).
+         *
+         * @return posición final de la coincidencia, o -1
+         */
+        private int matchAmount(int start) {
+            int p = start;
+            while (p < to && isDigit(s.charAt(p))) p++;
+            int lead = p - start;
+            if (lead > 3) return -1;
+
+            int groups = 0;
+            while (isGroup(p, 3)) {
+                p += 4;
+                groups++;
+            }
+
+            for (int k = groups; k > 0; k--) {
+                int q = p - 4 * (groups - k);
+                if (isGroup(q, 2) && !isWordAt(q + 3)) return q + 3;
+                if (!isWordAt(q)) return q;
+            }
+            return -1;
+        }
+
+        /**
+         * Indica si en {@code p} hay un separador ('.' o ',') seguido de exactamente {@code digits}
+         * dígitos que no pertenecen a una tarjeta o email ya ofuscado.
+         */
+        private boolean isGroup(int p, int digits) {
+            if (p + digits >= to) return false;
+            char sep = s.charAt(p);
+            if (sep != '.' && sep != ',') return false;
+            for (int d = 1; d <= digits; d++) {
+                if (!isDigit(s.charAt(p + d))) return false;
+            }
+            return !isCardStartAt(p + 1) && (sep != ',' || matchEmail(p + 1) < 0);
+        }
+
+        private int digitRun(int start) {
+            int p = start;
+            while (p < to && isDigit(s.charAt(p))) p++;
+            return p - start;
+        }
+
+        /**
+         * Indica si el carácter anterior a {@code p} es de palabra, como lo evalúa {@code \b}.
+         * Un reemplazo previo termina en '*', por lo que {@code lower} actúa como inicio del texto.
+         */
+        private boolean isWordBefore(int p, int lower) {
+            if (p <= lower) return false;
+            int cp = Character.codePointBefore(s, p);
+            if (isWord(cp)) return true;
+            return Character.getType(cp) == Character.NON_SPACING_MARK && hasBaseCharacter(p - Character.charCount(cp), lower);
+        }
+
+        private boolean isWordAt(int p) {
+            if (p >= to) return false;
+            int cp = Character.codePointAt(s, p);
+            if (isWord(cp)) return true;
+            return Character.getType(cp) == Character.NON_SPACING_MARK && hasBaseCharacter(p, from);
+        }
+
+        /**
+         * Una marca combinante cuenta como carácter de palabra si la precede una letra o dígito
+         * (omitiendo otras marcas), igual que {@code java.util.regex}.
+         */
+        private boolean hasBaseCharacter(int mark, int lower) {
+            int p = mark;
+            while (p > lower) {
+                int cp = Character.codePointBefore(s, p);
+                if (Character.isLetterOrDigit(cp)) return true;
+                if (Character.getType(cp) != Character.NON_SPACING_MARK) return false;
+                p -= Character.charCount(cp);
+            }
+            return false;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWord(int cp) {
+        return cp == '_' || Character.isLetterOrDigit(cp);
+    }
+
+    private static boolean isCardSeparator(char c) {
+        return c == '-' || c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiAlnum(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c);
+    }
+
+    private static boolean isLocal(char c) {
+        return isAsciiAlnum(c) || c == '_' || c == '.' || c == '+' || c == '-';
+    }
+
+    private static boolean isDomain(char c) {
+        return isAsciiAlnum(c) || c == '-';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+package py.com.risk.push.log;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.PerformanceSensitive;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtro de Log4j2 que muestrea, por servicio, las líneas de log que se registran una vez por mensaje.
+ * <p>
+ * Solo afecta a los eventos con el marcador configurado (por defecto {@link LogMarkers#MENSAJE}) y con nivel
+ * INFO o inferior; advertencias y errores se registran siempre. La tasa de cada servicio se define con
+ * {@code muestreoLogMensajes} en {@code risk-push.yml}: con una tasa N se registra 1 de cada N mensajes.
+ * <p>
+ * La decisión se toma a partir del {@code idMensaje} del {@link ThreadContext}, por lo que todas las líneas
+ * de un mismo mensaje se registran u omiten juntas. Como filtro global se evalúa antes de crear el evento,
+ * de modo que las líneas omitidas no generan costo de formateo.
+ *
+ * <pre>{@code
+ * <Configuration status="WARN">
+ *   <MuestreoMensajesFilter marker="MENSAJE"/>
+ *   ...
+ * }</pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Plugin(name = "MuestreoMensajesFilter", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE, printObject = true)
+@PerformanceSensitive("allocation")
+public final class MuestreoMensajesFilter extends AbstractFilter {
+
+    /** Tasa de muestreo por nombre de servicio */
+    private static final Map<String, Integer> TASAS = new ConcurrentHashMap<>();
+
+    private final Marker marker;
+
+    private MuestreoMensajesFilter(Marker marker) {
+        super(Result.NEUTRAL, Result.DENY);
+        this.marker = marker;
+    }
+
+    /**
+     * Define la tasa de muestreo de un servicio.
+     *
+     * @param servicio nombre del servicio ({@code PushConfig.nombre})
+     * @param tasa se registra 1 de cada {@code tasa} mensajes; 1 o menos registra todos
+     */
+    public static void setTasa(String servicio, int tasa) {
+        if (servicio == null) return;
+        if (tasa <= 1) {
+            TASAS.remove(servicio);
+        } else {
+            TASAS.put(servicio, tasa);
+        }
+    }
+
+    private Result decide(Level level, Marker eventMarker, String servicio, String idMensaje) {
+        if (eventMarker == null || !eventMarker.isInstanceOf(marker) || level.isMoreSpecificThan(Level.WARN)) {
+            return Result.NEUTRAL;
+        }
+        Integer tasa = servicio != null ? TASAS.get(servicio) : null;
+        if (tasa == null || idMensaje == null) {
+            return Result.NEUTRAL;
+        }
+        return Math.floorMod(idMensaje.hashCode(), tasa) == 0 ? onMatch : onMismatch;
+    }
+
+    private Result decide(Level level, Marker eventMarker) {
+        return decide(level, eventMarker, ThreadContext.get("servicio"), ThreadContext.get("idMensaje"));
+    }
+
+    @Override
+    public Result filter(LogEvent event) {
+        return decide(event.getLevel(), event.getMarker(),
+                event.getContextData().getValue("servicio"), event.getContextData().getValue("idMensaje"));
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Message msg, Throwable t) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Object msg, Throwable t) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object... params) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+            Object p3) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+            Object p3, Object p4) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+            Object p3, Object p4, Object p5) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+            Object p3, Object p4, Object p5, Object p6) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+            Object p3, Object p4, Object p5, Object p6, Object p7) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+            Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+            Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9) {
+        return decide(level, marker);
+    }
+
+    @Override
+    public String toString() {
+        return "MuestreoMensajesFilter[marker=" + marker + ", tasas=" + TASAS + "]";
+    }
+
+    /**
+     * Método de fábrica utilizado por Log4j2 al leer la configuración.
+     *
+     * @param markerName nombre del marcador a muestrear (por defecto "MENSAJE")
+     * @return filtro configurado
+     */
+    @PluginFactory
+    public static MuestreoMensajesFilter createFilter(@PluginAttribute("marker") String markerName) {
+        Marker marker = markerName != null && !markerName.isEmpty()
+                ? MarkerManager.getMarker(markerName)
+                : LogMarkers.MENSAJE;
+        return new MuestreoMensajesFilter(marker);
+    }
+}
@@ -0,0 +1,67 @@
+package py.com.risk.push.log;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.pattern.ConverterKeys;
+import org.apache.logging.log4j.core.pattern.LogEventPatternConverter;
+import org.apache.logging.log4j.core.pattern.PatternConverter;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.PerformanceSensitive;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+/**
+ * Convertidor de patrón de Log4j2 que escribe el mensaje del evento ya sanitizado.
+ * <p>
+ * Reemplaza a {@code %msg} en los layouts: formatea el mensaje (incluidos sus parámetros)
+ * directamente sobre el {@link StringBuilder} reutilizable del layout y luego aplica
+ * {@link LogSanitizer} en el lugar sobre esa porción. Con los loggers asíncronos y mensajes
+ * reutilizables de Log4j2 no se generan objetos por evento cuando no hay datos sensibles.
+ * <p>
+ * Como se aplica al escribir, el costo solo se paga por los eventos efectivamente registrados;
+ * los niveles deshabilitados no sanitizan nada.
+ *
+ * <pre>{@code
+ * <PatternLayout pattern="%d %-5p %c{1} - %smsg%n"/>
+ * }</pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@Plugin(name = "SanitizedMessageConverter", category = PatternConverter.CATEGORY)
+@ConverterKeys({"smsg", "sanitizedMessage"})
+@PerformanceSensitive("allocation")
+public final class SanitizedMessageConverter extends LogEventPatternConverter {
+
+    private static final SanitizedMessageConverter INSTANCE = new SanitizedMessageConverter();
+
+    private SanitizedMessageConverter() {
+        super("SanitizedMessage", "message");
+    }
+
+    /**
+     * Método de fábrica requerido por Log4j2 para instanciar el convertidor.
+     *
+     * @param config configuración actual
+     * @param options opciones del patrón (no se utilizan)
+     * @return instancia única del convertidor
+     */
+    public static SanitizedMessageConverter newInstance(final Configuration config, final String[] options) {
+        return INSTANCE;
+    }
+
+    @Override
+    public void format(final LogEvent event, final StringBuilder toAppendTo) {
+        final Message message = event.getMessage();
+        if (message == null) {
+            return;
+        }
+        final int start = toAppendTo.length();
+        if (message instanceof StringBuilderFormattable) {
+            ((StringBuilderFormattable) message).formatTo(toAppendTo);
+        } else {
+            toAppendTo.append(message.getFormattedMessage());
+        }
+        LogSanitizer.sanitize(toAppendTo, start);
+    }
+}
@@ -0,0 +1,99 @@
+package py.com.risk.push.metrics;
+
+import py.com.risk.push.model.PushMessage;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de entrega de punta a punta de una clasificación de mensajes.
+ * <p>
+ * Se calculan a partir de las marcas de tiempo que cada {@link PushMessage} lleva consigo:
+ * creación del registro, bloqueo del lote, despacho, aceptación del proveedor y registro del resultado.
+ * Permiten definir y controlar objetivos de entrega (SLO) por clasificación, por ejemplo para OTP.
+ * Las instancias se obtienen desde {@link MetricsRegistry#clasificacion(String)}.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class ClassificationMetrics implements ClassificationMetricsMXBean {
+
+    private final String clasificacion;
+
+    private final HistogramMetric esperaEnCola = HistogramMetric.latencia();
+    private final HistogramMetric esperaDespacho = HistogramMetric.latencia();
+    private final HistogramMetric tiempoServicio = HistogramMetric.latencia();
+
+    private final LongAdder fueraDeSlo = new LongAdder();
+
+    private volatile long antiguedadPendientes;
+
+    ClassificationMetrics(String clasificacion) {
+        this.clasificacion = clasificacion;
+    }
+
+    /**
+     * Registra las esperas de un mensaje al momento de su despacho.
+     *
+     * @param msg mensaje con las marcas de creación, bloqueo y despacho
+     */
+    public void recordDespacho(PushMessage msg) {
+        if (msg.getCreadoMs() > 0) {
+            esperaEnCola.recordMillis(msg.getDespachadoMs() - msg.getCreadoMs());
+        }
+        if (msg.getReclamadoMs() > 0) {
+            esperaDespacho.recordMillis(msg.getDespachadoMs() - msg.getReclamadoMs());
+        }
+    }
+
+    /**
+     * Registra el tiempo de servicio de un mensaje aceptado por el proveedor y controla su plazo de entrega.
+     *
+     * @param msg mensaje con las marcas de despacho y aceptación
+     * @param sloEntregaMs plazo de entrega desde la creación (en milisegundos); 0 o menos no controla el plazo
+     */
+    public void recordAceptacion(PushMessage msg, long sloEntregaMs) {
+        tiempoServicio.recordMillis(msg.getAceptadoMs() - msg.getDespachadoMs());
+        if (sloEntregaMs > 0 && msg.getCreadoMs() > 0 && msg.getAceptadoMs() - msg.getCreadoMs() > sloEntregaMs) {
+            fueraDeSlo.increment();
+        }
+    }
+
+    /**
+     * Registra la antigüedad del mensaje pendiente más antiguo observado en una consulta.
+     *
+     * @param antiguedadMs antigüedad en milisegundos
+     */
+    public void setAntiguedadPendientes(long antiguedadMs) {
+        this.antiguedadPendientes = antiguedadMs;
+    }
+
+    @Override
+    public String getClasificacion() {
+        return clasificacion;
+    }
+
+    @Override
+    public HistogramSnapshot getEsperaEnCola() {
+        return esperaEnCola.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getEsperaDespacho() {
+        return esperaDespacho.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getTiempoServicio() {
+        return tiempoServicio.snapshot();
+    }
+
+    @Override
+    public long getFueraDeSlo() {
+        return fueraDeSlo.sum();
+    }
+
+    @Override
+    public long getAntiguedadPendientes() {
+        return antiguedadPendientes;
+    }
+}
@@ -0,0 +1,31 @@
+package py.com.risk.push.metrics;
+
+/**
+ * Interfaz JMX de las métricas de entrega de una clasificación de mensajes (OTP, AVISO, PROMOCION, etc.).
+ * <p>
+ * Cada clasificación se registra como {@code py.com.risk.push:type=Clasificacion,name="<clasificacion>"}.
+ * Las latencias se expresan en milisegundos.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public interface ClassificationMetricsMXBean {
+
+    /** @return clasificación de los mensajes */
+    String getClasificacion();
+
+    /** @return espera desde la creación del registro hasta el despacho del envío */
+    HistogramSnapshot getEsperaEnCola();
+
+    /** @return espera desde el bloqueo del lote hasta el despacho del envío */
+    HistogramSnapshot getEsperaDespacho();
+
+    /** @return tiempo desde el despacho hasta la aceptación del proveedor */
+    HistogramSnapshot getTiempoServicio();
+
+    /** @return mensajes aceptados luego del plazo de entrega configurado */
+    long getFueraDeSlo();
+
+    /** @return antigüedad en milisegundos del mensaje pendiente más antiguo en la última consulta */
+    long getAntiguedadPendientes();
+}
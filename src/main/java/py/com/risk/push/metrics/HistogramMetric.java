@@ -0,0 +1,107 @@
+package py.com.risk.push.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histograma HDR (HdrHistogram) con registro concurrente y sin bloqueos.
+ * <p>
+ * Los hilos de envío registran sobre un {@link Recorder}; la lectura (JMX o Prometheus) toma el
+ * intervalo acumulado desde la última lectura y lo suma al histograma total, por lo que los
+ * percentiles reportados corresponden a todo el tiempo de vida del servicio.
+ * <p>
+ * Las latencias se registran en microsegundos con 3 dígitos significativos y se reportan en milisegundos.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class HistogramMetric {
+
+    /** Latencia máxima registrable: valores mayores se registran como este máximo */
+    private static final long MAXIMO_LATENCIA_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    /** Dígitos significativos de precisión */
+    private static final int DIGITOS_SIGNIFICATIVOS = 3;
+
+    private final Recorder recorder;
+    private final Histogram total;
+    private Histogram intervalo;
+
+    /** Valor máximo registrable */
+    private final long maximo;
+
+    /** Divisor aplicado a los valores registrados para obtener la unidad de reporte */
+    private final double escala;
+
+    private HistogramMetric(long maximo, double escala) {
+        this.maximo = maximo;
+        this.escala = escala;
+        this.recorder = new Recorder(maximo, DIGITOS_SIGNIFICATIVOS);
+        this.total = new Histogram(maximo, DIGITOS_SIGNIFICATIVOS);
+    }
+
+    /**
+     * Crea un histograma de latencias (se registra en nanosegundos, se reporta en milisegundos).
+     *
+     * @return histograma de latencias
+     */
+    public static HistogramMetric latencia() {
+        return new HistogramMetric(MAXIMO_LATENCIA_MICROS, 1000.0);
+    }
+
+    /**
+     * Crea un histograma de cantidades (por ejemplo, mensajes por lote).
+     *
+     * @param maximo cantidad máxima registrable
+     * @return histograma de cantidades
+     */
+    public static HistogramMetric cantidad(long maximo) {
+        return new HistogramMetric(maximo, 1.0);
+    }
+
+    /**
+     * Registra una duración.
+     *
+     * @param nanos duración en nanosegundos
+     */
+    public void recordNanos(long nanos) {
+        record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Registra una duración.
+     *
+     * @param millis duración en milisegundos
+     */
+    public void recordMillis(long millis) {
+        record(TimeUnit.MILLISECONDS.toMicros(millis));
+    }
+
+    /**
+     * Registra un valor en la unidad interna del histograma.
+     *
+     * @param valor valor a registrar; se acota al rango del histograma
+     */
+    public void record(long valor) {
+        recorder.recordValue(Math.min(Math.max(valor, 0L), maximo));
+    }
+
+    /**
+     * Devuelve el resumen del histograma incorporando lo registrado desde la última lectura.
+     *
+     * @return resumen en la unidad de reporte
+     */
+    public synchronized HistogramSnapshot snapshot() {
+        intervalo = recorder.getIntervalHistogram(intervalo);
+        total.add(intervalo);
+        return new HistogramSnapshot(
+                total.getTotalCount(),
+                total.getMean() / escala,
+                total.getValueAtPercentile(50.0) / escala,
+                total.getValueAtPercentile(99.0) / escala,
+                total.getValueAtPercentile(99.9) / escala,
+                total.getMaxValue() / escala);
+    }
+}
@@ -0,0 +1,71 @@
+package py.com.risk.push.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Resumen inmutable de un {@link HistogramMetric} en un instante dado.
+ * <p>
+ * Los valores se expresan en la unidad de reporte del histograma: milisegundos para latencias
+ * y cantidad de mensajes para tamaños de lote. Se expone por JMX como {@code CompositeData}.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class HistogramSnapshot {
+
+    private final long cantidad;
+    private final double promedio;
+    private final double p50;
+    private final double p99;
+    private final double p999;
+    private final double maximo;
+
+    @ConstructorProperties({"cantidad", "promedio", "p50", "p99", "p999", "maximo"})
+    public HistogramSnapshot(long cantidad, double promedio, double p50, double p99, double p999, double maximo) {
+        this.cantidad = cantidad;
+        this.promedio = promedio;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.maximo = maximo;
+    }
+
+    /** @return cantidad de valores registrados desde el inicio */
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    /** @return promedio de los valores registrados */
+    public double getPromedio() {
+        return promedio;
+    }
+
+    /** @return percentil 50 */
+    public double getP50() {
+        return p50;
+    }
+
+    /** @return percentil 99 */
+    public double getP99() {
+        return p99;
+    }
+
+    /** @return percentil 99,9 */
+    public double getP999() {
+        return p999;
+    }
+
+    /** @return valor máximo registrado */
+    public double getMaximo() {
+        return maximo;
+    }
+
+    /**
+     * Suma aproximada de los valores registrados (promedio por cantidad).
+     *
+     * @return suma de los valores
+     */
+    public double getSuma() {
+        return promedio * cantidad;
+    }
+}
@@ -0,0 +1,126 @@
+package py.com.risk.push.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de las métricas de todos los servicios de envío push.
+ * <p>
+ * Cada servicio se crea la primera vez que se solicita y se publica por JMX como
+ * {@code py.com.risk.push:type=Servicio,name="<nombre>"}; lo mismo ocurre con las métricas de entrega
+ * por clasificación ({@code type=Clasificacion}). El endpoint {@link PrometheusEndpoint}
+ * lee de este mismo registro.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class MetricsRegistry {
+
+    private static final Logger logger = LogManager.getLogger(MetricsRegistry.class);
+
+    /** Dominio JMX de las métricas */
+    private static final String DOMINIO_JMX = "py.com.risk.push";
+
+    /** Métricas por nombre de servicio */
+    private static final Map<String, ServiceMetrics> SERVICIOS = new ConcurrentHashMap<>();
+
+    /** Clasificación registrada para los mensajes sin clasificación */
+    public static final String SIN_CLASIFICACION = "SIN_CLASIFICACION";
+
+    /** Métricas de entrega por clasificación */
+    private static final Map<String, ClassificationMetrics> CLASIFICACIONES = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Devuelve las métricas de un servicio, creándolas y publicándolas por JMX si no existen.
+     *
+     * @param nombre nombre del servicio ({@code PushConfig.nombre})
+     * @return métricas del servicio
+     */
+    public static ServiceMetrics servicio(String nombre) {
+        return SERVICIOS.computeIfAbsent(nombre, MetricsRegistry::crear);
+    }
+
+    /**
+     * Devuelve las métricas de entrega de una clasificación, creándolas y publicándolas por JMX si no existen.
+     *
+     * @param clasificacion clasificación del mensaje; {@code null} se registra como {@link #SIN_CLASIFICACION}
+     * @return métricas de la clasificación
+     */
+    public static ClassificationMetrics clasificacion(String clasificacion) {
+        return CLASIFICACIONES.computeIfAbsent(clasificacion != null ? clasificacion : SIN_CLASIFICACION, nombre -> {
+            ClassificationMetrics metricas = new ClassificationMetrics(nombre);
+            register(metricas, "Clasificacion", nombre);
+            return metricas;
+        });
+    }
+
+    /**
+     * Devuelve las métricas de entrega de todas las clasificaciones registradas.
+     *
+     * @return métricas por clasificación
+     */
+    public static Collection<ClassificationMetrics> clasificaciones() {
+        return Collections.unmodifiableCollection(CLASIFICACIONES.values());
+    }
+
+    /**
+     * Devuelve las métricas de todos los servicios registrados.
+     *
+     * @return métricas por servicio
+     */
+    public static Collection<ServiceMetrics> servicios() {
+        return Collections.unmodifiableCollection(SERVICIOS.values());
+    }
+
+    /**
+     * Elimina las métricas de un servicio y su publicación JMX.
+     *
+     * @param nombre nombre del servicio
+     */
+    public static void remove(String nombre) {
+        if (SERVICIOS.remove(nombre) == null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName("Servicio", nombre);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("No se pudo eliminar el registro JMX de las métricas de [{}]: {}", nombre, e.getMessage());
+        }
+    }
+
+    private static ServiceMetrics crear(String nombre) {
+        ServiceMetrics metricas = new ServiceMetrics(nombre);
+        register(metricas, "Servicio", nombre);
+        return metricas;
+    }
+
+    private static void register(Object metricas, String tipo, String nombre) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(tipo, nombre);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metricas, objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("No se pudieron publicar por JMX las métricas de [{}]: {}", nombre, e.getMessage());
+        }
+    }
+
+    private static ObjectName objectName(String tipo, String nombre) throws JMException {
+        return new ObjectName(DOMINIO_JMX + ":type=" + tipo + ",name=" + ObjectName.quote(nombre));
+    }
+}
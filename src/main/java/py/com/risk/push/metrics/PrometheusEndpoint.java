@@ -0,0 +1,201 @@
+package py.com.risk.push.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Endpoint HTTP local que publica las métricas de {@link MetricsRegistry} en el formato de texto de Prometheus.
+ * <p>
+ * Responde en {@code GET /metrics}. Las latencias se publican en segundos como {@code summary}
+ * con los cuantiles 0,5, 0,99 y 0,999 acumulados desde el inicio del servicio.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class PrometheusEndpoint {
+
+    private static final Logger logger = LogManager.getLogger(PrometheusEndpoint.class);
+
+    /** Ruta del endpoint */
+    public static final String RUTA = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /** Factor de conversión de milisegundos (unidad de los histogramas de latencia) a segundos */
+    private static final double MS_A_SEGUNDOS = 0.001;
+
+    private final HttpServer server;
+
+    private PrometheusEndpoint(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Inicia el endpoint en la dirección indicada.
+     *
+     * @param host dirección en la que escucha (por ejemplo, 127.0.0.1)
+     * @param puerto puerto TCP
+     * @return endpoint iniciado
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public static PrometheusEndpoint start(String host, int puerto) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(host, puerto), 0);
+        server.createContext(RUTA, PrometheusEndpoint::handle);
+        server.start();
+        logger.info("Métricas disponibles en http://{}:{}{}", host, puerto, RUTA);
+        return new PrometheusEndpoint(server);
+    }
+
+    /**
+     * Detiene el endpoint.
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape(MetricsRegistry.servicios(), MetricsRegistry.clasificaciones()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Genera el texto de las métricas de los servicios indicados.
+     *
+     * @param servicios métricas por servicio
+     * @param clasificaciones métricas de entrega por clasificación
+     * @return métricas en formato de texto de Prometheus
+     */
+    static String scrape(Collection<ServiceMetrics> servicios, Collection<ClassificationMetrics> clasificaciones) {
+        StringBuilder sb = new StringBuilder(4096);
+
+        summaryServicio(sb, servicios, "riskpush_lote_mensajes", "Mensajes por lote reclamado.", 1.0, ServiceMetrics::getTamanoLote);
+        summaryServicio(sb, servicios, "riskpush_consulta_segundos", "Latencia de la consulta de mensajes pendientes.", MS_A_SEGUNDOS, ServiceMetrics::getLatenciaConsulta);
+        summaryServicio(sb, servicios, "riskpush_claim_segundos", "Latencia del bloqueo de los mensajes del lote.", MS_A_SEGUNDOS, ServiceMetrics::getLatenciaClaim);
+        summaryServicio(sb, servicios, "riskpush_actualizacion_bd_segundos", "Latencia de la actualizacion del resultado de cada envio.", MS_A_SEGUNDOS, ServiceMetrics::getLatenciaActualizacionBd);
+
+        header(sb, "riskpush_envio_segundos", "Latencia de la llamada al proveedor.", "summary");
+        for (ServiceMetrics servicio : servicios) {
+            for (ProviderMetrics proveedor : servicio.proveedores()) {
+                summary(sb, "riskpush_envio_segundos", labels(servicio, proveedor), proveedor.getLatenciaEnvio(), MS_A_SEGUNDOS);
+            }
+        }
+
+        counterProveedor(sb, servicios, "riskpush_envios_exitosos_total", "Envios aceptados por el proveedor.", ProviderMetrics::getExitos);
+        counterProveedor(sb, servicios, "riskpush_envios_error_total", "Envios fallidos por errores distintos a un plazo excedido.", ProviderMetrics::getErrores);
+        counterProveedor(sb, servicios, "riskpush_envios_timeout_total", "Envios que excedieron su plazo.", ProviderMetrics::getTimeouts);
+        counterProveedor(sb, servicios, "riskpush_reintentos_total", "Envios de mensajes con intentos previos.", ProviderMetrics::getReintentos);
+
+        gaugeServicio(sb, servicios, "riskpush_cola_ejecutor", "Tareas de envio del servicio esperando en el despachador.", ServiceMetrics::getColaEjecutor);
+        gaugeServicio(sb, servicios, "riskpush_envios_en_curso", "Envios en curso.", ServiceMetrics::getEnCurso);
+        gaugeServicio(sb, servicios, "riskpush_mensajes_en_vuelo", "Mensajes bloqueados cuyo envio aun no finalizo.", ServiceMetrics::getEnVuelo);
+        gaugeServicio(sb, servicios, "riskpush_pool_conexiones_activas", "Conexiones del pool en uso.", ServiceMetrics::getConexionesActivas);
+        gaugeServicio(sb, servicios, "riskpush_pool_conexiones_inactivas", "Conexiones del pool ociosas.", ServiceMetrics::getConexionesInactivas);
+        gaugeServicio(sb, servicios, "riskpush_pool_conexiones_totales", "Conexiones totales del pool.", ServiceMetrics::getConexionesTotales);
+        gaugeServicio(sb, servicios, "riskpush_pool_hilos_esperando", "Hilos esperando una conexion del pool.", ServiceMetrics::getHilosEsperandoConexion);
+
+        summaryClasificacion(sb, clasificaciones, "riskpush_espera_cola_segundos", "Espera desde la creacion del registro hasta el despacho del envio.", ClassificationMetrics::getEsperaEnCola);
+        summaryClasificacion(sb, clasificaciones, "riskpush_espera_despacho_segundos", "Espera desde el bloqueo del lote hasta el despacho del envio.", ClassificationMetrics::getEsperaDespacho);
+        summaryClasificacion(sb, clasificaciones, "riskpush_tiempo_servicio_segundos", "Tiempo desde el despacho hasta la aceptacion del proveedor.", ClassificationMetrics::getTiempoServicio);
+
+        header(sb, "riskpush_fuera_slo_total", "Mensajes aceptados luego del plazo de entrega configurado.", "counter");
+        for (ClassificationMetrics clasificacion : clasificaciones) {
+            sample(sb, "riskpush_fuera_slo_total", labels(clasificacion)).append(clasificacion.getFueraDeSlo()).append('\n');
+        }
+        header(sb, "riskpush_antiguedad_pendientes_segundos", "Antiguedad del pendiente mas antiguo en la ultima consulta.", "gauge");
+        for (ClassificationMetrics clasificacion : clasificaciones) {
+            sample(sb, "riskpush_antiguedad_pendientes_segundos", labels(clasificacion))
+                    .append(clasificacion.getAntiguedadPendientes() * MS_A_SEGUNDOS).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    private static void summaryClasificacion(StringBuilder sb, Collection<ClassificationMetrics> clasificaciones, String nombre,
+            String ayuda, Function<ClassificationMetrics, HistogramSnapshot> valor) {
+        header(sb, nombre, ayuda, "summary");
+        for (ClassificationMetrics clasificacion : clasificaciones) {
+            summary(sb, nombre, labels(clasificacion), valor.apply(clasificacion), MS_A_SEGUNDOS);
+        }
+    }
+
+    private static void summaryServicio(StringBuilder sb, Collection<ServiceMetrics> servicios, String nombre, String ayuda,
+            double factor, Function<ServiceMetrics, HistogramSnapshot> valor) {
+        header(sb, nombre, ayuda, "summary");
+        for (ServiceMetrics servicio : servicios) {
+            summary(sb, nombre, labels(servicio), valor.apply(servicio), factor);
+        }
+    }
+
+    private static void counterProveedor(StringBuilder sb, Collection<ServiceMetrics> servicios, String nombre, String ayuda,
+            ToLongFunction<ProviderMetrics> valor) {
+        header(sb, nombre, ayuda, "counter");
+        for (ServiceMetrics servicio : servicios) {
+            for (ProviderMetrics proveedor : servicio.proveedores()) {
+                sample(sb, nombre, labels(servicio, proveedor)).append(valor.applyAsLong(proveedor)).append('\n');
+            }
+        }
+    }
+
+    private static void gaugeServicio(StringBuilder sb, Collection<ServiceMetrics> servicios, String nombre, String ayuda,
+            ToDoubleFunction<ServiceMetrics> valor) {
+        header(sb, nombre, ayuda, "gauge");
+        for (ServiceMetrics servicio : servicios) {
+            sample(sb, nombre, labels(servicio)).append(valor.applyAsDouble(servicio)).append('\n');
+        }
+    }
+
+    private static void summary(StringBuilder sb, String nombre, String labels, HistogramSnapshot h, double factor) {
+        sample(sb, nombre, labels + ",quantile=\"0.5\"").append(h.getP50() * factor).append('\n');
+        sample(sb, nombre, labels + ",quantile=\"0.99\"").append(h.getP99() * factor).append('\n');
+        sample(sb, nombre, labels + ",quantile=\"0.999\"").append(h.getP999() * factor).append('\n');
+        sample(sb, nombre + "_sum", labels).append(h.getSuma() * factor).append('\n');
+        sample(sb, nombre + "_count", labels).append(h.getCantidad()).append('\n');
+    }
+
+    private static void header(StringBuilder sb, String nombre, String ayuda, String tipo) {
+        sb.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        sb.append("# TYPE ").append(nombre).append(' ').append(tipo).append('\n');
+    }
+
+    private static StringBuilder sample(StringBuilder sb, String nombre, String labels) {
+        return sb.append(nombre).append('{').append(labels).append("} ");
+    }
+
+    private static String labels(ServiceMetrics servicio) {
+        return "servicio=\"" + escape(servicio.getServicio()) + "\"";
+    }
+
+    private static String labels(ServiceMetrics servicio, ProviderMetrics proveedor) {
+        return labels(servicio) + ",proveedor=\"" + proveedor.getPlataforma().name() + "\"";
+    }
+
+    private static String labels(ClassificationMetrics clasificacion) {
+        return "clasificacion=\"" + escape(clasificacion.getClasificacion()) + "\"";
+    }
+
+    private static String escape(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,84 @@
+package py.com.risk.push.metrics;
+
+import py.com.risk.push.model.Plataforma;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de envío de un servicio hacia un proveedor push (FCM, HMS).
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class ProviderMetrics {
+
+    private final Plataforma plataforma;
+
+    /** Latencia de la llamada al proveedor, desde el inicio del envío hasta su respuesta */
+    private final HistogramMetric latenciaEnvio = HistogramMetric.latencia();
+
+    /** Envíos aceptados por el proveedor */
+    private final LongAdder exitos = new LongAdder();
+
+    /** Envíos fallidos por un error distinto a un plazo excedido */
+    private final LongAdder errores = new LongAdder();
+
+    /** Envíos que excedieron su plazo */
+    private final LongAdder timeouts = new LongAdder();
+
+    /** Envíos de mensajes que ya tenían intentos previos */
+    private final LongAdder reintentos = new LongAdder();
+
+    ProviderMetrics(Plataforma plataforma) {
+        this.plataforma = plataforma;
+    }
+
+    public Plataforma getPlataforma() {
+        return plataforma;
+    }
+
+    /**
+     * Registra la duración de una llamada al proveedor.
+     *
+     * @param nanos duración en nanosegundos
+     */
+    public void recordEnvio(long nanos) {
+        latenciaEnvio.recordNanos(nanos);
+    }
+
+    public void exito() {
+        exitos.increment();
+    }
+
+    public void error() {
+        errores.increment();
+    }
+
+    public void timeout() {
+        timeouts.increment();
+    }
+
+    public void reintento() {
+        reintentos.increment();
+    }
+
+    public HistogramSnapshot getLatenciaEnvio() {
+        return latenciaEnvio.snapshot();
+    }
+
+    public long getExitos() {
+        return exitos.sum();
+    }
+
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getReintentos() {
+        return reintentos.sum();
+    }
+}
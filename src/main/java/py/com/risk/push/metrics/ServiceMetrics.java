@@ -0,0 +1,229 @@
+package py.com.risk.push.metrics;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import py.com.risk.push.model.Plataforma;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Métricas de un servicio de envío push ({@code PushConfig.nombre}).
+ * <p>
+ * Agrupa los histogramas del ciclo consulta - bloqueo - envío - actualización, los contadores por
+ * proveedor y los indicadores instantáneos del ejecutor y del pool de conexiones.
+ * Las instancias se obtienen desde {@link MetricsRegistry#servicio(String)}.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class ServiceMetrics implements ServiceMetricsMXBean {
+
+    /** Tamaño máximo de lote registrable en el histograma */
+    private static final long MAXIMO_LOTE = 1_000_000L;
+
+    private final String servicio;
+
+    private final HistogramMetric tamanoLote = HistogramMetric.cantidad(MAXIMO_LOTE);
+    private final HistogramMetric latenciaConsulta = HistogramMetric.latencia();
+    private final HistogramMetric latenciaClaim = HistogramMetric.latencia();
+    private final HistogramMetric latenciaActualizacionBd = HistogramMetric.latencia();
+
+    /** Métricas por proveedor */
+    private final Map<Plataforma, ProviderMetrics> proveedores = new EnumMap<>(Plataforma.class);
+
+    /** Métricas de los mensajes sin plataforma reconocida; no se exportan */
+    private final ProviderMetrics sinPlataforma = new ProviderMetrics(null);
+
+    /** Envíos en curso */
+    private final AtomicInteger enCurso = new AtomicInteger();
+
+    /** Proveedor del tamaño de la cola del servicio en el despachador de envíos */
+    private volatile IntSupplier colaEjecutor = () -> 0;
+
+    /** Proveedor de la cantidad de mensajes bloqueados cuyo envío aún no finalizó */
+    private volatile IntSupplier enVuelo = () -> 0;
+
+    /** Pool de conexiones del servicio */
+    private volatile HikariPoolMXBean pool;
+
+    ServiceMetrics(String servicio) {
+        this.servicio = servicio;
+        for (Plataforma plataforma : Plataforma.values()) {
+            proveedores.put(plataforma, new ProviderMetrics(plataforma));
+        }
+    }
+
+    /**
+     * Devuelve las métricas de un proveedor.
+     *
+     * @param plataforma plataforma de envío, o {@code null} si el mensaje no tiene una reconocida
+     * @return métricas del proveedor; nunca {@code null}
+     */
+    public ProviderMetrics proveedor(Plataforma plataforma) {
+        return plataforma == null ? sinPlataforma : proveedores.get(plataforma);
+    }
+
+    /**
+     * Devuelve las métricas de todos los proveedores.
+     *
+     * @return métricas por proveedor
+     */
+    public Collection<ProviderMetrics> proveedores() {
+        return Collections.unmodifiableCollection(proveedores.values());
+    }
+
+    public void recordLote(int cantidad) {
+        tamanoLote.record(cantidad);
+    }
+
+    public void recordConsulta(long nanos) {
+        latenciaConsulta.recordNanos(nanos);
+    }
+
+    public void recordClaim(long nanos) {
+        latenciaClaim.recordNanos(nanos);
+    }
+
+    public void recordActualizacionBd(long nanos) {
+        latenciaActualizacionBd.recordNanos(nanos);
+    }
+
+    /** Marca el inicio de un envío. */
+    public void inicioEnvio() {
+        enCurso.incrementAndGet();
+    }
+
+    /** Marca el fin de un envío. */
+    public void finEnvio() {
+        enCurso.decrementAndGet();
+    }
+
+    /**
+     * Define cómo obtener el tamaño de la cola del servicio en el despachador de envíos.
+     *
+     * @param colaEjecutor proveedor del tamaño de la cola
+     */
+    public void setColaEjecutor(IntSupplier colaEjecutor) {
+        this.colaEjecutor = colaEjecutor;
+    }
+
+    /**
+     * Define cómo obtener la cantidad de mensajes bloqueados cuyo envío aún no finalizó.
+     *
+     * @param enVuelo proveedor de la cantidad de mensajes en vuelo
+     */
+    public void setEnVuelo(IntSupplier enVuelo) {
+        this.enVuelo = enVuelo;
+    }
+
+    /**
+     * Define el pool de conexiones del servicio.
+     *
+     * @param pool MXBean del pool HikariCP
+     */
+    public void setPool(HikariPoolMXBean pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String getServicio() {
+        return servicio;
+    }
+
+    @Override
+    public HistogramSnapshot getTamanoLote() {
+        return tamanoLote.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getLatenciaConsulta() {
+        return latenciaConsulta.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getLatenciaClaim() {
+        return latenciaClaim.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getLatenciaActualizacionBd() {
+        return latenciaActualizacionBd.snapshot();
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getLatenciaEnvio() {
+        return porProveedor(ProviderMetrics::getLatenciaEnvio);
+    }
+
+    @Override
+    public Map<String, Long> getExitos() {
+        return porProveedor(ProviderMetrics::getExitos);
+    }
+
+    @Override
+    public Map<String, Long> getErrores() {
+        return porProveedor(ProviderMetrics::getErrores);
+    }
+
+    @Override
+    public Map<String, Long> getTimeouts() {
+        return porProveedor(ProviderMetrics::getTimeouts);
+    }
+
+    @Override
+    public Map<String, Long> getReintentos() {
+        return porProveedor(ProviderMetrics::getReintentos);
+    }
+
+    @Override
+    public int getColaEjecutor() {
+        return colaEjecutor.getAsInt();
+    }
+
+    @Override
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+
+    @Override
+    public int getEnVuelo() {
+        return enVuelo.getAsInt();
+    }
+
+    @Override
+    public int getConexionesActivas() {
+        HikariPoolMXBean p = pool;
+        return p != null ? p.getActiveConnections() : 0;
+    }
+
+    @Override
+    public int getConexionesInactivas() {
+        HikariPoolMXBean p = pool;
+        return p != null ? p.getIdleConnections() : 0;
+    }
+
+    @Override
+    public int getConexionesTotales() {
+        HikariPoolMXBean p = pool;
+        return p != null ? p.getTotalConnections() : 0;
+    }
+
+    @Override
+    public int getHilosEsperandoConexion() {
+        HikariPoolMXBean p = pool;
+        return p != null ? p.getThreadsAwaitingConnection() : 0;
+    }
+
+    private <T> Map<String, T> porProveedor(Function<ProviderMetrics, T> valor) {
+        Map<String, T> resultado = new LinkedHashMap<>();
+        proveedores.forEach((plataforma, metricas) -> resultado.put(plataforma.name(), valor.apply(metricas)));
+        return resultado;
+    }
+}
@@ -0,0 +1,66 @@
+package py.com.risk.push.metrics;
+
+import java.util.Map;
+
+/**
+ * Interfaz JMX de las métricas de un servicio de envío push.
+ * <p>
+ * Cada servicio se registra como {@code py.com.risk.push:type=Servicio,name="<nombre>"}.
+ * Las latencias se expresan en milisegundos y los mapas están indexados por proveedor (FCM, HMS).
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public interface ServiceMetricsMXBean {
+
+    /** @return nombre del servicio ({@code PushConfig.nombre}) */
+    String getServicio();
+
+    /** @return cantidad de mensajes por lote reclamado */
+    HistogramSnapshot getTamanoLote();
+
+    /** @return latencia de la consulta de mensajes pendientes */
+    HistogramSnapshot getLatenciaConsulta();
+
+    /** @return latencia del bloqueo y marcado de los mensajes del lote como en proceso */
+    HistogramSnapshot getLatenciaClaim();
+
+    /** @return latencia de la actualización del resultado de cada envío en base de datos */
+    HistogramSnapshot getLatenciaActualizacionBd();
+
+    /** @return latencia de envío por proveedor */
+    Map<String, HistogramSnapshot> getLatenciaEnvio();
+
+    /** @return envíos aceptados por proveedor */
+    Map<String, Long> getExitos();
+
+    /** @return envíos fallidos (excepto plazos excedidos) por proveedor */
+    Map<String, Long> getErrores();
+
+    /** @return envíos con plazo excedido por proveedor */
+    Map<String, Long> getTimeouts();
+
+    /** @return envíos de mensajes con intentos previos por proveedor */
+    Map<String, Long> getReintentos();
+
+    /** @return tareas de envío del servicio esperando en el despachador */
+    int getColaEjecutor();
+
+    /** @return envíos en curso */
+    int getEnCurso();
+
+    /** @return mensajes bloqueados cuyo envío aún no finalizó (encolados o en curso) */
+    int getEnVuelo();
+
+    /** @return conexiones del pool en uso */
+    int getConexionesActivas();
+
+    /** @return conexiones del pool ociosas */
+    int getConexionesInactivas();
+
+    /** @return conexiones totales del pool */
+    int getConexionesTotales();
+
+    /** @return hilos esperando una conexión del pool */
+    int getHilosEsperandoConexion();
+}
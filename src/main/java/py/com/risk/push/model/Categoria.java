@@ -0,0 +1,40 @@
+package py.com.risk.push.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Categoría de mensajería ({@code t_mensajeria_categorias}) a la que pertenece una notificación.
+ * Su clasificación determina el servicio que la envía y su prioridad el orden de envío.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class Categoria {
+
+    /** ID de la categoría en la base de datos. */
+    private final BigDecimal idCategoria;
+
+    /** Clasificación de la categoría (OTP, AVISO, PROMOCION, etc.). */
+    private final String clasificacion;
+
+    /** Prioridad de la categoría: un valor menor indica mayor prioridad. */
+    private final int prioridad;
+
+    public Categoria(BigDecimal idCategoria, String clasificacion, int prioridad) {
+        this.idCategoria = idCategoria;
+        this.clasificacion = clasificacion;
+        this.prioridad = prioridad;
+    }
+
+    public BigDecimal getIdCategoria() {
+        return idCategoria;
+    }
+
+    public String getClasificacion() {
+        return clasificacion;
+    }
+
+    public int getPrioridad() {
+        return prioridad;
+    }
+}
@@ -17,6 +17,8 @@ package py.com.risk.push.model;
  *   <li><b>paralelo_espaciado:</b> Los mensajes se envían de forma paralela, pero se introduce un retardo fijo configurable entre cada uno.</li>
  *   <li><b>secuencial_espaciado:</b> Los mensajes se envían uno tras otro de forma estrictamente secuencial, con un retardo configurable entre cada uno.</li>
  *   <li><b>secuencial_espaciado_async:</b> Similar a secuencial_espaciado, pero los envíos se manejan de forma asincrónica (por ejemplo, en un `ScheduledExecutorService`).</li>
+ *   <li><b>paralelo_ordenado:</b> Envío paralelo que conserva el orden de los mensajes de un mismo dispositivo (token).</li>
+ *   <li><b>continuo:</b> Envío en flujo continuo: se mantiene una cantidad objetivo de mensajes en vuelo y se bloquean lotes chicos de reposición apenas baja de la marca baja.</li>
  * </ul>
  * 
  * @author Damián Meza
@@ -44,5 +46,18 @@ public enum ModoEnvioLote {
      * Igual que secuencial_espaciado, pero ejecutado de forma asincrónica
      * con ayuda de un programador (ScheduledExecutorService).
      */
-    secuencial_espaciado_async
+    secuencial_espaciado_async,
+
+    /**
+     * Envía en paralelo sin retardo, pero los mensajes de un mismo token se asignan siempre a la misma
+     * franja y se envían de a uno, en el orden del lote. Dispositivos distintos se envían en paralelo.
+     */
+    paralelo_ordenado,
+
+    /**
+     * Envía en paralelo como un flujo continuo en lugar de lotes separados por una espera:
+     * mantiene hasta {@code maximoEnVuelo} mensajes en vuelo y, cuando bajan a {@code reanudarEnVuelo},
+     * bloquea un lote de reposición. Solo espera {@code intervaloEntreLotesMs} cuando no quedan pendientes.
+     */
+    continuo
 }
@@ -1,5 +1,7 @@
 package py.com.risk.push.model;
 
+import py.com.risk.push.util.Deadline;
+
 /**
  * Interfaz funcional que representa un cliente genérico para el envío de mensajes push.
  * <p>
@@ -17,9 +19,13 @@ public interface PushClient {
     /**
      * Envía un mensaje push a través del cliente específico.
      *
+     * <p>Las implementaciones deben trasladar el plazo recibido como timeout de conexión y lectura
+     * a la llamada hacia el proveedor, de modo que ningún envío pueda bloquear un hilo indefinidamente.</p>
+     *
      * @param msg Objeto {@link PushMessage} que contiene los datos del mensaje a enviar.
+     * @param deadline Plazo máximo disponible para completar el envío.
      * @return Una cadena con la respuesta del proveedor (por ejemplo, el ID del mensaje enviado).
      * @throws Exception si ocurre un error durante el envío del mensaje (por red, autenticación, formato, etc.).
      */
-    String send(PushMessage msg) throws Exception;
+    String send(PushMessage msg, Deadline deadline) throws Exception;
 }
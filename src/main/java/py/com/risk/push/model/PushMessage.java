@@ -11,12 +11,19 @@ import java.math.BigDecimal;
  * 
  * <p>Puede incluir un contenido enriquecido en formato JSON dentro del campo {@code datosExtra},
  * el cual se interpreta según la plataforma destino.</p>
+ *
+ * <p>Además lleva las marcas de tiempo de su recorrido (creación, bloqueo, despacho, aceptación del
+ * proveedor y registro del resultado), expresadas en milisegundos desde epoch según el reloj de la
+ * aplicación, utilizadas para medir la demora de entrega. Una marca en 0 indica que la etapa no ocurrió.</p>
  * 
  * @author Damián Meza
  * @version 1.0.0
  */
 public class PushMessage {
 
+    /** Prioridad de las categorías sin prioridad configurada (menor valor, mayor prioridad). */
+    public static final int PRIORIDAD_POR_DEFECTO = 997;
+
     /** ID único del mensaje en la base de datos. */
     private final BigDecimal idMensaje;
 
@@ -35,6 +42,30 @@ public class PushMessage {
     /** Datos adicionales en formato JSON que complementan la notificación. */
     private final String datosExtra;
 
+    /** Cantidad de intentos de envío previos registrados en la base de datos. */
+    private final int intentosPrevios;
+
+    /** Clasificación de la categoría del mensaje (OTP, AVISO, PROMOCION, etc.). */
+    private final String clasificacion;
+
+    /** Prioridad de la categoría del mensaje: un valor menor indica mayor prioridad. */
+    private int prioridad = PRIORIDAD_POR_DEFECTO;
+
+    /** Creación del registro en la tabla, convertida al reloj de la aplicación. */
+    private long creadoMs;
+
+    /** Bloqueo del lote y cambio de estado a en proceso. */
+    private long reclamadoMs;
+
+    /** Inicio del envío al proveedor. */
+    private long despachadoMs;
+
+    /** Aceptación del mensaje por parte del proveedor. */
+    private long aceptadoMs;
+
+    /** Registro del resultado del envío en la base de datos. */
+    private long persistidoMs;
+
     /**
      * Constructor para inicializar un mensaje push.
      *
@@ -46,12 +77,31 @@ public class PushMessage {
      * @param datosExtra   JSON con datos adicionales personalizados para el envío.
      */
     public PushMessage(BigDecimal idMensaje, String token, String titulo, String cuerpo, Plataforma plataforma, String datosExtra) {
+        this(idMensaje, token, titulo, cuerpo, plataforma, datosExtra, null, 0);
+    }
+
+    /**
+     * Constructor para inicializar un mensaje push leído de la base de datos.
+     *
+     * @param idMensaje       ID único del mensaje.
+     * @param token           Token del dispositivo destinatario.
+     * @param titulo          Título de la notificación.
+     * @param cuerpo          Cuerpo del mensaje.
+     * @param plataforma      Plataforma de destino (FCM, HMS, etc.).
+     * @param datosExtra      JSON con datos adicionales personalizados para el envío.
+     * @param clasificacion   Clasificación de la categoría del mensaje.
+     * @param intentosPrevios Cantidad de intentos de envío previos.
+     */
+    public PushMessage(BigDecimal idMensaje, String token, String titulo, String cuerpo, Plataforma plataforma, String datosExtra,
+            String clasificacion, int intentosPrevios) {
         this.idMensaje = idMensaje;
         this.token = token;
         this.titulo = titulo;
         this.cuerpo = cuerpo;
         this.plataforma = plataforma;
         this.datosExtra = datosExtra;
+        this.clasificacion = clasificacion;
+        this.intentosPrevios = intentosPrevios;
     }
 
     public BigDecimal getIdMensaje() {
@@ -78,6 +128,62 @@ public class PushMessage {
         return datosExtra;
     }
 
+    public int getIntentosPrevios() {
+        return intentosPrevios;
+    }
+
+    public String getClasificacion() {
+        return clasificacion;
+    }
+
+    public int getPrioridad() {
+        return prioridad;
+    }
+
+    public void setPrioridad(int prioridad) {
+        this.prioridad = prioridad;
+    }
+
+    public long getCreadoMs() {
+        return creadoMs;
+    }
+
+    public void setCreadoMs(long creadoMs) {
+        this.creadoMs = creadoMs;
+    }
+
+    public long getReclamadoMs() {
+        return reclamadoMs;
+    }
+
+    public void setReclamadoMs(long reclamadoMs) {
+        this.reclamadoMs = reclamadoMs;
+    }
+
+    public long getDespachadoMs() {
+        return despachadoMs;
+    }
+
+    public void setDespachadoMs(long despachadoMs) {
+        this.despachadoMs = despachadoMs;
+    }
+
+    public long getAceptadoMs() {
+        return aceptadoMs;
+    }
+
+    public void setAceptadoMs(long aceptadoMs) {
+        this.aceptadoMs = aceptadoMs;
+    }
+
+    public long getPersistidoMs() {
+        return persistidoMs;
+    }
+
+    public void setPersistidoMs(long persistidoMs) {
+        this.persistidoMs = persistidoMs;
+    }
+
     /**
      * Enum que representa los estados posibles del mensaje push dentro del sistema.
      * Utilizado para controlar el ciclo de vida de cada mensaje.
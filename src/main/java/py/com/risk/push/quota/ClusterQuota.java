@@ -0,0 +1,188 @@
+package py.com.risk.push.quota;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.bd.DBService;
+import py.com.risk.push.config.QuotaConfig;
+
+import java.sql.SQLException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Permisos locales de una cuota de envíos compartida por todas las instancias.
+ * <p>
+ * Los hilos del despachador consumen los permisos en memoria ({@link #tryAcquire()}), sin tocar la base.
+ * Cuando quedan menos de medio tramo, un hilo de recarga toma el siguiente tramo del balde de la base.
+ * El tramo es la parte de esta instancia de {@code tramoMs} de la tasa: la tasa se divide entre las
+ * instancias vivas, de modo que ninguna acapara el balde y los permisos sin usar quedan acotados a un
+ * tramo por instancia. Si el balde está vacío se vuelve a pedir al cumplirse el tramo.
+ * </p>
+ * <p>Si la base no responde, la instancia se otorga su parte de la tasa una vez por tramo, sin acumular
+ * los permisos no consumidos, para no detener los envíos ni superar la cuota entre todas. Las recargas
+ * siguientes se programan cada {@code tramoMs} hasta que la base vuelve a responder.</p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class ClusterQuota {
+
+    private static final Logger logger = LogManager.getLogger(ClusterQuota.class);
+
+    private final String nombre;
+    private final double tasaPorSegundo;
+    private final int rafaga;
+    private final long tramoMs;
+    private final DBService dbService;
+    private final ScheduledExecutorService recargas;
+    private final IntSupplier nodos;
+    private final Runnable aviso;
+
+    /** Permisos tomados de la base y aún no consumidos */
+    private final AtomicLong disponibles = new AtomicLong();
+
+    /** Indica si hay una recarga pendiente, para no pedir dos tramos a la vez */
+    private final AtomicBoolean recargando = new AtomicBoolean();
+
+    /** Indica si la última recarga falló y se otorgó la parte local de la tasa */
+    private volatile boolean degradada;
+
+    /**
+     * @param config configuración de la cuota
+     * @param dbService acceso al balde de la base
+     * @param recargas ejecutor de las recargas
+     * @param nodos cantidad de instancias vivas entre las que se reparte la tasa
+     * @param aviso acción a ejecutar cuando llegan permisos, para despertar a los hilos de envío
+     */
+    ClusterQuota(QuotaConfig config, DBService dbService, ScheduledExecutorService recargas, IntSupplier nodos, Runnable aviso) {
+        if (config.getNombre() == null || config.getTasaPorSegundo() == null || config.getTasaPorSegundo() <= 0) {
+            throw new IllegalArgumentException("La cuota [" + config.getNombre() + "] requiere nombre y tasaPorSegundo mayor a 0");
+        }
+        if (config.getRafaga() <= 0 || config.getTramoMs() <= 0) {
+            throw new IllegalArgumentException("rafaga y tramoMs de la cuota [" + config.getNombre() + "] deben ser mayores a 0");
+        }
+        this.nombre = config.getNombre();
+        this.tasaPorSegundo = config.getTasaPorSegundo();
+        this.rafaga = config.getRafaga();
+        this.tramoMs = config.getTramoMs();
+        this.dbService = dbService;
+        this.recargas = recargas;
+        this.nodos = nodos;
+        this.aviso = aviso;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Devuelve los permisos locales aún no consumidos.
+     *
+     * @return permisos disponibles
+     */
+    public long getDisponibles() {
+        return disponibles.get();
+    }
+
+    /**
+     * Indica si hay permisos locales, sin consumirlos.
+     *
+     * @return {@code true} si el siguiente {@link #tryAcquire()} puede tener éxito
+     */
+    public boolean hasPermits() {
+        return disponibles.get() > 0;
+    }
+
+    /**
+     * Consume un permiso local, pidiendo el siguiente tramo si quedan pocos.
+     *
+     * @return {@code true} si se obtuvo el permiso
+     */
+    public boolean tryAcquire() {
+        long actual;
+        do {
+            actual = disponibles.get();
+            if (actual <= 0) {
+                requestRefill();
+                return false;
+            }
+        } while (!disponibles.compareAndSet(actual, actual - 1));
+        if (actual - 1 < tramo() / 2) {
+            requestRefill();
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve un permiso obtenido que no se usó.
+     */
+    public void release() {
+        disponibles.incrementAndGet();
+    }
+
+    /**
+     * Pide el primer tramo, para que los envíos no esperen la primera recarga.
+     */
+    void start() {
+        requestRefill();
+    }
+
+    /**
+     * Permisos de esta instancia por tramo: su parte de la tasa durante {@code tramoMs}.
+     */
+    private int tramo() {
+        double parte = tasaPorSegundo * tramoMs / 1000.0 / Math.max(1, nodos.getAsInt());
+        return (int) Math.min(rafaga, Math.max(1, Math.ceil(parte)));
+    }
+
+    private void requestRefill() {
+        if (recargando.compareAndSet(false, true)) {
+            try {
+                recargas.execute(this::refill);
+            } catch (RejectedExecutionException e) {
+                // Registro cerrado durante el apagado: no se piden más permisos
+            }
+        }
+    }
+
+    private void refill() {
+        int pedido = tramo();
+        int otorgados;
+        boolean fallo = false;
+        try {
+            otorgados = dbService.drawQuota(nombre, tasaPorSegundo, rafaga, pedido);
+            if (degradada) {
+                logger.info("Cuota [{}] restablecida desde la base", nombre);
+                degradada = false;
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Sin base se otorga la parte local de un tramo, sin acumular los permisos no consumidos
+            fallo = true;
+            otorgados = (int) Math.max(0, pedido - disponibles.get());
+            if (!degradada) {
+                logger.warn("No se pudo tomar la cuota [{}] de la base, se usa la parte local de la tasa: {}", nombre, e.getMessage());
+                degradada = true;
+            }
+        }
+        long restantes = otorgados > 0 ? disponibles.addAndGet(otorgados) : disponibles.get();
+        if (otorgados > 0) {
+            aviso.run();
+        }
+        logger.debug("Cuota [{}]: pedidos [{}], otorgados [{}], disponibles [{}]", nombre, pedido, otorgados, restantes);
+        if (fallo || restantes < pedido / 2 + 1) {
+            // Balde agotado, tramo parcial o base caída: se vuelve a pedir cuando la tasa repuso un tramo,
+            // de modo que sin base la instancia no se otorga más de una parte por tramo
+            recargas.schedule(this::refill, tramoMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+        recargando.set(false);
+        if (disponibles.get() < tramo() / 2) {
+            requestRefill();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package py.com.risk.push.quota;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.bd.DBService;
+import py.com.risk.push.config.QuotaConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.IntSupplier;
+
+/**
+ * Registro de las cuotas de envío compartidas, por nombre. Las cuotas se crean al iniciar la aplicación
+ * y sus recargas se ejecutan en un único hilo.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class QuotaRegistry {
+
+    private static final Logger logger = LogManager.getLogger(QuotaRegistry.class);
+
+    private static final Map<String, ClusterQuota> CUOTAS = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService recargas;
+
+    private QuotaRegistry() {
+    }
+
+    /**
+     * Crea las cuotas configuradas y pide su primer tramo.
+     *
+     * @param configs cuotas configuradas
+     * @param db acceso a la base de las tareas de la aplicación
+     * @param nodos cantidad de instancias vivas entre las que se reparte cada tasa
+     * @param aviso acción a ejecutar cuando llegan permisos
+     */
+    public static synchronized void start(List<QuotaConfig> configs, DBService db, IntSupplier nodos, Runnable aviso) {
+        if (recargas != null) {
+            throw new IllegalStateException("Las cuotas ya fueron iniciadas");
+        }
+        recargas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cuota-recarga");
+            t.setDaemon(true);
+            return t;
+        });
+        for (QuotaConfig config : configs) {
+            ClusterQuota cuota = new ClusterQuota(config, db, recargas, nodos, aviso);
+            if (CUOTAS.putIfAbsent(cuota.getNombre(), cuota) != null) {
+                throw new IllegalArgumentException("Cuota duplicada: " + cuota.getNombre());
+            }
+            cuota.start();
+            logger.info("Cuota [{}]: [{}] envíos por segundo entre todas las instancias, ráfaga [{}], tramo [{}] ms",
+                    config.getNombre(), config.getTasaPorSegundo(), config.getRafaga(), config.getTramoMs());
+        }
+    }
+
+    /**
+     * Devuelve la cuota indicada por un servicio.
+     *
+     * @param nombre nombre de la cuota, o {@code null} si el servicio no tiene cuota
+     * @return cuota o {@code null} si el nombre es nulo
+     * @throws IllegalArgumentException si la cuota no está configurada
+     */
+    public static ClusterQuota get(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        ClusterQuota cuota = CUOTAS.get(nombre);
+        if (cuota == null) {
+            throw new IllegalArgumentException("Cuota no configurada en la seccion cuotas: " + nombre);
+        }
+        return cuota;
+    }
+
+    /**
+     * Detiene las recargas. Los permisos no consumidos se descartan.
+     */
+    public static synchronized void close() {
+        if (recargas != null) {
+            recargas.shutdownNow();
+            recargas = null;
+        }
+        CUOTAS.clear();
+    }
+}
@@ -21,7 +21,10 @@ import java.util.concurrent.ThreadFactory;
  * }</pre>
  *
  * <p>Es especialmente útil cuando se usa RoutingAppender por proveedor en aplicaciones multihilo.</p>
- * 
+ *
+ * <p>El contexto se copia una sola vez, al crear cada hilo. Para tareas cuyo contexto cambia en cada
+ * envío (por ejemplo, el {@code contador} del lote) se utiliza {@link ContextSnapshot}.</p>
+ *
  * @author Damián Meza
  * @version 1.0.0
  */
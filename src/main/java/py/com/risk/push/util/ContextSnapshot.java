@@ -0,0 +1,142 @@
+package py.com.risk.push.util;
+
+import org.apache.logging.log4j.ThreadContext;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Copia inmutable del contexto de Log4j2 ({@link ThreadContext}) que se propaga a tareas
+ * ejecutadas en otros hilos: tareas de un {@code ExecutorService}, etapas de {@code CompletableFuture}
+ * y tareas de un {@code ScheduledExecutorService}.
+ *
+ * <p>A diferencia de {@link ContextAwareThreadFactory}, que copia el contexto una sola vez al crear
+ * cada hilo, esta clase captura el contexto al momento de enviar la tarea y lo restaura en el hilo
+ * que la ejecuta. La captura se hace una vez por lote y se reutiliza para todos sus mensajes;
+ * con el mapa de contexto libre de basura de Log4j2 ({@code log4j2.garbagefreeThreadContextMap})
+ * la restauración escribe sobre el mapa del hilo sin crear uno nuevo por mensaje.</p>
+ *
+ * <pre>{@code
+ * ContextSnapshot contexto = ContextSnapshot.capture();
+ * executor.execute(contexto.wrap(() -> enviar(msg), "idMensaje", id));
+ * future.thenRunAsync(contexto.wrap(() -> enviar(msg)), executor);
+ *
+ * // Sin crear una tarea decorada por mensaje
+ * Map<String, String> anterior = contexto.attach("idMensaje", id);
+ * try {
+ *     enviar(msg);
+ * } finally {
+ *     ContextSnapshot.detach(anterior);
+ * }
+ * }</pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class ContextSnapshot {
+
+    private static final ContextSnapshot EMPTY = new ContextSnapshot(Collections.emptyMap());
+
+    private final Map<String, String> entries;
+
+    private ContextSnapshot(Map<String, String> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Captura el contexto actual del hilo que invoca.
+     *
+     * @return copia inmutable del contexto
+     */
+    public static ContextSnapshot capture() {
+        return ThreadContext.isEmpty() ? EMPTY : new ContextSnapshot(ThreadContext.getImmutableContext());
+    }
+
+    /**
+     * Devuelve una tarea que se ejecuta con este contexto.
+     *
+     * @param task tarea original
+     * @return tarea decorada
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> run(task, null, null);
+    }
+
+    /**
+     * Devuelve una tarea que se ejecuta con este contexto más una clave adicional
+     * (por ejemplo, el {@code idMensaje} de cada envío).
+     *
+     * @param task tarea original
+     * @param key clave adicional
+     * @param value valor de la clave adicional
+     * @return tarea decorada
+     */
+    public Runnable wrap(Runnable task, String key, String value) {
+        return () -> run(task, key, value);
+    }
+
+    /**
+     * Devuelve una tarea con resultado que se ejecuta con este contexto.
+     *
+     * @param task tarea original
+     * @param <T> tipo del resultado
+     * @return tarea decorada
+     */
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            Map<String, String> previous = attach(null, null);
+            try {
+                return task.call();
+            } finally {
+                detach(previous);
+            }
+        };
+    }
+
+    /**
+     * Ejecuta la tarea en el hilo actual con este contexto y restaura el contexto anterior al finalizar.
+     */
+    private void run(Runnable task, String key, String value) {
+        Map<String, String> previous = attach(key, value);
+        try {
+            task.run();
+        } finally {
+            detach(previous);
+        }
+    }
+
+    /**
+     * Instala el contexto en el hilo actual, más una clave adicional opcional. Los hilos de los pools no
+     * tienen contexto propio, por lo que solo se guarda una copia del anterior si el hilo ya tenía uno
+     * (ejecución en línea). Debe restaurarse con {@link #detach(Map)}.
+     *
+     * @param key clave adicional o {@code null}
+     * @param value valor de la clave adicional
+     * @return contexto anterior del hilo o {@code null} si no tenía
+     */
+    public Map<String, String> attach(String key, String value) {
+        Map<String, String> previous = ThreadContext.isEmpty() ? null : ThreadContext.getImmutableContext();
+        ThreadContext.clearMap();
+        if (!entries.isEmpty()) {
+            ThreadContext.putAll(entries);
+        }
+        if (key != null) {
+            ThreadContext.put(key, value);
+        }
+        return previous;
+    }
+
+    /**
+     * Restaura el contexto que tenía el hilo antes de {@link #attach(String, String)}.
+     *
+     * @param previous contexto anterior devuelto por {@code attach}
+     */
+    public static void detach(Map<String, String> previous) {
+        ThreadContext.clearMap();
+        if (previous != null) {
+            ThreadContext.putAll(previous);
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package py.com.risk.push.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plazo máximo (presupuesto de tiempo) asignado a una operación de envío.
+ *
+ * <p>Cada mensaje recibe un plazo al momento de ser despachado. Ese plazo se traslada como timeout
+ * a la llamada HTTP del proveedor (conexión y lectura), de forma que un proveedor lento no pueda
+ * retener indefinidamente a los hilos de envío. El registro del resultado en la base no usa este
+ * plazo: tiene su propio {@code queryTimeout}.</p>
+ *
+ * <p>Las instancias son inmutables y seguras para uso concurrente.</p>
+ *
+ * <pre>{@code
+ * Deadline deadline = Deadline.after(30000);
+ * conn.setConnectTimeout(deadline.remainingMillisForTimeout());
+ * conn.setReadTimeout(deadline.remainingMillisForTimeout());
+ * }</pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class Deadline {
+
+    /** Instante de vencimiento, expresado en la escala de {@link System#nanoTime()} */
+    private final long expirationNanos;
+
+    /** Duración total del plazo en milisegundos (solo informativo) */
+    private final long budgetMillis;
+
+    private Deadline(long expirationNanos, long budgetMillis) {
+        this.expirationNanos = expirationNanos;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * Crea un plazo que vence luego de la cantidad de milisegundos indicada.
+     *
+     * @param millis presupuesto de tiempo en milisegundos
+     * @return nuevo plazo
+     */
+    public static Deadline after(long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis), millis);
+    }
+
+    /**
+     * Devuelve los milisegundos restantes hasta el vencimiento.
+     *
+     * @return milisegundos restantes, o un valor menor o igual a cero si ya venció
+     */
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(expirationNanos - System.nanoTime());
+    }
+
+    /**
+     * Indica si el plazo ya venció.
+     *
+     * @return {@code true} si no queda tiempo disponible
+     */
+    public boolean isExpired() {
+        return expirationNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Devuelve el tiempo restante apto para {@code HttpURLConnection#setConnectTimeout} y
+     * {@code setReadTimeout}. Nunca retorna cero, ya que para esas APIs cero significa "sin límite".
+     *
+     * @return milisegundos restantes, como mínimo 1
+     */
+    public int remainingMillisForTimeout() {
+        return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, remainingMillis()));
+    }
+
+    /**
+     * Lanza una excepción si el plazo ya venció.
+     *
+     * @param etapa descripción de la etapa que se intenta ejecutar (para el mensaje de error)
+     * @throws DeadlineExceededException si no queda tiempo disponible
+     */
+    public void checkNotExpired(String etapa) throws DeadlineExceededException {
+        if (isExpired()) {
+            throw new DeadlineExceededException(
+                String.format("Plazo de envío de [%d] ms vencido antes de: %s", budgetMillis, etapa));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package py.com.risk.push.util;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Excepción lanzada cuando el plazo ({@link Deadline}) asignado a un envío vence
+ * antes de poder completar una etapa.
+ *
+ * <p>Se clasifica como un fallo reintentable: el mensaje vuelve a estado pendiente
+ * y será tomado nuevamente en un próximo lote.</p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public class DeadlineExceededException extends TimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message descripción del plazo vencido
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,122 @@
+package py.com.risk.push.wakeup;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.config.DataSourceConfig;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.function.Consumer;
+
+/**
+ * Recibe avisos de mensajes nuevos desde la base con {@code DBMS_ALERT}.
+ * <p>
+ * El productor que inserta en {@code t_notificaciones} señala la alerta en la misma transacción, con el
+ * destino como mensaje; la alerta se entrega solo si la transacción confirma, y Oracle combina las
+ * señales de una alerta que llegan mientras nadie espera:
+ * </p>
+ *
+ * <pre>{@code
+ * DBMS_ALERT.SIGNAL('RISK_PUSH', 'OTP');
+ * }</pre>
+ *
+ * <p>Usa una conexión propia, fuera de los pools de los servicios, ya que la espera la mantiene ocupada.
+ * Requiere {@code EXECUTE} sobre {@code DBMS_ALERT}. Si la conexión falla, se reintenta luego de una pausa.</p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class DbmsAlertWakeUpSource implements WakeUpSource {
+
+    private static final Logger logger = LogManager.getLogger(DbmsAlertWakeUpSource.class);
+
+    private static final String REGISTRAR = "BEGIN DBMS_ALERT.REGISTER(?); END;";
+    private static final String ESPERAR = "BEGIN DBMS_ALERT.WAITONE(?, ?, ?, ?); END;";
+    private static final String DESREGISTRAR = "BEGIN DBMS_ALERT.REMOVE(?); END;";
+
+    /** Espera máxima de cada llamada a WAITONE, para verificar periódicamente si se cerró */
+    private static final int ESPERA_SEG = 5;
+
+    /** Pausa antes de reconectar luego de un error */
+    private static final long REINTENTO_MS = 5000;
+
+    private final DataSourceConfig ds;
+    private final String alerta;
+    private volatile boolean cerrado;
+
+    /**
+     * @param ds configuración de la base de datos
+     * @param alerta nombre de la alerta que señalan los productores
+     */
+    public DbmsAlertWakeUpSource(DataSourceConfig ds, String alerta) {
+        this.ds = ds;
+        this.alerta = alerta;
+    }
+
+    @Override
+    public void start(Consumer<String> avisos) {
+        Thread hilo = new Thread(() -> listen(avisos), "despertar-bd");
+        hilo.setDaemon(true);
+        hilo.start();
+        logger.info("Avisos de mensajes nuevos por la alerta [{}] de la base", alerta);
+    }
+
+    private void listen(Consumer<String> avisos) {
+        while (!cerrado) {
+            try (Connection conn = DriverManager.getConnection(ds.getJdbcUrl(), ds.getUser(), ds.getPassword())) {
+                try (CallableStatement registrar = conn.prepareCall(REGISTRAR)) {
+                    registrar.setString(1, alerta);
+                    registrar.execute();
+                }
+                try (CallableStatement esperar = conn.prepareCall(ESPERAR)) {
+                    esperar.setString(1, alerta);
+                    esperar.registerOutParameter(2, Types.VARCHAR);
+                    esperar.registerOutParameter(3, Types.INTEGER);
+                    esperar.setInt(4, ESPERA_SEG);
+                    while (!cerrado) {
+                        esperar.execute();
+                        // Estado 0: alerta recibida; 1: venció la espera
+                        if (esperar.getInt(3) == 0) {
+                            avisos.accept(esperar.getString(2));
+                        }
+                    }
+                }
+                try (CallableStatement desregistrar = conn.prepareCall(DESREGISTRAR)) {
+                    desregistrar.setString(1, alerta);
+                    desregistrar.execute();
+                }
+            } catch (SQLException e) {
+                if (cerrado) {
+                    return;
+                }
+                logger.warn("Error esperando la alerta [{}], se reintenta en [{}] ms: {}", alerta, REINTENTO_MS, e.getMessage());
+                try {
+                    Thread.sleep(REINTENTO_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } catch (RuntimeException e) {
+                if (cerrado) {
+                    return;
+                }
+                logger.error("Error al procesar la alerta [{}], se reintenta en [{}] ms", alerta, REINTENTO_MS, e);
+                try {
+                    Thread.sleep(REINTENTO_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+    }
+}
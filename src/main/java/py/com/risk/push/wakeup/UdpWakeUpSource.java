@@ -0,0 +1,75 @@
+package py.com.risk.push.wakeup;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Recibe avisos de mensajes nuevos como datagramas UDP locales. El contenido del datagrama es el destino
+ * del aviso (nombre de servicio o clasificación); un datagrama vacío despierta a todos los servicios.
+ *
+ * <pre>{@code
+ * echo -n OTP > /dev/udp/127.0.0.1/9407
+ * }</pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class UdpWakeUpSource implements WakeUpSource {
+
+    private static final Logger logger = LogManager.getLogger(UdpWakeUpSource.class);
+
+    /** Tamaño máximo del destino de un aviso */
+    private static final int TAMANO_MAXIMO = 256;
+
+    private final DatagramSocket socket;
+
+    /**
+     * Abre el socket en la dirección indicada.
+     *
+     * @param host dirección en la que escucha (por ejemplo, 127.0.0.1)
+     * @param puerto puerto UDP
+     * @throws SocketException si no se puede abrir el puerto
+     */
+    public UdpWakeUpSource(String host, int puerto) throws SocketException {
+        this.socket = new DatagramSocket(new InetSocketAddress(host, puerto));
+    }
+
+    @Override
+    public void start(Consumer<String> avisos) {
+        Thread hilo = new Thread(() -> receive(avisos), "despertar-udp");
+        hilo.setDaemon(true);
+        hilo.start();
+        logger.info("Avisos de mensajes nuevos por UDP en [{}]", socket.getLocalSocketAddress());
+    }
+
+    private void receive(Consumer<String> avisos) {
+        byte[] buffer = new byte[TAMANO_MAXIMO];
+        DatagramPacket paquete = new DatagramPacket(buffer, buffer.length);
+        while (!socket.isClosed()) {
+            try {
+                paquete.setLength(buffer.length);
+                socket.receive(paquete);
+                avisos.accept(new String(buffer, 0, paquete.getLength(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    logger.warn("Error al recibir un aviso por UDP: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                logger.error("Error al procesar un aviso por UDP", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
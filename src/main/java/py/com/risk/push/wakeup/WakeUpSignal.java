@@ -0,0 +1,47 @@
+package py.com.risk.push.wakeup;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import py.com.risk.push.admin.ServiceControl;
+import py.com.risk.push.admin.ServiceControlRegistry;
+
+/**
+ * Entrega los avisos de mensajes nuevos a los servicios en ejecución.
+ * <p>
+ * El destino de un aviso es el nombre de un servicio o una clasificación: se despiertan el servicio con
+ * ese nombre y los servicios que consultan esa clasificación o todas. Un destino vacío despierta a todos.
+ * Cada servicio combina los avisos recibidos durante un lote en una sola consulta
+ * (ver {@link ServiceControl#despertar()}).
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public final class WakeUpSignal {
+
+    private static final Logger logger = LogManager.getLogger(WakeUpSignal.class);
+
+    private WakeUpSignal() {
+    }
+
+    /**
+     * Despierta a los servicios del destino indicado.
+     *
+     * @param destino nombre de servicio o clasificación; vacío o {@code null} para todos
+     * @return cantidad de servicios despertados
+     */
+    public static int signal(String destino) {
+        String filtro = destino != null ? destino.trim() : "";
+        int despertados = 0;
+        for (ServiceControl control : ServiceControlRegistry.all()) {
+            String clasificacion = control.getConfig().getClasificacion();
+            if (filtro.isEmpty() || filtro.equals(control.getNombre()) || clasificacion == null || filtro.equals(clasificacion)) {
+                control.despertar();
+                despertados++;
+            }
+        }
+        logger.debug("Aviso de mensajes nuevos [{}]: [{}] servicios despertados", filtro, despertados);
+        return despertados;
+    }
+}
@@ -0,0 +1,26 @@
+package py.com.risk.push.wakeup;
+
+import java.util.function.Consumer;
+
+/**
+ * Origen de avisos de mensajes nuevos. Cada aviso lleva su destino (nombre de servicio o clasificación,
+ * vacío para todos) y se entrega con {@link WakeUpSignal#signal(String)}.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+public interface WakeUpSource extends AutoCloseable {
+
+    /**
+     * Comienza a recibir avisos en un hilo propio.
+     *
+     * @param avisos receptor del destino de cada aviso
+     */
+    void start(Consumer<String> avisos);
+
+    /**
+     * Deja de recibir avisos y libera sus recursos.
+     */
+    @Override
+    void close();
+}
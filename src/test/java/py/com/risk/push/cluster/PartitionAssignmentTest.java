@@ -0,0 +1,144 @@
+package py.com.risk.push.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica el reparto de particiones entre instancias y cuántas cambian de dueño cuando una instancia
+ * se suma o se retira.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+class PartitionAssignmentTest {
+
+    private static final int PARTICIONES = 1024;
+
+    @Test
+    void cadaParticionTieneUnSoloDueno() {
+        List<String> vivas = nodos(5);
+        List<PartitionAssignment> asignaciones = new ArrayList<>();
+        for (String nodo : vivas) {
+            asignaciones.add(new PartitionAssignment(PARTICIONES, vivas, nodo));
+        }
+        for (int p = 0; p < PARTICIONES; p++) {
+            int duenos = 0;
+            for (PartitionAssignment asignacion : asignaciones) {
+                if (asignacion.owns(p)) {
+                    duenos++;
+                }
+            }
+            assertEquals(1, duenos, "particion " + p);
+        }
+    }
+
+    @Test
+    void repartoIndependienteDelOrdenDeLasInstancias() {
+        List<String> vivas = nodos(4);
+        List<String> invertidas = new ArrayList<>(vivas);
+        Collections.reverse(invertidas);
+        for (String nodo : vivas) {
+            assertEquals(new PartitionAssignment(PARTICIONES, vivas, nodo),
+                    new PartitionAssignment(PARTICIONES, invertidas, nodo));
+        }
+    }
+
+    @Test
+    void repartoParejo() {
+        for (int n = 2; n <= 8; n++) {
+            List<String> vivas = nodos(n);
+            for (String nodo : vivas) {
+                int propias = new PartitionAssignment(PARTICIONES, vivas, nodo).getPropias();
+                double esperadas = (double) PARTICIONES / n;
+                assertTrue(Math.abs(propias - esperadas) < esperadas * 0.25,
+                        nodo + " atiende " + propias + " de " + PARTICIONES + " con " + n + " instancias");
+            }
+        }
+    }
+
+    @Test
+    void alSumarseUnaInstanciaSoloSeMuevenSusParticiones() {
+        for (int n = 1; n < 8; n++) {
+            List<String> antes = nodos(n);
+            List<String> despues = nodos(n + 1);
+            String nueva = despues.get(n);
+            int movidas = 0;
+            for (int p = 0; p < PARTICIONES; p++) {
+                String dueno = PartitionAssignment.owner(p, antes);
+                String nuevoDueno = PartitionAssignment.owner(p, despues);
+                if (!dueno.equals(nuevoDueno)) {
+                    assertEquals(nueva, nuevoDueno, "particion " + p + " movida entre instancias existentes");
+                    movidas++;
+                }
+            }
+            assertMovidasCercaDe(movidas, PARTICIONES / (n + 1));
+        }
+    }
+
+    @Test
+    void alRetirarseUnaInstanciaSoloSeMuevenSusParticiones() {
+        for (int n = 2; n <= 8; n++) {
+            List<String> antes = nodos(n);
+            for (String retirada : antes) {
+                List<String> despues = new ArrayList<>(antes);
+                despues.remove(retirada);
+                int movidas = 0;
+                for (int p = 0; p < PARTICIONES; p++) {
+                    String dueno = PartitionAssignment.owner(p, antes);
+                    if (!dueno.equals(PartitionAssignment.owner(p, despues))) {
+                        assertEquals(retirada, dueno, "particion " + p + " movida entre instancias que siguen vivas");
+                        movidas++;
+                    }
+                }
+                assertEquals(new PartitionAssignment(PARTICIONES, antes, retirada).getPropias(), movidas);
+                assertMovidasCercaDe(movidas, PARTICIONES / n);
+            }
+        }
+    }
+
+    @Test
+    void mascaraCoincideConLasParticionesPropias() {
+        List<String> vivas = nodos(3);
+        PartitionAssignment asignacion = new PartitionAssignment(PARTICIONES, vivas, vivas.get(1));
+        String mascara = asignacion.getMascara();
+        assertEquals(PARTICIONES, mascara.length());
+        for (int p = 0; p < PARTICIONES; p++) {
+            assertEquals(asignacion.owns(p), mascara.charAt(p) == '1');
+        }
+        assertFalse(asignacion.isCompleta());
+    }
+
+    @Test
+    void instanciaSolaAtiendeTodo() {
+        assertTrue(PartitionAssignment.UNICA.isCompleta());
+        assertTrue(new PartitionAssignment(PARTICIONES, Arrays.asList("unica"), "unica").isCompleta());
+    }
+
+    @Test
+    void instanciaNoVivaEsInvalida() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PartitionAssignment(PARTICIONES, nodos(2), "otra"));
+    }
+
+    private static void assertMovidasCercaDe(int movidas, int esperadas) {
+        assertTrue(Math.abs(movidas - esperadas) < esperadas * 0.25,
+                movidas + " particiones movidas, se esperaban cerca de " + esperadas);
+    }
+
+    private static List<String> nodos(int cantidad) {
+        List<String> nodos = new ArrayList<>();
+        for (int i = 1; i <= cantidad; i++) {
+            nodos.add("risk-push-" + i + ".banco.local");
+        }
+        return nodos;
+    }
+}
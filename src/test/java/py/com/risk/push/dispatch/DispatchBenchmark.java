@@ -0,0 +1,115 @@
+package py.com.risk.push.dispatch;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import py.com.risk.push.model.ModoEnvioLote;
+import py.com.risk.push.model.PushMessage;
+import py.com.risk.push.util.ContextSnapshot;
+
+/**
+ * Microbenchmark JMH del traspaso de mensajes a los hilos de envío: la {@link DispatchLane} sobre
+ * {@link MpscRingBuffer} frente a un {@link ExecutorService} con una tarea decorada por mensaje,
+ * como se hacía antes del despachador compartido.
+ * <p>
+ * Cada operación es un mensaje; cada invocación publica un lote de {@value #LOTE} mensajes desde
+ * cada uno de los cuatro hilos productores y espera a que todos se envíen. El envío consume un trabajo fijo de CPU
+ * para que el costo medido sea el del traspaso.
+ * </p>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class DispatchBenchmark {
+
+    /** Mensajes por lote publicado */
+    static final int LOTE = 1000;
+
+    /** Trabajo de CPU simulado por envío (unidades de {@link Blackhole#consumeCPU(long)}) */
+    private static final long TRABAJO_ENVIO = 50;
+
+    /** Hilos de envío del despachador y del executor */
+    @Param({"4", "16"})
+    public int hilos;
+
+    private DispatchLane lane;
+    private ExecutorService executor;
+    private List<PushMessage> mensajes;
+    private ContextSnapshot contexto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mensajes = new ArrayList<>(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            mensajes.add(new PushMessage(BigDecimal.valueOf(i), "token-" + i, "titulo", "cuerpo", null, null,
+                    "transaccional", 0));
+        }
+        contexto = ContextSnapshot.capture();
+        // El despachador es global; cada combinación de parámetros corre en su propia JVM (fork)
+        Dispatcher dispatcher = Dispatcher.start(hilos);
+        lane = dispatcher.lane("benchmark-" + hilos, (mensaje, ctx) -> Blackhole.consumeCPU(TRABAJO_ENVIO),
+                LOTE * 4, 1, 0, hilos);
+        executor = Executors.newFixedThreadPool(hilos);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lane.close();
+        Dispatcher.get().shutdown();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public void ringBuffer() throws InterruptedException {
+        CountDownLatch lote = new CountDownLatch(LOTE);
+        lane.submit(mensajes, contexto, lote, ModoEnvioLote.paralelo, 0);
+        lote.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public void executor() throws InterruptedException {
+        CountDownLatch lote = new CountDownLatch(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            PushMessage mensaje = mensajes.get(i);
+            executor.execute(contexto.wrap(() -> {
+                try {
+                    Blackhole.consumeCPU(TRABAJO_ENVIO);
+                } finally {
+                    lote.countDown();
+                }
+            }, "idMensaje", mensaje.getIdMensaje().toPlainString()));
+        }
+        lote.await();
+    }
+}
@@ -0,0 +1,87 @@
+package py.com.risk.push.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifica la aplicación de los resultados de una ejecución anterior y la respuesta de
+ * {@link ResultJournal#append(JournalRecord)} cuando el resultado no llega al disco.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+class ResultJournalTest {
+
+    private static final int SEGMENTO = 64 * 1024;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void replayAplicaLosResultadosPendientesEnOrden() throws Exception {
+        ResultJournal diario = open();
+        diario.start(registros -> {
+            throw new SQLException("base no disponible");
+        });
+        int cantidad = 2000;
+        for (int i = 0; i < cantidad; i++) {
+            assertTrue(diario.append(record(i)));
+        }
+        assertFalse(diario.close(50));
+
+        List<JournalRecord> aplicados = new ArrayList<>();
+        ResultJournal reabierto = open();
+        try {
+            assertEquals(cantidad, reabierto.replay(aplicados::addAll));
+            assertTrue(reabierto.isApplied());
+        } finally {
+            reabierto.close(0);
+        }
+        assertEquals(cantidad, aplicados.size());
+        for (int i = 0; i < cantidad; i++) {
+            assertEquals(BigDecimal.valueOf(i), aplicados.get(i).getIdMensaje());
+            assertEquals("risk-push-1", aplicados.get(i).getPropietario());
+        }
+
+        ResultJournal aplicado = open();
+        try {
+            assertEquals(0, aplicado.replay(registros -> {
+                throw new AssertionError("no quedan resultados por aplicar");
+            }));
+        } finally {
+            aplicado.close(0);
+        }
+    }
+
+    @Test
+    void appendInterrumpidoNoConfirmaElResultado() throws Exception {
+        // Sin start() no hay hilo de sincronización: el registro nunca se confirma
+        ResultJournal diario = open();
+        try {
+            Thread.currentThread().interrupt();
+            assertFalse(diario.append(record(1)));
+            assertTrue(Thread.interrupted());
+        } finally {
+            diario.close(0);
+        }
+    }
+
+    private ResultJournal open() throws Exception {
+        return new ResultJournal(directorio, SEGMENTO, 64L * SEGMENTO, 1, 10);
+    }
+
+    private static JournalRecord record(int id) {
+        return new JournalRecord(BigDecimal.valueOf(id), "E", "200", "respuesta " + id, "externo-" + id, 3,
+                System.currentTimeMillis(), "risk-push-1");
+    }
+}
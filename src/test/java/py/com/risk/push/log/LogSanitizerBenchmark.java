@@ -0,0 +1,80 @@
+package py.com.risk.push.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmark JMH que compara {@link LogSanitizer} con la implementación original
+ * basada en cinco expresiones regulares aplicadas en secuencia.
+ * <p>
+ * Ejecución (ver README, sección "Pruebas y benchmarks"):
+ * <pre>{@code
+ *   java -cp <classpath de pruebas> org.openjdk.jmh.Main LogSanitizerBenchmark
+ * }</pre>
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogSanitizerBenchmark {
+
+    /** Mensaje típico de log: sin datos sensibles, con una tarjeta o con varios datos */
+    @Param({
+        "Enviando notificacion 123 al dispositivo de la plataforma ANDROID con prioridad alta",
+        "Pago con tarjeta 4111-1111-1111-1111 aprobado para el cliente",
+        "Tu codigo es 654321 y el monto es 1.000.000, correo juan.perez@banco.com.py"
+    })
+    public String mensaje;
+
+    private static final Pattern CONTEXTUAL_OTP_PATTERN = Pattern.compile(
+        "(?i)\\b(?:codigo|otp|code|clave|password|pin)\\b[^\\d]{0,100}?(\\d{4,8})"
+    );
+
+    private static final Pattern CARD_PATTERN = Pattern.compile("\\b(?:\\d{4}[-\\s]?){3}\\d{4}\\b");
+
+    private static final Pattern MONTO_PATTERN = Pattern.compile("\\b\\d{1,3}(?:[.,]\\d{3})+(?:[.,]\\d{2})?\\b");
+
+    private static final Pattern DOCUMENTO_PATTERN = Pattern.compile("\\b\\d{1,3}(?:[.,]\\d{3})+\\b");
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+");
+
+    @Benchmark
+    public String automata() {
+        return LogSanitizer.sanitize(mensaje);
+    }
+
+    @Benchmark
+    public String expresionesRegulares() {
+        String sanitized = mensaje;
+        sanitized = CARD_PATTERN.matcher(sanitized).replaceAll("**** **** **** ****");
+        sanitized = EMAIL_PATTERN.matcher(sanitized).replaceAll("****@****");
+        sanitized = MONTO_PATTERN.matcher(sanitized).replaceAll("****");
+        sanitized = DOCUMENTO_PATTERN.matcher(sanitized).replaceAll("****");
+
+        Matcher matcher = CONTEXTUAL_OTP_PATTERN.matcher(sanitized);
+        StringBuilder buffer = new StringBuilder();
+        while (matcher.find()) {
+            String match = matcher.group();
+            matcher.appendReplacement(buffer, Matcher.quoteReplacement(match.replaceAll("\\d{4,8}", "****")));
+        }
+        matcher.appendTail(buffer);
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,130 @@
+package py.com.risk.push.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica que {@link LogSanitizer} produzca exactamente el mismo resultado que la
+ * implementación original basada en expresiones regulares.
+ *
+ * @author Damián Meza
+ * @version 1.0.0
+ */
+class LogSanitizerTest {
+
+    /** Cantidad de mensajes aleatorios comparados contra la implementación de referencia */
+    private static final int CASOS_ALEATORIOS = 200_000;
+
+    /**
+     * Fragmentos con los que se arman los mensajes aleatorios; combinan separadores,
+     * palabras clave y casos límite de límites de palabra.
+     */
+    private static final String[] FRAGMENTOS = {
+        "codigo", "CODE", "Otp", "clave", "password", "pin", "pinza", "xcode", "ñ", "é",
+        "1", "12", "123", "1234", "12345", "123456", "1234567", "123456789",
+        ".", ",", "-", " ", "  ", "\t", "\n", ":", "@", "_", "+", "$", "\\",
+        "a", "Z", "mail", "x.y", "dominio.com", "4111", "000", ".000", ",00", "1.000", "1,000.50"
+    };
+
+    @Test
+    void casosConocidos() {
+        String[] casos = {
+            "Tu codigo es 654321 y el monto es 1.000.000, tarjeta 4111-1111-1111-1111",
+            "tarjeta 4111111111111111 vence pronto",
+            "tarjeta 4111 1111 1111 1111",
+            "tarjeta 41111-1111-1111-1111",
+            "correo juan.perez+push@banco.com.py enviado",
+            "documento 1.234.567 monto 1,000.00",
+            "PIN: 1234, OTP=12345678, code 123456789",
+            "clave $1234 y password \\5678",
+            "Mensaje sin datos sensibles",
+            "",
+            "pinza 1234",
+            "codigo" + " ".repeat(100) + "1234",
+            "codigo" + " ".repeat(101) + "1234",
+        };
+        for (String caso : casos) {
+            assertEquals(referencia(caso), LogSanitizer.sanitize(caso), caso);
+        }
+    }
+
+    @Test
+    void equivalenteAExpresionesRegulares() {
+        Random random = new Random(20240627L);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < CASOS_ALEATORIOS; i++) {
+            sb.setLength(0);
+            int partes = 1 + random.nextInt(20);
+            for (int j = 0; j < partes; j++) {
+                sb.append(FRAGMENTOS[random.nextInt(FRAGMENTOS.length)]);
+            }
+            String mensaje = sb.toString();
+            assertEquals(referencia(mensaje), LogSanitizer.sanitize(mensaje), mensaje);
+        }
+    }
+
+    @Test
+    void sinDatosSensiblesDevuelveLaMismaInstancia() {
+        String mensaje = "Notificacion enviada al dispositivo";
+        assertSame(mensaje, LogSanitizer.sanitize(mensaje));
+        assertNull(LogSanitizer.sanitize(null));
+    }
+
+    @Test
+    void sanitizaBufferDesdePosicion() {
+        String prefijo = "1234 ";
+        String mensaje = "codigo 654321 tarjeta 4111-1111-1111-1111";
+        StringBuilder buffer = new StringBuilder(prefijo).append(mensaje);
+
+        assertTrue(LogSanitizer.sanitize(buffer, prefijo.length()));
+        assertEquals(prefijo + referencia(mensaje), buffer.toString());
+
+        StringBuilder limpio = new StringBuilder("codigo 1234 sin datos");
+        assertFalse(LogSanitizer.sanitize(limpio, 12));
+        assertEquals("codigo 1234 sin datos", limpio.toString());
+    }
+
+    /**
+     * Implementación original con expresiones regulares, usada como referencia.
+     * La única diferencia es que el reemplazo del OTP se escapa con
+     * {@link Matcher#quoteReplacement(String)}: la original lanzaba una excepción
+     * cuando el texto coincidente contenía '$' o '\'.
+     */
+    private static String referencia(String message) {
+        String sanitized = message;
+        sanitized = CARD_PATTERN.matcher(sanitized).replaceAll("**** **** **** ****");
+        sanitized = EMAIL_PATTERN.matcher(sanitized).replaceAll("****@****");
+        sanitized = MONTO_PATTERN.matcher(sanitized).replaceAll("****");
+        sanitized = DOCUMENTO_PATTERN.matcher(sanitized).replaceAll("****");
+
+        Matcher matcher = CONTEXTUAL_OTP_PATTERN.matcher(sanitized);
+        StringBuilder buffer = new StringBuilder();
+        while (matcher.find()) {
+            String match = matcher.group();
+            matcher.appendReplacement(buffer, Matcher.quoteReplacement(match.replaceAll("\\d{4,8}", "****")));
+        }
+        matcher.appendTail(buffer);
+        return buffer.toString();
+    }
+
+    private static final Pattern CONTEXTUAL_OTP_PATTERN = Pattern.compile(
+        "(?i)\\b(?:codigo|otp|code|clave|password|pin)\\b[^\\d]{0,100}?(\\d{4,8})"
+    );
+
+    private static final Pattern CARD_PATTERN = Pattern.compile("\\b(?:\\d{4}[-\\s]?){3}\\d{4}\\b");
+
+    private static final Pattern MONTO_PATTERN = Pattern.compile("\\b\\d{1,3}(?:[.,]\\d{3})+(?:[.,]\\d{2})?\\b");
+
+    private static final Pattern DOCUMENTO_PATTERN = Pattern.compile("\\b\\d{1,3}(?:[.,]\\d{3})+\\b");
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+");
+}